@@ -39,6 +39,8 @@ import java.util.Collection;
  * Attributgruppenverwendungen zu filtern, sodass weitere Rechteprüfungen durchgeführt werden können (beispielsweise ob ein Benutzer berechtigt ist,
  * Konfigurationsänderungen auszuführen oder Archivanfragen zu stellen. Diese Prüfungen sind in der Konfiguration oder im Archivsystem mangels Authentifizierung
  * nicht möglich).
+ * <p>
+ * Plugins, die die Datensätze ohne Umweg über Data-Objekte prüfen wollen, können stattdessen {@link RawAccessControlPlugin} implementieren.
  *
  * @author Kappich Systemberatung
  * @version $Revision: 0000 $
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.dav.communication.accessControl;
+
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.dav.util.LatencyStatistics;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Führt die Zugriffssteuerungs-Plugins aus und erfasst je Plugin die Bearbeitungsdauer. Ist ein Zeitlimit angegeben, laufen die Plugins in
+ * einem begrenzten Thread-Pool, der aufrufende Thread wartet höchstens bis zum Ablauf des Zeitlimits auf das Ergebnis. Da der aufrufende Thread
+ * wartet, bleibt die Reihenfolge der Datensätze einer Verbindung erhalten; ein hängendes Plugin blockiert die Verbindung aber nur noch für die
+ * Dauer des Zeitlimits.
+ * <p>
+ * Wird das Zeitlimit überschritten oder sind alle Threads und Warteplätze belegt, wird eine {@link AccessControlPluginTimeoutException} geworfen
+ * und der Datensatz muss verworfen werden. Das Plugin wird dabei unterbrochen.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public final class AccessControlPluginExecutor {
+
+	/** Maximale Anzahl wartender Aufrufe */
+	private static final int QUEUE_SIZE = 1024;
+
+	/** Zeitlimit in Millisekunden, 0 falls die Plugins im aufrufenden Thread ausgeführt werden */
+	private final long _timeout;
+
+	private final ThreadPoolExecutor _executor;
+
+	private final ConcurrentHashMap<AccessControlPlugin, PluginStatistics> _statistics = new ConcurrentHashMap<AccessControlPlugin, PluginStatistics>();
+
+	/**
+	 * Erstellt einen neuen AccessControlPluginExecutor
+	 *
+	 * @param timeout Zeitlimit je Aufruf in Millisekunden, 0 führt die Plugins ohne Zeitlimit im aufrufenden Thread aus
+	 * @param threads Anzahl Threads für die Ausführung mit Zeitlimit
+	 */
+	public AccessControlPluginExecutor(final long timeout, final int threads) {
+		_timeout = timeout;
+		if(timeout > 0) {
+			_executor = new ThreadPoolExecutor(
+					threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(QUEUE_SIZE),
+					new ThreadFactory() {
+						@Override
+						public Thread newThread(final Runnable r) {
+							final Thread thread = new Thread(r, "Zugriffssteuerungs-Plugin");
+							thread.setDaemon(true);
+							return thread;
+						}
+					},
+					new ThreadPoolExecutor.AbortPolicy()
+			);
+			_executor.allowCoreThreadTimeOut(true);
+		}
+		else {
+			_executor = null;
+		}
+	}
+
+	/**
+	 * Ruft {@link AccessControlPlugin#handleData(long, BaseSubscriptionInfo, Data)} auf
+	 *
+	 * @param plugin               Plugin
+	 * @param userId               Benutzer-ID
+	 * @param baseSubscriptionInfo Anmeldung
+	 * @param data                 Datensatz
+	 *
+	 * @return Ergebnis des Plugins
+	 *
+	 * @throws AccessControlPluginTimeoutException falls das Plugin nicht rechtzeitig fertig wurde
+	 */
+	Data handleData(final AccessControlPlugin plugin, final long userId, final BaseSubscriptionInfo baseSubscriptionInfo, final Data data) {
+		return execute(
+				plugin, new Callable<Data>() {
+					@Override
+					public Data call() {
+						return plugin.handleData(userId, baseSubscriptionInfo, data);
+					}
+				}
+		);
+	}
+
+	/**
+	 * Ruft {@link RawAccessControlPlugin#handleRawData(long, BaseSubscriptionInfo, RawDataset)} auf
+	 *
+	 * @param plugin               Plugin
+	 * @param userId               Benutzer-ID
+	 * @param baseSubscriptionInfo Anmeldung
+	 * @param dataset              Datensatz
+	 *
+	 * @return Ergebnis des Plugins
+	 *
+	 * @throws AccessControlPluginTimeoutException falls das Plugin nicht rechtzeitig fertig wurde
+	 */
+	RawDataVerdict handleRawData(
+			final RawAccessControlPlugin plugin, final long userId, final BaseSubscriptionInfo baseSubscriptionInfo, final RawDataset dataset) {
+		return execute(
+				plugin, new Callable<RawDataVerdict>() {
+					@Override
+					public RawDataVerdict call() {
+						return plugin.handleRawData(userId, baseSubscriptionInfo, dataset);
+					}
+				}
+		);
+	}
+
+	private <T> T execute(final AccessControlPlugin plugin, final Callable<T> call) {
+		final PluginStatistics statistics = getStatistics(plugin);
+		final FutureTask<T> task = new FutureTask<T>(
+				new Callable<T>() {
+					@Override
+					public T call() throws Exception {
+						final long start = System.nanoTime();
+						try {
+							return call.call();
+						}
+						finally {
+							statistics._latency.recordSince(start);
+						}
+					}
+				}
+		);
+		if(_executor == null) {
+			task.run();
+			return getResult(task);
+		}
+		try {
+			_executor.execute(task);
+		}
+		catch(RejectedExecutionException e) {
+			statistics._rejected.incrementAndGet();
+			throw new AccessControlPluginTimeoutException("Zugriffssteuerungs-Plugin " + statistics._name + " konnte nicht ausgeführt werden, alle Threads sind belegt");
+		}
+		try {
+			task.get(_timeout, TimeUnit.MILLISECONDS);
+		}
+		catch(TimeoutException e) {
+			task.cancel(true);
+			statistics._timeouts.incrementAndGet();
+			throw new AccessControlPluginTimeoutException(
+					"Zugriffssteuerungs-Plugin " + statistics._name + " hat den Datensatz nicht innerhalb von " + _timeout + " ms bearbeitet"
+			);
+		}
+		catch(InterruptedException e) {
+			task.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new AccessControlPluginTimeoutException("Unterbrochen beim Warten auf das Zugriffssteuerungs-Plugin " + statistics._name);
+		}
+		catch(ExecutionException ignored) {
+			// wird von getResult() ausgewertet
+		}
+		return getResult(task);
+	}
+
+	private static <T> T getResult(final FutureTask<T> task) {
+		try {
+			return task.get();
+		}
+		catch(InterruptedException e) {
+			// Die Aufgabe ist bereits abgeschlossen
+			throw new IllegalStateException(e);
+		}
+		catch(ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if(cause instanceof Error) throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	private PluginStatistics getStatistics(final AccessControlPlugin plugin) {
+		PluginStatistics statistics = _statistics.get(plugin);
+		if(statistics == null) {
+			statistics = new PluginStatistics(plugin.getClass().getName());
+			final PluginStatistics previous = _statistics.putIfAbsent(plugin, statistics);
+			if(previous != null) statistics = previous;
+		}
+		return statistics;
+	}
+
+	/**
+	 * Gibt je Plugin die Perzentile der Bearbeitungsdauer sowie die Anzahl der Zeitüberschreitungen und abgewiesenen Aufrufe als Text zurück
+	 *
+	 * @return Text für Debug-Ausgaben
+	 */
+	public String getStatistics() {
+		final StringBuilder result = new StringBuilder("Zugriffssteuerungs-Plugins");
+		result.append(_timeout > 0 ? " (Zeitlimit " + _timeout + " ms):" : " (ohne Zeitlimit):");
+		for(final PluginStatistics statistics : _statistics.values()) {
+			result.append("\n").append(statistics._latency);
+			result.append(", Zeitüberschreitungen=").append(statistics._timeouts.get());
+			result.append(", abgewiesen=").append(statistics._rejected.get());
+		}
+		return result.toString();
+	}
+
+	private static final class PluginStatistics {
+
+		private final String _name;
+
+		private final LatencyStatistics _latency;
+
+		private final AtomicLong _timeouts = new AtomicLong();
+
+		private final AtomicLong _rejected = new AtomicLong();
+
+		private PluginStatistics(final String name) {
+			_name = name;
+			_latency = new LatencyStatistics(name);
+		}
+	}
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.dav.communication.accessControl;
+
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.ApplicationDataTelegram;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
+
+import java.util.*;
+
+/**
+ * Zwischenspeicher für die Ergebnisse der Zugriffssteuerungs-Plugins. Wird ein Datensatz mit gleicher Datenidentifikation und gleichem
+ * Datenindex für den gleichen Benutzer erneut gefiltert (z.B. bei erneut übertragenen Datensätzen oder mehreren Verbindungen eines Benutzers),
+ * wird das vorherige Ergebnis zurückgegeben, ohne die Plugins erneut aufzurufen. Ein Treffer setzt zusätzlich voraus, dass die Nutzdaten und
+ * der Datenzeitstempel übereinstimmen, sodass Datensätze mit gleichem Datenindex aber anderem Inhalt (z.B. von Applikationen, deren Datenindex
+ * noch nicht vom Zentraldatenverteiler vergeben wurde) nicht verwechselt werden.
+ * <p>
+ * Da die Telegramme bei der Verteilung verändert werden (Datenindex), werden von den Plugins ersetzte Telegramme als Kopie gespeichert und bei
+ * jedem Treffer erneut kopiert. Haben die Plugins den Datensatz unverändert gelassen, werden die übergebenen Telegramme selbst zurückgegeben.
+ * <p>
+ * Der Speicher enthält höchstens die im Konstruktor angegebene Anzahl Einträge, bei Überschreitung werden die am längsten nicht benutzten
+ * Einträge verdrängt. Ändern sich die Rechte eines Benutzers, sind seine Einträge mit {@link #invalidateUser(long)} zu verwerfen.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public final class AccessControlResultCache {
+
+	private final int _maxEntries;
+
+	private final LinkedHashMap<Key, CachedResult> _entries;
+
+	private long _hits = 0;
+
+	private long _misses = 0;
+
+	private long _evicted = 0;
+
+	/**
+	 * Erstellt einen neuen Zwischenspeicher
+	 *
+	 * @param maxEntries Maximale Anzahl gespeicherter Ergebnisse
+	 */
+	public AccessControlResultCache(final int maxEntries) {
+		if(maxEntries <= 0) throw new IllegalArgumentException("maxEntries muss positiv sein: " + maxEntries);
+		_maxEntries = maxEntries;
+		_entries = new LinkedHashMap<Key, CachedResult>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Key, CachedResult> eldest) {
+				if(size() > _maxEntries) {
+					_evicted++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Gibt das gespeicherte Ergebnis für einen Datensatz zurück
+	 *
+	 * @param telegrams Zusammengehörige Telegramme des Datensatzes
+	 * @param userId    Benutzer, für den gefiltert wird
+	 *
+	 * @return Ergebnis von {@link AccessControlUtil#handleApplicationDataTelegram(List, Collection, long, de.bsvrz.dav.daf.main.config.DataModel)}
+	 *         oder null, falls kein passendes Ergebnis gespeichert ist
+	 */
+	public synchronized List<ApplicationDataTelegram> get(final List<ApplicationDataTelegram> telegrams, final long userId) {
+		final CachedResult entry = _entries.get(new Key(telegrams.get(0), userId));
+		if(entry != null && entry.matches(telegrams)) {
+			_hits++;
+			return entry.getResult(telegrams);
+		}
+		_misses++;
+		return null;
+	}
+
+	/**
+	 * Speichert das Ergebnis der Plugins für einen Datensatz
+	 *
+	 * @param telegrams Zusammengehörige Telegramme des Datensatzes, wie sie den Plugins übergeben wurden
+	 * @param userId    Benutzer, für den gefiltert wurde
+	 * @param result    Ergebnis der Plugins (leere Liste, falls der Datensatz verworfen wurde). Muss gespeichert werden, bevor die Telegramme
+	 *                  verteilt werden.
+	 */
+	public synchronized void put(final List<ApplicationDataTelegram> telegrams, final long userId, final List<ApplicationDataTelegram> result) {
+		_entries.put(new Key(telegrams.get(0), userId), new CachedResult(telegrams, result));
+	}
+
+	/**
+	 * Verwirft alle Einträge eines Benutzers, z.B. weil sich seine Rechte geändert haben
+	 *
+	 * @param userId Benutzer-Id
+	 */
+	public synchronized void invalidateUser(final long userId) {
+		final Iterator<Key> iterator = _entries.keySet().iterator();
+		while(iterator.hasNext()) {
+			if(iterator.next()._userId == userId) iterator.remove();
+		}
+	}
+
+	/** Verwirft alle Einträge */
+	public synchronized void clear() {
+		_entries.clear();
+	}
+
+	/**
+	 * Gibt die Trefferquote und die Anzahl gespeicherter und verdrängter Einträge als Text zurück
+	 *
+	 * @return Text für Debug-Ausgaben
+	 */
+	public synchronized String getStatistics() {
+		final long requests = _hits + _misses;
+		return "Zwischenspeicher Zugriffssteuerungs-Plugins: " + _entries.size() + " Einträge, " + _hits + " Treffer, " + _misses
+				+ " Fehlversuche (Trefferquote " + (requests == 0 ? 0 : _hits * 100 / requests) + "%), " + _evicted + " verdrängt";
+	}
+
+	private static final class Key {
+
+		private final BaseSubscriptionInfo _baseSubscriptionInfo;
+
+		private final long _dataIndex;
+
+		private final long _userId;
+
+		private Key(final ApplicationDataTelegram telegram, final long userId) {
+			_baseSubscriptionInfo = telegram.getBaseSubscriptionInfo();
+			_dataIndex = telegram.getDataNumber();
+			_userId = userId;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if(this == o) return true;
+			if(!(o instanceof Key)) return false;
+			final Key other = (Key)o;
+			return _dataIndex == other._dataIndex && _userId == other._userId && _baseSubscriptionInfo.equals(other._baseSubscriptionInfo);
+		}
+
+		@Override
+		public int hashCode() {
+			int result = _baseSubscriptionInfo.hashCode();
+			result = 31 * result + (int)(_dataIndex ^ (_dataIndex >>> 32));
+			result = 31 * result + (int)(_userId ^ (_userId >>> 32));
+			return result;
+		}
+	}
+
+	private static final class CachedResult {
+
+		private final long _dataTime;
+
+		private final byte _errorFlag;
+
+		private final byte[][] _data;
+
+		/** Kopien der von den Plugins erzeugten Telegramme oder null, falls der Datensatz unverändert blieb */
+		private final ApplicationDataTelegram[] _result;
+
+		private CachedResult(final List<ApplicationDataTelegram> telegrams, final List<ApplicationDataTelegram> result) {
+			_dataTime = telegrams.get(0).getDataTime();
+			_errorFlag = telegrams.get(0).getErrorFlag();
+			_data = new byte[telegrams.size()][];
+			for(int i = 0; i < _data.length; i++) {
+				_data[i] = telegrams.get(i).getData();
+			}
+			_result = result == telegrams ? null : copy(result);
+		}
+
+		private List<ApplicationDataTelegram> getResult(final List<ApplicationDataTelegram> telegrams) {
+			if(_result == null) return telegrams;
+			return Arrays.asList(copy(Arrays.asList(_result)));
+		}
+
+		private static ApplicationDataTelegram[] copy(final List<ApplicationDataTelegram> telegrams) {
+			final ApplicationDataTelegram[] result = new ApplicationDataTelegram[telegrams.size()];
+			for(int i = 0; i < result.length; i++) {
+				final ApplicationDataTelegram telegram = telegrams.get(i);
+				result[i] = new ApplicationDataTelegram(
+						telegram.getBaseSubscriptionInfo(),
+						telegram.getDataNumber(),
+						telegram.getDelayedDataFlag(),
+						telegram.getErrorFlag(),
+						telegram.getAttributesIndicator(),
+						telegram.getData(),
+						telegram.getTotalTelegramsCount(),
+						telegram.getTelegramNumber(),
+						telegram.getDataTime()
+				);
+			}
+			return result;
+		}
+
+		private boolean matches(final List<ApplicationDataTelegram> telegrams) {
+			if(telegrams.size() != _data.length) return false;
+			final ApplicationDataTelegram first = telegrams.get(0);
+			if(first.getDataTime() != _dataTime || first.getErrorFlag() != _errorFlag) return false;
+			for(int i = 0; i < _data.length; i++) {
+				if(!Arrays.equals(_data[i], telegrams.get(i).getData())) return false;
+			}
+			return true;
+		}
+	}
+}
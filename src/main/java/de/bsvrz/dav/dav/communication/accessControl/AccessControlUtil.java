@@ -45,12 +45,18 @@ import java.util.*;
  * und macht aus der Rückgabe der Plugins wieder ein Array aus Telegrammen. Diese Klasse verwendet Telegramme vom Typ ApplicationDataTelegram. Soll ein
  * TransmitterDataTelegram benutzt werden ist dieses vorher mit {@link de.bsvrz.dav.daf.communication.lowLevel.telegrams.TransmitterDataTelegram#getApplicationDataTelegram()
  * } zu konvertieren.
+ * <p>
+ * Für {@link RawAccessControlPlugin}s wird kein Data-Objekt erzeugt. Solange kein Plugin den Datensatz ersetzt, werden die ursprünglichen
+ * Telegramme unverändert zurückgegeben, ohne dass die Daten deserialisiert oder neu zerlegt werden.
  *
  * @author Kappich Systemberatung
  * @version $Revision: 8953 $
  */
 public final class AccessControlUtil {
 
+	/** Führt die Plugins ohne Zeitlimit im aufrufenden Thread aus */
+	private static final AccessControlPluginExecutor DIRECT_EXECUTOR = new AccessControlPluginExecutor(0, 0);
+
 	/**
 	 * Verarbeitet zusammengehörige Telegramme durch die Plugins
 	 *
@@ -66,84 +72,134 @@ public final class AccessControlUtil {
 			final Collection<AccessControlPlugin> accessControlPlugins,
 			final long userId,
 			final DataModel dataModel) {
+		return handleApplicationDataTelegram(telegrams, accessControlPlugins, userId, dataModel, DIRECT_EXECUTOR);
+	}
+
+	/**
+	 * Verarbeitet zusammengehörige Telegramme durch die Plugins, die Plugins werden dabei über den angegebenen Executor aufgerufen
+	 *
+	 * @param telegrams            Telegramme
+	 * @param accessControlPlugins Plugins
+	 * @param userId               Benutzer
+	 * @param dataModel
+	 * @param executor             Executor, der die Plugins aufruft
+	 *
+	 * @return Verarbeitete Telegramme
+	 *
+	 * @throws AccessControlPluginTimeoutException falls ein Plugin nicht rechtzeitig fertig wurde, der Datensatz ist dann zu verwerfen
+	 */
+	public static List<ApplicationDataTelegram> handleApplicationDataTelegram(
+			final List<ApplicationDataTelegram> telegrams,
+			final Collection<AccessControlPlugin> accessControlPlugins,
+			final long userId,
+			final DataModel dataModel,
+			final AccessControlPluginExecutor executor) {
 		ApplicationDataTelegram[] array = telegrams.toArray(new ApplicationDataTelegram[telegrams.size()]);
 		final SendDataObject sendDataObject = TelegramUtility.getSendDataObject(array);
 		final BaseSubscriptionInfo baseSubscriptionInfo = array[0].getBaseSubscriptionInfo();
-		final Data initialData = createData(sendDataObject, baseSubscriptionInfo, dataModel);
-		final Data data = processDataByPlugins(initialData, accessControlPlugins, baseSubscriptionInfo, userId);
-		if(initialData == data) {
+
+		// Aktueller Stand des Datensatzes, mindestens eins von beiden ist gesetzt, außer bei Datensätzen ohne Nutzdaten. Data-Objekte werden nur für
+		// herkömmliche Plugins erzeugt.
+		byte[] bytes = sendDataObject.getData();
+		Data data = null;
+		boolean dataCreated = false;
+		boolean modified = false;
+
+		for(final AccessControlPlugin plugin : accessControlPlugins) {
+			if(plugin instanceof RawAccessControlPlugin) {
+				// Ohne Nutzdaten gibt es auch kein Data-Objekt, das Plugin erhält dann null bzw. ein leeres Array
+				if(bytes == null && data != null) bytes = serialize(data);
+				final RawDataset dataset = new RawDataset(sendDataObject, bytes, data, dataModel);
+				final RawDataVerdict verdict = executor.handleRawData((RawAccessControlPlugin)plugin, userId, baseSubscriptionInfo, dataset);
+				if(verdict == null || verdict.isDrop()) return Collections.emptyList();
+				if(verdict.isPatch()) {
+					bytes = verdict.getBytes();
+					data = null;
+					dataCreated = false;
+					modified = true;
+				}
+				else if(!dataCreated && dataset.getCreatedData() != null) {
+					// Vom Plugin erzeugtes Data-Objekt für folgende herkömmliche Plugins weiterverwenden
+					data = dataset.getCreatedData();
+					dataCreated = true;
+				}
+			}
+			else {
+				if(!dataCreated) {
+					data = createData(bytes, baseSubscriptionInfo, dataModel);
+					dataCreated = true;
+				}
+				// Datensätze, für die kein Data-Objekt erzeugt werden kann (keine Nutzdaten oder unbekannte Attributgruppenverwendung), werden
+				// herkömmlichen Plugins nicht übergeben und unverändert weitergeleitet
+				if(data == null) continue;
+				final Data result = executor.handleData(plugin, userId, baseSubscriptionInfo, data);
+				if(result == null) return Collections.emptyList();
+				if(result != data) {
+					data = result;
+					bytes = null;
+					modified = true;
+				}
+			}
+		}
+		if(!modified) {
 			// unverändert, einfach wieder Parameter zurückgeben
 			return telegrams;
 		}
-		// Daten-Objekt vom Plugin wieder in ApplicationData-Telegramme zerlegen
-		return Arrays.asList(dataToTelegrams(sendDataObject, data));
+		// Geänderte Daten wieder in ApplicationData-Telegramme zerlegen
+		return Arrays.asList(bytesToTelegrams(sendDataObject, bytes != null || data == null ? bytes : serialize(data)));
 	}
 
 	/**
-	 * Verarbeitet ein Data-Objekt durch die Plugins
+	 * Serialisiert ein Data-Objekt
 	 *
-	 * @param initialData          Data-Objekt
-	 * @param plugins              Plugins
-	 * @param baseSubscriptionInfo BaseSubscriptionInfo
-	 * @param userId               Benutzer-ID
+	 * @param data Data-Objekt
 	 *
-	 * @return Verarbeitetes Data-Objekt oder null falls die Plugins anfordern, das Datenobjekt zu verwerfen
+	 * @return Serialisierte Daten im Format der Datentelegramme
 	 */
-	private static Data processDataByPlugins(
-			final Data initialData, final Collection<AccessControlPlugin> plugins, final BaseSubscriptionInfo baseSubscriptionInfo, final long userId) {
-		Data data = initialData;
-		if(data == null) return null;
-		for(final AccessControlPlugin plugin : plugins) {
-			data = plugin.handleData(userId, baseSubscriptionInfo, data);
-			if(data == null) return null;
+	static byte[] serialize(final Data data) {
+		final Data unmodifiableCopy = data.createUnmodifiableCopy();
+		if(unmodifiableCopy instanceof ByteArrayData) {
+			return ((ByteArrayData)unmodifiableCopy).getBytes();
+		}
+		else {
+			throw new IllegalArgumentException("Daten können nicht serialisiert werden: " + data.getClass().getName());
 		}
-		return data;
 	}
 
 	/**
-	 * Wandelt eine Data-Objekt in Telegramme um
+	 * Zerlegt serialisierte Daten in Telegramme
 	 *
 	 * @param originalSendDataObject Originales SendDataObject-Objekt
-	 * @param data                   neues Data-Objekt
+	 * @param bytes                  neue Daten
 	 *
 	 * @return Telegramme
 	 */
-	private static ApplicationDataTelegram[] dataToTelegrams(final SendDataObject originalSendDataObject, final Data data) {
-		if(data == null) {
-			return new ApplicationDataTelegram[]{};
-		}
-		final Data unmodifiableCopy = data.createUnmodifiableCopy();
-		if(unmodifiableCopy instanceof ByteArrayData) {
-			final ByteArrayData byteArrayData = (ByteArrayData)unmodifiableCopy;
-			final SendDataObject newSendDataObject = new SendDataObject(
-					originalSendDataObject.getBaseSubscriptionInfo(),
-					originalSendDataObject.getDalayedDataFlag(),
-					originalSendDataObject.getDataNumber(),
-					originalSendDataObject.getDataTime(),
-					originalSendDataObject.getErrorFlag(),
-					originalSendDataObject.getAttributesIndicator(),
-					byteArrayData.getBytes()
-			);
-			return TelegramUtility.splitToApplicationTelegrams(newSendDataObject);
-		}
-		else {
-			throw new IllegalArgumentException("Daten können nicht serialisiert werden: " + data.getClass().getName());
-		}
+	private static ApplicationDataTelegram[] bytesToTelegrams(final SendDataObject originalSendDataObject, final byte[] bytes) {
+		final SendDataObject newSendDataObject = new SendDataObject(
+				originalSendDataObject.getBaseSubscriptionInfo(),
+				originalSendDataObject.getDalayedDataFlag(),
+				originalSendDataObject.getDataNumber(),
+				originalSendDataObject.getDataTime(),
+				originalSendDataObject.getErrorFlag(),
+				originalSendDataObject.getAttributesIndicator(),
+				bytes
+		);
+		return TelegramUtility.splitToApplicationTelegrams(newSendDataObject);
 	}
 
 	/**
-	 * Erstellt ein Data-Objekt aus einem SendData-Objekt
+	 * Erstellt ein Data-Objekt aus serialisierten Daten
 	 *
-	 * @param dataObject           SendData-Objekt
+	 * @param bytes                Serialisierte Daten
 	 * @param baseSubscriptionInfo BaseSubscriptionInfo
 	 * @param dataModel
 	 *
 	 * @return Data-Objekt oder null falls nicht erstellbar
 	 */
-	private static Data createData(final SendDataObject dataObject, final BaseSubscriptionInfo baseSubscriptionInfo, final DataModel dataModel) {
+	private static Data createData(final byte[] bytes, final BaseSubscriptionInfo baseSubscriptionInfo, final DataModel dataModel) {
 		AttributeGroupUsage attributeGroupUsage = dataModel.getAttributeGroupUsage(baseSubscriptionInfo.getUsageIdentification());
 		if(attributeGroupUsage == null) return null;
 		final AttributeGroup atg = attributeGroupUsage.getAttributeGroup();
-		return DataFactory.forVersion(1).createUnmodifiableData(atg, dataObject.getData());
+		return DataFactory.forVersion(1).createUnmodifiableData(atg, bytes);
 	}
 }
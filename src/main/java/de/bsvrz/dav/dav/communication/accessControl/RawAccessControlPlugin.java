@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.dav.communication.accessControl;
+
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
+
+/**
+ * Erweiterung von {@link AccessControlPlugin} für Plugins, die Datensätze direkt anhand der serialisierten Daten prüfen. Im Gegensatz zu
+ * {@link AccessControlPlugin#handleData(long, BaseSubscriptionInfo, de.bsvrz.dav.daf.main.Data)} wird für Datensätze, die das Plugin nicht
+ * verändert, kein Data-Objekt erzeugt und der Datensatz muss nicht erneut serialisiert und zerlegt werden. Benötigt das Plugin einzelne
+ * Attribute, kann es diese über {@link RawDataset#getItem(String)} abfragen, das Data-Objekt wird dann bei Bedarf einmalig erzeugt.
+ * <p>
+ * Der Datenverteiler ruft für Plugins, die dieses Interface implementieren, ausschließlich {@link #handleRawData(long, BaseSubscriptionInfo,
+ * RawDataset)} auf. Geladen und angemeldet werden sie wie alle anderen Zugriffssteuerungs-Plugins.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public interface RawAccessControlPlugin extends AccessControlPlugin {
+
+	/**
+	 * Wird aufgerufen wenn ein Datensatz eintrifft, der den in {@link #getAttributeGroupUsagesToFilter()} angegebenen Attributgruppenverwendungen
+	 * entspricht.
+	 *
+	 * @param userID               Benutzer-ID, von dem der Datensatz stammt (siehe {@link AccessControlPlugin#handleData(long, BaseSubscriptionInfo,
+	 *                             de.bsvrz.dav.daf.main.Data)}).
+	 * @param baseSubscriptionInfo Anmeldung für die der Datensatz verschickt wurde.
+	 * @param dataset              Datensatz. Das zurückgegebene Byte-Array darf nicht verändert werden.
+	 *
+	 * @return {@link RawDataVerdict#accept()}, wenn der Datensatz unverändert weitergegeben werden soll, {@link RawDataVerdict#drop()} (oder
+	 *         <code>null</code>), wenn er verworfen werden soll oder {@link RawDataVerdict#patch(byte[])} bzw. {@link
+	 *         RawDataVerdict#patch(de.bsvrz.dav.daf.main.Data)}, wenn stattdessen die angegebenen Daten verschickt werden sollen.
+	 */
+	RawDataVerdict handleRawData(final long userID, final BaseSubscriptionInfo baseSubscriptionInfo, final RawDataset dataset);
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.dav.communication.accessControl;
+
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray.ByteArrayData;
+import de.bsvrz.dav.daf.main.Data;
+
+/**
+ * Ergebnis der Prüfung eines Datensatzes durch ein {@link RawAccessControlPlugin}.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public final class RawDataVerdict {
+
+	private static final RawDataVerdict ACCEPT = new RawDataVerdict(false, null);
+
+	private static final RawDataVerdict DROP = new RawDataVerdict(true, null);
+
+	private final boolean _drop;
+
+	private final byte[] _bytes;
+
+	private RawDataVerdict(final boolean drop, final byte[] bytes) {
+		_drop = drop;
+		_bytes = bytes;
+	}
+
+	/**
+	 * Der Datensatz wird unverändert weitergegeben
+	 *
+	 * @return Ergebnis
+	 */
+	public static RawDataVerdict accept() {
+		return ACCEPT;
+	}
+
+	/**
+	 * Der Datensatz wird verworfen
+	 *
+	 * @return Ergebnis
+	 */
+	public static RawDataVerdict drop() {
+		return DROP;
+	}
+
+	/**
+	 * Statt des ursprünglichen Datensatzes werden die angegebenen Daten an die ursprüngliche Anmeldung verschickt
+	 *
+	 * @param bytes Serialisierte Daten der gleichen Attributgruppe. Das Array darf danach nicht mehr verändert werden.
+	 *
+	 * @return Ergebnis
+	 */
+	public static RawDataVerdict patch(final byte[] bytes) {
+		if(bytes == null) throw new IllegalArgumentException("bytes ist null");
+		return new RawDataVerdict(false, bytes);
+	}
+
+	/**
+	 * Statt des ursprünglichen Datensatzes wird das angegebene Data-Objekt an die ursprüngliche Anmeldung verschickt
+	 *
+	 * @param data Daten der gleichen Attributgruppe
+	 *
+	 * @return Ergebnis
+	 */
+	public static RawDataVerdict patch(final Data data) {
+		return patch(AccessControlUtil.serialize(data));
+	}
+
+	/**
+	 * Gibt zurück, ob der Datensatz verworfen werden soll
+	 *
+	 * @return true beim Verwerfen
+	 */
+	public boolean isDrop() {
+		return _drop;
+	}
+
+	/**
+	 * Gibt zurück, ob der Datensatz durch andere Daten ersetzt werden soll
+	 *
+	 * @return true, falls {@link #getBytes()} die neuen Daten enthält
+	 */
+	public boolean isPatch() {
+		return _bytes != null;
+	}
+
+	/**
+	 * Gibt die neuen Daten zurück
+	 *
+	 * @return Serialisierte Daten oder null, falls der Datensatz nicht ersetzt wird
+	 */
+	public byte[] getBytes() {
+		return _bytes;
+	}
+
+	@Override
+	public String toString() {
+		if(_drop) return "RawDataVerdict{drop}";
+		if(_bytes != null) return "RawDataVerdict{patch, " + _bytes.length + " Bytes}";
+		return "RawDataVerdict{accept}";
+	}
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.dav.communication.accessControl;
+
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.DataFactory;
+import de.bsvrz.dav.daf.communication.dataRepresentation.datavalue.SendDataObject;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.AttributeGroupUsage;
+import de.bsvrz.dav.daf.main.config.DataModel;
+
+/**
+ * Sicht auf einen zusammengesetzten Datensatz für {@link RawAccessControlPlugin}s. Die Kopfinformationen und die serialisierten Daten stehen
+ * direkt zur Verfügung, ein Data-Objekt wird erst beim ersten Zugriff auf einzelne Attribute erzeugt und danach wiederverwendet.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public final class RawDataset {
+
+	private final SendDataObject _sendDataObject;
+
+	private final byte[] _bytes;
+
+	private final DataModel _dataModel;
+
+	private Data _data;
+
+	private boolean _dataCreated;
+
+	/**
+	 * Erstellt einen neuen Datensatz
+	 *
+	 * @param sendDataObject Zusammengesetzter Datensatz mit Kopfinformationen
+	 * @param bytes          Aktuelle serialisierte Daten (können von den Daten in <code>sendDataObject</code> abweichen, wenn ein vorheriges
+	 *                       Plugin den Datensatz ersetzt hat)
+	 * @param data           Bereits erzeugtes Data-Objekt zu <code>bytes</code> oder null
+	 * @param dataModel      Datenmodell zum Erzeugen des Data-Objekts
+	 */
+	RawDataset(final SendDataObject sendDataObject, final byte[] bytes, final Data data, final DataModel dataModel) {
+		_sendDataObject = sendDataObject;
+		_bytes = bytes;
+		_dataModel = dataModel;
+		_data = data;
+		_dataCreated = data != null;
+	}
+
+	/**
+	 * Gibt die Anmeldeinformationen des Datensatzes zurück
+	 *
+	 * @return BaseSubscriptionInfo
+	 */
+	public BaseSubscriptionInfo getBaseSubscriptionInfo() {
+		return _sendDataObject.getBaseSubscriptionInfo();
+	}
+
+	/**
+	 * Gibt die serialisierten Daten zurück. Das Array darf nicht verändert werden, für Änderungen ist eine Kopie mit {@link
+	 * RawDataVerdict#patch(byte[])} zurückzugeben.
+	 *
+	 * @return Serialisierte Daten, bei Datensätzen ohne Nutzdaten ein leeres Array oder null
+	 */
+	public byte[] getBytes() {
+		return _bytes;
+	}
+
+	/**
+	 * Gibt zurück, ob der Datensatz Nutzdaten enthält
+	 *
+	 * @return true, falls Nutzdaten vorhanden sind
+	 */
+	public boolean hasData() {
+		return _bytes != null && _bytes.length > 0;
+	}
+
+	/**
+	 * Gibt den Datenzeitstempel zurück
+	 *
+	 * @return Zeit in Millisekunden seit 1970
+	 */
+	public long getDataTime() {
+		return _sendDataObject.getDataTime();
+	}
+
+	/**
+	 * Gibt den Datenindex zurück
+	 *
+	 * @return Datenindex
+	 */
+	public long getDataIndex() {
+		return _sendDataObject.getDataNumber();
+	}
+
+	/**
+	 * Gibt die Fehlerkennung zurück
+	 *
+	 * @return Fehlerkennung, 0 bei Datensätzen mit Nutzdaten
+	 */
+	public byte getErrorFlag() {
+		return _sendDataObject.getErrorFlag();
+	}
+
+	/**
+	 * Gibt zurück, ob es sich um einen nachgelieferten Datensatz handelt
+	 *
+	 * @return true bei nachgelieferten Datensätzen
+	 */
+	public boolean isDelayed() {
+		return _sendDataObject.getDalayedDataFlag();
+	}
+
+	/**
+	 * Gibt die Attributgruppe des Datensatzes zurück
+	 *
+	 * @return Attributgruppe oder null, falls die Attributgruppenverwendung unbekannt ist
+	 */
+	public AttributeGroup getAttributeGroup() {
+		final AttributeGroupUsage attributeGroupUsage = _dataModel.getAttributeGroupUsage(getBaseSubscriptionInfo().getUsageIdentification());
+		return attributeGroupUsage == null ? null : attributeGroupUsage.getAttributeGroup();
+	}
+
+	/**
+	 * Gibt ein Attribut des Datensatzes zurück. Beim ersten Aufruf wird dazu ein (nicht änderbares) Data-Objekt erzeugt.
+	 *
+	 * @param name Name des Attributs
+	 *
+	 * @return Attribut
+	 *
+	 * @throws IllegalStateException falls der Datensatz keine Nutzdaten enthält oder die Attributgruppe unbekannt ist
+	 */
+	public Data getItem(final String name) {
+		final Data data = getData();
+		if(data == null) throw new IllegalStateException("Datensatz enthält keine Daten: " + getBaseSubscriptionInfo());
+		return data.getItem(name);
+	}
+
+	/**
+	 * Gibt die Daten als nicht änderbares Data-Objekt zurück. Das Objekt wird beim ersten Aufruf erzeugt.
+	 *
+	 * @return Data-Objekt oder null, falls keine Nutzdaten vorhanden sind oder die Attributgruppe unbekannt ist
+	 */
+	public synchronized Data getData() {
+		if(!_dataCreated) {
+			_dataCreated = true;
+			final AttributeGroup atg = getAttributeGroup();
+			if(atg != null && hasData()) {
+				_data = DataFactory.forVersion(1).createUnmodifiableData(atg, _bytes);
+			}
+		}
+		return _data;
+	}
+
+	/**
+	 * Gibt das bereits erzeugte Data-Objekt zurück, ohne es bei Bedarf zu erzeugen
+	 *
+	 * @return Data-Objekt oder null
+	 */
+	synchronized Data getCreatedData() {
+		return _data;
+	}
+}
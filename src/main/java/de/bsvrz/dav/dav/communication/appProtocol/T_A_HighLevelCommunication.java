@@ -28,6 +28,7 @@
 package de.bsvrz.dav.dav.communication.appProtocol;
 
 import de.bsvrz.dav.daf.communication.dataRepresentation.datavalue.SendDataObject;
+import de.bsvrz.dav.daf.communication.lowLevel.ConnectionInterface;
 import de.bsvrz.dav.daf.communication.lowLevel.HighLevelCommunicationCallbackInterface;
 import de.bsvrz.dav.daf.communication.lowLevel.LowLevelCommunicationInterface;
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.*;
@@ -39,12 +40,16 @@ import de.bsvrz.dav.daf.main.authentication.ClientCredentials;
 import de.bsvrz.dav.daf.main.config.ConfigurationChangeException;
 import de.bsvrz.dav.daf.main.impl.CommunicationConstant;
 import de.bsvrz.dav.dav.main.*;
+import de.bsvrz.dav.dav.util.RollingLatencyStatistics;
 import de.bsvrz.sys.funclib.debug.Debug;
 
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 import java.util.stream.IntStream;
 
 /**
@@ -57,9 +62,15 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 
 	private static final Debug _debug = Debug.getLogger();
 
+	/** Zeit in Millisekunden, nach der unbeantwortete asynchrone Laufzeitanfragen verworfen werden */
+	private static final long PENDING_TELEGRAM_TIME_REQUEST_TIMEOUT = 10 * 60 * 1000;
+
 	/** Die erste Ebene der Kommunikation */
 	private final LowLevelCommunicationInterface _lowLevelCommunication;
 
+	/** Versandsteuerung für Datentelegramme, <code>null</code> falls die Telegramme direkt versendet werden */
+	private final OutgoingDataScheduler _outgoingDataScheduler;
+
 	/** Die Eigenschaften diese Verbindung */
 	private ServerConnectionProperties _properties;
 
@@ -69,8 +80,8 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 	/** Der Applikation Id */
 	private long _applicationId;
 
-	/** Die Id des Benutzers */
-	private UserLogin _userLogin = UserLogin.notAuthenticated();
+	/** Die Id des Benutzers, wird bei verzögerten Login-Versuchen in einem anderen Thread gesetzt */
+	private volatile UserLogin _userLogin = UserLogin.notAuthenticated();
 
 	/** Der Konfiguration Id */
 	private long _configurationId;
@@ -78,6 +89,9 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 	/** Der Name der Applikation */
 	private String _applicationName;
 
+	/** Die von der Applikation übergebene Sitzungskennung oder null, siehe {@link ApplicationSessionResumption} */
+	private String _sessionToken;
+
 	/** Die Pid des Applikationstyps */
 	private String _applicationTypePid;
 
@@ -90,6 +104,12 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 	/** Temporäre Liste der Systemtelegramme für interne Synchronisationszwecke. */
 	private List<DataTelegram> _syncSystemTelegramList;
 
+	/** Asynchron versendete, noch nicht beantwortete Laufzeitanfragen, Schlüssel ist der Sendezeitpunkt */
+	private final Map<Long, CompletableFuture<Long>> _pendingTelegramTimeRequests = new ConcurrentHashMap<Long, CompletableFuture<Long>>();
+
+	/** Gemessene Telegrammlaufzeiten der letzten ein bis zwei Stunden */
+	private final RollingLatencyStatistics _roundTripTimes = new RollingLatencyStatistics("Telegrammlaufzeit", 60 * 60 * 1000);
+
 	/** Die Information ob auf die Konfiguration gewartet werden muss. */
 	private boolean _waitForConfiguration;
 
@@ -100,6 +120,9 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 
 	private Object _closedLock = new Object();
 
+	/** true, falls die Verbindung unerwartet abgebrochen ist und weder von der Applikation noch vom Datenverteiler beendet wurde */
+	private volatile boolean _connectionLost = false;
+
 	private final long _connectionCreatedTime;
 
 	private final HighLevelApplicationManager _applicationManager;
@@ -124,6 +147,12 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 	private SrpCryptoParameter _srpCryptoParameter;
 	private UserLogin _pendingSrpUserLogin;
 
+	/** Eingang der letzten SRP-Anfrage in Nanosekunden, zur Erfassung der Anmeldedauer */
+	private long _srpRequestTime;
+
+	/** Laufender SRP-Login-Versuch bei der Brute-Force-Bremse oder null */
+	private volatile LoginThrottle.Attempt _srpLoginAttempt;
+
 	/**
 	 * Erzeugt ein neues Objekt mit den gegebenen Parametern.
 	 *
@@ -144,6 +173,8 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 		_waitForConfiguration = waitForConfiguration;
 		_sync = new Integer(hashCode());
 		_connectionCreatedTime = System.currentTimeMillis();
+		final int interleavingWeight = lowLevelConnectionsManager.getServerDavParameters().getDataInterleavingWeight();
+		_outgoingDataScheduler = interleavingWeight > 0 ? new OutgoingDataScheduler(_lowLevelCommunication, interleavingWeight) : null;
 		_lowLevelCommunication.setHighLevelComponent(this);
 	}
 
@@ -187,20 +218,60 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 		if(telegramTimeAnswer == null) {
 			return -1;
 		}
+		_roundTripTimes.record(telegramTimeAnswer.getRoundTripTime() * 1000000);
 		return telegramTimeAnswer.getRoundTripTime();
 	}
 
+	/**
+	 * Versendet eine Laufzeitanfrage, ohne auf die Antwort zu warten. Die Antwort wird anhand des Sendezeitpunkts zugeordnet. Anders als bei
+	 * {@link #getTelegramTime(long)} können so Anfragen an viele Applikationen gleichzeitig gestellt werden.
+	 *
+	 * @return Wird mit der Telegrammlaufzeit in Millisekunden abgeschlossen, sobald die Antwort eintrifft
+	 */
+	public CompletableFuture<Long> requestTelegramTime() {
+		final long now = System.currentTimeMillis();
+		// Unbeantwortete Anfragen nicht unbegrenzt aufheben
+		for(final Iterator<Long> iterator = _pendingTelegramTimeRequests.keySet().iterator(); iterator.hasNext(); ) {
+			if(now - iterator.next() > PENDING_TELEGRAM_TIME_REQUEST_TIMEOUT) iterator.remove();
+		}
+		final CompletableFuture<Long> future = new CompletableFuture<Long>();
+		final CompletableFuture<Long> pending = _pendingTelegramTimeRequests.putIfAbsent(now, future);
+		// Eine Anfrage aus der gleichen Millisekunde wird mitbenutzt
+		if(pending != null) return pending;
+		_lowLevelCommunication.send(new TelegramTimeRequest(now));
+		return future;
+	}
+
+	/**
+	 * Gibt die Statistik der gemessenen Telegrammlaufzeiten zurück
+	 *
+	 * @return Histogramm der Telegrammlaufzeiten der letzten ein bis zwei Stunden
+	 */
+	public RollingLatencyStatistics getRoundTripTimes() {
+		return _roundTripTimes;
+	}
+
 	@Override
 	public final void sendData(final ApplicationDataTelegram telegram, final boolean toCentralDistributor) {
-		_lowLevelCommunication.send(telegram);
+		sendData(telegram);
 	}
 
 	public final void sendData(ApplicationDataTelegram telegram) {
-		_lowLevelCommunication.send(telegram);
+		if(_outgoingDataScheduler == null) {
+			_lowLevelCommunication.send(telegram);
+			return;
+		}
+		_outgoingDataScheduler.send(telegram, telegram.getBaseSubscriptionInfo(), telegram.getTotalTelegramsCount() > 1);
 	}
 
 	public final void sendData(ApplicationDataTelegram[] telegrams) {
-		_lowLevelCommunication.send(telegrams);
+		if(_outgoingDataScheduler == null) {
+			_lowLevelCommunication.send(telegrams);
+			return;
+		}
+		for(final ApplicationDataTelegram telegram : telegrams) {
+			sendData(telegram);
+		}
 	}
 
 	@Override
@@ -252,6 +323,11 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 			if(_lowLevelCommunication != null) {
 				_lowLevelCommunication.disconnect(error, message, terminationTelegram);
 			}
+			if(_outgoingDataScheduler != null) {
+				_outgoingDataScheduler.close();
+			}
+			final LoginThrottle.Attempt srpLoginAttempt = _srpLoginAttempt;
+			if(srpLoginAttempt != null) srpLoginAttempt.cancel();
 			_applicationManager.removeApplication(this);
 		}
 	}
@@ -259,9 +335,22 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 
 	@Override
 	public void disconnected(boolean error, final String message) {
+		synchronized(_closedLock) {
+			// Eine geordnete Abmeldung der Applikation wurde bereits über das Abmeldetelegramm verarbeitet
+			if(!_closed) _connectionLost = true;
+		}
 		terminate(error, message);
 	}
 
+	/**
+	 * Gibt zurück, ob die Verbindung unerwartet abgebrochen ist, also nicht von der Applikation abgemeldet oder vom Datenverteiler beendet wurde
+	 *
+	 * @return true, falls die Verbindung abgebrochen ist
+	 */
+	public boolean isConnectionLost() {
+		return _connectionLost;
+	}
+
 	@Override
 	public void updateConfigData(SendDataObject receivedData) {
 		throw new UnsupportedOperationException("updateConfigData nicht implementiert");
@@ -282,6 +371,28 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 		return _userLogin;
 	}
 
+	/**
+	 * Gibt die Verbindung auf unterster Protokollebene zurück
+	 *
+	 * @return Verbindung
+	 */
+	public final LowLevelCommunicationInterface getLowLevelCommunication() {
+		return _lowLevelCommunication;
+	}
+
+	/**
+	 * Gibt die Adresse des Rechners zurück, auf dem die Applikation läuft
+	 *
+	 * @return Adresse oder null, falls keine Verbindung besteht
+	 */
+	public final String getRemoteAdress() {
+		final ConnectionInterface connection = _lowLevelCommunication.getConnectionInterface();
+		if(connection == null) {
+			return null;
+		}
+		return connection.getMainAdress();
+	}
+
 	/**
 	 * Setzt den eingeloggten Benutzer (nur für Testzwecke)
 	 * @param userLogin Benutzer
@@ -305,6 +416,17 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 		return _applicationName;
 	}
 
+	/**
+	 * Gibt die Sitzungskennung zurück, die die Applikation als Endung ihres Applikationsnamens übergeben hat. Die Endung ist im
+	 * Applikationsnamen dieser Verbindung nicht mehr enthalten.
+	 *
+	 * @return Sitzungskennung oder null
+	 * @see ApplicationSessionResumption
+	 */
+	public final String getSessionToken() {
+		return _sessionToken;
+	}
+
 	@Override
 	public final boolean isConfiguration() {
 		if(CommunicationConstant.CONFIGURATION_TYPE_PID.equals(_applicationTypePid)) {
@@ -349,6 +471,13 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 		}
 		switch(telegram.getType()) {
 			case DataTelegram.TELEGRAM_TIME_ANSWER_TYPE: {
+				final TelegramTimeAnswer telegramTimeAnswer = (TelegramTimeAnswer)telegram;
+				final CompletableFuture<Long> future = _pendingTelegramTimeRequests.remove(telegramTimeAnswer.getTelegramStartTime());
+				if(future != null) {
+					_roundTripTimes.record(telegramTimeAnswer.getRoundTripTime() * 1000000);
+					future.complete(telegramTimeAnswer.getRoundTripTime());
+					break;
+				}
 				synchronized(_syncSystemTelegramList) {
 					_syncSystemTelegramList.add(telegram);
 					_syncSystemTelegramList.notifyAll();
@@ -378,53 +507,56 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 			case DataTelegram.AUTHENTIFICATION_REQUEST_TYPE: {
 				needsToBeNotAuthenticated();
 
-				AuthentificationRequest authentificationRequest = (AuthentificationRequest)telegram;
-				String userName = authentificationRequest.getUserName();
+				final AuthentificationRequest authentificationRequest = (AuthentificationRequest)telegram;
 
-				try {
-					_userLogin = _lowLevelConnectionsManager.login(
-							userName,
-							authentificationRequest.getUserPassword(),
-							_authentificationComponent.getAuthentificationText(_applicationName),
-							_authentificationComponent.getAuthentificationProcess(),
-							_applicationTypePid
-					);
-
-					// Brute-Force-Bremse
-					_applicationManager.throttleLoginAttempt(_userLogin.isAuthenticated());
-					
-					completeAuthenticationAndSendAnswer();
-				}
-				catch(ConfigurationChangeException ex) {
-					ex.printStackTrace();
-					terminate(
-							true, "Fehler während der Authentifizierung einer Applikation beim Zugriff auf die Konfiguration: " + ex.getMessage()
-					);
-					return;
-				}
+				// Brute-Force-Bremse: Nach Fehlversuchen wird das Passwort verzögert geprüft, die Verzögerung selbst führt nicht zur Ablehnung
+				final LoginThrottle.Attempt loginAttempt = _applicationManager.getLoginThrottle().startAttempt(
+						authentificationRequest.getUserName(), getRemoteAdress()
+				);
+				loginAttempt.execute(() -> checkPassword(authentificationRequest, loginAttempt));
 				break;
 			}
 			case DataTelegram.SRP_REQUEST_TYPE:
 				needsToBeNotAuthenticated();
 				_srpRequest = (SrpRequest) telegram;
+				_srpRequestTime = System.nanoTime();
+
+				// Brute-Force-Bremse: Nach Fehlversuchen wird die Antwort verzögert verschickt und das Passwort erst danach geprüft, abgewiesene
+				// Versuche werden gar nicht geprüft.
+				final LoginThrottle.Attempt previousSrpLoginAttempt = _srpLoginAttempt;
+				if(previousSrpLoginAttempt != null) previousSrpLoginAttempt.cancel();
+				final LoginThrottle.Attempt srpLoginAttempt = _applicationManager.getLoginThrottle().startAttempt(
+						_srpRequest.getUserName(), getRemoteAdress()
+				);
+				_srpLoginAttempt = srpLoginAttempt;
 
-				SrpVerifierAndUser srpVerifierAndUser;
+				final Semaphore srpRequestPermits = _lowLevelConnectionsManager.getApplicationAuthenticationPermits();
+				final SrpVerifierData srpVerifierData;
+				final BigInteger b;
+				srpRequestPermits.acquireUninterruptibly();
 				try {
-					srpVerifierAndUser = fetchSrpUserData(_srpRequest.getUserName(), _srpRequest.getPasswordIndex());
+					SrpVerifierAndUser srpVerifierAndUser;
+					try {
+						srpVerifierAndUser = fetchSrpUserData(_srpRequest.getUserName(), _srpRequest.getPasswordIndex());
+					}
+					catch(SrpNotSupportedException e) {
+						// SRP wird von der Konfiguration nicht unterstützt
+						_lowLevelCommunication.send(new SrpAnswer(e.getMessage()));
+						return;
+					}
+					srpVerifierData = srpVerifierAndUser.getVerifier();
+					_pendingSrpUserLogin = srpVerifierAndUser.getUserLogin();
+					_srpCryptoParameter = srpVerifierData.getSrpCryptoParameter();
+					_srpServerSession = new SrpServerAuthentication(_srpCryptoParameter);
+					b = SrpAuthenticationWorkers.step1(
+							_srpServerSession, _srpRequest.getUserName(), srpVerifierData.getSalt(), srpVerifierData.getVerifier(), !_pendingSrpUserLogin.isAuthenticated()
+					);
 				}
-				catch(SrpNotSupportedException e) {
-					// SRP wird von der Konfiguration nicht unterstützt
-					_lowLevelCommunication.send(new SrpAnswer(e.getMessage()));
-					return;
+				finally {
+					srpRequestPermits.release();
 				}
-				final SrpVerifierData srpVerifierData = srpVerifierAndUser.getVerifier();
-				_pendingSrpUserLogin = srpVerifierAndUser.getUserLogin();
-				_srpCryptoParameter = srpVerifierData.getSrpCryptoParameter();
-				_srpServerSession = new SrpServerAuthentication(_srpCryptoParameter);
-				final BigInteger b = _srpServerSession.step1(_srpRequest.getUserName(), srpVerifierData.getSalt(), srpVerifierData.getVerifier(), !_pendingSrpUserLogin
-						.isAuthenticated());
 				final SrpAnswer srpAnswer = new SrpAnswer(b, srpVerifierData.getSalt(), _srpCryptoParameter);
-				_lowLevelCommunication.send(srpAnswer);
+				srpLoginAttempt.execute(() -> _lowLevelCommunication.send(srpAnswer));
 				break;
 			case DataTelegram.SRP_VALDIATE_REQUEST_TYPE:
 				needsToBeNotAuthenticated();
@@ -434,12 +566,35 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 					terminate(true, "Unerwartetes SRP-Telegramm");
 					return;
 				}
+				final LoginThrottle.Attempt srpValidateAttempt = _srpLoginAttempt;
+				if(srpValidateAttempt == null || !srpValidateAttempt.isDue()) {
+					// Brute-Force-Bremse: Vor Ablauf der Verzögerung eintreffende Versuche werden nicht geprüft und zählen als Fehlversuch
+					_srpServerSession = null;
+					if(srpValidateAttempt != null) srpValidateAttempt.failed();
+					_lowLevelCommunication.send(new SrpValidateAnswer(BigInteger.ZERO));
+					break;
+				}
+				if(!srpValidateAttempt.checkAllowed()) {
+					// Brute-Force-Bremse: Abgewiesene Versuche werden nicht geprüft
+					_srpServerSession = null;
+					_lowLevelCommunication.send(new SrpValidateAnswer(BigInteger.ZERO));
+					break;
+				}
 				try {
-					final BigInteger m2 = _srpServerSession.step2(srpValidateRequest.getA(), srpValidateRequest.getM1());
+					final Semaphore srpValidatePermits = _lowLevelConnectionsManager.getApplicationAuthenticationPermits();
+					final BigInteger m2;
+					srpValidatePermits.acquireUninterruptibly();
+					try {
+						m2 = SrpAuthenticationWorkers.step2(_srpServerSession, srpValidateRequest.getA(), srpValidateRequest.getM1());
+					}
+					finally {
+						srpValidatePermits.release();
+					}
 					// Passwort ist korrekt
+					SrpAuthenticationWorkers.recordLogin(_srpRequestTime);
 					
 					// Brute-Force-Bremse
-					_applicationManager.throttleLoginAttempt(true);
+					srpValidateAttempt.succeeded();
 					
 					final SrpValidateAnswer answer = new SrpValidateAnswer(m2);
 					_lowLevelCommunication.sendDirect(answer);
@@ -454,10 +609,11 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 					_lowLevelCommunication.enableEncryption(new SrpTelegramEncryption(SrpUtilities.bigIntegerToBytes(sessionKey), false, _srpCryptoParameter));
 				}
 				catch(InconsistentLoginException | SrpNotSupportedException ignored) {
-					// Passwort ist falsch
+					// Passwort ist falsch, evtl. wurde es geändert und der zwischengespeicherte Überprüfungscode ist veraltet
+					_applicationManager.invalidateSrpVerifier(_srpRequest.getUserName());
 					
 					// Brute-Force-Bremse
-					_applicationManager.throttleLoginAttempt(false);
+					srpValidateAttempt.failed();
 					
 					// Negative Quittung senden
 					final SrpValidateAnswer answer = new SrpValidateAnswer(BigInteger.ZERO);
@@ -689,12 +845,65 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 	 * 
 	 * @throws ConfigurationChangeException Fehler beim Anlegen eines Applikationsobjekts
 	 */
+	/**
+	 * Prüft das bei der einfachen Authentifizierung übertragene Passwort und verschickt die Antwort. Wird nach Fehlversuchen von der
+	 * Brute-Force-Bremse verzögert in einem anderen Thread aufgerufen.
+	 *
+	 * @param authentificationRequest Authentifizierungsanfrage
+	 * @param loginAttempt            Login-Versuch bei der Brute-Force-Bremse
+	 */
+	private void checkPassword(final AuthentificationRequest authentificationRequest, final LoginThrottle.Attempt loginAttempt) {
+		synchronized(_closedLock) {
+			if(_closed) {
+				loginAttempt.cancel();
+				return;
+			}
+		}
+		if(!loginAttempt.checkAllowed()) {
+			_lowLevelCommunication.send(new AuthentificationAnswer(false));
+			return;
+		}
+		try {
+			final Semaphore authenticationPermits = _lowLevelConnectionsManager.getApplicationAuthenticationPermits();
+			authenticationPermits.acquireUninterruptibly();
+			try {
+				_userLogin = _lowLevelConnectionsManager.login(
+						authentificationRequest.getUserName(),
+						authentificationRequest.getUserPassword(),
+						_authentificationComponent.getAuthentificationText(_applicationName),
+						_authentificationComponent.getAuthentificationProcess(),
+						_applicationTypePid
+				);
+			}
+			finally {
+				authenticationPermits.release();
+			}
+
+			if(_userLogin.isAuthenticated()) {
+				loginAttempt.succeeded();
+			}
+			else {
+				loginAttempt.failed();
+			}
+
+			completeAuthenticationAndSendAnswer();
+		}
+		catch(ConfigurationChangeException ex) {
+			loginAttempt.cancel();
+			ex.printStackTrace();
+			terminate(
+					true, "Fehler während der Authentifizierung einer Applikation beim Zugriff auf die Konfiguration: " + ex.getMessage()
+			);
+		}
+	}
+
 	private void completeAuthenticationAndSendAnswer() throws ConfigurationChangeException {
 		AuthentificationAnswer authentificationAnswer;
 		if(_userLogin.isAuthenticated()) {
 			// Authentifizierung ist erfolgreich
 			
 			if(!updateParametersAndCreateApplicationObject()) return;
+			_applicationManager.applicationInitialized(this);
 			
 			authentificationAnswer = new AuthentificationAnswer(
 					_userLogin.toLong(), _applicationId, _configurationId, _properties.getDataTransmitterId()
@@ -721,7 +930,8 @@ public class T_A_HighLevelCommunication implements T_A_HighLevelCommunicationInt
 		else {
 			_configurationPid = configurationPid;
 		}
-		_applicationName = applicationName;
+		_applicationName = ApplicationSessionResumption.stripSessionToken(applicationName);
+		_sessionToken = ApplicationSessionResumption.getSessionToken(applicationName);
 		_applicationTypePid = applicationTypePid;
 		
 		_debug.finest("applicationName", _applicationName);
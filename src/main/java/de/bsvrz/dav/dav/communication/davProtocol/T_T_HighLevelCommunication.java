@@ -67,8 +67,8 @@ public class T_T_HighLevelCommunication implements T_T_HighLevelCommunicationInt
 	/** Die Id des über diesen Kanal verbundenen Datenverteiler */
 	private long _connectedTransmitterId;
 
-	/** Die Id des Remotebenutzers */
-	private UserLogin _userLogin = UserLogin.notAuthenticated();
+	/** Die Id des Remotebenutzers, wird bei verzögerten Login-Versuchen in einem anderen Thread gesetzt */
+	private volatile UserLogin _userLogin = UserLogin.notAuthenticated();
 
 	/** Die erste Ebene der Kommunikation */
 	private LowLevelCommunicationInterface _lowLevelCommunication;
@@ -76,8 +76,21 @@ public class T_T_HighLevelCommunication implements T_T_HighLevelCommunicationInt
 	/** Die Eigenschaften dieser Verbindung */
 	private ServerConnectionProperties _properties;
 
+	/**
+	 * Protokollversion, ab der Datentelegramme als Differenz zum zuletzt übertragenen Datensatz versendet werden dürfen. Diese Version wird
+	 * nur angeboten, wenn die Differenzkodierung lokal aktiviert ist, sodass sie nur zwischen Datenverteilern mit aktivierter
+	 * Differenzkodierung ausgehandelt wird.
+	 */
+	private static final int DELTA_ENCODING_PROTOCOL_VERSION = 4;
+
 	/** Die unterstützten Versionen des Datenverteilers */
-	private final Set<Integer> _supportedProtocolVersions = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(2, 3)));
+	private final Set<Integer> _supportedProtocolVersions;
+
+	/** Differenzkodierung der Datentelegramme, <code>null</code> falls nicht aktiviert */
+	private final TransmitterDataDeltaCoding _deltaCoding;
+
+	/** Versandsteuerung für Datentelegramme, <code>null</code> falls die Telegramme direkt versendet werden */
+	private final OutgoingDataScheduler _outgoingDataScheduler;
 	
 	/** Die Version, mit der die Kommunikation erfolgt */
 	private int _version;
@@ -139,6 +152,12 @@ public class T_T_HighLevelCommunication implements T_T_HighLevelCommunicationInt
 
 	private UserLogin _pendingSrpUserLogin;
 
+	/** Eingang der letzten SRP-Anfrage in Nanosekunden, zur Erfassung der Anmeldedauer */
+	private long _srpRequestTime;
+
+	/** Laufender SRP-Login-Versuch bei der Brute-Force-Bremse oder null */
+	private volatile LoginThrottle.Attempt _srpLoginAttempt;
+
 	/**
 	 * Erzeugt ein neues Objekt mit den gegebenen Parametern.
 	 *  @param properties                 Eigenschaften dieser Verbindung
@@ -173,6 +192,16 @@ public class T_T_HighLevelCommunication implements T_T_HighLevelCommunicationInt
 		_sync = hashCode();
 		_authentificationSync = hashCode();
 		_isIncomingConnection = incomingConnection;
+		if(lowLevelConnectionsManager.getServerDavParameters().isDavDavDeltaEncodingEnabled()) {
+			_supportedProtocolVersions = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(2, 3, DELTA_ENCODING_PROTOCOL_VERSION)));
+			_deltaCoding = new TransmitterDataDeltaCoding();
+		}
+		else {
+			_supportedProtocolVersions = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(2, 3)));
+			_deltaCoding = null;
+		}
+		final int interleavingWeight = lowLevelConnectionsManager.getServerDavParameters().getDataInterleavingWeight();
+		_outgoingDataScheduler = interleavingWeight > 0 ? new OutgoingDataScheduler(_lowLevelCommunication, interleavingWeight) : null;
 		_lowLevelCommunication.setHighLevelComponent(this);
 	}
 
@@ -445,6 +474,15 @@ public class T_T_HighLevelCommunication implements T_T_HighLevelCommunicationInt
 			if(_lowLevelCommunication != null) {
 				_lowLevelCommunication.disconnect(error, message, terminationTelegram);
 			}
+			if(isDeltaEncodingActive()) {
+				_debug.fine("Verbindung zum Datenverteiler " + getId() + ": " + _deltaCoding.getStatistics());
+				_deltaCoding.clear();
+			}
+			if(_outgoingDataScheduler != null) {
+				_outgoingDataScheduler.close();
+			}
+			final LoginThrottle.Attempt srpLoginAttempt = _srpLoginAttempt;
+			if(srpLoginAttempt != null) srpLoginAttempt.cancel();
 			_transmitterManager.connectionTerminated(this);
 		}
 		setCommunicationState(error ? CommunicationState.Error : CommunicationState.NotConnected, message);
@@ -530,29 +568,17 @@ public class T_T_HighLevelCommunication implements T_T_HighLevelCommunicationInt
 			case DataTelegram.TRANSMITTER_AUTHENTIFICATION_REQUEST_TYPE: {
 				needsToBeNotAuthenticated();
 				
-				TransmitterAuthentificationRequest authentificationRequest = (TransmitterAuthentificationRequest) telegram;
-				String userName = authentificationRequest.getUserName();
-				try {
-					_userLogin = _lowLevelConnectionsManager.login(
-							userName,
-							authentificationRequest.getUserPassword(),
-							_authentificationComponent.getAuthentificationText(Long.toString(_connectedTransmitterId)),
-							_authentificationComponent.getAuthentificationProcess(),
-							""
-					);
-
-
-					// Brute-Force-Bremse
-					_transmitterManager.throttleLoginAttempt(_userLogin.isAuthenticated());
-
-					if(completeAuthenticationAndSendAnswer(userName)) return;
+				final TransmitterAuthentificationRequest authentificationRequest = (TransmitterAuthentificationRequest) telegram;
+
+				// Brute-Force-Bremse: Nach Fehlversuchen wird das Passwort verzögert geprüft, die Verzögerung selbst führt nicht zur Ablehnung
+				final LoginThrottle.Attempt loginAttempt = _transmitterManager.getLoginThrottle().startAttempt(
+						authentificationRequest.getUserName(), getRemoteAdress()
+				);
+				if(loginAttempt.getDelay() == 0) {
+					if(checkPassword(authentificationRequest, loginAttempt)) return;
 				}
-				catch(ConfigurationException ex) {
-					ex.printStackTrace();
-					terminate(
-							true, "Fehler während der Authentifizierung eines anderen Datenverteilers beim Zugriff auf die Konfiguration: " + ex.getMessage()
-					);
-					return;
+				else {
+					loginAttempt.execute(() -> checkPassword(authentificationRequest, loginAttempt));
 				}
 				break;
 			}
@@ -566,6 +592,16 @@ public class T_T_HighLevelCommunication implements T_T_HighLevelCommunicationInt
 			case DataTelegram.SRP_REQUEST_TYPE:
 				needsToBeNotAuthenticated();
 				_srpRequest = (SrpRequest) telegram;
+				_srpRequestTime = System.nanoTime();
+
+				// Brute-Force-Bremse: Nach Fehlversuchen wird die Antwort verzögert verschickt und das Passwort erst danach geprüft, abgewiesene
+				// Versuche werden gar nicht geprüft.
+				final LoginThrottle.Attempt previousSrpLoginAttempt = _srpLoginAttempt;
+				if(previousSrpLoginAttempt != null) previousSrpLoginAttempt.cancel();
+				final LoginThrottle.Attempt srpLoginAttempt = _transmitterManager.getLoginThrottle().startAttempt(
+						_srpRequest.getUserName(), getRemoteAdress()
+				);
+				_srpLoginAttempt = srpLoginAttempt;
 
 				SrpVerifierAndUser srpVerifierAndUser;
 				try {
@@ -585,9 +621,11 @@ public class T_T_HighLevelCommunication implements T_T_HighLevelCommunicationInt
 				_serverCryptoParams = srpVerifierData.getSrpCryptoParameter();
 				_srpServerSession = new SrpServerAuthentication(_serverCryptoParams);
 				_pendingSrpUserLogin = srpVerifierAndUser.getUserLogin();
-				final BigInteger b = _srpServerSession.step1(_srpRequest.getUserName(), srpVerifierData.getSalt(), srpVerifierData.getVerifier(), !_pendingSrpUserLogin.isAuthenticated());
+				final BigInteger b = SrpAuthenticationWorkers.step1(
+						_srpServerSession, _srpRequest.getUserName(), srpVerifierData.getSalt(), srpVerifierData.getVerifier(), !_pendingSrpUserLogin.isAuthenticated()
+				);
 				final SrpAnswer srpAnswer = new SrpAnswer(b, srpVerifierData.getSalt(), _serverCryptoParams);
-				_lowLevelCommunication.send(srpAnswer);
+				srpLoginAttempt.execute(() -> _lowLevelCommunication.send(srpAnswer));
 				break;
 			case DataTelegram.SRP_VALDIATE_REQUEST_TYPE:
 				needsToBeNotAuthenticated();
@@ -596,12 +634,27 @@ public class T_T_HighLevelCommunication implements T_T_HighLevelCommunicationInt
 					terminate(true, "Unerwartetes SRP-Telegramm");
 					return;
 				}
+				final LoginThrottle.Attempt srpValidateAttempt = _srpLoginAttempt;
+				if(srpValidateAttempt == null || !srpValidateAttempt.isDue()) {
+					// Brute-Force-Bremse: Vor Ablauf der Verzögerung eintreffende Versuche werden nicht geprüft und zählen als Fehlversuch
+					_srpServerSession = null;
+					if(srpValidateAttempt != null) srpValidateAttempt.failed();
+					_lowLevelCommunication.send(new SrpValidateAnswer(BigInteger.ZERO));
+					break;
+				}
+				if(!srpValidateAttempt.checkAllowed()) {
+					// Brute-Force-Bremse: Abgewiesene Versuche werden nicht geprüft
+					_srpServerSession = null;
+					_lowLevelCommunication.send(new SrpValidateAnswer(BigInteger.ZERO));
+					break;
+				}
 				try {
-					final BigInteger m2 = _srpServerSession.step2(srpValidateRequest.getA(), srpValidateRequest.getM1());
+					final BigInteger m2 = SrpAuthenticationWorkers.step2(_srpServerSession, srpValidateRequest.getA(), srpValidateRequest.getM1());
 					// Passwort ist korrekt
+					SrpAuthenticationWorkers.recordLogin(_srpRequestTime);
 					
 					// Brute-Force-Bremse
-					_transmitterManager.throttleLoginAttempt(true);
+					srpValidateAttempt.succeeded();
 
 					final SrpValidateAnswer answer = new SrpValidateAnswer(m2);
 					_lowLevelCommunication.sendDirect(answer);
@@ -617,10 +670,11 @@ public class T_T_HighLevelCommunication implements T_T_HighLevelCommunicationInt
 
 				}
 				catch(InconsistentLoginException| SrpNotSupportedException ignored) {
-					// Passwort ist falsch
+					// Passwort ist falsch, evtl. wurde es geändert und der zwischengespeicherte Überprüfungscode ist veraltet
+					_transmitterManager.invalidateSrpVerifier(_srpRequest.getUserName());
 
 					// Brute-Force-Bremse
-					_transmitterManager.throttleLoginAttempt(false);
+					srpValidateAttempt.failed();
 					
 					// Negative Quittung senden
 					final SrpValidateAnswer answer = new SrpValidateAnswer(BigInteger.ZERO);
@@ -728,6 +782,7 @@ public class T_T_HighLevelCommunication implements T_T_HighLevelCommunicationInt
 				if(_initComplete) {
 					needsToBeAuthenticated();
 					TransmitterDataUnsubscription unsubscription = (TransmitterDataUnsubscription) telegram;
+					if(_deltaCoding != null) _deltaCoding.remove(unsubscription.getBaseSubscriptionInfo());
 					_transmitterManager.handleTransmitterUnsubscription(this, unsubscription);
 				}
 				else {
@@ -807,6 +862,19 @@ public class T_T_HighLevelCommunication implements T_T_HighLevelCommunicationInt
 				if(_initComplete) {
 					needsToBeAuthenticated();
 					TransmitterDataTelegram transmitterDataTelegram = (TransmitterDataTelegram) telegram;
+					if(isDeltaEncodingActive()) {
+						if(_deltaCoding.handleResynchronizationRequest(transmitterDataTelegram)) break;
+						final TransmitterDataTelegram decodedTelegram = _deltaCoding.decode(transmitterDataTelegram);
+						if(decodedTelegram == null) {
+							// Differenz ohne Basis: Telegramm verwerfen und den nächsten Datensatz vollständig anfordern
+							final TransmitterDataTelegram request = _deltaCoding.createResynchronizationRequest(
+									transmitterDataTelegram.getApplicationDataTelegram().getBaseSubscriptionInfo()
+							);
+							if(request != null) sendTelegram(request);
+							break;
+						}
+						transmitterDataTelegram = decodedTelegram;
+					}
 					_transmitterManager.handleDataTelegram(this, transmitterDataTelegram);
 				}
 				else {
@@ -833,6 +901,52 @@ public class T_T_HighLevelCommunication implements T_T_HighLevelCommunicationInt
 		}
 	}
 
+	/**
+	 * Prüft das bei der einfachen Authentifizierung übertragene Passwort und verschickt die Antwort. Wird nach Fehlversuchen von der
+	 * Brute-Force-Bremse verzögert in einem anderen Thread aufgerufen.
+	 *
+	 * @param authentificationRequest Authentifizierungsanfrage
+	 * @param loginAttempt            Login-Versuch bei der Brute-Force-Bremse
+	 * @return true, falls die Verbindung terminiert wurde
+	 */
+	private boolean checkPassword(final TransmitterAuthentificationRequest authentificationRequest, final LoginThrottle.Attempt loginAttempt) {
+		final String userName = authentificationRequest.getUserName();
+		if(_closed) {
+			loginAttempt.cancel();
+			return true;
+		}
+		if(!loginAttempt.checkAllowed()) {
+			_userLogin = UserLogin.notAuthenticated();
+			return completeAuthenticationAndSendAnswer(userName);
+		}
+		try {
+			_userLogin = _lowLevelConnectionsManager.login(
+					userName,
+					authentificationRequest.getUserPassword(),
+					_authentificationComponent.getAuthentificationText(Long.toString(_connectedTransmitterId)),
+					_authentificationComponent.getAuthentificationProcess(),
+					""
+			);
+
+			if(_userLogin.isAuthenticated()) {
+				loginAttempt.succeeded();
+			}
+			else {
+				loginAttempt.failed();
+			}
+
+			return completeAuthenticationAndSendAnswer(userName);
+		}
+		catch(ConfigurationException ex) {
+			loginAttempt.cancel();
+			ex.printStackTrace();
+			terminate(
+					true, "Fehler während der Authentifizierung eines anderen Datenverteilers beim Zugriff auf die Konfiguration: " + ex.getMessage()
+			);
+			return true;
+		}
+	}
+
 	private boolean completeAuthenticationAndSendAnswer(final String userName) {
 		if(!_userLogin.isAuthenticated()) {
 			synchronized(_authentificationSync) {
@@ -1124,12 +1238,64 @@ public class T_T_HighLevelCommunication implements T_T_HighLevelCommunicationInt
 		)
 		);
 		sendTelegram(telegram);
+		if(_deltaCoding != null) _deltaCoding.remove(remoteCentralSubscription.getBaseSubscriptionInfo());
 	}
 
 	@Override
 	public final void sendData(ApplicationDataTelegram telegram, final boolean toCentralDistributor) {
-		TransmitterDataTelegram transmitterDataTelegram = new TransmitterDataTelegram(telegram, toCentralDistributor ? (byte) 0 : (byte) 1);
-		sendTelegram(transmitterDataTelegram);
+		final byte direction = toCentralDistributor ? (byte) 0 : (byte) 1;
+		if(isDeltaEncodingActive()) {
+			// Kodierung und Versand müssen in der gleichen Reihenfolge erfolgen, damit die Gegenseite die Differenzen auflösen kann.
+			// Der Versand selbst darf dabei keine Sperre der Kodierung halten, weil er bei vollem Sendepuffer blockiert und der
+			// Empfangsthread die Kodierung zum Leeren des Empfangspuffers benötigt.
+			final TransmitterDataDeltaCoding.EncodedTelegram encodedTelegram = _deltaCoding.encode(telegram, direction);
+			_deltaCoding.awaitSendTurn(encodedTelegram._sequence);
+			try {
+				sendDataTelegram(encodedTelegram._telegram, telegram);
+			}
+			finally {
+				_deltaCoding.finishSendTurn();
+			}
+			return;
+		}
+		TransmitterDataTelegram transmitterDataTelegram = new TransmitterDataTelegram(telegram, direction);
+		sendDataTelegram(transmitterDataTelegram, telegram);
+	}
+
+	@Override
+	public final void relayData(final TransmitterDataTelegram telegram) {
+		if(isDeltaEncodingActive()) {
+			// Die Differenz muss für diese Verbindung neu berechnet werden
+			sendData(telegram.getApplicationDataTelegram(), telegram.getDirection() == 0);
+			return;
+		}
+		sendDataTelegram(telegram, telegram.getApplicationDataTelegram());
+	}
+
+	/**
+	 * Versendet ein Datentelegramm, bei aktivierter Versandsteuerung verschränkt mit den Telegrammen anderer Datensätze
+	 * @param transmitterDataTelegram Zu versendendes Telegramm
+	 * @param applicationDataTelegram Enthaltenes Telegramm (bestimmt Datenidentifikation und Zerstückelung)
+	 */
+	private void sendDataTelegram(final DataTelegram transmitterDataTelegram, final ApplicationDataTelegram applicationDataTelegram) {
+		if(_outgoingDataScheduler == null) {
+			sendTelegram(transmitterDataTelegram);
+			return;
+		}
+		if(Transmitter._debugLevel > 5) System.err.println("T_T  -> " + transmitterDataTelegram.toShortDebugString());
+		_outgoingDataScheduler.send(
+				transmitterDataTelegram, applicationDataTelegram.getBaseSubscriptionInfo(), applicationDataTelegram.getTotalTelegramsCount() > 1
+		);
+	}
+
+	/**
+	 * Gibt zurück, ob auf dieser Verbindung Datentelegramme differenzkodiert übertragen werden. Das ist der Fall, wenn beide Datenverteiler
+	 * die Differenzkodierung aktiviert haben und daher die entsprechende Protokollversion ausgehandelt wurde.
+	 *
+	 * @return true, falls die Differenzkodierung aktiv ist
+	 */
+	private boolean isDeltaEncodingActive() {
+		return _deltaCoding != null && _version >= DELTA_ENCODING_PROTOCOL_VERSION;
 	}
 
 	@Override
@@ -0,0 +1,440 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.bsvrz.dav.dav.
+ *
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.dav.communication.davProtocol;
+
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.ApplicationDataTelegram;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.TransmitterDataTelegram;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * Differenzkodierung von Datentelegrammen auf einer Datenverteilerverbindung. Nicht zerstückelte Datensätze werden, sofern für die
+ * Datenidentifikation auf dieser Verbindung bereits ein Datensatz gleicher Länge übertragen wurde, als XOR-Differenz zu diesem Datensatz
+ * versendet. Die Differenz wird lauflängenkodiert, sodass unveränderte Bereiche nur wenige Bytes benötigen. Ist keine gemeinsame Basis
+ * vorhanden oder ist die Differenz nicht kleiner als der Datensatz, wird der vollständige Datensatz versendet.
+ * <p>
+ * Differenzkodierte Telegramme werden durch die Richtungskennung {@link #DIRECTION_DELTA_OFFSET} + eigentliche Richtung markiert und nur
+ * verschickt, wenn beide Datenverteiler eine Protokollversion unterstützen, in der diese Kodierung vorgesehen ist. Sender und Empfänger
+ * führen die Basis-Datensätze nach den gleichen Regeln nach, damit sie ohne zusätzliche Telegramme synchron bleiben. Das setzt voraus, dass
+ * die Telegramme einer Datenidentifikation in der Reihenfolge ihrer Kodierung übertragen werden.
+ * <p>
+ * Die Basis-Datensätze werden je Richtung bis zu einer Gesamtgröße von {@link #MAX_TOTAL_BASE_SIZE} Bytes vorgehalten, darüber hinaus werden
+ * die am längsten nicht benutzten verworfen. Beim Abmelden einer Datenidentifikation werden ihre Basis-Datensätze ebenfalls verworfen. Da beide
+ * Seiten dabei unabhängig voneinander entscheiden, kann eine Differenz ohne passende Basis empfangen werden. Ein solches Telegramm wird verworfen
+ * und der Sender mit einem Telegramm mit der Richtungskennung {@link #DIRECTION_RESYNCHRONIZATION_REQUEST} aufgefordert, den nächsten Datensatz
+ * dieser Datenidentifikation vollständig zu übertragen.
+ * <p>
+ * Sende- und Empfangsseite verwenden getrennte Sperren ({@link #_sendBase} bzw. {@link #_receiveBase}). Der Versand eines kodierten Telegramms
+ * erfolgt außerhalb der Sperre, damit ein wegen voller Sendepuffer blockierter Sender den Empfang (und damit das Leeren der Puffer der
+ * Gegenseite) nicht aufhält. Die Reihenfolge wird über eine fortlaufende Nummer je Verbindung sichergestellt: Der Aufrufer wartet vor dem Versand
+ * mit {@link #awaitSendTurn(long)} auf seine Nummer und gibt danach mit {@link #finishSendTurn()} die nächste frei.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+class TransmitterDataDeltaCoding {
+
+	/** Wird auf die Richtungskennung eines {@link TransmitterDataTelegram}s addiert, um ein differenzkodiertes Telegramm zu kennzeichnen */
+	static final byte DIRECTION_DELTA_OFFSET = 2;
+
+	/** Richtungskennung, mit der der Empfänger den nächsten Datensatz einer Datenidentifikation vollständig (ohne Differenzkodierung) anfordert */
+	static final byte DIRECTION_RESYNCHRONIZATION_REQUEST = 4;
+
+	/** Datensätze, die größer als dieser Wert sind, werden nicht als Basis für die Differenzkodierung vorgehalten */
+	private static final int MAX_BASE_SIZE = 64 * 1024;
+
+	/** Maximale Gesamtgröße der je Richtung vorgehaltenen Basis-Datensätze in Bytes */
+	private static final long MAX_TOTAL_BASE_SIZE = 16 * 1024 * 1024;
+
+	/** Zuletzt versendete Datensätze je Datenidentifikation, dient gleichzeitig als Sperre für den Zustand der Sendeseite */
+	private final BaseStore _sendBase = new BaseStore();
+
+	/** Zuletzt empfangene (dekodierte) Datensätze je Datenidentifikation, dient gleichzeitig als Sperre für den Zustand der Empfangsseite */
+	private final BaseStore _receiveBase = new BaseStore();
+
+	/** Datenidentifikationen, für die ein vollständiger Datensatz angefordert, aber noch nicht empfangen wurde */
+	private final Set<BaseSubscriptionInfo> _pendingResynchronizations = new HashSet<BaseSubscriptionInfo>();
+
+	/** Sperre für die Versandreihenfolge */
+	private final Object _sendOrder = new Object();
+
+	/** Nummer des nächsten kodierten Telegramms, wird mit {@link #_sendBase} synchronisiert */
+	private long _nextSequence = 0;
+
+	/** Nummer des Telegramms, das als nächstes versendet werden darf, wird mit {@link #_sendOrder} synchronisiert */
+	private long _sendTurn = 0;
+
+	/** Anzahl der vollständig versendeten Datensätze */
+	private long _fullTelegramsSent = 0;
+
+	/** Anzahl der als Differenz versendeten Datensätze */
+	private long _deltaTelegramsSent = 0;
+
+	/** Eingesparte Bytes durch die Differenzkodierung */
+	private long _bytesSaved = 0;
+
+	/** Anzahl der mangels Basis verworfenen Differenzen */
+	private long _discardedDeltas = 0;
+
+	/**
+	 * Erstellt ein zu versendendes Telegramm. Falls möglich und sinnvoll wird der Datensatz als Differenz zum zuletzt versendeten Datensatz
+	 * der gleichen Datenidentifikation kodiert. Das Telegramm muss in der Reihenfolge der zurückgegebenen Nummern versendet werden, siehe
+	 * {@link #awaitSendTurn(long)}.
+	 *
+	 * @param telegram  Zu versendendes Telegramm
+	 * @param direction Richtungskennung (0: zum Zentraldatenverteiler, 1: vom Zentraldatenverteiler)
+	 * @return Zu versendendes Telegramm mit seiner Nummer in der Versandreihenfolge
+	 */
+	EncodedTelegram encode(final ApplicationDataTelegram telegram, final byte direction) {
+		synchronized(_sendBase) {
+			return new EncodedTelegram(encodeTelegram(telegram, direction), _nextSequence++);
+		}
+	}
+
+	private TransmitterDataTelegram encodeTelegram(final ApplicationDataTelegram telegram, final byte direction) {
+		final BaseSubscriptionInfo info = telegram.getBaseSubscriptionInfo();
+		final byte[] data = telegram.getData();
+		if(!isBaseCandidate(telegram)) {
+			_sendBase.remove(info);
+			return new TransmitterDataTelegram(telegram, direction);
+		}
+		final byte[] base = _sendBase.put(info, data);
+		if(base != null && base.length == data.length) {
+			final byte[] delta = encodeDelta(base, data);
+			if(delta.length < data.length) {
+				_deltaTelegramsSent++;
+				_bytesSaved += data.length - delta.length;
+				return new TransmitterDataTelegram(copyWithData(telegram, delta), (byte) (direction + DIRECTION_DELTA_OFFSET));
+			}
+		}
+		_fullTelegramsSent++;
+		return new TransmitterDataTelegram(telegram, direction);
+	}
+
+	/**
+	 * Wartet, bis alle vorher kodierten Telegramme versendet wurden. Nach dem Versand muss in jedem Fall {@link #finishSendTurn()} aufgerufen
+	 * werden.
+	 *
+	 * @param sequence Nummer des kodierten Telegramms
+	 */
+	void awaitSendTurn(final long sequence) {
+		boolean interrupted = false;
+		synchronized(_sendOrder) {
+			while(_sendTurn != sequence) {
+				try {
+					_sendOrder.wait();
+				}
+				catch(InterruptedException e) {
+					// Die Reihenfolge muss trotzdem eingehalten werden, sonst kann die Gegenseite die folgenden Differenzen nicht auflösen
+					interrupted = true;
+				}
+			}
+		}
+		if(interrupted) Thread.currentThread().interrupt();
+	}
+
+	/** Gibt den Versand des nächsten kodierten Telegramms frei */
+	void finishSendTurn() {
+		synchronized(_sendOrder) {
+			_sendTurn++;
+			_sendOrder.notifyAll();
+		}
+	}
+
+	/**
+	 * Verarbeitet ein empfangenes Telegramm und gibt ein Telegramm mit vollständigem Datensatz zurück. Differenzkodierte Telegramme werden dazu
+	 * mit dem zuletzt empfangenen Datensatz der gleichen Datenidentifikation zusammengeführt.
+	 *
+	 * Ist für ein differenzkodiertes Telegramm keine Basis vorhanden, wird das Telegramm verworfen und <code>null</code> zurückgegeben, der
+	 * Aufrufer sollte dann mit {@link #createResynchronizationRequest(BaseSubscriptionInfo)} einen vollständigen Datensatz anfordern.
+	 *
+	 * @param telegram Empfangenes Telegramm
+	 * @return Telegramm mit vollständigem Datensatz und ursprünglicher Richtungskennung oder <code>null</code>, falls das Telegramm verworfen wurde
+	 */
+	TransmitterDataTelegram decode(final TransmitterDataTelegram telegram) {
+		final byte direction = telegram.getDirection();
+		final ApplicationDataTelegram applicationDataTelegram = telegram.getApplicationDataTelegram();
+		final BaseSubscriptionInfo info = applicationDataTelegram.getBaseSubscriptionInfo();
+		synchronized(_receiveBase) {
+			if(direction < DIRECTION_DELTA_OFFSET) {
+				if(isBaseCandidate(applicationDataTelegram)) {
+					_receiveBase.put(info, applicationDataTelegram.getData());
+				}
+				else {
+					_receiveBase.remove(info);
+				}
+				_pendingResynchronizations.remove(info);
+				return telegram;
+			}
+			final byte[] base = _receiveBase.get(info);
+			if(base == null) {
+				_discardedDeltas++;
+				return null;
+			}
+			final byte[] data = decodeDelta(base, applicationDataTelegram.getData());
+			_receiveBase.put(info, data);
+			return new TransmitterDataTelegram(copyWithData(applicationDataTelegram, data), (byte) (direction - DIRECTION_DELTA_OFFSET));
+		}
+	}
+
+	/**
+	 * Erzeugt ein Telegramm, mit dem der nächste Datensatz einer Datenidentifikation vollständig angefordert wird.
+	 *
+	 * @param info Datenidentifikation, für die eine Differenz ohne Basis empfangen wurde
+	 * @return Zu versendendes Telegramm oder <code>null</code>, falls bereits ein vollständiger Datensatz angefordert wurde
+	 */
+	TransmitterDataTelegram createResynchronizationRequest(final BaseSubscriptionInfo info) {
+		synchronized(_receiveBase) {
+			if(!_pendingResynchronizations.add(info)) return null;
+		}
+		final ApplicationDataTelegram request = new ApplicationDataTelegram(info, 0, false, (byte) 1, null, null, 1, 0, 0);
+		return new TransmitterDataTelegram(request, DIRECTION_RESYNCHRONIZATION_REQUEST);
+	}
+
+	/**
+	 * Prüft, ob es sich bei einem empfangenen Telegramm um die Anforderung eines vollständigen Datensatzes handelt, und verwirft in diesem Fall
+	 * die Basis der Datenidentifikation, sodass der nächste Datensatz vollständig versendet wird.
+	 *
+	 * @param telegram Empfangenes Telegramm
+	 * @return true, falls es sich um eine Anforderung handelte, die nicht weiter verarbeitet werden darf
+	 */
+	boolean handleResynchronizationRequest(final TransmitterDataTelegram telegram) {
+		if(telegram.getDirection() != DIRECTION_RESYNCHRONIZATION_REQUEST) return false;
+		synchronized(_sendBase) {
+			_sendBase.remove(telegram.getApplicationDataTelegram().getBaseSubscriptionInfo());
+		}
+		return true;
+	}
+
+	/**
+	 * Verwirft die Basis-Datensätze einer Datenidentifikation, z.B. wenn diese auf der Verbindung abgemeldet wurde.
+	 *
+	 * @param info Datenidentifikation
+	 */
+	void remove(final BaseSubscriptionInfo info) {
+		synchronized(_sendBase) {
+			_sendBase.remove(info);
+		}
+		synchronized(_receiveBase) {
+			_receiveBase.remove(info);
+			_pendingResynchronizations.remove(info);
+		}
+	}
+
+	/** Verwirft alle gespeicherten Basis-Datensätze, z.B. wenn die Verbindung terminiert wurde. */
+	void clear() {
+		synchronized(_sendBase) {
+			_sendBase.clear();
+		}
+		synchronized(_receiveBase) {
+			_receiveBase.clear();
+			_pendingResynchronizations.clear();
+		}
+	}
+
+	/**
+	 * Gibt eine Beschreibung der bisherigen Einsparungen zurück
+	 *
+	 * @return Text für Debug-Ausgaben
+	 */
+	String getStatistics() {
+		final String sendStatistics;
+		synchronized(_sendBase) {
+			sendStatistics = _deltaTelegramsSent + " Differenzen, " + _fullTelegramsSent + " vollständige Datensätze, " + _bytesSaved
+					+ " Bytes eingespart, Basis-Datensätze: " + _sendBase.getTotalSize() + " Bytes gesendet";
+		}
+		synchronized(_receiveBase) {
+			return "Differenzkodierung: " + sendStatistics + ", " + _discardedDeltas + " Differenzen ohne Basis verworfen, "
+					+ _receiveBase.getTotalSize() + " Bytes empfangen";
+		}
+	}
+
+	/**
+	 * Prüft, ob ein Telegramm als Basis für folgende Differenzen dienen kann. Muss auf Sender- und Empfängerseite das gleiche Ergebnis
+	 * liefern.
+	 *
+	 * @param telegram Telegramm
+	 * @return true, wenn es sich um einen nicht zerstückelten Datensatz mit Nutzdaten handelt
+	 */
+	private static boolean isBaseCandidate(final ApplicationDataTelegram telegram) {
+		if(telegram.getTotalTelegramsCount() != 1 || telegram.getErrorFlag() != 0) return false;
+		final byte[] data = telegram.getData();
+		return data != null && data.length > 0 && data.length <= MAX_BASE_SIZE;
+	}
+
+	private static ApplicationDataTelegram copyWithData(final ApplicationDataTelegram telegram, final byte[] data) {
+		return new ApplicationDataTelegram(
+				telegram.getBaseSubscriptionInfo(),
+				telegram.getDataNumber(),
+				telegram.getDelayedDataFlag(),
+				telegram.getErrorFlag(),
+				telegram.getAttributesIndicator(),
+				data,
+				1,
+				0,
+				telegram.getDataTime()
+		);
+	}
+
+	/**
+	 * Kodiert die Differenz zweier gleich langer Byte-Arrays. Das Ergebnis besteht aus Paaren von (Anzahl unveränderter Bytes, Anzahl
+	 * veränderter Bytes), gefolgt von den XOR-verknüpften veränderten Bytes. Die Längen werden als Varint mit 7 Bit je Byte kodiert.
+	 *
+	 * @param base Basis
+	 * @param data Neue Daten
+	 * @return Kodierte Differenz
+	 */
+	static byte[] encodeDelta(final byte[] base, final byte[] data) {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(data.length, 256));
+		int pos = 0;
+		while(pos < data.length) {
+			final int unchangedStart = pos;
+			while(pos < data.length && base[pos] == data[pos]) pos++;
+			if(pos == data.length) break;
+			final int changedStart = pos;
+			// Kurze unveränderte Bereiche (bis 2 Bytes) mit in den veränderten Bereich aufnehmen, weil ein neues Paar mindestens 2 Bytes kostet
+			while(pos < data.length && (base[pos] != data[pos] || (pos + 2 < data.length && (base[pos + 1] != data[pos + 1] || base[pos + 2] != data[pos + 2])))) {
+				pos++;
+			}
+			writeVarInt(out, changedStart - unchangedStart);
+			writeVarInt(out, pos - changedStart);
+			for(int i = changedStart; i < pos; i++) {
+				out.write(base[i] ^ data[i]);
+			}
+			if(out.size() >= data.length) break;
+		}
+		if(out.size() == 0) {
+			// Unveränderter Datensatz, leere Nutzdaten werden aber nicht als Differenz übertragen
+			writeVarInt(out, 0);
+			writeVarInt(out, 0);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Wendet eine mit {@link #encodeDelta(byte[], byte[])} erzeugte Differenz auf die Basis an.
+	 *
+	 * @param base  Basis
+	 * @param delta Differenz
+	 * @return Neue Daten
+	 */
+	static byte[] decodeDelta(final byte[] base, final byte[] delta) {
+		final byte[] result = base.clone();
+		final int[] position = new int[]{0};
+		int pos = 0;
+		while(position[0] < delta.length) {
+			pos += readVarInt(delta, position);
+			final int changed = readVarInt(delta, position);
+			for(int i = 0; i < changed; i++) {
+				result[pos++] ^= delta[position[0]++];
+			}
+		}
+		return result;
+	}
+
+	private static void writeVarInt(final ByteArrayOutputStream out, int value) {
+		while((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarInt(final byte[] bytes, final int[] position) {
+		int result = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = bytes[position[0]++];
+			result |= (b & 0x7F) << shift;
+			shift += 7;
+		}
+		while((b & 0x80) != 0);
+		return result;
+	}
+
+	/** Kodiertes Telegramm mit seiner Nummer in der Versandreihenfolge */
+	static final class EncodedTelegram {
+
+		final TransmitterDataTelegram _telegram;
+
+		final long _sequence;
+
+		EncodedTelegram(final TransmitterDataTelegram telegram, final long sequence) {
+			_telegram = telegram;
+			_sequence = sequence;
+		}
+	}
+
+	/**
+	 * Basis-Datensätze je Datenidentifikation. Überschreitet die Gesamtgröße {@link #MAX_TOTAL_BASE_SIZE}, werden die am längsten nicht
+	 * benutzten Einträge verworfen.
+	 */
+	private static final class BaseStore {
+
+		private final LinkedHashMap<BaseSubscriptionInfo, byte[]> _entries = new LinkedHashMap<BaseSubscriptionInfo, byte[]>(16, 0.75f, true);
+
+		private long _totalSize = 0;
+
+		byte[] get(final BaseSubscriptionInfo info) {
+			return _entries.get(info);
+		}
+
+		byte[] put(final BaseSubscriptionInfo info, final byte[] data) {
+			final byte[] previous = _entries.put(info, data);
+			if(previous != null) _totalSize -= previous.length;
+			_totalSize += data.length;
+			final Iterator<byte[]> iterator = _entries.values().iterator();
+			while(_totalSize > MAX_TOTAL_BASE_SIZE && iterator.hasNext()) {
+				final byte[] eldest = iterator.next();
+				if(eldest == data) break;
+				_totalSize -= eldest.length;
+				iterator.remove();
+			}
+			return previous;
+		}
+
+		void remove(final BaseSubscriptionInfo info) {
+			final byte[] previous = _entries.remove(info);
+			if(previous != null) _totalSize -= previous.length;
+		}
+
+		void clear() {
+			_entries.clear();
+			_totalSize = 0;
+		}
+
+		long getTotalSize() {
+			return _totalSize;
+		}
+	}
+}
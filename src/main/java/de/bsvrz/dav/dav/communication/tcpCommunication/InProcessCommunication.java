@@ -0,0 +1,248 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.communication.tcpCommunication;
+
+import de.bsvrz.dav.daf.communication.lowLevel.ConnectionInterface;
+import de.bsvrz.dav.daf.main.ConnectionException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * Prozessinterne Verbindung zu einem {@link InProcessServerCommunication}, der im gleichen Prozess unter der angegebenen Subadresse
+ * Verbindungen entgegennimmt. Die Adresse wird ignoriert. Die Daten werden je Richtung über einen Puffer im Speicher übergeben, sodass
+ * weder Sockets noch Systemaufrufe beteiligt sind.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class InProcessCommunication implements ConnectionInterface {
+
+	/** Größe des Puffers je Richtung in Bytes */
+	private static final int PIPE_SIZE = 256 * 1024;
+
+	private Pipe _inputPipe;
+
+	private Pipe _outputPipe;
+
+	private int _subAdressNumber;
+
+	/** Erzeugt eine nicht verbundene Instanz. */
+	public InProcessCommunication() {
+	}
+
+	private InProcessCommunication(final Pipe inputPipe, final Pipe outputPipe, final int subAdressNumber) {
+		_inputPipe = inputPipe;
+		_outputPipe = outputPipe;
+		_subAdressNumber = subAdressNumber;
+	}
+
+	@Override
+	public void connect(final String mainAdress, final int subAdressNumber) throws ConnectionException {
+		final InProcessServerCommunication server = InProcessServerCommunication.getServer(subAdressNumber);
+		if(server == null) {
+			throw new ConnectionException("Im eigenen Prozess werden unter Subadresse " + subAdressNumber + " keine Verbindungen entgegengenommen");
+		}
+		final Pipe toServer = new Pipe();
+		final Pipe fromServer = new Pipe();
+		if(!server.offer(new InProcessCommunication(toServer, fromServer, subAdressNumber))) {
+			throw new ConnectionException("Prozessinterner Server unter Subadresse " + subAdressNumber + " wurde beendet");
+		}
+		_inputPipe = fromServer;
+		_outputPipe = toServer;
+		_subAdressNumber = subAdressNumber;
+	}
+
+	@Override
+	public void disconnect() {
+		final Pipe inputPipe = _inputPipe;
+		final Pipe outputPipe = _outputPipe;
+		if(inputPipe != null) inputPipe.close();
+		if(outputPipe != null) outputPipe.close();
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		return _inputPipe == null ? null : _inputPipe.getInputStream();
+	}
+
+	@Override
+	public OutputStream getOutputStream() {
+		return _outputPipe == null ? null : _outputPipe.getOutputStream();
+	}
+
+	@Override
+	public String getMainAdress() {
+		return "localhost";
+	}
+
+	@Override
+	public int getSubAdressNumber() {
+		return _subAdressNumber;
+	}
+
+	@Override
+	public boolean isConnected() {
+		final Pipe inputPipe = _inputPipe;
+		return inputPipe != null && !inputPipe.isClosed();
+	}
+
+	@Override
+	public boolean isLoopback() {
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "InProcessCommunication{" + _subAdressNumber + "}";
+	}
+
+	/** Puffer für eine Richtung mit genau einem schreibenden und einem lesenden Thread */
+	private static final class Pipe {
+
+		private final byte[] _buffer = new byte[PIPE_SIZE];
+
+		/** Anzahl insgesamt geschriebener Bytes */
+		private long _head = 0;
+
+		/** Anzahl insgesamt gelesener Bytes */
+		private long _tail = 0;
+
+		private boolean _closed = false;
+
+		private final InputStream _inputStream = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				final byte[] buffer = new byte[1];
+				final int result = read(buffer, 0, 1);
+				return result < 0 ? -1 : buffer[0] & 0xff;
+			}
+
+			@Override
+			public int read(final byte[] b, final int off, final int len) throws IOException {
+				return Pipe.this.read(b, off, len);
+			}
+
+			@Override
+			public int available() {
+				return Pipe.this.available();
+			}
+
+			@Override
+			public void close() {
+				Pipe.this.close();
+			}
+		};
+
+		private final OutputStream _outputStream = new OutputStream() {
+			@Override
+			public void write(final int b) throws IOException {
+				write(new byte[]{(byte) b}, 0, 1);
+			}
+
+			@Override
+			public void write(final byte[] b, final int off, final int len) throws IOException {
+				Pipe.this.write(b, off, len);
+			}
+
+			@Override
+			public void close() {
+				Pipe.this.close();
+			}
+		};
+
+		InputStream getInputStream() {
+			return _inputStream;
+		}
+
+		OutputStream getOutputStream() {
+			return _outputStream;
+		}
+
+		synchronized int read(final byte[] b, final int off, final int len) throws IOException {
+			if(len == 0) return 0;
+			try {
+				while(_head == _tail) {
+					if(_closed) return -1;
+					wait();
+				}
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+			final int count = (int) Math.min(len, _head - _tail);
+			final int index = (int) (_tail % PIPE_SIZE);
+			final int first = Math.min(count, PIPE_SIZE - index);
+			System.arraycopy(_buffer, index, b, off, first);
+			System.arraycopy(_buffer, 0, b, off + first, count - first);
+			_tail += count;
+			notifyAll();
+			return count;
+		}
+
+		synchronized void write(final byte[] b, int off, int len) throws IOException {
+			try {
+				while(len > 0) {
+					if(_closed) throw new IOException("Prozessinterne Verbindung wurde beendet");
+					final int free = (int) (PIPE_SIZE - (_head - _tail));
+					if(free == 0) {
+						wait();
+						continue;
+					}
+					final int count = Math.min(len, free);
+					final int index = (int) (_head % PIPE_SIZE);
+					final int first = Math.min(count, PIPE_SIZE - index);
+					System.arraycopy(b, off, _buffer, index, first);
+					System.arraycopy(b, off + first, _buffer, 0, count - first);
+					_head += count;
+					off += count;
+					len -= count;
+					notifyAll();
+				}
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+		}
+
+		synchronized int available() {
+			return (int) (_head - _tail);
+		}
+
+		synchronized void close() {
+			_closed = true;
+			notifyAll();
+		}
+
+		synchronized boolean isClosed() {
+			return _closed;
+		}
+	}
+}
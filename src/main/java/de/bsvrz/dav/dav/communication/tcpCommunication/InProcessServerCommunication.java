@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.communication.tcpCommunication;
+
+import de.bsvrz.dav.daf.communication.lowLevel.ConnectionInterface;
+import de.bsvrz.dav.daf.communication.lowLevel.ServerConnectionInterface;
+import de.bsvrz.dav.daf.main.CommunicationError;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prozessinterne Implementierung von {@link ServerConnectionInterface}. Eine Instanz meldet sich bei {@link #connect(int)} unter der
+ * Subadresse an; mit {@link InProcessCommunication} im gleichen Prozess aufgebaute Verbindungen werden danach von {@link #accept()}
+ * zurückgegeben. Wird vom Datenverteiler für seine eigene Datenverteilerverbindung verwendet, damit deren Telegramme nicht über den
+ * Applikationsport und den TCP-Stack des Betriebssystems laufen.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class InProcessServerCommunication implements ServerConnectionInterface {
+
+	/** Angemeldete Server je Subadresse */
+	private static final ConcurrentMap<Integer, InProcessServerCommunication> _servers = new ConcurrentHashMap<Integer, InProcessServerCommunication>();
+
+	/** Aufgebaute, aber noch nicht von {@link #accept()} zurückgegebene Verbindungen */
+	private final BlockingQueue<ConnectionInterface> _acceptedConnections = new LinkedBlockingQueue<ConnectionInterface>();
+
+	private int _subAdressNumber = -1;
+
+	private volatile boolean _connected = false;
+
+	/** Erzeugt eine Instanz dieser Klasse. */
+	public InProcessServerCommunication() {
+	}
+
+	/**
+	 * Gibt den unter einer Subadresse angemeldeten Server zurück
+	 *
+	 * @param subAdressNumber Subadresse
+	 * @return Server oder null
+	 */
+	static InProcessServerCommunication getServer(final int subAdressNumber) {
+		return _servers.get(subAdressNumber);
+	}
+
+	/**
+	 * Übergibt eine aufgebaute Verbindung an {@link #accept()}
+	 *
+	 * @param connection Serverseite der Verbindung
+	 * @return false, falls der Server bereits beendet wurde
+	 */
+	boolean offer(final ConnectionInterface connection) {
+		if(!_connected) return false;
+		_acceptedConnections.add(connection);
+		return true;
+	}
+
+	@Override
+	public void connect(final int subAdressNumber) throws CommunicationError {
+		if(_servers.putIfAbsent(subAdressNumber, this) != null) {
+			throw new CommunicationError("Prozessinterne Verbindungen werden bereits unter Subadresse " + subAdressNumber + " entgegengenommen");
+		}
+		_subAdressNumber = subAdressNumber;
+		_connected = true;
+	}
+
+	@Override
+	public void disconnect() {
+		_connected = false;
+		_servers.remove(_subAdressNumber, this);
+		ConnectionInterface connection;
+		while((connection = _acceptedConnections.poll()) != null) {
+			connection.disconnect();
+		}
+	}
+
+	@Override
+	public ConnectionInterface accept() {
+		try {
+			while(_connected) {
+				final ConnectionInterface connection = _acceptedConnections.poll(1, TimeUnit.SECONDS);
+				if(connection != null) return connection;
+			}
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return null;
+	}
+
+	@Override
+	public ConnectionInterface getPlainConnection() {
+		return new InProcessCommunication();
+	}
+
+	@Override
+	public String getPlainConnectionName() {
+		return InProcessCommunication.class.getName();
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.communication.tcpCommunication;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Set;
+
+/**
+ * Hilfsmethoden für die Verzeichnisse, über die lokale Verbindungen (Unix-Domain-Sockets, Shared-Memory) aufgebaut werden. Liegen die
+ * Dateien einer Verbindung in einem für alle Benutzer beschreibbaren Verzeichnis wie {@code /tmp}, kann ein anderer Benutzer des Rechners
+ * sie vorab anlegen oder ersetzen und sich so als Datenverteiler ausgeben oder Telegramme mitlesen. Die Standardverzeichnisse sind daher
+ * benutzerspezifische Unterverzeichnisse ({@code dav-<Benutzername>}), die der Datenverteiler mit den Rechten {@code rwx------} anlegt.
+ * Vor der Verwendung wird geprüft, dass ein Verzeichnis kein symbolischer Link ist, nur vom Eigentümer beschrieben werden kann und - beim
+ * Datenverteiler und bei Standardverzeichnissen - dem eigenen Benutzer gehört.
+ * <p>
+ * Applikationen, die unter einem anderen Benutzer als der Datenverteiler laufen, können das Standardverzeichnis nicht verwenden und bauen
+ * daher eine TCP-Verbindung auf. Sollen sie lokale Verbindungen nutzen, muss ein vom Administrator angelegtes Verzeichnis (z.B.
+ * {@code /run/dav}) über den Parameter {@code verzeichnis} konfiguriert werden.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+final class LocalTransportDirectory {
+
+	/** Rechte für vom Datenverteiler angelegte Verzeichnisse */
+	private static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+
+	private LocalTransportDirectory() {
+	}
+
+	/**
+	 * Bestimmt das benutzerspezifische Standardverzeichnis unterhalb eines Basisverzeichnisses
+	 *
+	 * @param baseDirectory Basisverzeichnis, z.B. das temporäre Verzeichnis von Java
+	 * @return Pfad des Verzeichnisses {@code dav-<Benutzername>} im Basisverzeichnis
+	 */
+	static String getDefaultDirectory(final String baseDirectory) {
+		return new File(baseDirectory, "dav-" + System.getProperty("user.name")).getPath();
+	}
+
+	/**
+	 * Legt das Verzeichnis des Datenverteilers an, falls es noch nicht existiert, und prüft, ob es vertrauenswürdig ist. Es muss dem eigenen
+	 * Benutzer gehören und darf nur von diesem beschrieben werden können.
+	 *
+	 * @param directory Verzeichnis
+	 * @throws IOException Das Verzeichnis kann nicht angelegt werden oder ist nicht vertrauenswürdig
+	 */
+	static void prepare(final String directory) throws IOException {
+		final Path path = Paths.get(directory);
+		if(!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+			try {
+				if(isPosix(path)) {
+					Files.createDirectories(path, PosixFilePermissions.asFileAttribute(DIRECTORY_PERMISSIONS));
+				}
+				else {
+					Files.createDirectories(path);
+				}
+			}
+			catch(FileAlreadyExistsException ignored) {
+				// Gleichzeitig angelegt, wird unten geprüft
+			}
+		}
+		check(path, true);
+	}
+
+	/**
+	 * Prüft aus Sicht einer Applikation, ob ein Verzeichnis vertrauenswürdig ist. Bei einem Standardverzeichnis muss es dem eigenen Benutzer
+	 * gehören, da der Name des Verzeichnisses den Benutzernamen enthält.
+	 *
+	 * @param directory        Verzeichnis
+	 * @param defaultDirectory Standardverzeichnis, das nur vom eigenen Benutzer verwendet wird
+	 * @return true, falls Dateien aus dem Verzeichnis verwendet werden dürfen
+	 */
+	static boolean isTrusted(final String directory, final String defaultDirectory) {
+		try {
+			check(Paths.get(directory), directory.equals(defaultDirectory));
+			return true;
+		}
+		catch(IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Prüft, ob eine Datei dem eigenen Benutzer gehört. Auf Dateisystemen ohne Eigentümer wird true zurückgegeben.
+	 *
+	 * @param path Datei
+	 * @return true, falls die Datei dem eigenen Benutzer gehört
+	 * @throws IOException Fehler beim Lesen der Dateiattribute
+	 */
+	static boolean isOwnedByCurrentUser(final Path path) throws IOException {
+		final PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+		if(view == null) return true;
+		return view.readAttributes().owner().equals(getCurrentUser(path));
+	}
+
+	/**
+	 * Prüft, ob ein Verzeichnis POSIX-Dateirechte unterstützt
+	 *
+	 * @param path Verzeichnis oder Datei
+	 * @return true, falls POSIX-Dateirechte unterstützt werden
+	 */
+	static boolean isPosix(final Path path) {
+		return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+	}
+
+	private static void check(final Path path, final boolean requireOwner) throws IOException {
+		if(!Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+			throw new IOException("Kein Verzeichnis oder symbolischer Link: " + path);
+		}
+		final PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+		if(view == null) {
+			// Dateisystem ohne POSIX-Rechte, die Zugriffsrechte werden vom Betriebssystem verwaltet
+			return;
+		}
+		final PosixFileAttributes attributes = view.readAttributes();
+		if(requireOwner && !attributes.owner().equals(getCurrentUser(path))) {
+			throw new IOException("Verzeichnis gehört nicht dem eigenen Benutzer, sondern " + attributes.owner().getName() + ": " + path);
+		}
+		final Set<PosixFilePermission> permissions = attributes.permissions();
+		if(permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+			throw new IOException("Verzeichnis kann von anderen Benutzern beschrieben werden (" + PosixFilePermissions.toString(permissions) + "): " + path);
+		}
+	}
+
+	private static UserPrincipal getCurrentUser(final Path path) throws IOException {
+		return path.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+	}
+}
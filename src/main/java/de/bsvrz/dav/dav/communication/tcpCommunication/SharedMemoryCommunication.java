@@ -0,0 +1,574 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.communication.tcpCommunication;
+
+import de.bsvrz.dav.daf.communication.lowLevel.ConnectionInterface;
+import de.bsvrz.dav.daf.communication.tcpCommunication.TCP_IP_Communication;
+import de.bsvrz.dav.daf.main.ConnectionException;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+/**
+ * Verbindung zu einem Datenverteiler auf dem gleichen Rechner über gemeinsam genutzten Speicher. Die Telegramme werden in zwei
+ * Ringpuffern ({@link SharedMemoryRing}, je einer pro Richtung) in einer per {@code mmap} eingeblendeten Datei übertragen, standardmäßig in
+ * {@code /dev/shm}. Daneben besteht eine TCP-Verbindung über die Loopback-Schnittstelle, die nur als Steuerkanal dient:
+ * <ul>
+ * <li>Beim Verbindungsaufbau teilt der Datenverteiler darüber den Namen der Speicherdatei mit.</li>
+ * <li>Wartet eine Seite auf Daten oder freien Platz, wird sie von der anderen Seite durch ein einzelnes Byte geweckt.</li>
+ * <li>Beendet sich die Gegenseite oder stürzt sie ab, schließt das Betriebssystem den Steuerkanal. Das wird wie das Ende einer
+ * TCP-Verbindung behandelt.</li>
+ * </ul>
+ * Beim Verbindungsaufbau wird geprüft, ob die angegebene Adresse zum eigenen Rechner gehört und der Datenverteiler in der zur Subadresse
+ * passenden Datei (siehe {@link SharedMemoryServerCommunication}) den Port des Steuerkanals veröffentlicht hat. Ist das nicht der Fall,
+ * wird stattdessen wie bisher eine TCP-Verbindung aufgebaut.
+ * <p>
+ * Über die Speicherdateien werden alle Telegramme einschließlich der Anmeldung übertragen. Sie werden daher mit den Rechten
+ * {@code rw-------} in einem nur für den Benutzer des Datenverteilers zugänglichen Verzeichnis angelegt (siehe
+ * {@link LocalTransportDirectory}). Applikationen verwenden den gemeinsamen Speicher nur, wenn sie unter dem gleichen Benutzer wie der
+ * Datenverteiler laufen und ihnen die Portdatei und die Speicherdatei gehören.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class SharedMemoryCommunication implements ConnectionInterface {
+
+	/** Der Debug-Logger. */
+	private static final Debug _debug = Debug.getLogger();
+
+	/** Standardverzeichnis für die Speicherdateien, ein benutzerspezifisches Unterverzeichnis von {@code /dev/shm} */
+	static final String DEFAULT_DIRECTORY = LocalTransportDirectory.getDefaultDirectory(
+			new File("/dev/shm").isDirectory() ? "/dev/shm" : System.getProperty("java.io.tmpdir")
+	);
+
+	/** Rechte für die Port- und Speicherdateien */
+	private static final Set<PosixFilePermission> FILE_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+
+	/** Wie oft vor dem Warten auf ein Wecksignal erneut geprüft wird, ob der Ringpuffer bereit ist */
+	private static final int SPIN_COUNT = 100;
+
+	/** Maximale Wartezeit auf ein Wecksignal in Millisekunden, begrenzt die Verzögerung bei einem verlorenen Wecksignal */
+	private static final long WAIT_TIMEOUT = 10;
+
+	/** Verzeichnis mit den Port- und Speicherdateien */
+	private final String _directory;
+
+	/** Steuerkanal oder null, falls eine TCP-Verbindung verwendet wird */
+	private volatile SocketChannel _controlChannel;
+
+	/** TCP-Verbindung, falls kein gemeinsamer Speicher verwendet werden kann */
+	private volatile ConnectionInterface _tcpConnection;
+
+	/** Speicherdatei, die beim Beenden der Verbindung gelöscht wird, falls die Gegenseite das nicht mehr getan hat */
+	private File _memoryFile;
+
+	private Doorbell _doorbell;
+
+	private InputStream _inputStream;
+
+	private OutputStream _outputStream;
+
+	private String _mainAdress;
+
+	private int _subAdressNumber;
+
+	/** Erzeugt eine nicht verbundene Instanz, die die Dateien des Datenverteilers im Standardverzeichnis sucht. */
+	public SharedMemoryCommunication() {
+		this(DEFAULT_DIRECTORY);
+	}
+
+	/**
+	 * Erzeugt eine nicht verbundene Instanz
+	 *
+	 * @param directory Verzeichnis mit den Dateien des Datenverteilers
+	 */
+	public SharedMemoryCommunication(final String directory) {
+		_directory = directory;
+	}
+
+	/**
+	 * Gibt die Datei zurück, in der ein Datenverteiler den Port des Steuerkanals für eine Subadresse (Portnummer) veröffentlicht
+	 *
+	 * @param directory       Verzeichnis
+	 * @param subAdressNumber Subadresse
+	 * @return Datei
+	 */
+	static File getPortFile(final String directory, final int subAdressNumber) {
+		return new File(directory, "dav-" + subAdressNumber + ".shm");
+	}
+
+	/**
+	 * Legt eine neue, leere Datei an, die nur vom eigenen Benutzer gelesen und geschrieben werden kann
+	 *
+	 * @param directory Verzeichnis
+	 * @param prefix    Anfang des Dateinamens
+	 * @param suffix    Ende des Dateinamens
+	 * @return Datei
+	 * @throws IOException Fehler beim Anlegen
+	 */
+	static File createPrivateFile(final String directory, final String prefix, final String suffix) throws IOException {
+		final Path path = Paths.get(directory);
+		final FileAttribute<?>[] attributes;
+		if(LocalTransportDirectory.isPosix(path)) {
+			attributes = new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(FILE_PERMISSIONS)};
+		}
+		else {
+			attributes = new FileAttribute<?>[0];
+		}
+		return Files.createTempFile(path, prefix, suffix, attributes).toFile();
+	}
+
+	/**
+	 * Legt auf Seite des Datenverteilers zu einem entgegengenommenen Steuerkanal die Speicherdatei an, teilt deren Namen der Gegenseite mit
+	 * und gibt die Verbindung zurück.
+	 *
+	 * @param controlChannel  Steuerkanal im blockierenden Modus
+	 * @param directory       Verzeichnis für die Speicherdatei
+	 * @param capacity        Größe eines Ringpuffers, muss eine Zweierpotenz sein
+	 * @param subAdressNumber Subadresse, unter der die Verbindung entgegengenommen wurde
+	 * @return Verbindung
+	 * @throws IOException Fehler beim Anlegen der Speicherdatei oder beim Senden
+	 */
+	static SharedMemoryCommunication accept(final SocketChannel controlChannel, final String directory, final int capacity, final int subAdressNumber)
+			throws IOException {
+		final File memoryFile = createPrivateFile(directory, "dav-" + subAdressNumber + "-", ".ring");
+		try {
+			final MappedByteBuffer buffer = map(memoryFile, 2 * SharedMemoryRing.getSize(capacity));
+			final DataOutputStream out = new DataOutputStream(new UnixDomainCommunication.ChannelOutputStream(controlChannel));
+			out.writeUTF(memoryFile.getAbsolutePath());
+			out.writeInt(capacity);
+			out.flush();
+			final SharedMemoryCommunication communication = new SharedMemoryCommunication(directory);
+			// Der erste Ringpuffer überträgt zum Datenverteiler, der zweite zur Applikation
+			communication.setChannel(
+					controlChannel,
+					new SharedMemoryRing(buffer, 0, capacity),
+					new SharedMemoryRing(buffer, SharedMemoryRing.getSize(capacity), capacity),
+					"localhost",
+					subAdressNumber
+			);
+			communication._memoryFile = memoryFile;
+			return communication;
+		}
+		catch(IOException e) {
+			memoryFile.delete();
+			throw e;
+		}
+	}
+
+	@Override
+	public void connect(final String mainAdress, final int subAdressNumber) throws ConnectionException {
+		final File portFile = getPortFile(_directory, subAdressNumber);
+		if(portFile.exists() && UnixDomainCommunication.isLocalAdress(mainAdress)
+		   && LocalTransportDirectory.isTrusted(_directory, DEFAULT_DIRECTORY)) {
+			try {
+				connectSharedMemory(portFile, mainAdress, subAdressNumber);
+				_debug.info("Verbindung über gemeinsamen Speicher aktiv aufgebaut, " + _memoryFile);
+				return;
+			}
+			catch(IOException e) {
+				_debug.fine("Verbindung über " + portFile + " nicht möglich, es wird eine TCP-Verbindung verwendet", e);
+			}
+		}
+		final ConnectionInterface tcpConnection = new TCP_IP_Communication();
+		tcpConnection.connect(mainAdress, subAdressNumber);
+		_tcpConnection = tcpConnection;
+	}
+
+	private void connectSharedMemory(final File portFile, final String mainAdress, final int subAdressNumber) throws IOException {
+		checkOwner(portFile);
+		final int port;
+		try(FileInputStream in = new FileInputStream(portFile)) {
+			final byte[] bytes = new byte[16];
+			final int length = in.read(bytes);
+			port = Integer.parseInt(new String(bytes, 0, Math.max(length, 0), StandardCharsets.US_ASCII).trim());
+		}
+		catch(NumberFormatException e) {
+			throw new IOException("Ungültige Portdatei: " + portFile, e);
+		}
+		final SocketChannel controlChannel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+		try {
+			controlChannel.socket().setTcpNoDelay(true);
+			final DataInputStream in = new DataInputStream(new UnixDomainCommunication.ChannelInputStream(controlChannel));
+			final File memoryFile = new File(in.readUTF());
+			final int capacity = in.readInt();
+			checkOwner(memoryFile);
+			final MappedByteBuffer buffer = map(memoryFile, 2 * SharedMemoryRing.getSize(capacity));
+			// Die Datei wird nicht mehr benötigt, der eingeblendete Speicher bleibt bis zum Ende der Verbindung erhalten
+			memoryFile.delete();
+			setChannel(
+					controlChannel,
+					new SharedMemoryRing(buffer, SharedMemoryRing.getSize(capacity), capacity),
+					new SharedMemoryRing(buffer, 0, capacity),
+					mainAdress,
+					subAdressNumber
+			);
+			_memoryFile = memoryFile;
+		}
+		catch(IOException | RuntimeException e) {
+			controlChannel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Prüft, ob eine Datei des Datenverteilers eine reguläre Datei ist und dem eigenen Benutzer gehört. Andernfalls könnte ein anderer
+	 * Benutzer sie angelegt haben, um die Verbindung umzuleiten oder mitzulesen.
+	 */
+	private static void checkOwner(final File file) throws IOException {
+		final Path path = file.toPath();
+		if(!Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
+			throw new IOException("Keine reguläre Datei: " + file);
+		}
+		if(!LocalTransportDirectory.isOwnedByCurrentUser(path)) {
+			throw new IOException("Datei gehört nicht dem eigenen Benutzer: " + file);
+		}
+	}
+
+	private static MappedByteBuffer map(final File memoryFile, final int size) throws IOException {
+		try(RandomAccessFile file = new RandomAccessFile(memoryFile, "rw")) {
+			if(file.length() != size) {
+				if(file.length() != 0) throw new IOException("Speicherdatei hat eine unerwartete Größe: " + memoryFile);
+				file.setLength(size);
+			}
+			return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+	}
+
+	private void setChannel(
+			final SocketChannel controlChannel,
+			final SharedMemoryRing inputRing,
+			final SharedMemoryRing outputRing,
+			final String mainAdress,
+			final int subAdressNumber) throws IOException {
+		controlChannel.socket().setTcpNoDelay(true);
+		_doorbell = new Doorbell(controlChannel);
+		_inputStream = new RingInputStream(inputRing, _doorbell);
+		_outputStream = new RingOutputStream(outputRing, _doorbell);
+		_mainAdress = mainAdress;
+		_subAdressNumber = subAdressNumber;
+		_controlChannel = controlChannel;
+		_doorbell.start();
+	}
+
+	/**
+	 * Gibt zurück, ob die Verbindung über gemeinsamen Speicher läuft
+	 *
+	 * @return true bei gemeinsamem Speicher, false bei TCP-Verbindung oder falls keine Verbindung besteht
+	 */
+	public boolean isSharedMemory() {
+		return _controlChannel != null;
+	}
+
+	@Override
+	public void disconnect() {
+		final ConnectionInterface tcpConnection = _tcpConnection;
+		if(tcpConnection != null) {
+			tcpConnection.disconnect();
+			return;
+		}
+		final SocketChannel controlChannel = _controlChannel;
+		if(controlChannel != null) {
+			try {
+				controlChannel.close();
+			}
+			catch(IOException e) {
+				_debug.fine("Fehler beim Schließen des Steuerkanals", e);
+			}
+			_doorbell.close();
+			final File memoryFile = _memoryFile;
+			if(memoryFile != null && memoryFile.exists() && !memoryFile.delete()) {
+				_debug.fine("Speicherdatei konnte nicht gelöscht werden: " + memoryFile);
+			}
+		}
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		final ConnectionInterface tcpConnection = _tcpConnection;
+		if(tcpConnection != null) return tcpConnection.getInputStream();
+		return _inputStream;
+	}
+
+	@Override
+	public OutputStream getOutputStream() {
+		final ConnectionInterface tcpConnection = _tcpConnection;
+		if(tcpConnection != null) return tcpConnection.getOutputStream();
+		return _outputStream;
+	}
+
+	@Override
+	public String getMainAdress() {
+		final ConnectionInterface tcpConnection = _tcpConnection;
+		if(tcpConnection != null) return tcpConnection.getMainAdress();
+		return _mainAdress;
+	}
+
+	@Override
+	public int getSubAdressNumber() {
+		final ConnectionInterface tcpConnection = _tcpConnection;
+		if(tcpConnection != null) return tcpConnection.getSubAdressNumber();
+		return _subAdressNumber;
+	}
+
+	@Override
+	public boolean isConnected() {
+		final ConnectionInterface tcpConnection = _tcpConnection;
+		if(tcpConnection != null) return tcpConnection.isConnected();
+		final SocketChannel controlChannel = _controlChannel;
+		return controlChannel != null && controlChannel.isConnected() && !_doorbell.isClosed();
+	}
+
+	@Override
+	public boolean isLoopback() {
+		final ConnectionInterface tcpConnection = _tcpConnection;
+		if(tcpConnection != null) return tcpConnection.isLoopback();
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		if(_tcpConnection != null) return _tcpConnection.toString();
+		return "SharedMemoryCommunication{" + _mainAdress + ":" + _subAdressNumber + "}";
+	}
+
+	/**
+	 * Weckmechanismus über den Steuerkanal. Ein eigener Thread liest die von der Gegenseite gesendeten Bytes, zählt sie und weckt alle
+	 * wartenden Threads. Schließt die Gegenseite den Steuerkanal, gilt die Verbindung als beendet.
+	 */
+	private static final class Doorbell implements Runnable {
+
+		private final SocketChannel _channel;
+
+		private final ByteBuffer _signal = ByteBuffer.allocate(1);
+
+		/** Anzahl der empfangenen Wecksignale */
+		private long _signals = 0;
+
+		private boolean _closed = false;
+
+		private Doorbell(final SocketChannel channel) {
+			_channel = channel;
+		}
+
+		void start() {
+			final Thread thread = new Thread(this, "Weckkanal " + _channel.socket().getLocalSocketAddress());
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		@Override
+		public void run() {
+			final ByteBuffer buffer = ByteBuffer.allocate(64);
+			try {
+				while(true) {
+					buffer.clear();
+					if(_channel.read(buffer) < 0) break;
+					synchronized(this) {
+						_signals++;
+						notifyAll();
+					}
+				}
+			}
+			catch(IOException ignored) {
+				// Steuerkanal wurde geschlossen
+			}
+			close();
+		}
+
+		/** Weckt die Gegenseite */
+		void ring() throws IOException {
+			synchronized(_signal) {
+				_signal.clear();
+				_signal.put((byte) 0);
+				_signal.flip();
+				try {
+					_channel.write(_signal);
+				}
+				catch(IOException e) {
+					close();
+					throw e;
+				}
+			}
+		}
+
+		synchronized long getSignals() {
+			return _signals;
+		}
+
+		/**
+		 * Wartet, bis seit dem angegebenen Stand ein Wecksignal empfangen wurde, höchstens aber {@link #WAIT_TIMEOUT} Millisekunden
+		 *
+		 * @param signals Stand von {@link #getSignals()} vor der letzten Prüfung des Ringpuffers
+		 * @throws InterruptedIOException wenn der Thread unterbrochen wurde
+		 */
+		synchronized void await(final long signals) throws InterruptedIOException {
+			if(_signals != signals || _closed) return;
+			try {
+				wait(WAIT_TIMEOUT);
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+		}
+
+		synchronized void close() {
+			_closed = true;
+			notifyAll();
+		}
+
+		synchronized boolean isClosed() {
+			return _closed;
+		}
+	}
+
+	/** Liest aus dem eingehenden Ringpuffer und wartet, falls keine Daten vorliegen */
+	private final class RingInputStream extends InputStream {
+
+		private final SharedMemoryRing _ring;
+
+		private final Doorbell _doorbell;
+
+		private RingInputStream(final SharedMemoryRing ring, final Doorbell doorbell) {
+			_ring = ring;
+			_doorbell = doorbell;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final byte[] buffer = new byte[1];
+			final int result = read(buffer, 0, 1);
+			return result < 0 ? -1 : buffer[0] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			if(len == 0) return 0;
+			int spin = 0;
+			while(true) {
+				final int count = _ring.read(b, off, len);
+				if(count > 0) {
+					if(_ring.isWriterWaiting()) _doorbell.ring();
+					return count;
+				}
+				if(_doorbell.isClosed()) {
+					// Daten, die die Gegenseite vor dem Beenden noch geschrieben hat, werden vorher vollständig gelesen
+					if(_ring.available() == 0) return -1;
+					continue;
+				}
+				if(spin++ < SPIN_COUNT) {
+					Thread.yield();
+					continue;
+				}
+				final long signals = _doorbell.getSignals();
+				_ring.setReaderWaiting(true);
+				if(_ring.available() == 0) _doorbell.await(signals);
+				_ring.setReaderWaiting(false);
+			}
+		}
+
+		@Override
+		public int available() {
+			return _ring.available();
+		}
+
+		@Override
+		public void close() {
+			disconnect();
+		}
+	}
+
+	/** Schreibt in den ausgehenden Ringpuffer und wartet, falls dieser voll ist */
+	private final class RingOutputStream extends OutputStream {
+
+		private final SharedMemoryRing _ring;
+
+		private final Doorbell _doorbell;
+
+		private RingOutputStream(final SharedMemoryRing ring, final Doorbell doorbell) {
+			_ring = ring;
+			_doorbell = doorbell;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, int off, int len) throws IOException {
+			int spin = 0;
+			while(len > 0) {
+				if(_doorbell.isClosed()) throw new IOException("Verbindung über gemeinsamen Speicher wurde beendet");
+				final int count = _ring.write(b, off, len);
+				if(count > 0) {
+					off += count;
+					len -= count;
+					spin = 0;
+					if(_ring.isReaderWaiting()) _doorbell.ring();
+					continue;
+				}
+				if(spin++ < SPIN_COUNT) {
+					Thread.yield();
+					continue;
+				}
+				final long signals = _doorbell.getSignals();
+				_ring.setWriterWaiting(true);
+				if(_ring.isFull()) _doorbell.await(signals);
+				_ring.setWriterWaiting(false);
+			}
+		}
+
+		@Override
+		public void close() {
+			disconnect();
+		}
+	}
+}
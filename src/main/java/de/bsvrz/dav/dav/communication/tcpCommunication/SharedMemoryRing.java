@@ -0,0 +1,222 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.communication.tcpCommunication;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Ringpuffer für genau einen Schreiber und einen Leser (SPSC) in einem von zwei Prozessen gemeinsam genutzten Speicherbereich. Der
+ * Bereich beginnt mit einem Kopf von {@link #HEADER_SIZE} Bytes, gefolgt von den Nutzdaten. Im Kopf liegen die vom Schreiber
+ * fortgeschriebene Schreibposition mit dem Warte-Kennzeichen des Schreibers sowie, in einer eigenen Cache-Line, die vom Leser
+ * fortgeschriebene Leseposition mit dem Warte-Kennzeichen des Lesers. Die Positionen zählen die insgesamt übertragenen Bytes und laufen
+ * nicht über.
+ * <p>
+ * Java 8 bietet für gemeinsam genutzten Speicher keine Zugriffe mit Speicherbarrieren. Die Reihenfolge der Zugriffe wird daher mit
+ * {@link #fence()} sichergestellt, das aus einem schreibenden und einem lesenden Zugriff auf ein volatile-Feld besteht und von der JVM als
+ * vollständige Speicherbarriere umgesetzt wird. Zusätzlich warten Leser und Schreiber nur mit Zeitbegrenzung, sodass ein verlorenes
+ * Wecksignal höchstens zu einer kurzen Verzögerung führt.
+ * <p>
+ * Jede Instanz darf in einem Prozess nur von einem Thread verwendet werden, entweder nur schreibend oder nur lesend.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+final class SharedMemoryRing {
+
+	/** Größe des Kopfbereichs in Bytes */
+	static final int HEADER_SIZE = 128;
+
+	private static final int HEAD = 0;
+
+	private static final int WRITER_WAITING = 8;
+
+	private static final int TAIL = 64;
+
+	private static final int READER_WAITING = 72;
+
+	private final ByteBuffer _buffer;
+
+	private final int _offset;
+
+	private final int _capacity;
+
+	private final int _mask;
+
+	/** Hilfsfeld für {@link #fence()} */
+	private volatile int _fence;
+
+	/**
+	 * Erstellt einen Ringpuffer auf einem Speicherbereich
+	 *
+	 * @param buffer   Gemeinsam genutzter Speicher, wird nicht verändert
+	 * @param offset   Beginn des Ringpuffers im Speicher
+	 * @param capacity Größe des Nutzdatenbereichs, muss eine Zweierpotenz sein
+	 */
+	SharedMemoryRing(final ByteBuffer buffer, final int offset, final int capacity) {
+		if(Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Größe muss eine Zweierpotenz sein: " + capacity);
+		_buffer = buffer.duplicate();
+		_offset = offset;
+		_capacity = capacity;
+		_mask = capacity - 1;
+	}
+
+	/**
+	 * Gibt die Größe des Speicherbereichs zurück, der für einen Ringpuffer benötigt wird
+	 *
+	 * @param capacity Größe des Nutzdatenbereichs
+	 * @return Größe in Bytes
+	 */
+	static int getSize(final int capacity) {
+		return HEADER_SIZE + capacity;
+	}
+
+	/**
+	 * Schreibt so viele Bytes wie möglich in den Puffer
+	 *
+	 * @param b   Daten
+	 * @param off Beginn der Daten
+	 * @param len Anzahl Bytes
+	 * @return Anzahl geschriebener Bytes, 0 wenn der Puffer voll ist
+	 */
+	int write(final byte[] b, final int off, final int len) {
+		final long head = _buffer.getLong(_offset + HEAD);
+		final long tail = _buffer.getLong(_offset + TAIL);
+		fence();
+		final int count = (int) Math.min(len, _capacity - (head - tail));
+		if(count <= 0) return 0;
+		final int index = (int) (head & _mask);
+		final int first = Math.min(count, _capacity - index);
+		_buffer.position(_offset + HEADER_SIZE + index);
+		_buffer.put(b, off, first);
+		if(count > first) {
+			_buffer.position(_offset + HEADER_SIZE);
+			_buffer.put(b, off + first, count - first);
+		}
+		fence();
+		_buffer.putLong(_offset + HEAD, head + count);
+		fence();
+		return count;
+	}
+
+	/**
+	 * Liest so viele Bytes wie möglich aus dem Puffer
+	 *
+	 * @param b   Zielpuffer
+	 * @param off Beginn im Zielpuffer
+	 * @param len Maximale Anzahl Bytes
+	 * @return Anzahl gelesener Bytes, 0 wenn der Puffer leer ist
+	 */
+	int read(final byte[] b, final int off, final int len) {
+		final long tail = _buffer.getLong(_offset + TAIL);
+		final long head = _buffer.getLong(_offset + HEAD);
+		fence();
+		final int count = (int) Math.min(len, head - tail);
+		if(count <= 0) return 0;
+		final int index = (int) (tail & _mask);
+		final int first = Math.min(count, _capacity - index);
+		_buffer.position(_offset + HEADER_SIZE + index);
+		_buffer.get(b, off, first);
+		if(count > first) {
+			_buffer.position(_offset + HEADER_SIZE);
+			_buffer.get(b, off + first, count - first);
+		}
+		fence();
+		_buffer.putLong(_offset + TAIL, tail + count);
+		fence();
+		return count;
+	}
+
+	/**
+	 * Gibt die Anzahl der lesbaren Bytes zurück
+	 *
+	 * @return Anzahl Bytes
+	 */
+	int available() {
+		final long tail = _buffer.getLong(_offset + TAIL);
+		final long head = _buffer.getLong(_offset + HEAD);
+		fence();
+		return (int) (head - tail);
+	}
+
+	/**
+	 * Gibt zurück, ob der Puffer voll ist
+	 *
+	 * @return true, wenn kein Byte mehr geschrieben werden kann
+	 */
+	boolean isFull() {
+		final long head = _buffer.getLong(_offset + HEAD);
+		final long tail = _buffer.getLong(_offset + TAIL);
+		fence();
+		return head - tail >= _capacity;
+	}
+
+	/**
+	 * Setzt das Warte-Kennzeichen des Lesers. Danach muss erneut geprüft werden, ob Daten vorliegen, bevor der Leser wartet.
+	 *
+	 * @param waiting true, wenn der Leser auf Daten wartet
+	 */
+	void setReaderWaiting(final boolean waiting) {
+		_buffer.putInt(_offset + READER_WAITING, waiting ? 1 : 0);
+		fence();
+	}
+
+	/**
+	 * Gibt zurück, ob der Leser auf Daten wartet und geweckt werden muss
+	 *
+	 * @return true, wenn der Leser wartet
+	 */
+	boolean isReaderWaiting() {
+		return _buffer.getInt(_offset + READER_WAITING) != 0;
+	}
+
+	/**
+	 * Setzt das Warte-Kennzeichen des Schreibers. Danach muss erneut geprüft werden, ob Platz frei ist, bevor der Schreiber wartet.
+	 *
+	 * @param waiting true, wenn der Schreiber auf freien Platz wartet
+	 */
+	void setWriterWaiting(final boolean waiting) {
+		_buffer.putInt(_offset + WRITER_WAITING, waiting ? 1 : 0);
+		fence();
+	}
+
+	/**
+	 * Gibt zurück, ob der Schreiber auf freien Platz wartet und geweckt werden muss
+	 *
+	 * @return true, wenn der Schreiber wartet
+	 */
+	boolean isWriterWaiting() {
+		return _buffer.getInt(_offset + WRITER_WAITING) != 0;
+	}
+
+	/**
+	 * Speicherbarriere: Keine vorhergehenden Lese- oder Schreibzugriffe werden nach diesem Aufruf und keine folgenden vor diesem Aufruf
+	 * ausgeführt.
+	 */
+	private void fence() {
+		_fence = 0;
+		if(_fence != 0) throw new IllegalStateException();
+	}
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.communication.tcpCommunication;
+
+import de.bsvrz.dav.daf.communication.lowLevel.ConnectionInterface;
+import de.bsvrz.dav.daf.main.CommunicationError;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Server-Kommunikationsmodul, das zusätzlich zum TCP-Port Verbindungen über gemeinsam genutzten Speicher entgegennimmt (siehe
+ * {@link SharedMemoryCommunication}). Gedacht ist das für Applikationen mit hohem Datenaufkommen auf dem Rechner des Datenverteilers, z.B.
+ * das Archivsystem, bei denen auch Unix-Domain-Sockets wegen der Kopien im Betriebssystem zum Engpass werden. Entfernte Applikationen und
+ * andere Datenverteiler werden weiterhin über TCP verbunden; die Verarbeitung der Telegramme ist für beide Verbindungsarten gleich.
+ * <p>
+ * Für die Steuerkanäle wird ein Port auf der Loopback-Schnittstelle geöffnet, dessen Nummer in der Datei {@code dav-<Portnummer>.shm}
+ * veröffentlicht wird. Parameter:
+ * <ul>
+ * <li>{@code verzeichnis}: Verzeichnis für diese Datei und die Speicherdateien, standardmäßig {@code /dev/shm/dav-<Benutzername>}. Das
+ * Verzeichnis wird bei Bedarf mit den Rechten {@code rwx------} angelegt und muss dem Benutzer des Datenverteilers gehören.</li>
+ * <li>{@code puffer}: Größe eines Ringpuffers je Richtung und Verbindung in Bytes, wird auf eine Zweierpotenz aufgerundet, Standard 4 MiB.</li>
+ * <li>{@code backlog}: siehe {@link TCP_IP_NioServerCommunication}.</li>
+ * </ul>
+ * Beispiel:
+ * {@code -tcpKommunikationsModul=de.bsvrz.dav.dav.communication.tcpCommunication.SharedMemoryServerCommunication:puffer=16777216}. Die
+ * Applikationen verwenden {@link SharedMemoryCommunication} als Kommunikationsverfahren.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class SharedMemoryServerCommunication extends TCP_IP_NioServerCommunication {
+
+	/** Der Debug-Logger. */
+	private static final Debug _debug = Debug.getLogger();
+
+	private static final int MIN_CAPACITY = 64 * 1024;
+
+	private static final int MAX_CAPACITY = 256 * 1024 * 1024;
+
+	/** Verzeichnis für Port- und Speicherdateien */
+	private String _directory = SharedMemoryCommunication.DEFAULT_DIRECTORY;
+
+	/** Größe eines Ringpuffers in Bytes */
+	private int _capacity = 4 * 1024 * 1024;
+
+	private ServerSocketChannel _controlServerChannel;
+
+	private int _controlPort = -1;
+
+	private File _portFile;
+
+	private int _subAdressNumber;
+
+	/** Erzeugt eine Instanz dieser Klasse. */
+	public SharedMemoryServerCommunication() {
+	}
+
+	@Override
+	protected boolean setParameter(final String key, final String value) {
+		if(key.equals("verzeichnis")) {
+			_directory = value;
+			return true;
+		}
+		if(key.equals("puffer")) {
+			final int capacity = Integer.parseInt(value);
+			if(capacity < MIN_CAPACITY || capacity > MAX_CAPACITY) {
+				throw new IllegalArgumentException("Puffergröße muss zwischen " + MIN_CAPACITY + " und " + MAX_CAPACITY + " liegen: " + value);
+			}
+			_capacity = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+			return true;
+		}
+		return super.setParameter(key, value);
+	}
+
+	@Override
+	public void connect(final int subAdressNumber) throws CommunicationError {
+		super.connect(subAdressNumber);
+		_subAdressNumber = subAdressNumber;
+		try {
+			LocalTransportDirectory.prepare(_directory);
+		}
+		catch(IOException ex) {
+			_debug.warning("Verzeichnis für gemeinsamen Speicher kann nicht verwendet werden, es werden nur TCP-Verbindungen entgegengenommen", ex);
+			return;
+		}
+		final File portFile = SharedMemoryCommunication.getPortFile(_directory, subAdressNumber);
+		try {
+			_controlServerChannel = ServerSocketChannel.open();
+			_controlServerChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), getBacklog());
+			_controlPort = _controlServerChannel.socket().getLocalPort();
+			registerServerChannel(_controlServerChannel);
+			writePortFile(_directory, portFile, _controlPort);
+			_portFile = portFile;
+			_debug.info("Server für gemeinsamen Speicher erwartet Verbindungen, " + portFile + ", Steuerkanal-Port: " + _controlPort);
+		}
+		catch(IOException ex) {
+			final String msg = "Fehler beim Anlegen des Servers für gemeinsamen Speicher " + portFile;
+			_debug.error(msg, ex);
+			disconnect();
+			throw new CommunicationError(msg + ": " + ex);
+		}
+	}
+
+	/**
+	 * Schreibt die Portdatei über eine neu angelegte temporäre Datei, damit Applikationen keine unvollständige Datei lesen. Eine vorhandene
+	 * Portdatei wird dabei ersetzt.
+	 */
+	private static void writePortFile(final String directory, final File portFile, final int port) throws IOException {
+		final Path tmpFile = SharedMemoryCommunication.createPrivateFile(directory, portFile.getName() + "-", ".tmp").toPath();
+		try {
+			Files.write(tmpFile, String.valueOf(port).getBytes(StandardCharsets.US_ASCII));
+			Files.move(tmpFile, portFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(IOException e) {
+			Files.deleteIfExists(tmpFile);
+			throw e;
+		}
+	}
+
+	@Override
+	public void disconnect() {
+		super.disconnect();
+		final ServerSocketChannel controlServerChannel = _controlServerChannel;
+		if(controlServerChannel != null) {
+			_debug.info("Server für gemeinsamen Speicher wird beendet, " + _portFile);
+			try {
+				controlServerChannel.close();
+			}
+			catch(IOException ex) {
+				_debug.fine("Fehler beim Schließen des Steuerkanal-Servers", ex);
+			}
+		}
+		final File portFile = _portFile;
+		if(portFile != null && !portFile.delete()) {
+			_debug.fine("Portdatei konnte nicht gelöscht werden: " + portFile);
+		}
+	}
+
+	@Override
+	protected ConnectionInterface createConnection(final SocketChannel channel) throws IOException {
+		if(channel.socket().getLocalPort() != _controlPort) return super.createConnection(channel);
+		channel.configureBlocking(true);
+		final SharedMemoryCommunication connection = SharedMemoryCommunication.accept(channel, _directory, _capacity, _subAdressNumber);
+		_debug.info("Verbindung über gemeinsamen Speicher passiv aufgebaut, " + channel.socket().getRemoteSocketAddress());
+		return connection;
+	}
+
+	@Override
+	public ConnectionInterface getPlainConnection() {
+		return new SharedMemoryCommunication(_directory);
+	}
+
+	@Override
+	public String getPlainConnectionName() {
+		return SharedMemoryCommunication.class.getName();
+	}
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.communication.tcpCommunication;
+
+import de.bsvrz.dav.daf.communication.lowLevel.ConnectionInterface;
+import de.bsvrz.dav.daf.communication.lowLevel.ParameterizedConnectionInterface;
+import de.bsvrz.dav.daf.main.CommunicationError;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+/**
+ * TCP/IP-Implementierung des Interfaces {@link de.bsvrz.dav.daf.communication.lowLevel.ServerConnectionInterface}, die ankommende
+ * Verbindungen ereignisgesteuert über einen {@link Selector} entgegennimmt. Bei jeder Benachrichtigung werden alle bereits vom
+ * Betriebssystem angenommenen Verbindungen auf einmal übernommen und nacheinander von {@link #accept()} zurückgegeben. Das verkürzt nach
+ * einem Neustart des Datenverteilers, wenn sich viele Applikationen gleichzeitig verbinden, die Zeit, die Verbindungen in der
+ * Warteschlange des Betriebssystems verbringen. Außerdem kann ein wartender Aufruf von {@link #accept()} durch {@link #disconnect()}
+ * zuverlässig beendet werden.
+ * <p>
+ * Die Länge der Warteschlange des Betriebssystems für noch nicht übernommene Verbindungen kann über den Parameter {@code backlog} gesetzt
+ * werden, z.B. {@code -tcpKommunikationsModul=de.bsvrz.dav.dav.communication.tcpCommunication.TCP_IP_NioServerCommunication:backlog=1024}.
+ * Mit {@code adresse} werden Verbindungen nur auf der angegebenen Netzwerkschnittstelle entgegengenommen. Mit {@code reuseport=ja} wird
+ * {@code SO_REUSEPORT} gesetzt, sodass mehrere Instanzen den gleichen Port binden können und das Betriebssystem (z.B. Linux) die
+ * ankommenden Verbindungen auf diese verteilt. Die Option ist erst ab Java 9 verfügbar und wird auf älteren Versionen ignoriert.
+ * Die übernommenen Verbindungen werden wie bei {@link TCP_IP_ServerCommunication} blockierend weiterverwendet.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class TCP_IP_NioServerCommunication extends TCP_IP_ServerCommunication implements ParameterizedConnectionInterface {
+
+	/** Der Debug-Logger. */
+	private static final Debug _debug = Debug.getLogger();
+
+	/** Länge der Warteschlange für noch nicht übernommene Verbindungen, 0 für den Standardwert des Betriebssystems */
+	private int _backlog = 0;
+
+	/** Adresse der Netzwerkschnittstelle, an die der Port gebunden wird, null für alle Schnittstellen */
+	private String _bindAddress = null;
+
+	/** Ob {@code SO_REUSEPORT} gesetzt wird */
+	private boolean _reusePort = false;
+
+	/** {@code StandardSocketOptions.SO_REUSEPORT} oder null, falls von der Java-Version nicht unterstützt */
+	private static final SocketOption<Boolean> SO_REUSEPORT = getReusePortOption();
+
+	private ServerSocketChannel _serverChannel;
+
+	private Selector _selector;
+
+	/** Bereits übernommene, aber noch nicht von {@link #accept()} zurückgegebene Verbindungen */
+	private final ArrayDeque<SocketChannel> _acceptedChannels = new ArrayDeque<SocketChannel>();
+
+	/** Erzeugt eine Instanz dieser Klasse. */
+	public TCP_IP_NioServerCommunication() {
+	}
+
+	@Override
+	public void setParameters(final String parameters) {
+		for(final String parameter : parameters.split(",")) {
+			final String[] keyValue = parameter.trim().split("=", 2);
+			if(keyValue[0].isEmpty()) continue;
+			if(keyValue.length != 2 || !setParameter(keyValue[0], keyValue[1].trim())) {
+				throw new IllegalArgumentException("Unbekannter Parameter für " + getClass().getSimpleName() + ": " + parameter);
+			}
+		}
+	}
+
+	/**
+	 * Setzt einen einzelnen Parameter. Kann von Subklassen überschrieben werden, um weitere Parameter zu unterstützen.
+	 *
+	 * @param key   Name des Parameters
+	 * @param value Wert des Parameters
+	 * @return true, falls der Parameter unterstützt wird
+	 */
+	protected boolean setParameter(final String key, final String value) {
+		if(key.equals("backlog")) {
+			_backlog = Integer.parseInt(value);
+			return true;
+		}
+		if(key.equals("adresse")) {
+			_bindAddress = value.isEmpty() ? null : value;
+			return true;
+		}
+		if(key.equals("reuseport")) {
+			_reusePort = value.equalsIgnoreCase("ja") || value.equalsIgnoreCase("true");
+			return true;
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static SocketOption<Boolean> getReusePortOption() {
+		try {
+			return (SocketOption<Boolean>) StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+		}
+		catch(NoSuchFieldException | IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Gibt die Länge der Warteschlange für noch nicht übernommene Verbindungen zurück
+	 *
+	 * @return Länge der Warteschlange, 0 für den Standardwert des Betriebssystems
+	 */
+	protected int getBacklog() {
+		return _backlog;
+	}
+
+	/**
+	 * Meldet einen weiteren Server-Kanal an, dessen ankommende Verbindungen ebenfalls von {@link #accept()} zurückgegeben werden. Darf erst
+	 * nach {@link #connect(int)} aufgerufen werden.
+	 *
+	 * @param serverChannel Gebundener Server-Kanal
+	 * @throws IOException Fehler beim Anmelden
+	 */
+	protected void registerServerChannel(final ServerSocketChannel serverChannel) throws IOException {
+		serverChannel.configureBlocking(false);
+		serverChannel.register(_selector, SelectionKey.OP_ACCEPT);
+	}
+
+	/**
+	 * Erzeugt zu einer entgegengenommenen Verbindung das Verbindungsobjekt
+	 *
+	 * @param channel Entgegengenommene Verbindung
+	 * @return Verbindungsobjekt
+	 * @throws IOException Fehler beim Umschalten in den blockierenden Modus
+	 */
+	protected ConnectionInterface createConnection(final SocketChannel channel) throws IOException {
+		channel.configureBlocking(true);
+		final Socket socket = channel.socket();
+		_debug.info("TCP-Verbindung passiv aufgebaut, " + socket.getLocalSocketAddress() + " <-- " + socket.getRemoteSocketAddress());
+		return getConnectionTo(socket);
+	}
+
+	@Override
+	public void connect(final int subAdressNumber) throws CommunicationError {
+		try {
+			_serverChannel = ServerSocketChannel.open();
+			_serverChannel.socket().setReuseAddress(true);
+			if(_reusePort) {
+				if(SO_REUSEPORT != null && _serverChannel.supportedOptions().contains(SO_REUSEPORT)) {
+					_serverChannel.setOption(SO_REUSEPORT, true);
+				}
+				else {
+					_debug.warning("SO_REUSEPORT wird von dieser Java-Version oder diesem Betriebssystem nicht unterstützt");
+				}
+			}
+			final InetSocketAddress address =
+					_bindAddress == null ? new InetSocketAddress(subAdressNumber) : new InetSocketAddress(_bindAddress, subAdressNumber);
+			_serverChannel.socket().bind(address, _backlog);
+			_serverChannel.configureBlocking(false);
+			_selector = Selector.open();
+			_serverChannel.register(_selector, SelectionKey.OP_ACCEPT);
+			_socket = _serverChannel.socket();
+
+			_debug.info(
+					"TCP-Server erwartet Verbindungen, " + _socket.getLocalSocketAddress() + (_backlog > 0 ? ", Warteschlange: " + _backlog : "")
+					+ (_reusePort ? ", SO_REUSEPORT" : "")
+			);
+		}
+		catch(IOException ex) {
+			final String msg = "Fehler beim Anlegen eines TCP-Server-Sockets auf Port " + subAdressNumber;
+			_debug.error(msg, ex);
+			throw new CommunicationError(msg + ": " + ex);
+		}
+	}
+
+	@Override
+	public void disconnect() {
+		final Selector selector = _selector;
+		if(selector != null) {
+			try {
+				selector.close();
+			}
+			catch(IOException ex) {
+				_debug.fine("Fehler beim Schließen des Selectors", ex);
+			}
+		}
+		super.disconnect();
+		synchronized(_acceptedChannels) {
+			for(final SocketChannel channel : _acceptedChannels) {
+				try {
+					channel.close();
+				}
+				catch(IOException ignored) {
+				}
+			}
+			_acceptedChannels.clear();
+		}
+	}
+
+	@Override
+	public ConnectionInterface accept() {
+		final Selector selector = _selector;
+		if(selector == null) return null;
+		try {
+			while(true) {
+				final SocketChannel channel;
+				synchronized(_acceptedChannels) {
+					channel = _acceptedChannels.poll();
+				}
+				if(channel != null) {
+					try {
+						return createConnection(channel);
+					}
+					catch(IOException e) {
+						// Fehler einer einzelnen Verbindung beenden nicht das Entgegennehmen weiterer Verbindungen
+						_debug.warning("Entgegengenommene Verbindung konnte nicht übernommen werden", e);
+						try {
+							channel.close();
+						}
+						catch(IOException ignored) {
+						}
+						continue;
+					}
+				}
+				// Blockiert bis eine oder mehrere Verbindungen vorliegen oder der Selector geschlossen wird
+				selector.select();
+				synchronized(_acceptedChannels) {
+					for(final SelectionKey key : selector.selectedKeys()) {
+						final ServerSocketChannel serverChannel = (ServerSocketChannel) key.channel();
+						SocketChannel accepted;
+						while((accepted = serverChannel.accept()) != null) {
+							_acceptedChannels.add(accepted);
+						}
+					}
+					selector.selectedKeys().clear();
+				}
+			}
+		}
+		catch(IOException e) {
+			if(selector.isOpen()) _debug.warning("Fehler beim Entgegennehmen einer TCP-Verbindung", e);
+			return null;
+		}
+		catch(ClosedSelectorException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.communication.tcpCommunication;
+
+import de.bsvrz.dav.daf.communication.lowLevel.ConnectionInterface;
+import de.bsvrz.dav.daf.communication.tcpCommunication.TCP_IP_Communication;
+import de.bsvrz.dav.daf.main.ConnectionException;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Verbindung über einen Unix-Domain-Socket zu einem Datenverteiler auf dem gleichen Rechner. Beim Verbindungsaufbau wird geprüft, ob die
+ * angegebene Adresse zum eigenen Rechner gehört und der Datenverteiler unter der zur Subadresse passenden Socket-Datei (siehe
+ * {@link UnixDomainServerCommunication}) Verbindungen erwartet. Ist das nicht der Fall, ist das Verzeichnis nicht vertrauenswürdig (siehe
+ * {@link LocalTransportDirectory}) oder wird die verwendete Java-Version nicht unterstützt, wird stattdessen wie bisher eine TCP-Verbindung
+ * aufgebaut. Applikationen können diese Klasse daher unabhängig davon als
+ * Kommunikationsverfahren verwenden, ob sie auf dem Rechner des Datenverteilers laufen.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class UnixDomainCommunication implements ConnectionInterface {
+
+	/** Der Debug-Logger. */
+	private static final Debug _debug = Debug.getLogger();
+
+	/** Verzeichnis mit den Socket-Dateien */
+	private final String _directory;
+
+	/** Kanal des Unix-Domain-Sockets oder null, falls eine TCP-Verbindung verwendet wird */
+	private volatile SocketChannel _channel;
+
+	/** TCP-Verbindung, falls kein Unix-Domain-Socket verwendet werden kann */
+	private volatile ConnectionInterface _tcpConnection;
+
+	private InputStream _inputStream;
+
+	private OutputStream _outputStream;
+
+	private String _mainAdress;
+
+	private int _subAdressNumber;
+
+	/** Erzeugt eine nicht verbundene Instanz, die die Socket-Dateien im Standardverzeichnis sucht. */
+	public UnixDomainCommunication() {
+		this(UnixDomainSockets.DEFAULT_DIRECTORY);
+	}
+
+	/**
+	 * Erzeugt eine nicht verbundene Instanz
+	 *
+	 * @param directory Verzeichnis mit den Socket-Dateien
+	 */
+	public UnixDomainCommunication(final String directory) {
+		_directory = directory;
+	}
+
+	/**
+	 * Erzeugt eine Instanz für eine vom Datenverteiler entgegengenommene Verbindung
+	 *
+	 * @param channel         Verbundener Kanal im blockierenden Modus
+	 * @param subAdressNumber Subadresse, unter der die Verbindung entgegengenommen wurde
+	 */
+	UnixDomainCommunication(final SocketChannel channel, final int subAdressNumber) {
+		_directory = null;
+		setChannel(channel, "localhost", subAdressNumber);
+	}
+
+	@Override
+	public void connect(final String mainAdress, final int subAdressNumber) throws ConnectionException {
+		final File socketFile = UnixDomainSockets.getSocketFile(_directory, subAdressNumber);
+		if(UnixDomainSockets.isSupported() && socketFile.exists() && isLocalAdress(mainAdress)
+		   && LocalTransportDirectory.isTrusted(_directory, UnixDomainSockets.DEFAULT_DIRECTORY)) {
+			try {
+				setChannel(UnixDomainSockets.connect(socketFile), mainAdress, subAdressNumber);
+				_debug.info("Unix-Domain-Socket-Verbindung aktiv aufgebaut, " + socketFile);
+				return;
+			}
+			catch(IOException e) {
+				_debug.fine("Verbindung über " + socketFile + " nicht möglich, es wird eine TCP-Verbindung verwendet", e);
+			}
+		}
+		final ConnectionInterface tcpConnection = new TCP_IP_Communication();
+		tcpConnection.connect(mainAdress, subAdressNumber);
+		_tcpConnection = tcpConnection;
+	}
+
+	private void setChannel(final SocketChannel channel, final String mainAdress, final int subAdressNumber) {
+		_inputStream = new ChannelInputStream(channel);
+		_outputStream = new ChannelOutputStream(channel);
+		_mainAdress = mainAdress;
+		_subAdressNumber = subAdressNumber;
+		_channel = channel;
+	}
+
+	/**
+	 * Prüft, ob eine Adresse zum eigenen Rechner gehört
+	 *
+	 * @param mainAdress Rechnername oder IP-Adresse
+	 * @return true, falls die Adresse lokal ist
+	 */
+	static boolean isLocalAdress(final String mainAdress) {
+		try {
+			final InetAddress address = InetAddress.getByName(mainAdress);
+			return address.isLoopbackAddress() || address.isAnyLocalAddress() || NetworkInterface.getByInetAddress(address) != null;
+		}
+		catch(IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Gibt zurück, ob die Verbindung über einen Unix-Domain-Socket läuft
+	 *
+	 * @return true bei Unix-Domain-Socket, false bei TCP-Verbindung oder falls keine Verbindung besteht
+	 */
+	public boolean isUnixDomain() {
+		return _channel != null;
+	}
+
+	@Override
+	public void disconnect() {
+		final ConnectionInterface tcpConnection = _tcpConnection;
+		if(tcpConnection != null) {
+			tcpConnection.disconnect();
+			return;
+		}
+		final SocketChannel channel = _channel;
+		if(channel != null) {
+			try {
+				channel.close();
+			}
+			catch(IOException e) {
+				_debug.fine("Fehler beim Schließen der Unix-Domain-Socket-Verbindung", e);
+			}
+		}
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		final ConnectionInterface tcpConnection = _tcpConnection;
+		if(tcpConnection != null) return tcpConnection.getInputStream();
+		return _inputStream;
+	}
+
+	@Override
+	public OutputStream getOutputStream() {
+		final ConnectionInterface tcpConnection = _tcpConnection;
+		if(tcpConnection != null) return tcpConnection.getOutputStream();
+		return _outputStream;
+	}
+
+	@Override
+	public String getMainAdress() {
+		final ConnectionInterface tcpConnection = _tcpConnection;
+		if(tcpConnection != null) return tcpConnection.getMainAdress();
+		return _mainAdress;
+	}
+
+	@Override
+	public int getSubAdressNumber() {
+		final ConnectionInterface tcpConnection = _tcpConnection;
+		if(tcpConnection != null) return tcpConnection.getSubAdressNumber();
+		return _subAdressNumber;
+	}
+
+	@Override
+	public boolean isConnected() {
+		final ConnectionInterface tcpConnection = _tcpConnection;
+		if(tcpConnection != null) return tcpConnection.isConnected();
+		final SocketChannel channel = _channel;
+		return channel != null && channel.isConnected();
+	}
+
+	@Override
+	public boolean isLoopback() {
+		final ConnectionInterface tcpConnection = _tcpConnection;
+		if(tcpConnection != null) return tcpConnection.isLoopback();
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		if(_tcpConnection != null) return _tcpConnection.toString();
+		return "UnixDomainCommunication{" + _mainAdress + ":" + _subAdressNumber + "}";
+	}
+
+	/**
+	 * Eingabestrom auf einem blockierenden Kanal. Anders als {@link java.nio.channels.Channels#newInputStream} wird beim Lesen keine Sperre
+	 * gehalten, die gleichzeitiges Schreiben aus einem anderen Thread blockiert.
+	 */
+	static final class ChannelInputStream extends InputStream {
+
+		private final SocketChannel _channel;
+
+		ChannelInputStream(final SocketChannel channel) {
+			_channel = channel;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final byte[] buffer = new byte[1];
+			final int result = read(buffer, 0, 1);
+			return result < 0 ? -1 : buffer[0] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			if(len == 0) return 0;
+			return _channel.read(ByteBuffer.wrap(b, off, len));
+		}
+
+		@Override
+		public void close() throws IOException {
+			_channel.close();
+		}
+	}
+
+	/** Ausgabestrom auf einem blockierenden Kanal, siehe {@link ChannelInputStream} */
+	static final class ChannelOutputStream extends OutputStream {
+
+		private final SocketChannel _channel;
+
+		ChannelOutputStream(final SocketChannel channel) {
+			_channel = channel;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+			while(buffer.hasRemaining()) {
+				_channel.write(buffer);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			_channel.close();
+		}
+	}
+}
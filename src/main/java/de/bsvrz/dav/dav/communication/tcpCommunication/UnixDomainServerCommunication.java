@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.communication.tcpCommunication;
+
+import de.bsvrz.dav.daf.communication.lowLevel.ConnectionInterface;
+import de.bsvrz.dav.daf.main.CommunicationError;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Server-Kommunikationsmodul, das zusätzlich zum TCP-Port Verbindungen über einen Unix-Domain-Socket entgegennimmt. Applikationen auf dem
+ * gleichen Rechner wie der Datenverteiler (z.B. Archivsystem, Parametrierung, Rechenverfahren) können dadurch den TCP-Stack umgehen,
+ * während entfernte Applikationen und andere Datenverteiler weiterhin über TCP verbunden werden.
+ * <p>
+ * Die Socket-Datei heißt {@code dav-<Portnummer>.socket} und liegt standardmäßig im Verzeichnis {@code dav-<Benutzername>} innerhalb des
+ * temporären Verzeichnisses von Java, das nur für den Benutzer des Datenverteilers zugänglich ist (siehe {@link LocalTransportDirectory}).
+ * Das Verzeichnis kann über den Parameter {@code verzeichnis} gesetzt werden, z.B.
+ * {@code -tcpKommunikationsModul=de.bsvrz.dav.dav.communication.tcpCommunication.UnixDomainServerCommunication:verzeichnis=/run/dav}.
+ * Zusätzlich wird der Parameter {@code backlog} von {@link TCP_IP_NioServerCommunication} unterstützt. Applikationen verwenden
+ * {@link UnixDomainCommunication} als Kommunikationsverfahren, das bei nicht lokalen Adressen automatisch auf TCP ausweicht.
+ * <p>
+ * Unix-Domain-Sockets werden von {@code java.nio.channels} erst ab Java 16 unterstützt. Auf älteren Java-Versionen arbeitet dieses Modul wie
+ * {@link TCP_IP_NioServerCommunication}.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class UnixDomainServerCommunication extends TCP_IP_NioServerCommunication {
+
+	/** Der Debug-Logger. */
+	private static final Debug _debug = Debug.getLogger();
+
+	/** Verzeichnis für die Socket-Datei */
+	private String _directory = UnixDomainSockets.DEFAULT_DIRECTORY;
+
+	private File _socketFile;
+
+	private ServerSocketChannel _unixServerChannel;
+
+	private int _subAdressNumber;
+
+	/** Erzeugt eine Instanz dieser Klasse. */
+	public UnixDomainServerCommunication() {
+	}
+
+	@Override
+	protected boolean setParameter(final String key, final String value) {
+		if(key.equals("verzeichnis")) {
+			_directory = value;
+			return true;
+		}
+		return super.setParameter(key, value);
+	}
+
+	@Override
+	public void connect(final int subAdressNumber) throws CommunicationError {
+		super.connect(subAdressNumber);
+		_subAdressNumber = subAdressNumber;
+		if(!UnixDomainSockets.isSupported()) {
+			_debug.warning("Unix-Domain-Sockets werden von dieser Java-Version nicht unterstützt, es werden nur TCP-Verbindungen entgegengenommen");
+			return;
+		}
+		try {
+			LocalTransportDirectory.prepare(_directory);
+		}
+		catch(IOException ex) {
+			_debug.warning("Verzeichnis für den Unix-Domain-Socket kann nicht verwendet werden, es werden nur TCP-Verbindungen entgegengenommen", ex);
+			return;
+		}
+		final File socketFile = UnixDomainSockets.getSocketFile(_directory, subAdressNumber);
+		try {
+			_unixServerChannel = UnixDomainSockets.bind(socketFile, getBacklog());
+			registerServerChannel(_unixServerChannel);
+			_socketFile = socketFile;
+			_debug.info("Unix-Domain-Socket-Server erwartet Verbindungen, " + socketFile);
+		}
+		catch(IOException ex) {
+			final String msg = "Fehler beim Anlegen des Unix-Domain-Sockets " + socketFile;
+			_debug.error(msg, ex);
+			super.disconnect();
+			throw new CommunicationError(msg + ": " + ex);
+		}
+	}
+
+	@Override
+	public void disconnect() {
+		super.disconnect();
+		final ServerSocketChannel unixServerChannel = _unixServerChannel;
+		if(unixServerChannel != null) {
+			_debug.info("Unix-Domain-Socket-Server wird beendet, " + _socketFile);
+			try {
+				unixServerChannel.close();
+			}
+			catch(IOException ex) {
+				_debug.fine("Fehler beim Schließen des Unix-Domain-Sockets", ex);
+			}
+			if(!_socketFile.delete()) {
+				_debug.fine("Socket-Datei konnte nicht gelöscht werden: " + _socketFile);
+			}
+		}
+	}
+
+	@Override
+	protected ConnectionInterface createConnection(final SocketChannel channel) throws IOException {
+		if(!UnixDomainSockets.isUnixDomain(channel)) return super.createConnection(channel);
+		channel.configureBlocking(true);
+		_debug.info("Unix-Domain-Socket-Verbindung passiv aufgebaut, " + _socketFile);
+		return new UnixDomainCommunication(channel, _subAdressNumber);
+	}
+
+	@Override
+	public ConnectionInterface getPlainConnection() {
+		return new UnixDomainCommunication(_directory);
+	}
+
+	@Override
+	public String getPlainConnectionName() {
+		return UnixDomainCommunication.class.getName();
+	}
+}
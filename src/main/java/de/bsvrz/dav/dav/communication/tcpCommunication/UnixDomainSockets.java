@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.communication.tcpCommunication;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Zugriff auf Unix-Domain-Sockets über {@code java.nio.channels}. Diese werden erst ab Java 16 unterstützt, der Datenverteiler wird aber
+ * weiterhin für Java 8 übersetzt. Die benötigten Methoden werden daher zur Laufzeit per Reflection ermittelt. Auf älteren Java-Versionen
+ * liefert {@link #isSupported()} false.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+final class UnixDomainSockets {
+
+	/** Standardverzeichnis für die Socket-Dateien, ein benutzerspezifisches Unterverzeichnis des temporären Verzeichnisses von Java */
+	static final String DEFAULT_DIRECTORY = LocalTransportDirectory.getDefaultDirectory(System.getProperty("java.io.tmpdir"));
+
+	private static final ProtocolFamily UNIX;
+
+	private static final Method SOCKET_CHANNEL_OPEN;
+
+	private static final Method SERVER_SOCKET_CHANNEL_OPEN;
+
+	private static final Method ADDRESS_OF;
+
+	static {
+		ProtocolFamily unix = null;
+		Method socketChannelOpen = null;
+		Method serverSocketChannelOpen = null;
+		Method addressOf = null;
+		try {
+			unix = Enum.valueOf(StandardProtocolFamily.class, "UNIX");
+			socketChannelOpen = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+			serverSocketChannelOpen = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+			addressOf = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class);
+		}
+		catch(IllegalArgumentException | NoSuchMethodException | ClassNotFoundException e) {
+			// Java-Version ohne Unterstützung für Unix-Domain-Sockets
+			unix = null;
+		}
+		UNIX = unix;
+		SOCKET_CHANNEL_OPEN = socketChannelOpen;
+		SERVER_SOCKET_CHANNEL_OPEN = serverSocketChannelOpen;
+		ADDRESS_OF = addressOf;
+	}
+
+	private UnixDomainSockets() {
+	}
+
+	/**
+	 * Prüft, ob die verwendete Java-Version Unix-Domain-Sockets unterstützt
+	 *
+	 * @return true, falls unterstützt
+	 */
+	static boolean isSupported() {
+		return UNIX != null;
+	}
+
+	/**
+	 * Gibt die Socket-Datei zurück, unter der ein Datenverteiler Verbindungen für eine Subadresse (Portnummer) erwartet
+	 *
+	 * @param directory       Verzeichnis
+	 * @param subAdressNumber Subadresse
+	 * @return Socket-Datei
+	 */
+	static File getSocketFile(final String directory, final int subAdressNumber) {
+		return new File(directory, "dav-" + subAdressNumber + ".socket");
+	}
+
+	/**
+	 * Erstellt einen Server-Kanal, der an die angegebene Socket-Datei gebunden ist. Eine eventuell vorhandene Datei (z.B. nach einem Absturz)
+	 * wird vorher gelöscht.
+	 *
+	 * @param socketFile Socket-Datei
+	 * @param backlog    Länge der Warteschlange, 0 für den Standardwert
+	 * @return Server-Kanal
+	 * @throws IOException Fehler beim Binden
+	 */
+	static ServerSocketChannel bind(final File socketFile, final int backlog) throws IOException {
+		final ServerSocketChannel channel = (ServerSocketChannel) invoke(SERVER_SOCKET_CHANNEL_OPEN, null, UNIX);
+		if(socketFile.exists() && !socketFile.delete()) {
+			channel.close();
+			throw new IOException("Vorhandene Socket-Datei kann nicht gelöscht werden: " + socketFile);
+		}
+		try {
+			channel.bind(getAddress(socketFile), backlog);
+		}
+		catch(IOException e) {
+			channel.close();
+			throw e;
+		}
+		return channel;
+	}
+
+	/**
+	 * Verbindet sich mit der angegebenen Socket-Datei
+	 *
+	 * @param socketFile Socket-Datei
+	 * @return Verbundener Kanal im blockierenden Modus
+	 * @throws IOException Fehler beim Verbinden
+	 */
+	static SocketChannel connect(final File socketFile) throws IOException {
+		final SocketChannel channel = (SocketChannel) invoke(SOCKET_CHANNEL_OPEN, null, UNIX);
+		try {
+			channel.connect(getAddress(socketFile));
+		}
+		catch(IOException e) {
+			channel.close();
+			throw e;
+		}
+		return channel;
+	}
+
+	/**
+	 * Prüft, ob es sich bei einem Kanal um einen Unix-Domain-Socket handelt
+	 *
+	 * @param channel Kanal
+	 * @return true, falls der Kanal keine IP-Adresse hat
+	 * @throws IOException Fehler beim Abfragen der Adresse
+	 */
+	static boolean isUnixDomain(final SocketChannel channel) throws IOException {
+		return !(channel.getLocalAddress() instanceof InetSocketAddress);
+	}
+
+	private static SocketAddress getAddress(final File socketFile) throws IOException {
+		return (SocketAddress) invoke(ADDRESS_OF, null, socketFile.toPath());
+	}
+
+	private static Object invoke(final Method method, final Object target, final Object argument) throws IOException {
+		if(!isSupported()) throw new IOException("Unix-Domain-Sockets werden erst ab Java 16 unterstützt");
+		try {
+			return method.invoke(target, argument);
+		}
+		catch(IllegalAccessException e) {
+			throw new IOException(e);
+		}
+		catch(InvocationTargetException e) {
+			final Throwable cause = e.getCause();
+			if(cause instanceof IOException) throw (IOException) cause;
+			if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+			throw new IOException(cause);
+		}
+	}
+}
@@ -52,6 +52,9 @@ public abstract class AbstractSubscriptionsManager implements SubscriptionsManag
 
 	protected final DataIndexCounter<BaseSubscriptionInfo> _dataIndexCounter = new DataIndexCounter<BaseSubscriptionInfo>();
 
+	/** Nachlauf nicht mehr benötigter Anmeldungen bei entfernten Zentraldatenverteilern oder null, falls nicht aktiviert */
+	private volatile RemoteSubscriptionLinger _remoteSubscriptionLinger = null;
+
 	public static String dataIndexToString(final long c) {
 		long time = c >>> 32;
 		long index = (c >>> 2) & 0x3fffffff;
@@ -119,6 +122,13 @@ public abstract class AbstractSubscriptionsManager implements SubscriptionsManag
 	 */
 	public void addLocalSendSubscription(final ApplicationCommunicationInterface application, final SendSubscriptionInfo sendSubscriptionInfo) {
 		final SubscriptionInfo subscriptionInfo = openSubscriptionInfo(sendSubscriptionInfo.getBaseSubscriptionInfo());
+		if(subscriptionInfo.confirmResumedLocalSendingSubscription(
+				application, sendSubscriptionInfo.isSource(), sendSubscriptionInfo.isRequestSupported()
+		)) {
+			// Anmeldung besteht seit der Wiederverbindung der Applikation bereits unverändert
+			subscriptionInfo.close();
+			return;
+		}
 		List<SendingSubscription> previousSubscriptions = subscriptionInfo.getSendingSubscriptions(application);
 		final LocalSendingSubscription localSendingSubscription = new LocalSendingSubscription(
 				this,
@@ -162,6 +172,13 @@ public abstract class AbstractSubscriptionsManager implements SubscriptionsManag
 	 */
 	public void addLocalReceiveSubscription(final ApplicationCommunicationInterface application, final ReceiveSubscriptionInfo receiveSubscriptionInfo) {
 		final SubscriptionInfo subscriptionInfo = openSubscriptionInfo(receiveSubscriptionInfo.getBaseSubscriptionInfo());
+		if(subscriptionInfo.confirmResumedLocalReceivingSubscription(
+				application, receiveSubscriptionInfo.isDrain(), receiveSubscriptionInfo.getReceiveOptions()
+		)) {
+			// Anmeldung besteht seit der Wiederverbindung der Applikation bereits unverändert
+			subscriptionInfo.close();
+			return;
+		}
 		List<ReceivingSubscription> previousSubscriptions = subscriptionInfo.getReceivingSubscriptions(application);
 		final LocalReceivingSubscription localReceivingSubscription = new LocalReceivingSubscription(
 				this,
@@ -249,6 +266,61 @@ public abstract class AbstractSubscriptionsManager implements SubscriptionsManag
 		}
 	}
 
+	/**
+	 * Hält nach Abbruch einer Applikationsverbindung die Anmeldungen der Applikation zurück, damit sie bei einer baldigen Wiederverbindung
+	 * übernommen werden können. Für andere Applikationen und Datenverteiler bleiben die Anmeldungen unverändert bestehen.
+	 *
+	 * @param communication Unterbrochene Verbindung
+	 * @return Anzahl der zurückgehaltenen Anmeldungen
+	 * @see ApplicationSessionResumption
+	 */
+	public int parkLocalSubscriptions(final ApplicationCommunicationInterface communication) {
+		int result = 0;
+		for(SubscriptionInfo subscriptionInfo : _subscriptions.values()) {
+			result += subscriptionInfo.parkLocalSubscriptions(communication);
+		}
+		return result;
+	}
+
+	/**
+	 * Ordnet die zurückgehaltenen Anmeldungen einer Applikation der neuen Verbindung zu
+	 *
+	 * @param oldCommunication Unterbrochene Verbindung
+	 * @param newCommunication Neue Verbindung der gleichen Applikation
+	 * @return Anzahl der übernommenen Anmeldungen
+	 */
+	public int resumeLocalSubscriptions(
+			final ApplicationCommunicationInterface oldCommunication, final ApplicationCommunicationInterface newCommunication) {
+		int result = 0;
+		for(SubscriptionInfo subscriptionInfo : _subscriptions.values()) {
+			result += subscriptionInfo.resumeLocalSubscriptions(oldCommunication, newCommunication);
+		}
+		return result;
+	}
+
+	/**
+	 * Entfernt übernommene Anmeldungen, die die Applikation nach der Wiederverbindung nicht erneut angemeldet hat
+	 *
+	 * @param communication Neue Verbindung
+	 * @return Anzahl der Datenidentifikationen, bei denen Anmeldungen entfernt wurden
+	 */
+	public int removeUnconfirmedLocalSubscriptions(final ApplicationCommunicationInterface communication) {
+		int result = 0;
+		for(SubscriptionInfo subscriptionInfo : _subscriptions.values()) {
+			boolean removed = false;
+			if(subscriptionInfo.hasUnconfirmedLocalReceivingSubscription(communication)) {
+				removeLocalReceiveSubscriptions(communication, subscriptionInfo);
+				removed = true;
+			}
+			if(subscriptionInfo.hasUnconfirmedLocalSendingSubscription(communication)) {
+				removeLocalSendSubscriptions(communication, subscriptionInfo);
+				removed = true;
+			}
+			if(removed) result++;
+		}
+		return result;
+	}
+
 	/**
 	 * Entfernt von einer Verbindung alle Anmeldungen (sinnvoll z.B. bei Terminierung der Verbindung)
 	 *
@@ -261,6 +333,53 @@ public abstract class AbstractSubscriptionsManager implements SubscriptionsManag
 		}
 	}
 
+	/**
+	 * Hält nach Abbruch einer Datenverteilerverbindung die eingehenden Anmeldungen des anderen Datenverteilers zurück und entfernt nur die
+	 * Anmeldungen dieses Datenverteilers beim anderen Datenverteiler.
+	 *
+	 * @param communication Unterbrochene Verbindung
+	 * @return Anzahl der zurückgehaltenen Anmeldungen
+	 * @see TransmitterSubscriptionResumption
+	 */
+	public int parkRemoteSubscriptions(final TransmitterCommunicationInterface communication) {
+		int result = 0;
+		for(SubscriptionInfo subscriptionInfo : _subscriptions.values()) {
+			result += subscriptionInfo.parkRemoteSubscriptions(communication);
+			subscriptionInfo.removeRemoteCentralSubscriptions(communication);
+		}
+		return result;
+	}
+
+	/**
+	 * Ordnet die zurückgehaltenen Anmeldungen eines anderen Datenverteilers der neuen Verbindung zu
+	 *
+	 * @param oldCommunication Unterbrochene Verbindung
+	 * @param newCommunication Neue Verbindung zum gleichen Datenverteiler
+	 * @return Anzahl der übernommenen Anmeldungen
+	 */
+	public int resumeRemoteSubscriptions(
+			final TransmitterCommunicationInterface oldCommunication, final TransmitterCommunicationInterface newCommunication) {
+		int result = 0;
+		for(SubscriptionInfo subscriptionInfo : _subscriptions.values()) {
+			result += subscriptionInfo.resumeRemoteSubscriptions(oldCommunication, newCommunication);
+		}
+		return result;
+	}
+
+	/**
+	 * Entfernt übernommene Anmeldungen, die der andere Datenverteiler nach der Wiederverbindung nicht erneut angemeldet hat
+	 *
+	 * @param communication Neue Verbindung
+	 * @return Anzahl der entfernten Anmeldungen
+	 */
+	public int removeUnconfirmedRemoteSubscriptions(final TransmitterCommunicationInterface communication) {
+		int result = 0;
+		for(SubscriptionInfo subscriptionInfo : _subscriptions.values()) {
+			result += subscriptionInfo.removeUnconfirmedRemoteSubscriptions(communication);
+		}
+		return result;
+	}
+
 	@Override
 	public void handleTransmitterSubscriptionReceipt(
 			final TransmitterCommunicationInterface communication,
@@ -301,6 +420,15 @@ public abstract class AbstractSubscriptionsManager implements SubscriptionsManag
 		}
 	}
 
+	@Override
+	public long[] getNextDataIndexes(final BaseSubscriptionInfo baseSubscriptionInfo, final int count) {
+		final SubscriptionInfo subscriptionInfo = getSubscriptionInfo(baseSubscriptionInfo);
+		if(subscriptionInfo == null) return new long[count];
+		synchronized(subscriptionInfo){
+			return subscriptionInfo.getNextDataIndexes(_dataIndexCounter.increment(baseSubscriptionInfo, count), count);
+		}
+	}
+
 	@Override
 	public long getCurrentDataIndex(final BaseSubscriptionInfo baseSubscriptionInfo) {
 		final SubscriptionInfo subscriptionInfo = getSubscriptionInfo(baseSubscriptionInfo);
@@ -340,6 +468,27 @@ public abstract class AbstractSubscriptionsManager implements SubscriptionsManag
 		}
 	}
 
+	/**
+	 * Setzt die Verwaltung für den Nachlauf nicht mehr benötigter Anmeldungen bei entfernten Zentraldatenverteilern
+	 *
+	 * @param remoteSubscriptionLinger Nachlaufverwaltung oder null, falls Anmeldungen sofort abgemeldet werden sollen
+	 */
+	public void setRemoteSubscriptionLinger(final RemoteSubscriptionLinger remoteSubscriptionLinger) {
+		_remoteSubscriptionLinger = remoteSubscriptionLinger;
+	}
+
+	@Override
+	public boolean startLingering(final SubscriptionInfo subscriptionInfo, final long lingerStart, final long dataSize) {
+		final RemoteSubscriptionLinger remoteSubscriptionLinger = _remoteSubscriptionLinger;
+		return remoteSubscriptionLinger != null && remoteSubscriptionLinger.startLingering(subscriptionInfo, lingerStart, dataSize);
+	}
+
+	@Override
+	public void stopLingering(final SubscriptionInfo subscriptionInfo, final boolean reattached) {
+		final RemoteSubscriptionLinger remoteSubscriptionLinger = _remoteSubscriptionLinger;
+		if(remoteSubscriptionLinger != null) remoteSubscriptionLinger.stopLingering(subscriptionInfo, reattached);
+	}
+
 	@Override
 	public void connectToRemoteSources(final SubscriptionInfo subscriptionInfo, final Set<Long> distributorsToUse) {
 		HashBagMap<TransmitterCommunicationInterface, Long> connections = getCentralDistributorConnections(distributorsToUse);
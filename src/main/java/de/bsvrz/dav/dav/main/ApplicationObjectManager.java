@@ -31,10 +31,21 @@ import de.bsvrz.dav.daf.main.Data;
 import de.bsvrz.dav.daf.main.config.*;
 import de.bsvrz.sys.funclib.debug.Debug;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Klasse, die Applikationsobjekte für die verbundenen Anwendungen erstellt
+ * <p>
+ * Das Erzeugen eines Applikationsobjekts erfolgt im Thread der jeweiligen Verbindung, da die Id vor der Bestätigung der Authentifizierung
+ * benötigt wird. Mehrere Verbindungen können ihre Objekte dabei gleichzeitig erzeugen. Das Löschen von Applikationsobjekten sowie die
+ * Aktualisierung der Menge "Applikationen" erfolgt asynchron, Änderungen an der Menge werden gesammelt und mit einem Konfigurationsauftrag
+ * übertragen.
  *
  * @author Kappich Systemberatung
  * @version $Revision$
@@ -43,13 +54,43 @@ public class ApplicationObjectManager {
 
 	private static final Debug _debug = Debug.getLogger();
 
+	/** Maximale Zeit in Millisekunden, die beim Beenden auf ausstehende Löschungen von Applikationsobjekten gewartet wird */
+	private static final long CLOSE_TIMEOUT = 30000;
+
 	private final DataModel _dataModel;
 
 	private final MutableSet _applicationsSet;
 
 	private ConfigurationArea _appObjectConfigurationArea;
 
-	private Boolean _canWriteApplicationSet = null; // null = unbekannt, true = schreiben erlaubt, false = schreiben verboten
+	private volatile Boolean _canWriteApplicationSet = null; // null = unbekannt, true = schreiben erlaubt, false = schreiben verboten
+
+	/** Zeit in Millisekunden, innerhalb der Änderungen an der Menge "Applikationen" gesammelt werden */
+	private final long _coalescingWindow;
+
+	/** Noch nicht in die Menge "Applikationen" eingetragene Applikationsobjekte */
+	private final Set<SystemObject> _pendingAdditions = new LinkedHashSet<SystemObject>();
+
+	/** Noch nicht aus der Menge "Applikationen" entfernte Applikationsobjekte */
+	private final Set<SystemObject> _pendingRemovals = new LinkedHashSet<SystemObject>();
+
+	/** true, falls die Übertragung der gesammelten Änderungen bereits geplant ist, Zugriff nur synchronisiert auf {@link #_pendingAdditions} */
+	private boolean _updateScheduled = false;
+
+	/** Lock, das gleichzeitige Übertragungen von Mengenänderungen verhindert, damit Hinzufügen und Entfernen in der richtigen Reihenfolge erfolgen */
+	private final Object _updateLock = new Object();
+
+	/** Führt das Löschen von Applikationsobjekten und die Aktualisierung der Menge "Applikationen" aus */
+	private final ScheduledThreadPoolExecutor _executor = new ScheduledThreadPoolExecutor(
+			2, new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable r) {
+					final Thread thread = new Thread(r, "Applikationsobjekt-Verwaltung");
+					thread.setDaemon(true);
+					return thread;
+				}
+			}
+	);
 
 	/**
 	 * Konstruktor
@@ -57,11 +98,16 @@ public class ApplicationObjectManager {
 	 * @param connectionsManager HighLevelConnectionsManagerInterface
 	 * @param connection Loakle Datenverteilerverbindung
 	 * @param configAreaPidForApplicationObjects Pid des Konfigurationsbereichs für Applikationsobjekte wie in ServerDavParameters angegeben
+	 * @param coalescingWindow Zeit in Millisekunden, innerhalb der Änderungen an der Menge "Applikationen" gesammelt werden
 	 */
 	public ApplicationObjectManager(
 			final HighLevelConnectionsManagerInterface connectionsManager,
 			final ClientDavConnection connection,
-			final String configAreaPidForApplicationObjects) {
+			final String configAreaPidForApplicationObjects,
+			final long coalescingWindow) {
+		_coalescingWindow = coalescingWindow;
+		// Beim Beenden wird die geplante Übertragung der Mengenänderungen nicht abgewartet, sondern direkt in close() ausgeführt
+		_executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
 		_dataModel = connection.getDataModel();
 		_applicationsSet = connectionsManager.getDavObject().getMutableSet("Applikationen");
 
@@ -92,8 +138,8 @@ public class ApplicationObjectManager {
 			if(canNotWriteApplicationSet()) return;
 			try {
 				// Menge leeren
-				List<SystemObject> elements;
-				while((elements = _applicationsSet.getElements()).size() > 0){
+				final List<SystemObject> elements = _applicationsSet.getElements();
+				if(!elements.isEmpty()) {
 					_applicationsSet.remove(elements.toArray(new SystemObject[elements.size()]));
 				}
 			}
@@ -104,7 +150,7 @@ public class ApplicationObjectManager {
 		}
 	}
 
-	/** Erstellt ein Applikations-Objekt und gibt die Id zurück
+	/** Erstellt ein Applikations-Objekt und gibt die Id zurück. Das Eintragen in die Menge "Applikationen" erfolgt asynchron.
 	 *
 	 * @param typePid Pid des Typs der Applikation
 	 * @param name Name der Applikation
@@ -126,28 +172,75 @@ public class ApplicationObjectManager {
 	}
 
 	private void addApplicationToObjectSet(final SystemObject applicationObject) {
-		if(canNotWriteApplicationSet()) return;
-		if(_applicationsSet != null){
-			try {
-				_applicationsSet.add(applicationObject);
-			}
-			catch(ConfigurationChangeException e) {
-				showApplicationSetErrorMessage();
-				e.printStackTrace();
-			}
+		if(_applicationsSet == null || canNotWriteApplicationSet()) return;
+		synchronized(_pendingAdditions) {
+			_pendingRemovals.remove(applicationObject);
+			_pendingAdditions.add(applicationObject);
+			scheduleApplicationSetUpdate();
 		}
 	}
 
 	private void removeApplicationFromObjectSet(final SystemObject applicationObject) {
-		if(canNotWriteApplicationSet()) return;
-		if(_applicationsSet != null){
+		if(_applicationsSet == null || canNotWriteApplicationSet()) return;
+		synchronized(_pendingAdditions) {
+			// Wurde das Objekt noch nicht eingetragen, muss es auch nicht entfernt werden
+			if(!_pendingAdditions.remove(applicationObject)) {
+				_pendingRemovals.add(applicationObject);
+				scheduleApplicationSetUpdate();
+			}
+		}
+	}
+
+	/**
+	 * Plant die Übertragung der gesammelten Mengenänderungen nach Ablauf der Bündelungszeit. Muss synchronisiert auf {@link #_pendingAdditions}
+	 * aufgerufen werden.
+	 */
+	private void scheduleApplicationSetUpdate() {
+		if(_updateScheduled) return;
+		_updateScheduled = true;
+		try {
+			_executor.schedule(
+					new Runnable() {
+						@Override
+						public void run() {
+							updateApplicationSet();
+						}
+					}, _coalescingWindow, TimeUnit.MILLISECONDS
+			);
+		}
+		catch(RejectedExecutionException ignored) {
+			// Der Datenverteiler wird beendet, die Änderungen werden von close() übertragen
+		}
+	}
+
+	/**
+	 * Überträgt die gesammelten Änderungen mit je einem Konfigurationsauftrag zum Hinzufügen und zum Entfernen an die Menge "Applikationen"
+	 */
+	private void updateApplicationSet() {
+		synchronized(_updateLock) {
+			final SystemObject[] additions;
+			final SystemObject[] removals;
+			synchronized(_pendingAdditions) {
+				// Änderungen, die ab jetzt eintreffen, müssen eine neue Übertragung planen
+				_updateScheduled = false;
+				additions = _pendingAdditions.toArray(new SystemObject[_pendingAdditions.size()]);
+				removals = _pendingRemovals.toArray(new SystemObject[_pendingRemovals.size()]);
+				_pendingAdditions.clear();
+				_pendingRemovals.clear();
+			}
+			if(additions.length == 0 && removals.length == 0) return;
+			if(canNotWriteApplicationSet()) return;
 			try {
-				_applicationsSet.remove(applicationObject);
+				if(additions.length > 0) _applicationsSet.add(additions);
+				if(removals.length > 0) _applicationsSet.remove(removals);
 			}
 			catch(ConfigurationChangeException e) {
 				showApplicationSetErrorMessage();
 				e.printStackTrace();
 			}
+			catch(RuntimeException e) {
+				_debug.warning("Die Menge \"Applikationen\" konnte nicht aktualisiert werden", e);
+			}
 		}
 	}
 
@@ -179,19 +272,50 @@ public class ApplicationObjectManager {
 	}
 
 	/**
-	 * Löscht ein Applikationsobjekt
+	 * Löscht ein Applikationsobjekt. Das Löschen und das Entfernen aus der Menge "Applikationen" erfolgen asynchron, sodass der Aufrufer nicht
+	 * auf die Konfiguration warten muss.
 	 * @param applicationId Applikations-Id
 	 */
 	public void removeApplication(final long applicationId) {
-		final SystemObject applicationObject = _dataModel.getObject(applicationId);
-		if(applicationObject != null && applicationObject instanceof ClientApplication) {
-			try {
-				applicationObject.invalidate();
-				removeApplicationFromObjectSet(applicationObject);
+		final Runnable removal = new Runnable() {
+			@Override
+			public void run() {
+				final SystemObject applicationObject = _dataModel.getObject(applicationId);
+				if(applicationObject != null && applicationObject instanceof ClientApplication) {
+					try {
+						applicationObject.invalidate();
+						removeApplicationFromObjectSet(applicationObject);
+					}
+					catch(Exception e) {
+						_debug.fine("Applikationsobjekt " + applicationObject + " konnte nicht nicht gelöscht werden", e);
+					}
+				}
 			}
-			catch(Exception e) {
-				_debug.fine("Applikationsobjekt " + applicationObject + " konnte nicht nicht gelöscht werden", e);
+		};
+		try {
+			_executor.execute(removal);
+		}
+		catch(RejectedExecutionException e) {
+			// Nach close() wird synchron gelöscht, damit das Objekt nicht gültig bleibt
+			removal.run();
+			updateApplicationSet();
+		}
+	}
+
+	/**
+	 * Wird beim Beenden des Datenverteilers aufgerufen. Wartet auf die noch ausstehenden Löschungen von Applikationsobjekten und überträgt die
+	 * gesammelten Änderungen an der Menge "Applikationen" sofort, ohne das Ende der Bündelungszeit abzuwarten.
+	 */
+	public void close() {
+		_executor.shutdown();
+		try {
+			if(!_executor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				_debug.warning("Beim Beenden konnten nicht alle Applikationsobjekte gelöscht werden");
 			}
 		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		updateApplicationSet();
 	}
 }
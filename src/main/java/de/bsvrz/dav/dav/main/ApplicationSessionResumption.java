@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.main;
+
+import de.bsvrz.dav.dav.communication.appProtocol.T_A_HighLevelCommunication;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Wiederaufnahme von Applikationsverbindungen nach kurzen Unterbrechungen. Bricht die Verbindung zu einer authentifizierten Applikation
+ * unerwartet ab, werden deren Anmeldungen nicht sofort entfernt, sondern für eine Karenzzeit zurückgehalten. Dadurch erhalten andere Applikationen und
+ * Datenverteiler während der Unterbrechung keine Statuswechsel (z.B. "keine Quelle") und es müssen keine Anmeldungen im Datenverteilernetz
+ * entfernt und wieder hergestellt werden.
+ * <p>
+ * Meldet sich die gleiche Applikation innerhalb der Karenzzeit erneut an, werden die Anmeldungen der neuen Verbindung zugeordnet. Die
+ * Zuordnung erfolgt über einen Sitzungsschlüssel aus Benutzer, Applikationstyp, Applikationsname, Rechneradresse und einer von der
+ * Applikation gewählten Sitzungskennung, der nur nach einer erfolgreichen Authentifizierung gebildet wird. Da das Anmeldeprotokoll kein
+ * eigenes Feld dafür vorsieht, wird die Sitzungskennung als Endung <code>[Sitzung:<i>Kennung</i>]</code> des Applikationsnamens übergeben.
+ * Der Datenverteiler entfernt diese Endung vor dem Anlegen des Applikationsobjekts wieder (siehe {@link #stripSessionToken(String)}),
+ * sodass die Kennung weder im Objektnamen noch in der Liste der angemeldeten Applikationen erscheint. Die Applikation muss sie je Prozess
+ * eindeutig wählen (z.B. zufällig) und bei Wiederverbindungen beibehalten. Applikationen ohne Sitzungskennung werden nicht
+ * wiederaufgenommen, damit mehrere gleichnamige Instanzen auf einem Rechner nicht verwechselt werden.
+ * <p>
+ * Meldet sich die Applikation neu an, bevor der Abbruch der alten Verbindung erkannt wurde, werden die Anmeldungen der alten Verbindung
+ * sofort entfernt, da sie sonst die neu übertragenen Anmeldungen (z.B. einer Quelle) für eine weitere Karenzzeit blockieren würden.
+ * Ebenso werden die Anmeldungen bei einer geordneten Abmeldung der Applikation wie bisher sofort entfernt, damit die Empfänger den Wegfall
+ * der Quelle mitbekommen.
+ * <p>
+ * Die übernommenen Anmeldungen bleiben stumm, bis die Applikation sie erneut angemeldet hat. Die erneut übertragenen Anmeldungen werden mit
+ * den übernommenen Anmeldungen abgeglichen, sodass die Applikation den aktuellen Datensatz bzw. die aktuelle Sendesteuerung erhält, ohne
+ * dass sich der Anmeldestatus für die übrigen Beteiligten ändert. Übernommene Anmeldungen, die nach Ablauf der Karenzzeit nicht erneut
+ * angemeldet wurden, werden entfernt.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class ApplicationSessionResumption {
+
+	private static final Debug _debug = Debug.getLogger();
+
+	/** Endung des Applikationsnamens, mit der eine Applikation ihre Sitzungskennung übergibt */
+	private static final Pattern SESSION_TOKEN = Pattern.compile("\\s*\\[Sitzung:([^\\]]+)\\]$");
+
+	/** Karenzzeit in ms */
+	private final long _gracePeriod;
+
+	/** Anmeldungsverwaltung */
+	private final AbstractSubscriptionsManager _subscriptionsManager;
+
+	/** Unterbrochene Verbindungen mit zurückgehaltenen Anmeldungen je Sitzungsschlüssel */
+	private final Map<String, T_A_HighLevelCommunication> _parkedConnections = new HashMap<String, T_A_HighLevelCommunication>();
+
+	/** Bestehende Verbindungen je Sitzungsschlüssel */
+	private final Map<String, T_A_HighLevelCommunication> _liveConnections = new HashMap<String, T_A_HighLevelCommunication>();
+
+	private final Timer _timer = new Timer("ApplikationsWiederaufnahme", true);
+
+	private long _resumedConnections = 0;
+
+	private long _expiredConnections = 0;
+
+	/**
+	 * Erstellt eine neue Verwaltung
+	 *
+	 * @param gracePeriod          Karenzzeit in ms, für die Anmeldungen nach einem Verbindungsabbruch zurückgehalten werden
+	 * @param subscriptionsManager Anmeldungsverwaltung
+	 */
+	public ApplicationSessionResumption(final long gracePeriod, final AbstractSubscriptionsManager subscriptionsManager) {
+		_gracePeriod = gracePeriod;
+		_subscriptionsManager = subscriptionsManager;
+	}
+
+	/**
+	 * Wird aufgerufen, wenn eine Applikationsverbindung terminiert wurde. Hält die Anmeldungen der Applikation zurück, falls die Verbindung
+	 * unerwartet abgebrochen ist.
+	 *
+	 * @param communication Terminierte Verbindung
+	 * @return true, falls die Anmeldungen zurückgehalten werden, false, falls sie wie bisher sofort entfernt werden müssen
+	 */
+	public synchronized boolean connectionLost(final T_A_HighLevelCommunication communication) {
+		final String key = getSessionKey(communication);
+		if(key == null) return false;
+		if(_liveConnections.get(key) != communication) {
+			// Die Applikation hat sich bereits neu verbunden, bevor der Abbruch dieser Verbindung erkannt wurde
+			return false;
+		}
+		_liveConnections.remove(key);
+		if(!communication.isConnectionLost() || communication.isConfiguration() || _parkedConnections.containsKey(key)) return false;
+		final int count = _subscriptionsManager.parkLocalSubscriptions(communication);
+		if(count == 0) return false;
+		_parkedConnections.put(key, communication);
+		_timer.schedule(
+				new TimerTask() {
+					@Override
+					public void run() {
+						expire(key, communication);
+					}
+				}, _gracePeriod
+		);
+		_debug.info(count + " Anmeldungen der Applikation " + key + " werden für " + _gracePeriod + " ms zurückgehalten");
+		return true;
+	}
+
+	/**
+	 * Wird aufgerufen, wenn sich eine Applikation erfolgreich authentifiziert hat, bevor die Applikation Anmeldungen übertragen kann. Ordnet
+	 * zurückgehaltene Anmeldungen der gleichen Applikation der neuen Verbindung zu.
+	 *
+	 * @param communication Neue Verbindung
+	 */
+	public void connectionEstablished(final T_A_HighLevelCommunication communication) {
+		final String key = getSessionKey(communication);
+		if(key == null) return;
+		final T_A_HighLevelCommunication oldCommunication;
+		synchronized(this) {
+			_liveConnections.put(key, communication);
+			oldCommunication = _parkedConnections.remove(key);
+			if(oldCommunication == null) return;
+			_resumedConnections++;
+		}
+		final int count = _subscriptionsManager.resumeLocalSubscriptions(oldCommunication, communication);
+		_debug.info(count + " Anmeldungen der Applikation " + key + " wurden nach der Wiederverbindung übernommen");
+		_timer.schedule(
+				new TimerTask() {
+					@Override
+					public void run() {
+						final int removed = _subscriptionsManager.removeUnconfirmedLocalSubscriptions(communication);
+						if(removed > 0) {
+							_debug.info("Übernommene Anmeldungen der Applikation " + key + " zu " + removed + " Datenidentifikationen wurden nicht bestätigt und entfernt");
+						}
+					}
+				}, _gracePeriod
+		);
+	}
+
+	private void expire(final String key, final T_A_HighLevelCommunication communication) {
+		synchronized(this) {
+			if(_parkedConnections.get(key) != communication) return;
+			_parkedConnections.remove(key);
+			_expiredConnections++;
+		}
+		_debug.info("Applikation " + key + " hat sich nicht rechtzeitig wieder verbunden, zurückgehaltene Anmeldungen werden entfernt");
+		_subscriptionsManager.removeAllSubscriptions(communication);
+	}
+
+	/**
+	 * Bildet den Sitzungsschlüssel einer Verbindung, über den eine Applikation bei einer Wiederverbindung wiedererkannt wird
+	 *
+	 * @param communication Verbindung
+	 * @return Schlüssel oder null, falls die Applikation nicht authentifiziert ist oder keine Sitzungskennung übergeben hat
+	 */
+	private static String getSessionKey(final T_A_HighLevelCommunication communication) {
+		if(communication.getUserLogin() == null || !communication.getUserLogin().isAuthenticated()) return null;
+		final String sessionToken = communication.getSessionToken();
+		if(sessionToken == null) return null;
+		return communication.getApplicationName() + " [" + sessionToken + "] (Typ: " + communication.getApplicationTypePid() + ", Benutzer: "
+				+ communication.getUserLogin().toLong() + ", Rechner: " + communication.getRemoteAdress() + ")";
+	}
+
+	/**
+	 * Gibt die Sitzungskennung zurück, die eine Applikation als Endung ihres Applikationsnamens übergeben hat
+	 *
+	 * @param applicationName Übertragener Applikationsname
+	 * @return Sitzungskennung oder null, falls keine übergeben wurde
+	 */
+	public static String getSessionToken(final String applicationName) {
+		if(applicationName == null) return null;
+		final Matcher matcher = SESSION_TOKEN.matcher(applicationName);
+		return matcher.find() ? matcher.group(1) : null;
+	}
+
+	/**
+	 * Entfernt eine Sitzungskennung aus dem übertragenen Applikationsnamen
+	 *
+	 * @param applicationName Übertragener Applikationsname
+	 * @return Applikationsname ohne Sitzungskennung
+	 */
+	public static String stripSessionToken(final String applicationName) {
+		if(applicationName == null) return null;
+		final Matcher matcher = SESSION_TOKEN.matcher(applicationName);
+		return matcher.find() ? applicationName.substring(0, matcher.start()) : applicationName;
+	}
+
+	/**
+	 * Gibt die Anzahl der wiederaufgenommenen und der verfallenen Verbindungen als Text zurück
+	 *
+	 * @return Text für Debug-Ausgaben
+	 */
+	public synchronized String getStatistics() {
+		return "Wiederaufnahme von Applikationsverbindungen: " + _parkedConnections.size() + " unterbrochen, " + _resumedConnections
+				+ " wiederaufgenommen, " + _expiredConnections + " verfallen";
+	}
+}
@@ -38,6 +38,17 @@ import de.bsvrz.dav.dav.subscriptions.Subscription;
 import de.bsvrz.sys.funclib.debug.Debug;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Dieser Thread verschickt den Status(angemeldete Applikationen, Telegrammlaufzeiten, durch Applikationen angemeldete Datenidentifikationen) aller angemeldeten
@@ -66,6 +77,12 @@ public final class ApplicationStatusUpdater extends Thread {
 
 	private static final Debug _debug = Debug.getLogger();
 
+	/** Maximale Wartezeit in Millisekunden auf die Antworten der Laufzeitanfragen */
+	private static final long TELEGRAM_TIME_DEADLINE = 30000;
+
+	/** Verzögerung in Millisekunden, mit der geänderte Anmeldungen von Applikationen gesammelt verschickt werden */
+	private static final long DATA_DESCRIPTION_UPDATE_DELAY = 5000;
+
 	/** Enthält alle Applikationen, die an/ab gemeldet werden sollen. Die Elemente werden nach Fifo bearbeitet. */
 	private final List<ApplicationConnection> _application = Collections.synchronizedList(new ArrayList<ApplicationConnection>());
 
@@ -86,20 +103,80 @@ public final class ApplicationStatusUpdater extends Thread {
 	/** Die DataDescription, die zum Versandt von Anmeldungen einer Applikation benutzt wird. */
 	private final DataDescription _applicationDataDescriptionDD;
 
-	/** Verschickt zyklisch alle angemeldeten Applikationen und deren Telegrammlaufzeiten. */
-	private final Timer _timer = new Timer("Status der Applikation zyklisch verschicken", true);
+	/**
+	 * Führt die Versandaufgaben aus: den zyklischen Versand der angemeldeten Applikationen, den gebündelten Versand nach An- und Abmeldungen sowie den
+	 * Versand nach Sendesteuerungen. Die Messung der Telegrammlaufzeiten wird an {@link #_runtimeExecutor} übergeben, damit das Warten auf die Antworten
+	 * den übrigen Versand nicht blockiert. Nach dem Beenden werden neue Aufträge verworfen.
+	 */
+	private final ScheduledExecutorService _executor = new ScheduledThreadPoolExecutor(
+			1, new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable r) {
+					final Thread thread = new Thread(r, "Applikationsstatus-Versand");
+					thread.setDaemon(true);
+					return thread;
+				}
+			}, new ThreadPoolExecutor.DiscardPolicy()
+	);
 
 	/**
-	 * Wird für eine Applikation eine neue Datenidentifikation angemeldet, so wird dies über einen TimerTask publiziert. Der TimerTask, der diese Aufgabe
-	 * übernimmt, wird hier gespeichert. Der TimerTask kann jederzeit unterbrochen werden und durch einen neuen TimerTask ersetzt werden. Auch wenn der TimerTask
-	 * bereits ausgeführt wurde befindet er sich weiterhin in dieser Map und kann durch einen neuen TimerTask ersetzt werden.
-	 * <p>
-	 * Als Schlüssel dient die HighLevelCommu, dies entspricht der Applikation, deren Anmeldungen verschickt werden sollen. Als Value wird ein TimerTask
-	 * zurückgegeben, der alle angemeldeten Datenidentifikationen der Applikation verschickt, sobald der Thread ausgeführt wird. Der Thread kann bereits ausgeführt
-	 * worden sein oder aber noch ausgeführt werden (oder befindet sich in Bearbeitung). Wurde noch kein TimerTask angelegt, so wird <code>null</code>
-	 * zurückgegeben.
+	 * Misst die Telegrammlaufzeiten der Applikationen und verschickt sie. Eine Messung wartet höchstens {@link #TELEGRAM_TIME_DEADLINE} Millisekunden auf
+	 * die Antworten. Nach dem Beenden werden neue Aufträge verworfen.
+	 */
+	private final ExecutorService _runtimeExecutor = new ThreadPoolExecutor(
+			1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable r) {
+					final Thread thread = new Thread(r, "Applikationsstatus-Laufzeitmessung");
+					thread.setDaemon(true);
+					return thread;
+				}
+			}, new ThreadPoolExecutor.DiscardPolicy()
+	);
+
+	/** <code>true</code>, wenn eine Messung der Telegrammlaufzeiten geplant ist, die noch nicht begonnen hat */
+	private final AtomicBoolean _runtimeUpdateScheduled = new AtomicBoolean(false);
+
+	/** <code>true</code>, nachdem {@link #terminate()} aufgerufen wurde */
+	private volatile boolean _terminated = false;
+
+	/**
+	 * Applikationen, deren angemeldete Datenidentifikationen sich geändert haben und noch nicht verschickt wurden. Ändern sich die Anmeldungen einer
+	 * Applikation, so wird sie hier eingetragen. Ein für alle Applikationen gemeinsamer Auftrag verschickt nach {@link #DATA_DESCRIPTION_UPDATE_DELAY}
+	 * Millisekunden die Datensätze aller eingetragenen Applikationen. Dadurch wird verhindert, dass sehr viele Anmeldungen eine Flut von
+	 * Update-Telegrammen auslösen.
+	 */
+	private final Set<ApplicationCommunicationInterface> _pendingDataDescriptionUpdates = new LinkedHashSet<ApplicationCommunicationInterface>();
+
+	/** <code>true</code>, wenn der Versand der geänderten Anmeldungen bereits geplant ist. Wird mit {@link #_pendingDataDescriptionUpdates} synchronisiert. */
+	private boolean _dataDescriptionUpdateScheduled = false;
+
+	/**
+	 * Fortgeschriebene Anmeldungen der Applikationen, für die eine Quelle für "atg.angemeldeteDatenidentifikationen" angemeldet ist. Die Einträge werden
+	 * beim Anmelden der Quelle einmalig mit den bestehenden Anmeldungen gefüllt und danach bei jeder An- und Abmeldung der Applikation aktualisiert.
+	 */
+	private final Map<ApplicationCommunicationInterface, ApplicationSubscriptions> _applicationSubscriptions = new HashMap<ApplicationCommunicationInterface, ApplicationSubscriptions>();
+
+	/** Zeit in Millisekunden, innerhalb der An- und Abmeldungen von Applikationen zu einem Datensatz zusammengefasst werden */
+	private final long _coalescingWindow;
+
+	/** <code>true</code>, wenn der Versand der angemeldeten Applikationen bereits geplant ist und weitere Änderungen mit diesem Versand verschickt werden */
+	private final AtomicBoolean _applicationUpdateScheduled = new AtomicBoolean(false);
+
+	/**
+	 * Applikationen, die im Datensatz "atg.angemeldeteApplikationen" enthalten sind, in der Reihenfolge ihrer Einträge im Datensatz. Die Liste wird bei
+	 * An- und Abmeldungen fortgeschrieben und dient gleichzeitig als Sperre für {@link #_publishedApplicationIndex} und {@link #_applicationUpdateData}.
+	 */
+	private final List<PublishedApplication> _publishedApplications = new ArrayList<PublishedApplication>();
+
+	/** Index der Applikationen in {@link #_publishedApplications} */
+	private final Map<T_A_HighLevelCommunication, Integer> _publishedApplicationIndex = new HashMap<T_A_HighLevelCommunication, Integer>();
+
+	/**
+	 * Wiederverwendeter Datensatz mit den angemeldeten Applikationen. Beim Versand werden nur geänderte Einträge und die Sendepufferzustände neu
+	 * eingetragen. Wird erst beim ersten Versand angelegt.
 	 */
-	private final Map<ApplicationCommunicationInterface, TimerTask> _threadsForDataIdentificationUpdates = new HashMap<ApplicationCommunicationInterface, TimerTask>();
+	private Data _applicationUpdateData = null;
 
 	/**
 	 * Key = Applikation, die bereits Daten angemeldet hat; Value = ClientSenderInterface(SourceApplicationUpdater). Damit kann später die Verbindung wieder
@@ -115,9 +192,18 @@ public final class ApplicationStatusUpdater extends Thread {
 
 	private final ClientDavInterface _connection;
 
-	public ApplicationStatusUpdater(final HighLevelConnectionsManagerInterface connectionsManager, final ClientDavInterface connection) {
+	/**
+	 * Erzeugt und startet den Thread.
+	 *
+	 * @param connectionsManager Verbindungsverwaltung
+	 * @param connection         Eigene Datenverteilerverbindung
+	 * @param coalescingWindow   Zeit in Millisekunden, innerhalb der An- und Abmeldungen von Applikationen zu einem Datensatz zusammengefasst werden
+	 */
+	public ApplicationStatusUpdater(
+			final HighLevelConnectionsManagerInterface connectionsManager, final ClientDavInterface connection, final long coalescingWindow) {
 		_connectionsManager = connectionsManager;
 		_connection = connection;
+		_coalescingWindow = coalescingWindow;
 		_dataModel = _connection.getDataModel();
 		try {
 			this.setDaemon(true);
@@ -196,53 +282,143 @@ public final class ApplicationStatusUpdater extends Thread {
 		}
 	}
 
-	/** Es wird ein Datensatz verschickt, der alle Applikationen enthält, die gerade am DaV angemeldet sind. */
+	/**
+	 * Es wird ein Datensatz verschickt, der alle Applikationen enthält, die gerade am DaV angemeldet sind. Der Datensatz wird nicht neu aufgebaut, sondern
+	 * es werden nur die seit dem letzten Versand geänderten Einträge und die Sendepufferzustände aktualisiert.
+	 */
 	private void sendApplicationUpdate() {
-		ArrayList<T_A_HighLevelCommunication> applicationConnectionsCopy = null;
 		if(_applicationUpdater.sendData()) {
 			// Es gibt einen Empfänger für die Daten
-			applicationConnectionsCopy = new ArrayList<T_A_HighLevelCommunication>(_connectionsManager.getAllApplicationConnections());
-		}
-		if(applicationConnectionsCopy != null) {
-			// Es gibt einen Empfänger für die Daten
-			final Data data = _connection.createData(_applicationUpdaterDataDescription.getAttributeGroup());
+			final Data data;
+			synchronized(_publishedApplications) {
+				if(_applicationUpdateData == null) {
+					_applicationUpdateData = _connection.createData(_applicationUpdaterDataDescription.getAttributeGroup());
+					for(final PublishedApplication application : _publishedApplications) {
+						application._modified = true;
+					}
+				}
 
-			// Alle Applikationen eintragen, die derzeit angemeldet sind.
-			final Data.Array subscribedApplications = data.getItem("angemeldeteApplikation").asArray();
-			// Diese größe paßt vielleicht nicht. Das Applikationsobjekt für die Konfiguration und das Applikationsobjekt für den DaV muss noch entfernt werden.
-			subscribedApplications.setLength(applicationConnectionsCopy.size());
+				// Alle Applikationen eintragen, die derzeit angemeldet sind.
+				final Data.Array subscribedApplications = _applicationUpdateData.getItem("angemeldeteApplikation").asArray();
+				subscribedApplications.setLength(_publishedApplications.size());
 
-			// Index, an dem ein neues Element in das Array eingefügt werden muss
-			int dataIndex = 0;
-
-			for(final T_A_HighLevelCommunication applicationConnection : applicationConnectionsCopy) {
-				if(isNotSpecialTreatedApplicationObject(applicationConnection)) {
+				for(int i = 0; i < _publishedApplications.size(); i++) {
+					final PublishedApplication application = _publishedApplications.get(i);
 					// atl.angemeldeteApplikation
-					final Data listEntry = subscribedApplications.getItem(dataIndex);
-
-					final SystemObject subscribedApplicationSystemObject = _dataModel.getObject(applicationConnection.getId());
-					listEntry.getItem("applikation").asReferenceValue().setSystemObject(subscribedApplicationSystemObject);
+					final Data listEntry = subscribedApplications.getItem(i);
+					if(application.resolveObjects(_dataModel)) {
+						application._modified = true;
+					}
+					if(application._modified) {
+						listEntry.getItem("applikation").asReferenceValue().setSystemObject(application._applicationObject);
+						listEntry.getItem("benutzer").asReferenceValue().setSystemObject(application._userObject);
+						listEntry.getItem("seit").asTimeValue().setMillis(application._connectedSince);
+						application._modified = false;
+					}
+					// Der Sendepufferzustand ändert sich laufend und wird deshalb bei jedem Versand eingetragen
+					listEntry.getItem("sendepufferzustand").asTextValue().setText(application._applicationConnection.getSendBufferState());
+				}
 
-					final SystemObject subscribedUserSystemObject = _dataModel.getObject(applicationConnection.getUserLogin().toLong());
-					listEntry.getItem("benutzer").asReferenceValue().setSystemObject(subscribedUserSystemObject);
+				// Der wiederverwendete Datensatz wird weiter verändert, deshalb wird eine Kopie verschickt
+				data = _applicationUpdateData.createUnmodifiableCopy();
+			}
+			sendDataAsSource(data, _applicationUpdaterDataDescription);
+		}
+	}
 
-					listEntry.getItem("seit").asTimeValue().setMillis(applicationConnection.getConnectionCreatedTime());
+	/**
+	 * Plant den Versand der angemeldeten Applikationen nach Ablauf der Bündelungszeit. Ist der Versand bereits geplant, so wird die Änderung mit diesem
+	 * Versand verschickt.
+	 */
+	private void scheduleApplicationUpdate() {
+		if(_applicationUpdateScheduled.compareAndSet(false, true)) {
+			_executor.schedule(
+					new Runnable() {
+						@Override
+						public void run() {
+							// Änderungen, die ab jetzt eintreffen, müssen einen neuen Versand planen
+							_applicationUpdateScheduled.set(false);
+							try {
+								sendApplicationUpdate();
+							}
+							catch(Exception e) {
+								_debug.warning("Fehler beim Versand der Statusinformation mit angemeldeten Applikationen", e);
+							}
+						}
+					}, _coalescingWindow, TimeUnit.MILLISECONDS
+			);
+		}
+	}
 
-					listEntry.getItem("sendepufferzustand").asTextValue().setText(applicationConnection.getSendBufferState());
+	/**
+	 * Plant eine Messung der Telegrammlaufzeiten. Ist bereits eine Messung geplant, die noch nicht begonnen hat, so wird keine weitere geplant.
+	 */
+	private void scheduleTelegramRuntimeUpdate() {
+		if(_runtimeUpdateScheduled.compareAndSet(false, true)) {
+			_runtimeExecutor.execute(
+					new Runnable() {
+						@Override
+						public void run() {
+							// Anforderungen, die ab jetzt eintreffen, müssen eine neue Messung planen
+							_runtimeUpdateScheduled.set(false);
+							try {
+								sendApplicationTelegramRuntimeUpdate();
+							}
+							catch(Exception e) {
+								_debug.warning("Fehler beim Versand der Statusinformation mit den Telegrammlaufzeiten der Applikationen", e);
+							}
+						}
+					}
+			);
+		}
+	}
 
-					dataIndex++;
-				}
-				else {
-					// Dieses Applikationsobjekt darf nicht mit verschickt werden. Also das ursprüngliche Array verkleinern.
-					subscribedApplications.setLength(subscribedApplications.getLength() - 1);
-				}
-			} // for, über alle angemeldeten Applikationen
+	/**
+	 * Trägt eine Applikation in die Liste der im Datensatz "atg.angemeldeteApplikationen" enthaltenen Applikationen ein. Die Applikation des
+	 * Datenverteilers und die Konfiguration werden nicht eingetragen.
+	 *
+	 * @param applicationConnection Verbindung der Applikation
+	 */
+	private void addPublishedApplication(final T_A_HighLevelCommunication applicationConnection) {
+		if(!isNotSpecialTreatedApplicationObject(applicationConnection)) return;
+		final PublishedApplication application = new PublishedApplication(
+				applicationConnection,
+				_dataModel.getObject(applicationConnection.getId()),
+				_dataModel.getObject(applicationConnection.getUserLogin().toLong()),
+				applicationConnection.getConnectionCreatedTime()
+		);
+		synchronized(_publishedApplications) {
+			if(_publishedApplicationIndex.containsKey(applicationConnection)) return;
+			_publishedApplicationIndex.put(applicationConnection, _publishedApplications.size());
+			_publishedApplications.add(application);
+		}
+	}
 
-			sendDataAsSource(data, _applicationUpdaterDataDescription);
+	/**
+	 * Entfernt eine Applikation aus der Liste der im Datensatz "atg.angemeldeteApplikationen" enthaltenen Applikationen. Der letzte Eintrag rückt an die
+	 * freie Stelle, damit nur ein Eintrag des Datensatzes neu geschrieben werden muss.
+	 *
+	 * @param applicationConnection Verbindung der Applikation
+	 */
+	private void removePublishedApplication(final T_A_HighLevelCommunication applicationConnection) {
+		synchronized(_publishedApplications) {
+			final Integer index = _publishedApplicationIndex.remove(applicationConnection);
+			if(index == null) return;
+			final PublishedApplication last = _publishedApplications.remove(_publishedApplications.size() - 1);
+			if(index < _publishedApplications.size()) {
+				_publishedApplications.set(index, last);
+				_publishedApplicationIndex.put(last._applicationConnection, index);
+				last._modified = true;
+			}
 		}
 	}
 
-	/** Verschickt ein Telegramm, das für alle angemeldeten Applikationen die Telegrammlaufzeit vom DaV zur Applikation enthält. */
+	/**
+	 * Verschickt ein Telegramm, das für alle angemeldeten Applikationen die Telegrammlaufzeit vom DaV zur Applikation enthält. Die
+	 * Laufzeitanfragen werden an alle Applikationen gleichzeitig verschickt. Für Applikationen, deren Antwort nicht innerhalb von
+	 * {@link #TELEGRAM_TIME_DEADLINE} Millisekunden eintrifft, wird diese Zeit eingetragen. Wird nur im Thread von {@link #_runtimeExecutor}
+	 * ausgeführt.
+	 */
 	private void sendApplicationTelegramRuntimeUpdate() {
 		if(_applicationRuntime.sendData()) {
 			// Es gibt einen Empfänger für die Daten
@@ -250,43 +426,55 @@ public final class ApplicationStatusUpdater extends Thread {
 			final ArrayList<T_A_HighLevelCommunication> applicationConnections;
 			applicationConnections = new ArrayList<T_A_HighLevelCommunication>(_connectionsManager.getAllApplicationConnections());
 
+			// Alle Anfragen versenden, bevor auf die erste Antwort gewartet wird
+			final Map<T_A_HighLevelCommunication, CompletableFuture<Long>> requests = new LinkedHashMap<T_A_HighLevelCommunication, CompletableFuture<Long>>();
+			for(final T_A_HighLevelCommunication applicationConnection : applicationConnections) {
+				if(isNotSpecialTreatedApplicationObject(applicationConnection)) {
+					requests.put(applicationConnection, applicationConnection.requestTelegramTime());
+				}
+			}
+			final long deadline = System.currentTimeMillis() + TELEGRAM_TIME_DEADLINE;
+
 			final Data data = _connection.createData(_applicationRuntimeDataDescription.getAttributeGroup());
 			final Data.Array subscribedApplications = data.getItem("telegrammLaufzeit").asArray();
-			subscribedApplications.setLength(applicationConnections.size());
+			subscribedApplications.setLength(requests.size());
 
 			// Index, an dem ein neues Element in das Array eingefügt werden muss
 			int dataIndex = 0;
+			int missingAnswers = 0;
 
-			for(final T_A_HighLevelCommunication applicationConnection : applicationConnections) {
-				if(isNotSpecialTreatedApplicationObject(applicationConnection)) {
-					// atl.telegrammLaufzeit
-					final Data listEntry = subscribedApplications.getItem(dataIndex);
+			for(final Map.Entry<T_A_HighLevelCommunication, CompletableFuture<Long>> entry : requests.entrySet()) {
+				final T_A_HighLevelCommunication applicationConnection = entry.getKey();
+				// atl.telegrammLaufzeit
+				final Data listEntry = subscribedApplications.getItem(dataIndex);
 
-					final SystemObject subscribedApplicationSystemObject = _dataModel.getObject(applicationConnection.getId());
-					listEntry.getItem("applikation").asReferenceValue().setSystemObject(subscribedApplicationSystemObject);
+				final SystemObject subscribedApplicationSystemObject = _dataModel.getObject(applicationConnection.getId());
+				listEntry.getItem("applikation").asReferenceValue().setSystemObject(subscribedApplicationSystemObject);
 
-					final int maxWaitingTime = 30000;
-					long roundTripTime;
-					try {
-						roundTripTime = applicationConnection.getTelegramTime(maxWaitingTime);
-						if(roundTripTime < 0) roundTripTime = maxWaitingTime;
-					}
-					catch(CommunicationError communicationError) {
-						roundTripTime = maxWaitingTime;
-						_debug.warning(
-								"Fehler bei der Ermittlung der Telegrammlaufzeit: betroffene Applikation: "
-								+ _dataModel.getObject(applicationConnection.getId())
-						);
-					}
-					listEntry.getItem("laufzeit").asUnscaledValue().set(roundTripTime);
-					dataIndex++;
+				long roundTripTime;
+				try {
+					roundTripTime = entry.getValue().get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+				}
+				catch(TimeoutException e) {
+					roundTripTime = TELEGRAM_TIME_DEADLINE;
+					missingAnswers++;
 				}
-				else {
-					// Dieses Applikationsobjekt darf nicht mit verschickt werden. Also das ursprüngliche Array verkleinern.
-					subscribedApplications.setLength(subscribedApplications.getLength() - 1);
+				catch(ExecutionException e) {
+					roundTripTime = TELEGRAM_TIME_DEADLINE;
+					_debug.warning("Fehler bei der Ermittlung der Telegrammlaufzeit: betroffene Applikation: " + subscribedApplicationSystemObject, e);
 				}
+				catch(InterruptedException e) {
+					_debug.warning("Ermittlung der Telegrammlaufzeiten wurde unterbrochen");
+					Thread.currentThread().interrupt();
+					return;
+				}
+				listEntry.getItem("laufzeit").asUnscaledValue().set(roundTripTime);
+				dataIndex++;
 			} // for, über alle angemeldeten Applikationen
 
+			if(missingAnswers > 0) {
+				_debug.fine(missingAnswers + " von " + requests.size() + " Applikationen haben die Laufzeitanfrage nicht rechtzeitig beantwortet");
+			}
 			sendDataAsSource(data, _applicationRuntimeDataDescription);
 		}
 	}
@@ -305,7 +493,8 @@ public final class ApplicationStatusUpdater extends Thread {
 	}
 
 	/**
-	 * Verschickt einen Datensatz mit der ATG "atg.angemeldeteDatenidentifikationen".
+	 * Verschickt einen Datensatz mit der ATG "atg.angemeldeteDatenidentifikationen". Die Anmeldungen werden nicht neu ermittelt, sondern aus den
+	 * fortgeschriebenen Anmeldungen der Applikation übernommen.
 	 *
 	 * @param application Applikation, deren angemeldete Datenidentifiaktionen propagiert werden sollen.
 	 */
@@ -315,60 +504,34 @@ public final class ApplicationStatusUpdater extends Thread {
 			// Dieses Objekt hat die Sendesteuerung
 			updater = _subcribedDataIdentifications.get(application);
 		}
-		if(updater != null) {
+		final ApplicationSubscriptions applicationSubscriptions;
+		synchronized(_applicationSubscriptions) {
+			applicationSubscriptions = _applicationSubscriptions.get(application);
+		}
+		if(updater != null && applicationSubscriptions != null) {
 			if(updater.sendData()) {
 				// Es gibt Empfänger für die Daten
 
-				// Dieses Objekt besitzt alle Anmeldungen (Sender/Empfänger) und die entsprechenden Rollen(Quelle,Senke,Sender,Empfänger)
-				final Collection<? extends Subscription> subscriptionsFromRemoteStorage = _connectionsManager.getSubscriptionsManager().getAllSubscriptions(
-						application
-				);
-
 				// T_T sollte nicht gebraucht werden, da nur angemeldete Applikationen auf dem neusten Stand gehalten werden sollen.
+				final List<SubscriptionEntry> subscriptions = applicationSubscriptions.getEntries();
 
 				final Data data = _connection.createData(_applicationDataDescriptionDD.getAttributeGroup());
 				final Data.Array subscribedApplications = data.getItem("angemeldeteDatenidentifikation").asArray();
 
-				// Alle angemldeten Datenidentifikation der Applikation anfordern
-
-				subscribedApplications.setLength(subscriptionsFromRemoteStorage.size());
+				subscribedApplications.setLength(subscriptions.size());
 
 				// Index, an dem ein neues Element in das Array eingefügt werden muss
 				int dataIndex = 0;
 
-				// Alle Anmeldungen der Applikation eintrage, die Daten empfangen.
-				for(Subscription subscription : subscriptionsFromRemoteStorage) {
+				// Alle Anmeldungen der Applikation eintragen
+				for(final SubscriptionEntry subscription : subscriptions) {
 					final Data listEntry = subscribedApplications.getItem(dataIndex);
 					dataIndex++;
 
-					String role = "?";
-					if(subscription instanceof LocalReceivingSubscription) {
-						LocalReceivingSubscription localReceivingSubscription = (LocalReceivingSubscription)subscription;
-
+					inscribeDataDescription(listEntry, subscription);
 
-						if(localReceivingSubscription.isDrain()) {
-							role = "Senke";
-						}
-						else {
-							role = "Empfänger";
-						}
-
-					}
-					else if(subscription instanceof LocalSendingSubscription) {
-						LocalSendingSubscription localSendingSubscription = (LocalSendingSubscription)subscription;
-
-						if(localSendingSubscription.isSource()) {
-							role = "Quelle";
-						}
-						else {
-							role = "Sender";
-						}
-
-					}
-					inscribeDataDescription(listEntry, subscription.getBaseSubscriptionInfo(), role);
-					
 					if(!listEntry.isDefined()) {
-						BaseSubscriptionInfo baseSubscriptionInfo = subscription.getBaseSubscriptionInfo();
+						BaseSubscriptionInfo baseSubscriptionInfo = subscription._baseSubscriptionInfo;
 						long objectID = baseSubscriptionInfo.getObjectID();
 						long usageIdentification = baseSubscriptionInfo.getUsageIdentification();
 						short simulationVariant = baseSubscriptionInfo.getSimulationVariant();
@@ -378,7 +541,7 @@ public final class ApplicationStatusUpdater extends Thread {
 										+ listEntry.getTextValue("objekt").getValueText() + " (" + objectID
 										+ "), Attributgruppenverwendung: "
 										+ listEntry.getTextValue("attributgruppenverwendung").getValueText()
-										+ " (" + usageIdentification + "), Rolle: " + role + ", Simulationsvariante: " + simulationVariant
+										+ " (" + usageIdentification + "), Rolle: " + subscription._role + ", Simulationsvariante: " + simulationVariant
 
 						);
 						dataIndex--;
@@ -390,10 +553,8 @@ public final class ApplicationStatusUpdater extends Thread {
 
 				// Es sind alle Anmeldungen am Data vermerkt, der Datensatz kann verschickt werden.
 
-				final SystemObject systemObjectApplication = _dataModel.getObject(application.getId());
-
 				final ResultData resultData = new ResultData(
-						systemObjectApplication, _applicationDataDescriptionDD, System.currentTimeMillis(), data
+						applicationSubscriptions._applicationObject, _applicationDataDescriptionDD, System.currentTimeMillis(), data
 				);
 
 				try {
@@ -410,31 +571,34 @@ public final class ApplicationStatusUpdater extends Thread {
 	}
 
 	/**
-	 * Schreibt in den übergebenen Datensatz(atl.angemeldeteDatenidentifikation) alle Daten benötigten Daten.
+	 * Schreibt in den übergebenen Datensatz(atl.angemeldeteDatenidentifikation) alle Daten benötigten Daten. Objekt und Attributgruppenverwendung werden
+	 * beim ersten Aufruf ermittelt und an der Anmeldung gespeichert.
 	 *
-	 * @param data                 Datensatz (atl.angemeldeteDatenidentifikation)
-	 * @param baseSubscriptionInfo Enthält das SystemObject(Id), die verwendete ATGV (Id) und die Simulationsvariante
-	 * @param role                 Verwendete Rolle, siehe auch att.rolleAnmeldung. Zulässige Werte: Quelle, Sender, Senke, Empfänger
+	 * @param data         Datensatz (atl.angemeldeteDatenidentifikation)
+	 * @param subscription Anmeldung
 	 */
-	private void inscribeDataDescription(
-			final Data data, final BaseSubscriptionInfo baseSubscriptionInfo, final String role) {
-		final SystemObject subscribedObject = _dataModel.getObject(baseSubscriptionInfo.getObjectID());
-		data.getItem("objekt").asReferenceValue().setSystemObject(subscribedObject);
+	private void inscribeDataDescription(final Data data, final SubscriptionEntry subscription) {
+		if(!subscription._resolved) {
+			final BaseSubscriptionInfo baseSubscriptionInfo = subscription._baseSubscriptionInfo;
+			subscription._object = _dataModel.getObject(baseSubscriptionInfo.getObjectID());
+			subscription._usage = _dataModel.getAttributeGroupUsage(baseSubscriptionInfo.getUsageIdentification());
+			subscription._resolved = true;
+		}
+		data.getItem("objekt").asReferenceValue().setSystemObject(subscription._object);
 
-		final AttributeGroupUsage usage = _dataModel.getAttributeGroupUsage(baseSubscriptionInfo.getUsageIdentification());
-		data.getItem("attributgruppenverwendung").asReferenceValue().setSystemObject(usage);
+		data.getItem("attributgruppenverwendung").asReferenceValue().setSystemObject(subscription._usage);
 
-		data.getItem("simulationsvariante").asUnscaledValue().set(baseSubscriptionInfo.getSimulationVariant());
+		data.getItem("simulationsvariante").asUnscaledValue().set(subscription._baseSubscriptionInfo.getSimulationVariant());
 
-		data.getItem("rolle").asTextValue().setText(role);
+		data.getItem("rolle").asTextValue().setText(subscription._role);
 	}
 
 	/**
-	 * Erstellt einen TimerTask, der alls 60 Sekunden alle angemeldeten Applikationen und deren Telegrammlaufzeiten verschickt (wenn ein Empfänger angemeldet
-	 * ist).
+	 * Plant einen Auftrag, der alle 60 Sekunden alle angemeldeten Applikationen verschickt und eine Messung der Telegrammlaufzeiten plant (wenn ein
+	 * Empfänger angemeldet ist).
 	 */
 	private void createPeriodicUpdateTask() {
-		final TimerTask task = new TimerTask() {
+		final Runnable task = new Runnable() {
 			@Override
 			public void run() {
 				try {
@@ -444,16 +608,11 @@ public final class ApplicationStatusUpdater extends Thread {
 					_debug.warning("Fehler beim Versand der Statusinformation mit angemeldeten Applikationen", e);
 					return;
 				}
-				try {
-					sendApplicationTelegramRuntimeUpdate();
-				}
-				catch(Exception e) {
-					_debug.warning("Fehler beim Versand der Statusinformation mit den Telegrammlaufzeiten der Applikationen", e);
-				}
+				scheduleTelegramRuntimeUpdate();
 			}
 		};
 		// In 60 Sekunden starten, alle 60 Sekunden wiederholen
-		_timer.schedule(task, 60000, 60000);
+		_executor.scheduleWithFixedDelay(task, 60000, 60000, TimeUnit.MILLISECONDS);
 	}
 
 	/**
@@ -483,6 +642,7 @@ public final class ApplicationStatusUpdater extends Thread {
 					try {
 						_connection.subscribeSender(sourceApplicationUpdater, applicationObject, dataDescription, SenderRole.source());
 						_subcribedDataIdentifications.put(newApplication, sourceApplicationUpdater);
+						initApplicationSubscriptions(newApplication, applicationObject);
 					}
 					catch(OneSubscriptionPerSendData oneSubscriptionPerSendData) {
 						_debug.error(
@@ -495,11 +655,35 @@ public final class ApplicationStatusUpdater extends Thread {
 		}
 	}
 
+	/**
+	 * Legt die fortgeschriebenen Anmeldungen einer Applikation an und übernimmt die bereits bestehenden Anmeldungen. Während der Übernahme eintreffende
+	 * An- und Abmeldungen werden erst danach eingetragen, damit keine Änderung verloren geht.
+	 *
+	 * @param application       Applikation
+	 * @param applicationObject Applikationsobjekt
+	 */
+	private void initApplicationSubscriptions(final ApplicationCommunicationInterface application, final SystemObject applicationObject) {
+		final ApplicationSubscriptions applicationSubscriptions = new ApplicationSubscriptions(applicationObject);
+		synchronized(applicationSubscriptions) {
+			synchronized(_applicationSubscriptions) {
+				_applicationSubscriptions.put(application, applicationSubscriptions);
+			}
+			for(final Subscription subscription : _connectionsManager.getSubscriptionsManager().getAllSubscriptions(application)) {
+				if(subscription instanceof LocalSendingSubscription) {
+					applicationSubscriptions.add(subscription.getBaseSubscriptionInfo(), true, ((LocalSendingSubscription)subscription).isSource());
+				}
+				else if(subscription instanceof LocalReceivingSubscription) {
+					applicationSubscriptions.add(subscription.getBaseSubscriptionInfo(), false, ((LocalReceivingSubscription)subscription).isDrain());
+				}
+			}
+		}
+	}
+
 	/**
 	 * Meldet die Datensätze der ATG "atg.angemeldeteDatenidentifikationen" wieder ab und entfernt die Objekte aus allen Datenstrukturen. Wurden die Daten bereits
 	 * abgemeldet wird nichts gemacht.
 	 * <p>
-	 * Eventuell angemeldete TimerTasks werden unterbrochen und entfernt.
+	 * Ein eventuell noch ausstehender Versand der angemeldeten Datenidentifikationen wird verworfen.
 	 *
 	 * @param removedApplication Objekt, deren Quellenanmeldung zurückgenommen werden soll.
 	 */
@@ -520,13 +704,14 @@ public final class ApplicationStatusUpdater extends Thread {
 			_connection.unsubscribeSender(updater, applicationObject, dataDescription);
 		}
 
-		// Falls es noch einen TimerTask gibt, der die angemeldeten Datenidentifikationen verschicken will, wird dieser beendet.
+		synchronized(_applicationSubscriptions) {
+			_applicationSubscriptions.remove(removedApplication);
+		}
+
+		// Falls die angemeldeten Datenidentifikationen noch verschickt werden sollten, wird dies verhindert.
 		// Dies ist nötig, weil die Applikation sich vom DaV abgemeldet hat.
-		synchronized(_threadsForDataIdentificationUpdates) {
-			final TimerTask taskForDataIdentificationUpdate = _threadsForDataIdentificationUpdates.remove(removedApplication);
-			if(taskForDataIdentificationUpdate != null) {
-				taskForDataIdentificationUpdate.cancel();
-			}
+		synchronized(_pendingDataDescriptionUpdates) {
+			_pendingDataDescriptionUpdates.remove(removedApplication);
 		}
 	}
 
@@ -536,6 +721,11 @@ public final class ApplicationStatusUpdater extends Thread {
 		// Alle angemeldeten Applikationen und die Telegrammlaufzeit werden zyklisch alle 60 Sekunden verschickt.
 		createPeriodicUpdateTask();
 
+		// Applikationen übernehmen, die bereits vor dem Start verbunden waren
+		for(final T_A_HighLevelCommunication applicationConnection : new ArrayList<T_A_HighLevelCommunication>(_connectionsManager.getAllApplicationConnections())) {
+			addPublishedApplication(applicationConnection);
+		}
+
 		while(!isInterrupted()) {
 			final ApplicationConnection newApplicationDetected;
 			synchronized(_applicationConnections) {
@@ -546,6 +736,7 @@ public final class ApplicationStatusUpdater extends Thread {
 						_applicationConnections.wait();
 					}
 					catch(InterruptedException e) {
+						if(_terminated) return;
 						_debug.error("Der Thread wurde mit Interrupt beendet", e);
 						// Da der Thread beendet wurde, wird die while-Schleife verlassen ohne Daten zu verschicken (vielleicht gibt es zu diesem
 						// Zeitpunkt auch nichts, was verschickt werden soll).
@@ -561,17 +752,31 @@ public final class ApplicationStatusUpdater extends Thread {
 			if(newApplicationDetected.isAdded()) {
 				// 1) Es wurde eine Applikation hinzugefügt -> Quelle für die angemeldetenDatenidentifikationen der Applikation anmelden.
 				subscribeDataDescriptionSource(newApplicationConnection);
+				addPublishedApplication(newApplicationConnection);
 			}
 			else {
-				// 1) Quelle für angemeldetenDatenidentifikationen dieser Applikation abmelden und den TimerTask beenden(falls vorhanden)
+				// 1) Quelle für angemeldetenDatenidentifikationen dieser Applikation abmelden und den geplanten Auftrag beenden(falls vorhanden)
 				unsubscribeDataDescriptionSource(newApplicationConnection);
+				removePublishedApplication(newApplicationConnection);
 			}
 
-			// Alle benachrichtigen, dass eine Applikation hinzugefügt oder entfernt wurde
-			sendApplicationUpdate();
+			// Alle benachrichtigen, dass eine Applikation hinzugefügt oder entfernt wurde. Weitere Änderungen innerhalb der Bündelungszeit werden mit
+			// dem gleichen Datensatz verschickt.
+			scheduleApplicationUpdate();
 		}
 	}
 
+	/**
+	 * Beendet den Versand beim Beenden des Datenverteilers. Der Thread und die Threads der Versandaufgaben werden beendet, eine laufende Messung der
+	 * Telegrammlaufzeiten wird abgebrochen.
+	 */
+	public void terminate() {
+		_terminated = true;
+		interrupt();
+		_executor.shutdownNow();
+		_runtimeExecutor.shutdownNow();
+	}
+
 	/**
 	 * Fügt eine neue Applikation den Datenstrukturen hinzu und der Thread, der Aktualisierungsdatensätze verschickt, wird aufgeweckt.
 	 *
@@ -599,63 +804,92 @@ public final class ApplicationStatusUpdater extends Thread {
 	}
 
 	/**
-	 * Diese Methode wird aufgerufen, wenn eine Applikation eine neue Datenidentifikation anmeldet.
+	 * Diese Methode wird aufgerufen, wenn eine Applikation eine Datenidentifikation anmeldet.
 	 * <p>
-	 * Für diese Applikation wird ein Datensatz verschickt, der alle angemeldeten Datenidentifikationen enthält.
+	 * Die Anmeldung wird in die Anmeldungen der Applikation eingetragen und der Versand eines Datensatzes mit allen angemeldeten Datenidentifikationen
+	 * geplant.
 	 *
-	 * @param application Applikation, die neue Daten anmeldet.
+	 * @param application          Applikation, die neue Daten anmeldet.
+	 * @param baseSubscriptionInfo Angemeldete Datenidentifikation
+	 * @param sending              <code>true</code> für eine Sendeanmeldung, <code>false</code> für eine Empfangsanmeldung
+	 * @param sourceOrDrain        <code>true</code> für eine Quelle bzw. Senke
 	 */
-	public void applicationSubscribedNewConnection(final ApplicationCommunicationInterface application) {
+	public void localSubscriptionAdded(
+			final ApplicationCommunicationInterface application,
+			final BaseSubscriptionInfo baseSubscriptionInfo,
+			final boolean sending,
+			final boolean sourceOrDrain) {
+		final ApplicationSubscriptions applicationSubscriptions;
+		synchronized(_applicationSubscriptions) {
+			applicationSubscriptions = _applicationSubscriptions.get(application);
+		}
+		// Für Applikationen ohne Quelle (Konfiguration, Datenverteiler) werden keine Anmeldungen verwaltet
+		if(applicationSubscriptions == null) return;
+		synchronized(applicationSubscriptions) {
+			applicationSubscriptions.add(baseSubscriptionInfo, sending, sourceOrDrain);
+		}
 		publishConnectionChanged(application);
 	}
 
 	/**
-	 * Diese Methode wird aufgerufen, wenn eine Applikation eine  Datenidentifikation abmeldet.
+	 * Diese Methode wird aufgerufen, wenn eine Applikation eine Datenidentifikation abmeldet.
 	 * <p>
-	 * Für diese Applikation wird ein Datensatz verschickt, der alle angemeldeten Datenidentifikationen enthält.
+	 * Die Anmeldung wird aus den Anmeldungen der Applikation entfernt und der Versand eines Datensatzes mit allen angemeldeten Datenidentifikationen
+	 * geplant.
 	 *
-	 * @param application Applikation, die eine Datenidentifikation abmeldet.
+	 * @param application          Applikation, die eine Datenidentifikation abmeldet.
+	 * @param baseSubscriptionInfo Abgemeldete Datenidentifikation
+	 * @param sending              <code>true</code> für eine Sendeanmeldung, <code>false</code> für eine Empfangsanmeldung
 	 */
-	public void applicationUnsubscribeConnection(final ApplicationCommunicationInterface application) {
+	public void localSubscriptionRemoved(
+			final ApplicationCommunicationInterface application, final BaseSubscriptionInfo baseSubscriptionInfo, final boolean sending) {
+		final ApplicationSubscriptions applicationSubscriptions;
+		synchronized(_applicationSubscriptions) {
+			applicationSubscriptions = _applicationSubscriptions.get(application);
+		}
+		if(applicationSubscriptions == null) return;
+		synchronized(applicationSubscriptions) {
+			applicationSubscriptions.remove(baseSubscriptionInfo, sending);
+		}
 		publishConnectionChanged(application);
 	}
 
 	/**
-	 * Wird aufgerufen, wenn eine Applikation einen Datenidentifikation an/abmeldet. Es wird ein TimerTask angelegt, der nach einer gewissen Zeit alle angemeldeten
-	 * Datenidentifikationen der übergebene Applikation publiziert. Gibt es bereits einen TimerTask, der diese Aufgabe übernehmen möchte, so wird dieser gestoppt
-	 * und durch einen neuen TimerTask ersetzt, der wieder eine gewisse Zeit wartet.
+	 * Wird aufgerufen, wenn eine Applikation einen Datenidentifikation an/abmeldet. Die Applikation wird für den gemeinsamen Versand der geänderten
+	 * Anmeldungen vorgemerkt. Ist dieser Versand noch nicht geplant, so wird er in {@link #DATA_DESCRIPTION_UPDATE_DELAY} Millisekunden ausgeführt.
 	 * <p>
-	 * Dadruch wird verhindert, dass sehr viele Anmeldungen eine Flut von Update-Telegrammen auslöst. Jede neue Anmeldung verzögert das Update-Telegramm, erst wenn
-	 * alle Anmeldungen durchgeführt wurden, wird das Telegramm verschickt.
+	 * Dadruch wird verhindert, dass sehr viele Anmeldungen eine Flut von Update-Telegrammen auslöst. Alle Anmeldungen bis zum Versand werden mit einem
+	 * Telegramm je Applikation verschickt.
 	 *
 	 * @param application Applikation, die neue Daten an oder abmeldet.
 	 */
 	private void publishConnectionChanged(final ApplicationCommunicationInterface application) {
-		synchronized(_threadsForDataIdentificationUpdates) {
-			final TimerTask taskForThisApplication = _threadsForDataIdentificationUpdates.get(application);
-
-			if(taskForThisApplication != null) {
-				if(taskForThisApplication.scheduledExecutionTime() > System.currentTimeMillis())
-				// Es gibt bereits einen Task für die Zukunft, also hier abbrechen
-				return;
-			}
-
-			// Es muss ein neuer Task angelegt werden
-			final TimerTask task = new TimerTask() {
-				@Override
-				public void run() {
-					try {
-						sendDataDescriptionUpdate(application);
-					}
-					catch(Exception e) {
-						_debug.warning("Probleme beim Versenden von Zustandsinformation über angemeldete Datenidentifikationen", e);
-					}
-				}
-			};
-			_threadsForDataIdentificationUpdates.put(application, task);
-			// In 5 Sekunden den Task starten, findet eine weitere Änderung statt, wird dieser Task mit cancel gestoppt und ein neuer angelegt
-			_timer.schedule(task, 5000);
+		synchronized(_pendingDataDescriptionUpdates) {
+			_pendingDataDescriptionUpdates.add(application);
+			if(_dataDescriptionUpdateScheduled) return;
+			_dataDescriptionUpdateScheduled = true;
 		}
+		_executor.schedule(
+				new Runnable() {
+					@Override
+					public void run() {
+						final List<ApplicationCommunicationInterface> applications;
+						synchronized(_pendingDataDescriptionUpdates) {
+							applications = new ArrayList<ApplicationCommunicationInterface>(_pendingDataDescriptionUpdates);
+							_pendingDataDescriptionUpdates.clear();
+							_dataDescriptionUpdateScheduled = false;
+						}
+						for(final ApplicationCommunicationInterface application : applications) {
+							try {
+								sendDataDescriptionUpdate(application);
+							}
+							catch(Exception e) {
+								_debug.warning("Probleme beim Versenden von Zustandsinformation über angemeldete Datenidentifikationen", e);
+							}
+						}
+					}
+				}, DATA_DESCRIPTION_UPDATE_DELAY, TimeUnit.MILLISECONDS
+		);
 	}
 
 	private static final class ApplicationConnection {
@@ -691,6 +925,118 @@ public final class ApplicationStatusUpdater extends Thread {
 		}
 	}
 
+	/**
+	 * Fortgeschriebene Anmeldungen einer Applikation. Je Datenidentifikation kann eine Applikation höchstens eine Sende- und eine Empfangsanmeldung
+	 * besitzen, neue Anmeldungen ersetzen daher bestehende Anmeldungen der gleichen Art. Zugriffe müssen auf dem Objekt synchronisiert werden.
+	 */
+	private static final class ApplicationSubscriptions {
+
+		final SystemObject _applicationObject;
+
+		private final Map<BaseSubscriptionInfo, SubscriptionEntry> _sendingSubscriptions = new LinkedHashMap<BaseSubscriptionInfo, SubscriptionEntry>();
+
+		private final Map<BaseSubscriptionInfo, SubscriptionEntry> _receivingSubscriptions = new LinkedHashMap<BaseSubscriptionInfo, SubscriptionEntry>();
+
+		ApplicationSubscriptions(final SystemObject applicationObject) {
+			_applicationObject = applicationObject;
+		}
+
+		void add(final BaseSubscriptionInfo baseSubscriptionInfo, final boolean sending, final boolean sourceOrDrain) {
+			final String role;
+			if(sending) {
+				role = sourceOrDrain ? "Quelle" : "Sender";
+			}
+			else {
+				role = sourceOrDrain ? "Senke" : "Empfänger";
+			}
+			final Map<BaseSubscriptionInfo, SubscriptionEntry> subscriptions = sending ? _sendingSubscriptions : _receivingSubscriptions;
+			final SubscriptionEntry previous = subscriptions.get(baseSubscriptionInfo);
+			if(previous == null || !previous._role.equals(role)) {
+				subscriptions.put(baseSubscriptionInfo, new SubscriptionEntry(baseSubscriptionInfo, role));
+			}
+		}
+
+		void remove(final BaseSubscriptionInfo baseSubscriptionInfo, final boolean sending) {
+			(sending ? _sendingSubscriptions : _receivingSubscriptions).remove(baseSubscriptionInfo);
+		}
+
+		synchronized List<SubscriptionEntry> getEntries() {
+			final List<SubscriptionEntry> result = new ArrayList<SubscriptionEntry>(_sendingSubscriptions.size() + _receivingSubscriptions.size());
+			result.addAll(_receivingSubscriptions.values());
+			result.addAll(_sendingSubscriptions.values());
+			return result;
+		}
+	}
+
+	/**
+	 * Anmeldung einer Applikation im Datensatz "atg.angemeldeteDatenidentifikationen". Objekt und Attributgruppenverwendung werden beim ersten Versand
+	 * ermittelt und danach wiederverwendet.
+	 */
+	private static final class SubscriptionEntry {
+
+		final BaseSubscriptionInfo _baseSubscriptionInfo;
+
+		final String _role;
+
+		volatile boolean _resolved = false;
+
+		SystemObject _object;
+
+		AttributeGroupUsage _usage;
+
+		SubscriptionEntry(final BaseSubscriptionInfo baseSubscriptionInfo, final String role) {
+			_baseSubscriptionInfo = baseSubscriptionInfo;
+			_role = role;
+		}
+	}
+
+	/** Eintrag einer Applikation im Datensatz "atg.angemeldeteApplikationen" */
+	private static final class PublishedApplication {
+
+		final T_A_HighLevelCommunication _applicationConnection;
+
+		/** Applikationsobjekt oder <code>null</code>, falls es beim Eintragen noch nicht bekannt war */
+		SystemObject _applicationObject;
+
+		/** Benutzerobjekt oder <code>null</code>, falls es beim Eintragen noch nicht bekannt war */
+		SystemObject _userObject;
+
+		final long _connectedSince;
+
+		/** <code>true</code>, wenn der Eintrag im wiederverwendeten Datensatz neu geschrieben werden muss */
+		boolean _modified = true;
+
+		PublishedApplication(
+				final T_A_HighLevelCommunication applicationConnection,
+				final SystemObject applicationObject,
+				final SystemObject userObject,
+				final long connectedSince) {
+			_applicationConnection = applicationConnection;
+			_applicationObject = applicationObject;
+			_userObject = userObject;
+			_connectedSince = connectedSince;
+		}
+
+		/**
+		 * Ermittelt fehlende Applikations- und Benutzerobjekte erneut, z.B. wenn das Applikationsobjekt beim Eintragen noch nicht angelegt war
+		 *
+		 * @param dataModel Datenmodell
+		 * @return <code>true</code>, wenn ein Objekt neu ermittelt wurde
+		 */
+		boolean resolveObjects(final DataModel dataModel) {
+			boolean resolved = false;
+			if(_applicationObject == null) {
+				_applicationObject = dataModel.getObject(_applicationConnection.getId());
+				resolved = _applicationObject != null;
+			}
+			if(_userObject == null) {
+				_userObject = dataModel.getObject(_applicationConnection.getUserLogin().toLong());
+				resolved |= _userObject != null;
+			}
+			return resolved;
+		}
+	}
+
 	private final class SourceApplicationUpdater implements ClientSenderInterface {
 
 		private byte _state = ClientSenderInterface.STOP_SENDING;
@@ -709,53 +1055,41 @@ public final class ApplicationStatusUpdater extends Thread {
 				if(_state != ClientSenderInterface.START_SENDING && state == ClientSenderInterface.START_SENDING) {
 					// Der Zustand wird von "nicht senden" auf "senden" geändert -> Daten verschicken
 					if(dataDescription.getAttributeGroup().getPid().equals(_pidAngemeldeteApplikationen)) {
-						final Thread helper = new Thread("StatusinfoversandApplikationen") {
-							@Override
-							public void run() {
-								try {
-									_sender.sendApplicationUpdate();
-								}
-								catch(Exception e) {
-									_debug.warning("Fehler beim Versand der Statusinformation bzgl. der angemeldeten Applikationen", e);
+						_executor.execute(
+								new Runnable() {
+									@Override
+									public void run() {
+										try {
+											_sender.sendApplicationUpdate();
+										}
+										catch(Exception e) {
+											_debug.warning("Fehler beim Versand der Statusinformation bzgl. der angemeldeten Applikationen", e);
+										}
+									}
 								}
-							}
-						};
-						helper.setDaemon(true);
-						helper.start();
+						);
 					}
 					else if(dataDescription.getAttributeGroup().getPid().equals(_pidTelegrammLaufzeiten)) {
-						final Thread helper = new Thread("StatusinfoversandTelegrammlaufzeiten") {
-							@Override
-							public void run() {
-								try {
-									_sender.sendApplicationTelegramRuntimeUpdate();
-								}
-								catch(Exception e) {
-									_debug.warning("Fehler beim Versand der Statusinformation bzgl. der Telegrammlaufzeiten", e);
-								}
-							}
-						};
-						helper.setDaemon(true);
-						helper.start();
+						_sender.scheduleTelegramRuntimeUpdate();
 					}
 					else if(dataDescription.getAttributeGroup().getPid().equals(_pidAngemeldeteDatenidentifikationen)) {
 						// Die beteiligte T_A_HighLevel finden
 						final T_A_HighLevelCommunicationInterface application = _connectionsManager.getApplicationConnectionFromId(object.getId());
 						// Abfrage, falls die Application entfernt wurde
 						if(application != null && application instanceof T_A_HighLevelCommunication) {
-							final Thread helper = new Thread("StatusinfoversandAnmeldungen") {
-								@Override
-								public void run() {
-									try {
-										_sender.sendDataDescriptionUpdate(application);
-									}
-									catch(Exception e) {
-										_debug.warning("Fehler beim Versand der Statusinformation bzgl. der Anmeldungen einer Applikation", e);
+							_executor.execute(
+									new Runnable() {
+										@Override
+										public void run() {
+											try {
+												_sender.sendDataDescriptionUpdate(application);
+											}
+											catch(Exception e) {
+												_debug.warning("Fehler beim Versand der Statusinformation bzgl. der Anmeldungen einer Applikation", e);
+											}
+										}
 									}
-								}
-							};
-							helper.setDaemon(true);
-							helper.start();
+							);
 						}
 					}
 				}
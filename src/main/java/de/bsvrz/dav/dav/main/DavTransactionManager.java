@@ -75,6 +75,12 @@ public class DavTransactionManager {
 
 	private final Map<Subscription, InnerTransactionDataReceiver> _myOwnDataDrains = new HashMap<Subscription, InnerTransactionDataReceiver>();
 
+	/**
+	 * Objekte, die die Datenindizes direkt im serialisierten Transaktionsdatensatz eintragen, je Transaktionsattributgruppe. Enthält null für
+	 * Attributgruppen, deren Aufbau dafür nicht unterstützt wird.
+	 */
+	private final Map<AttributeGroup, TransactionDataIndexPatcher> _dataIndexPatchers = new HashMap<AttributeGroup, TransactionDataIndexPatcher>();
+
 	/**
 	 * Erstellt einen neuen DavTransactionManager
 	 * @param connection Verbindung zum Datenverteiler
@@ -102,6 +108,18 @@ public class DavTransactionManager {
 		}
 	}
 
+	/**
+	 * Prüft, ob es sich bei Datensätzen der angegebenen Attributgruppenverwendung um Transaktionen handelt. Diese müssen im
+	 * Zentraldatenverteiler vollständig vorliegen, bevor sie mit {@link #handleTelegrams(List, boolean)} verarbeitet werden können.
+	 *
+	 * @param usageIdentification Id der Attributgruppenverwendung
+	 *
+	 * @return true falls es sich um eine Transaktions-Attributgruppenverwendung handelt
+	 */
+	public boolean isTransaction(final long usageIdentification) {
+		return !_disabled && _transactionAttributeGroupUsages.containsKey(usageIdentification);
+	}
+
 	/**
 	 * Wird vom Subscriptionsmanager aufgerufen, wenn ein Telegram im Zentraldatenverteiler verarbeitet wird. Hier wird geprüft, ob es sich um ein
 	 * Transaktionstelegramm handelt und es werden entsprechende Aktionen durchgeführt (Datenindex eintragen, innere Telegramme an herkömmliche Empfänger
@@ -123,6 +141,11 @@ public class DavTransactionManager {
 		final AttributeGroup attributeGroup = attributeGroupUsage.getAttributeGroup();
 		final SendDataObject sendDataObject = TelegramUtility.getSendDataObject(telegrams.toArray(new ApplicationDataTelegram[telegrams.size()]));
 		if(sendDataObject.getErrorFlag() == 0) {
+			final TransactionDataIndexPatcher patcher = getDataIndexPatcher(attributeGroup);
+			if(patcher != null && patcher.getVerified() != Boolean.FALSE) {
+				final List<ApplicationDataTelegram> result = handleTelegramsWithoutData(patcher, attributeGroup, sendDataObject, isSource);
+				if(result != null) return result;
+			}
 			final Data data = DataFactory.forVersion(1).createUnmodifiableData(attributeGroup, sendDataObject.getData()).createModifiableCopy();
 			for(final Data dataset : data.getItem("Transaktion").getItem("Datensatz")) {
 				handleDataset(dataset, baseSubscriptionInfo.getSimulationVariant(), isSource);
@@ -133,6 +156,176 @@ public class DavTransactionManager {
 		return telegrams;
 	}
 
+	/**
+	 * Gibt das Objekt zurück, das die Datenindizes direkt im serialisierten Datensatz einträgt
+	 * @param attributeGroup Transaktionsattributgruppe
+	 * @return Objekt oder null, falls der Aufbau der Attributgruppe nicht unterstützt wird
+	 */
+	private synchronized TransactionDataIndexPatcher getDataIndexPatcher(final AttributeGroup attributeGroup) {
+		if(_dataIndexPatchers.containsKey(attributeGroup)) return _dataIndexPatchers.get(attributeGroup);
+		TransactionDataIndexPatcher patcher = null;
+		try {
+			patcher = new TransactionDataIndexPatcher(attributeGroup);
+		}
+		catch(RuntimeException e) {
+			_debug.fine("Datenindizes von Transaktionen der Attributgruppe " + attributeGroup.getPid() + " werden über Data-Objekte eingetragen: " + e.getMessage());
+		}
+		_dataIndexPatchers.put(attributeGroup, patcher);
+		return patcher;
+	}
+
+	/**
+	 * Verarbeitet einen Transaktionsdatensatz als Zentraldatenverteiler, ohne Data-Objekte zu erzeugen. Die Datenindizes werden direkt in eine Kopie
+	 * des serialisierten Datensatzes geschrieben, die Daten der inneren Datensätze werden als Ausschnitt daraus verschickt.
+	 * @param patcher Aufbau des Transaktionsdatensatzes
+	 * @param attributeGroup Transaktionsattributgruppe
+	 * @param sendDataObject Transaktionsdatensatz
+	 * @param isSource Handelt es sich um eine Quelle? (Sonst Senke)
+	 * @return Telegramme mit eingetragenen Datenindizes oder null, falls der Datensatz über Data-Objekte verarbeitet werden muss
+	 */
+	private List<ApplicationDataTelegram> handleTelegramsWithoutData(
+			final TransactionDataIndexPatcher patcher, final AttributeGroup attributeGroup, final SendDataObject sendDataObject, final boolean isSource) {
+		final byte[] originalBytes = sendDataObject.getData();
+		final List<TransactionDataIndexPatcher.InnerDataset> datasets;
+		try {
+			datasets = patcher.read(originalBytes);
+		}
+		catch(IllegalArgumentException e) {
+			// Nach erfolgreicher Prüfung ist der Datensatz selbst fehlerhaft, dann nur diesen über Data-Objekte verarbeiten
+			if(patcher.getVerified() == null) disableDataIndexPatcher(patcher, attributeGroup, e.getMessage());
+			return null;
+		}
+		if(patcher.getVerified() == null) {
+			// Ohne innere Datensätze lässt sich der Aufbau nicht vollständig prüfen
+			if(datasets.isEmpty() || !verifyDataIndexPatcher(patcher, attributeGroup, originalBytes, datasets)) return null;
+		}
+
+		final BaseSubscriptionInfo baseSubscriptionInfo = sendDataObject.getBaseSubscriptionInfo();
+		final short simulationVariant = baseSubscriptionInfo.getSimulationVariant();
+		final DataModel dataModel = _connection.getDataModel();
+		// Innere Datensätze je Datenidentifikation zusammenfassen, damit die Datenindizes je Anmeldung in einem Schritt vergeben werden
+		final Map<BaseSubscriptionInfo, List<TransactionDataIndexPatcher.InnerDataset>> datasetsByIdentification
+				= new LinkedHashMap<BaseSubscriptionInfo, List<TransactionDataIndexPatcher.InnerDataset>>();
+		for(final TransactionDataIndexPatcher.InnerDataset dataset : datasets) {
+			final AttributeGroup innerAttributeGroup = (AttributeGroup)dataModel.getObject(dataset.getAttributeGroupId());
+			final Aspect aspect = (Aspect)dataModel.getObject(dataset.getAspectId());
+			final BaseSubscriptionInfo info = new BaseSubscriptionInfo(
+					dataset.getObjectId(), innerAttributeGroup.getAttributeGroupUsage(aspect).getId(), simulationVariant
+			);
+			List<TransactionDataIndexPatcher.InnerDataset> list = datasetsByIdentification.get(info);
+			if(list == null) {
+				list = new ArrayList<TransactionDataIndexPatcher.InnerDataset>();
+				datasetsByIdentification.put(info, list);
+			}
+			list.add(dataset);
+		}
+		final byte[] bytes = originalBytes.clone();
+		final List<ApplicationDataTelegram[]> innerTelegrams = isSource ? new ArrayList<ApplicationDataTelegram[]>(datasets.size()) : null;
+		for(final Map.Entry<BaseSubscriptionInfo, List<TransactionDataIndexPatcher.InnerDataset>> entry : datasetsByIdentification.entrySet()) {
+			final BaseSubscriptionInfo info = entry.getKey();
+			final List<TransactionDataIndexPatcher.InnerDataset> list = entry.getValue();
+			final long[] dataIndexes = _telegramManager.getNextDataIndexes(info, list.size());
+			for(int i = 0; i < dataIndexes.length; i++) {
+				final TransactionDataIndexPatcher.InnerDataset dataset = list.get(i);
+				TransactionDataIndexPatcher.patchDataIndex(bytes, dataset, dataIndexes[i]);
+				if(isSource) {
+					// Wenn Quelle, innere Datensätze zusätzlich selbst verschicken
+					final int dataLength = dataset.getDataLength();
+					innerTelegrams.add(
+							createTelegramsFromBytes(
+									dataLength == 0 ? null : Arrays.copyOfRange(bytes, dataset.getDataOffset(), dataset.getDataOffset() + dataLength),
+									info, false, dataIndexes[i], dataset.getDataTime(), dataLength == 0 ? (byte) 1 : (byte) 0, null
+							)
+					);
+				}
+			}
+		}
+		if(isSource && !innerTelegrams.isEmpty()) {
+			_telegramManager.sendDatasetsFromTransaction(true, innerTelegrams);
+		}
+		return Collections.unmodifiableList(
+				Arrays.asList(
+						createTelegramsFromBytes(
+								bytes,
+								baseSubscriptionInfo,
+								sendDataObject.getDalayedDataFlag(),
+								sendDataObject.getDataNumber(),
+								sendDataObject.getDataTime(),
+								sendDataObject.getErrorFlag(),
+								sendDataObject.getAttributesIndicator()
+						)
+				)
+		);
+	}
+
+	/**
+	 * Vergleicht einmalig je Attributgruppe das Lesen und Eintragen der Datenindizes im serialisierten Datensatz mit der Verarbeitung über
+	 * Data-Objekte. Stimmen die Ergebnisse nicht überein, werden Transaktionen dieser Attributgruppe weiterhin über Data-Objekte verarbeitet.
+	 * @param patcher Aufbau des Transaktionsdatensatzes
+	 * @param attributeGroup Transaktionsattributgruppe
+	 * @param originalBytes Serialisierter Transaktionsdatensatz
+	 * @param datasets Mit <code>patcher</code> gelesene innere Datensätze
+	 * @return true, falls die Ergebnisse übereinstimmen
+	 */
+	private boolean verifyDataIndexPatcher(
+			final TransactionDataIndexPatcher patcher,
+			final AttributeGroup attributeGroup,
+			final byte[] originalBytes,
+			final List<TransactionDataIndexPatcher.InnerDataset> datasets) {
+		try {
+			final Data data = DataFactory.forVersion(1).createUnmodifiableData(attributeGroup, originalBytes).createModifiableCopy();
+			final byte[] patchedBytes = originalBytes.clone();
+			int i = 0;
+			for(final Data dataset : data.getItem("Transaktion").getItem("Datensatz")) {
+				if(i >= datasets.size()) {
+					disableDataIndexPatcher(patcher, attributeGroup, "Anzahl der inneren Datensätze stimmt nicht überein");
+					return false;
+				}
+				final TransactionDataIndexPatcher.InnerDataset innerDataset = datasets.get(i);
+				final Data dataIdentification = dataset.getItem("Datenidentifikation");
+				final byte[] dataBytes = dataset.getUnscaledArray("Daten").getByteArray();
+				if(dataIdentification.getReferenceValue("Objekt").getId() != innerDataset.getObjectId()
+						|| dataIdentification.getReferenceValue("Attributgruppe").getId() != innerDataset.getAttributeGroupId()
+						|| dataIdentification.getReferenceValue("Aspekt").getId() != innerDataset.getAspectId()
+						|| dataset.getTimeValue("Datenzeit").getMillis() != innerDataset.getDataTime()
+						|| !Arrays.equals(
+						dataBytes,
+						Arrays.copyOfRange(originalBytes, innerDataset.getDataOffset(), innerDataset.getDataOffset() + innerDataset.getDataLength())
+				)) {
+					disableDataIndexPatcher(patcher, attributeGroup, "Innerer Datensatz " + i + " stimmt nicht überein");
+					return false;
+				}
+				// Beide Wege mit den gleichen Testwerten ausführen und die serialisierten Ergebnisse vergleichen
+				dataset.getUnscaledValue("Datenindex").set(i + 1);
+				TransactionDataIndexPatcher.patchDataIndex(patchedBytes, innerDataset, i + 1);
+				i++;
+			}
+			if(i != datasets.size()) {
+				disableDataIndexPatcher(patcher, attributeGroup, "Anzahl der inneren Datensätze stimmt nicht überein");
+				return false;
+			}
+			final Data unmodifiableCopy = data.createUnmodifiableCopy();
+			if(!(unmodifiableCopy instanceof ByteArrayData) || !Arrays.equals(((ByteArrayData)unmodifiableCopy).getBytes(), patchedBytes)) {
+				disableDataIndexPatcher(patcher, attributeGroup, "Serialisierte Datensätze stimmen nicht überein");
+				return false;
+			}
+		}
+		catch(RuntimeException e) {
+			disableDataIndexPatcher(patcher, attributeGroup, e.toString());
+			return false;
+		}
+		patcher.setVerified(true);
+		_debug.fine("Datenindizes von Transaktionen der Attributgruppe " + attributeGroup.getPid() + " werden direkt im Datensatz eingetragen");
+		return true;
+	}
+
+	private static void disableDataIndexPatcher(final TransactionDataIndexPatcher patcher, final AttributeGroup attributeGroup, final String reason) {
+		patcher.setVerified(false);
+		_debug.warning(
+				"Datenindizes von Transaktionen der Attributgruppe " + attributeGroup.getPid() + " werden über Data-Objekte eingetragen: " + reason
+		);
+	}
+
 	/**
 	 * Verarbeitet einen inneren Datensatz als Zentraldatenverteiler
 	 * @param dataset Inneren Datensatz
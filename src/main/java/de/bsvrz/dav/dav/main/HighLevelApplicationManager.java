@@ -32,11 +32,9 @@ import de.bsvrz.dav.daf.communication.srpAuthentication.SrpNotSupportedException
 import de.bsvrz.dav.daf.communication.srpAuthentication.SrpVerifierAndUser;
 import de.bsvrz.dav.daf.main.config.ConfigurationChangeException;
 import de.bsvrz.dav.daf.main.config.management.UserAdministration;
-import de.bsvrz.dav.daf.util.Throttler;
 import de.bsvrz.dav.dav.communication.appProtocol.T_A_HighLevelCommunication;
 
 import java.math.BigInteger;
-import java.time.Duration;
 
 /**
  * Klasse, die Telegramme von den Applikations-Verbindungen entgegennimmt und entsprechend weiterleitet und verarbeitet
@@ -59,7 +57,7 @@ public class HighLevelApplicationManager {
 	/**
 	 * Instanz zur Begrenzung der Login-Versuche
 	 */
-	private final Throttler _throttle = new Throttler(Duration.ofSeconds(1), Duration.ofSeconds(5));
+	private final LoginThrottle _loginThrottle = new LoginThrottle("Applikationen");
 
 	/**
 	 * Initialisiert einen neuen HighLevelApplicationManager
@@ -75,10 +73,18 @@ public class HighLevelApplicationManager {
 	 * Wird aufgerufen, wenn die Konfiguration verfügbar wird.
 	 * @param selfClientDavConnection Verbindung zur Konfiguration
 	 * @param configAreaPidForApplicationObjects
+	 * @param statusCoalescingWindow Zeit in Millisekunden, innerhalb der Änderungen der angemeldeten Applikationen zusammengefasst veröffentlicht werden
+	 * @param applicationSetCoalescingWindow Zeit in Millisekunden, innerhalb der Änderungen an der Menge "Applikationen" gesammelt werden
 	 */
-	public void setConfigurationAvailable(final SelfClientDavConnection selfClientDavConnection, final String configAreaPidForApplicationObjects) {
-		_applicationObjectManager = new ApplicationObjectManager(_connectionsManager, selfClientDavConnection.getConnection(), configAreaPidForApplicationObjects);
-		_applicationStatusUpdater = new ApplicationStatusUpdater(_connectionsManager, selfClientDavConnection.getConnection());
+	public void setConfigurationAvailable(
+			final SelfClientDavConnection selfClientDavConnection,
+			final String configAreaPidForApplicationObjects,
+			final long statusCoalescingWindow,
+			final long applicationSetCoalescingWindow) {
+		_applicationObjectManager = new ApplicationObjectManager(
+				_connectionsManager, selfClientDavConnection.getConnection(), configAreaPidForApplicationObjects, applicationSetCoalescingWindow
+		);
+		_applicationStatusUpdater = new ApplicationStatusUpdater(_connectionsManager, selfClientDavConnection.getConnection(), statusCoalescingWindow);
 	}
 
 	/**
@@ -165,6 +171,14 @@ public class HighLevelApplicationManager {
 	}
 
 
+	/**
+	 * Wird aufgerufen, nachdem sich eine Applikation erfolgreich authentifiziert hat und bevor ihr die Authentifizierung bestätigt wird
+	 * @param communication Verbindung
+	 */
+	public void applicationInitialized(final T_A_HighLevelCommunication communication) {
+		_connectionsManager.addConnection(communication);
+	}
+
 	/**
 	 * Wird nach dem Verbindungsabbruch zu einer Applikation aufgerufen
 	 * @param communication Verbindung, die terminiert wurde
@@ -193,6 +207,17 @@ public class HighLevelApplicationManager {
 		return _applicationStatusUpdater;
 	}
 
+	/**
+	 * Wird beim Beenden des Datenverteilers aufgerufen, beendet den Versand der Applikationsstatus und schließt ausstehende Löschungen von
+	 * Applikationsobjekten ab
+	 */
+	public void close() {
+		final ApplicationStatusUpdater applicationStatusUpdater = _applicationStatusUpdater;
+		if(applicationStatusUpdater != null) applicationStatusUpdater.terminate();
+		final ApplicationObjectManager applicationObjectManager = _applicationObjectManager;
+		if(applicationObjectManager != null) applicationObjectManager.close();
+	}
+
 	/**
 	 * Holt den SRP-Überprüfungscode und die Benutzer-ID von einem Benutzer von der Konfiguration
 	 * @param userName Anzufragender Benutzername
@@ -210,10 +235,18 @@ public class HighLevelApplicationManager {
 	}
 
 	/**
-	 * Wird bei jedem Login-Versuch aufgerufen und sorgt dafür, dass bei wiederholten Brute-Force-Angriffen der Login verzögert wird.
-	 * @param passwordWasCorrect War das Passwort korrekt? Ausgebremst wird zwar immer, aber nur wenn das passwort falsch war, hat das eine Auswirkung auf folgende Login-Vesuche
+	 * Verwirft einen zwischengespeicherten SRP-Überprüfungscode
+	 * @param userName Benutzername
+	 */
+	public void invalidateSrpVerifier(final String userName) {
+		_connectionsManager.invalidateSrpVerifier(userName);
+	}
+
+	/**
+	 * Gibt die Brute-Force-Bremse zurück, mit der bei wiederholten Fehlversuchen eines Benutzers von einer Adresse die Login-Antworten verzögert werden.
+	 * @return Brute-Force-Bremse für Applikationsverbindungen
 	 */
-	public void throttleLoginAttempt(boolean passwordWasCorrect){
-		_throttle.trigger(!passwordWasCorrect);
+	public LoginThrottle getLoginThrottle() {
+		return _loginThrottle;
 	}
 }
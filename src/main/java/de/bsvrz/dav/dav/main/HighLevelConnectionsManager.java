@@ -37,11 +37,14 @@ import de.bsvrz.dav.daf.main.impl.CommunicationConstant;
 import de.bsvrz.dav.daf.main.impl.config.DafDataModel;
 import de.bsvrz.dav.daf.main.impl.config.telegrams.TransmitterConnectionInfo;
 import de.bsvrz.dav.daf.main.impl.config.telegrams.TransmitterInfo;
+import de.bsvrz.dav.dav.communication.accessControl.AccessControlResultCache;
 import de.bsvrz.dav.dav.communication.appProtocol.T_A_HighLevelCommunication;
 import de.bsvrz.dav.dav.communication.davProtocol.T_T_HighLevelCommunication;
 import de.bsvrz.dav.dav.communication.davProtocol.T_T_HighLevelCommunicationInterface;
+import de.bsvrz.dav.dav.util.RollingLatencyStatistics;
 import de.bsvrz.sys.funclib.debug.Debug;
 
+import java.io.File;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -123,6 +126,26 @@ public final class HighLevelConnectionsManager implements HighLevelConnectionsMa
 	 */
 	private UserAdministration _userAdministration;
 
+	/**
+	 * Zwischenspeicher für SRP-Überprüfungscodes
+	 */
+	private final SrpVerifierCache _srpVerifierCache;
+
+	/**
+	 * Zwischenspeicherung von Datensätzen für unterbrochene ausgehende Datenverteilerverbindungen oder null, falls nicht aktiviert
+	 */
+	private final TransmitterDataSpoolManager _dataSpoolManager;
+
+	/**
+	 * Wiederaufnahme von Anmeldungen nach kurzen Unterbrechungen von Datenverteilerverbindungen oder null, falls nicht aktiviert
+	 */
+	private final TransmitterSubscriptionResumption _subscriptionResumption;
+
+	/**
+	 * Wiederaufnahme von Anmeldungen nach kurzen Unterbrechungen von Applikationsverbindungen oder null, falls nicht aktiviert
+	 */
+	private final ApplicationSessionResumption _applicationSessionResumption;
+
 	/**
 	 * Initialisiert den HighLevelConnectionsManager
 	 *
@@ -135,10 +158,114 @@ public final class HighLevelConnectionsManager implements HighLevelConnectionsMa
 		_transmitterTypePid = _lowLevelConnectionsManager.getClientDavParameters().getApplicationTypePid();
 		_transmitterApplicationName = _lowLevelConnectionsManager.getClientDavParameters().getApplicationName();
 		_userName = _lowLevelConnectionsManager.getServerDavParameters().getUserName();
-		_telegramManager = new TelegramManager(this, userRightsChecking);
+		_telegramManager = new TelegramManager(
+				this,
+				userRightsChecking,
+				_lowLevelConnectionsManager.getServerDavParameters().isSplitDatasetStreamingEnabled(),
+				_lowLevelConnectionsManager.getServerDavParameters().getAccessControlResultCacheSize(),
+				_lowLevelConnectionsManager.getServerDavParameters().getAccessControlPluginTimeout()
+		);
 		_highLevelApplicationManager = new HighLevelApplicationManager(this);
 		_listsManager = new ListsManager(this);
+		_srpVerifierCache = new SrpVerifierCache(_lowLevelConnectionsManager.getServerDavParameters().getSrpVerifierCacheTime());
 		_timer = new Timer("TransmitterStatusPublisher", true);
+		// Verteilte Datentelegramme, Dauer der SRP-Authentifizierung und der Zugriffssteuerungs-Plugins, Trefferquoten der Zwischenspeicher,
+		// gebremste Login-Versuche und Telegrammlaufzeiten der Applikationsverbindungen regelmäßig ausgeben
+		_timer.schedule(
+				new TimerTask() {
+					@Override
+					public void run() {
+						final StringBuilder statistics = new StringBuilder(_telegramManager.getDistributionStatistics());
+						statistics.append("\n").append(SrpAuthenticationWorkers.getStatistics());
+						statistics.append("\n").append(_srpVerifierCache.getStatistics());
+						statistics.append("\n").append(_highLevelApplicationManager.getLoginThrottle().getStatistics());
+						final HighLevelTransmitterManager transmitterManager = _highLevelTransmitterManager;
+						if(transmitterManager != null) statistics.append("\n").append(transmitterManager.getLoginThrottle().getStatistics());
+						final AccessControlResultCache accessControlResultCache = _telegramManager.getAccessControlResultCache();
+						if(accessControlResultCache != null) statistics.append("\n").append(accessControlResultCache.getStatistics());
+						if(!_telegramManager.getPluginFilterMap().isEmpty()) {
+							statistics.append("\n").append(_telegramManager.getAccessControlPluginExecutor().getStatistics());
+						}
+						for(T_A_HighLevelCommunication applicationConnection : _lowLevelConnectionsManager.getApplicationConnections()) {
+							final RollingLatencyStatistics roundTripTimes = applicationConnection.getRoundTripTimes();
+							if(roundTripTimes.getCount() > 0) statistics.append("\n").append(applicationConnection).append(", ").append(roundTripTimes);
+						}
+						_debug.fine(statistics.toString());
+					}
+				}, 60000, 60000
+		);
+		if(_lowLevelConnectionsManager.getServerDavParameters().getDataInterleavingWeight() > 0) {
+			// Wartezeiten der Versandsteuerung regelmäßig ausgeben
+			_timer.schedule(
+					new TimerTask() {
+						@Override
+						public void run() {
+							_debug.fine(OutgoingDataScheduler.getStatistics());
+						}
+					}, 60000, 60000
+			);
+		}
+		final ServerDavParameters serverDavParameters = _lowLevelConnectionsManager.getServerDavParameters();
+		if(serverDavParameters.getTransmitterDataSpoolDirectory() != null && !serverDavParameters.getTransmitterDataSpoolUsages().isEmpty()) {
+			_dataSpoolManager = new TransmitterDataSpoolManager(
+					new File(serverDavParameters.getTransmitterDataSpoolDirectory()),
+					serverDavParameters.getTransmitterDataSpoolCapacity(),
+					serverDavParameters.getTransmitterDataSpoolDuration(),
+					serverDavParameters.getTransmitterDataSpoolUsages()
+			);
+			_timer.schedule(
+					new TimerTask() {
+						@Override
+						public void run() {
+							_debug.fine(_dataSpoolManager.getStatistics());
+						}
+					}, 60000, 60000
+			);
+		}
+		else {
+			_dataSpoolManager = null;
+		}
+		if(serverDavParameters.getTransmitterResumptionGracePeriod() > 0) {
+			_subscriptionResumption = new TransmitterSubscriptionResumption(
+					serverDavParameters.getTransmitterResumptionGracePeriod(), _telegramManager.getSubscriptionsManager()
+			);
+			_timer.schedule(
+					new TimerTask() {
+						@Override
+						public void run() {
+							_debug.fine(_subscriptionResumption.getStatistics());
+						}
+					}, 60000, 60000
+			);
+		}
+		else {
+			_subscriptionResumption = null;
+		}
+		if(serverDavParameters.getApplicationResumptionGracePeriod() > 0) {
+			_applicationSessionResumption = new ApplicationSessionResumption(
+					serverDavParameters.getApplicationResumptionGracePeriod(), _telegramManager.getSubscriptionsManager()
+			);
+		}
+		else {
+			_applicationSessionResumption = null;
+		}
+		if(serverDavParameters.getRemoteSubscriptionLingerTime() > 0) {
+			final RemoteSubscriptionLinger remoteSubscriptionLinger = new RemoteSubscriptionLinger(
+					serverDavParameters.getRemoteSubscriptionLingerTime(),
+					serverDavParameters.getRemoteSubscriptionLingerCount(),
+					serverDavParameters.getRemoteSubscriptionLingerMemory(),
+					_telegramManager.getSubscriptionsManager()
+			);
+			_telegramManager.getSubscriptionsManager().setRemoteSubscriptionLinger(remoteSubscriptionLinger);
+			_timer.schedule(
+					new TimerTask() {
+						@Override
+						public void run() {
+							_debug.fine(remoteSubscriptionLinger.getStatistics());
+						}
+					}, 60000, 60000
+			);
+		}
 	}
 
 	/**
@@ -151,12 +278,16 @@ public final class HighLevelConnectionsManager implements HighLevelConnectionsMa
 		_connection = selfClientDavConnection.getConnection();
 		_davObject = (ConfigurationObject)_dataModel.getObject(getTransmitterId());
 		_userAdministration = _dataModel.getUserAdministration();
+		_srpVerifierCache.subscribeUserChanges(_dataModel);
+		if(_dataSpoolManager != null) _dataSpoolManager.setDataModel(_dataModel);
 
 		initializeTerminationQueries();
 		publishReleaseInfo();
 		_highLevelApplicationManager.setConfigurationAvailable(
 				selfClientDavConnection,
-				_lowLevelConnectionsManager.getServerDavParameters().getConfigAreaPidForApplicationObjects()
+				_lowLevelConnectionsManager.getServerDavParameters().getConfigAreaPidForApplicationObjects(),
+				_lowLevelConnectionsManager.getServerDavParameters().getStatusCoalescingWindow(),
+				_lowLevelConnectionsManager.getServerDavParameters().getApplicationSetCoalescingWindow()
 		);
 		_highLevelTransmitterManager = new HighLevelTransmitterManager(this, _listsManager);
 		_telegramManager.setConfigurationAvailable(selfClientDavConnection, _highLevelApplicationManager.getApplicationStatusUpdater());
@@ -292,9 +423,20 @@ public final class HighLevelConnectionsManager implements HighLevelConnectionsMa
 	@Override
 	public void removeConnection(final T_A_HighLevelCommunication communication) {
 		_lowLevelConnectionsManager.removeConnection(communication);
+		if(_applicationSessionResumption != null && _applicationSessionResumption.connectionLost(communication)) {
+			// Anmeldungen der Applikation werden bis zu einer Wiederverbindung zurückgehalten
+			return;
+		}
 		_telegramManager.getSubscriptionsManager().removeAllSubscriptions(communication);
 	}
 
+	@Override
+	public void addConnection(final T_A_HighLevelCommunication communication) {
+		if(_applicationSessionResumption != null) {
+			_applicationSessionResumption.connectionEstablished(communication);
+		}
+	}
+
 	/**
 	 * Wird aufgerufen, wenn die Verbindung zu einem Datenverteiler terminiert wurde. Hierbei werden verbliebene Anmeldungen entfernt und verschiedene Aufräumarbeiten erledigt.
 	 *
@@ -303,9 +445,24 @@ public final class HighLevelConnectionsManager implements HighLevelConnectionsMa
 	@Override
 	public void removeConnection(final T_T_HighLevelCommunication communication) {
 		_lowLevelConnectionsManager.removeConnection(communication);
+		if(_dataSpoolManager != null && !communication.isIncomingConnection()) {
+			// Datensätze für die Empfänger-Anmeldungen des anderen Datenverteilers bis zur Wiederverbindung zwischenspeichern
+			_dataSpoolManager.connectionLost(communication, _telegramManager.getSubscriptionsManager());
+		}
+		if(_subscriptionResumption != null && _subscriptionResumption.connectionLost(communication)) {
+			// Eingehende Anmeldungen werden bis zu einer Wiederverbindung zurückgehalten
+			return;
+		}
 		_telegramManager.getSubscriptionsManager().removeAllSubscriptions(communication);
 	}
 
+	@Override
+	public void addConnection(final T_T_HighLevelCommunication communication) {
+		if(_subscriptionResumption != null) {
+			_subscriptionResumption.connectionEstablished(communication);
+		}
+	}
+
 	/**
 	 * Gibt die ID der Konfiguration mit der gegebenen Pid zurück
 	 *
@@ -535,14 +692,40 @@ public final class HighLevelConnectionsManager implements HighLevelConnectionsMa
 
 	@Override
 	public SrpVerifierAndUser fetchSrpVerifierAndUser(final String userNameForVerifier, final int passwordIndex) throws SrpNotSupportedException {
+		final long startTime = System.nanoTime();
+		final SrpVerifierAndUser verifier;
+		if(passwordIndex == -1) {
+			verifier = _srpVerifierCache.get(userNameForVerifier, userName -> loadSrpVerifierAndUser(userName, -1));
+		}
+		else {
+			// Einmalpasswörter werden nach der Benutzung deaktiviert und deshalb nicht zwischengespeichert
+			verifier = loadSrpVerifierAndUser(userNameForVerifier, passwordIndex);
+		}
+		SrpAuthenticationWorkers.recordVerifierFetch(startTime);
+		if(verifier.getUserLogin().isRegularUser()) {
+			// Der Benutzer ist zwar noch nicht komplett eingeloggt, aber wir können schonmal die Benutzerrechte laden 
+			initializeUser(verifier.getUserLogin().getRemoteUserId());
+		}
+		return verifier;
+	}
+
+	@Override
+	public void invalidateSrpVerifier(final String userName) {
+		_srpVerifierCache.invalidate(userName);
+	}
+
+	/**
+	 * Fragt den SRP-Überprüfungscode eines Benutzers bei der Konfiguration ab
+	 *
+	 * @param userNameForVerifier Benutzername
+	 * @param passwordIndex       Einmalpasswort-Index oder -1
+	 * @return Überprüfungscode und Benutzer
+	 * @throws SrpNotSupportedException SRP wird von der Konfiguration nicht unterstützt
+	 */
+	private SrpVerifierAndUser loadSrpVerifierAndUser(final String userNameForVerifier, final int passwordIndex) throws SrpNotSupportedException {
 		if(_userAdministration != null) {
 			try {
-				SrpVerifierAndUser verifier = _userAdministration.getSrpVerifier(_userName, getUserAdministrationPassword(), userNameForVerifier, passwordIndex);
-				if(verifier.getUserLogin().isRegularUser()) {
-					// Der Benutzer ist zwar noch nicht komplett eingeloggt, aber wir können schonmal die Benutzerrechte laden 
-					initializeUser(verifier.getUserLogin().getRemoteUserId());
-				}
-				return verifier;
+				return _userAdministration.getSrpVerifier(_userName, getUserAdministrationPassword(), userNameForVerifier, passwordIndex);
 			}
 			catch(SrpNotSupportedException e){
 				throw e;
@@ -60,6 +60,20 @@ public interface HighLevelConnectionsManagerInterface {
 	 */
 	void removeConnection(T_T_HighLevelCommunication communication);
 
+	/**
+	 * Wird aufgerufen, wenn eine Verbindung zu einem Datenverteiler initialisiert wurde, bevor die über diese Verbindung empfangenen Anmeldungen
+	 * verarbeitet werden
+	 * @param communication Datenverteiler-Verbindung
+	 */
+	void addConnection(T_T_HighLevelCommunication communication);
+
+	/**
+	 * Wird aufgerufen, wenn sich eine Applikation erfolgreich authentifiziert hat, bevor die über diese Verbindung empfangenen Anmeldungen
+	 * verarbeitet werden
+	 * @param communication Applikations-Verbindung
+	 */
+	void addConnection(T_A_HighLevelCommunication communication);
+
 	/**
 	 * Gibt die ID der Konfiguration mit der gegebenen Pid zurück
 	 *
@@ -234,4 +248,11 @@ public interface HighLevelConnectionsManagerInterface {
 	 * @param passwordIndex Index des Einmalpassworts
 	 */
 	void disableSingleServingPassword(String userName, int passwordIndex);
+
+	/**
+	 * Verwirft einen zwischengespeicherten SRP-Überprüfungscode, z.B. weil eine Anmeldung damit fehlgeschlagen ist und sich das Passwort geändert
+	 * haben könnte
+	 * @param userName Benutzername
+	 */
+	void invalidateSrpVerifier(String userName);
 }
@@ -108,21 +108,27 @@ public class HighLevelSubscriptionsManager extends AbstractSubscriptionsManager
 	public void addLocalSendSubscription(
 			final ApplicationCommunicationInterface application, final SendSubscriptionInfo sendSubscriptionInfo) {
 		super.addLocalSendSubscription(application, sendSubscriptionInfo);
-		if(_applicationStatusUpdater != null) _applicationStatusUpdater.applicationSubscribedNewConnection(application);
+		if(_applicationStatusUpdater != null) {
+			_applicationStatusUpdater.localSubscriptionAdded(application, sendSubscriptionInfo.getBaseSubscriptionInfo(), true, sendSubscriptionInfo.isSource());
+		}
 	}
 
 	@Override
 	public void removeLocalSendSubscription(
 			final ApplicationCommunicationInterface application, final BaseSubscriptionInfo baseSubscriptionInfo) {
 		super.removeLocalSendSubscription(application, baseSubscriptionInfo);
-		if(_applicationStatusUpdater != null) _applicationStatusUpdater.applicationSubscribedNewConnection(application);
+		if(_applicationStatusUpdater != null) _applicationStatusUpdater.localSubscriptionRemoved(application, baseSubscriptionInfo, true);
 	}
 
 	@Override
 	public void addLocalReceiveSubscription(
 			final ApplicationCommunicationInterface application, final ReceiveSubscriptionInfo receiveSubscriptionInfo) {
 		super.addLocalReceiveSubscription(application, receiveSubscriptionInfo);
-		if(_applicationStatusUpdater != null) _applicationStatusUpdater.applicationUnsubscribeConnection(application);
+		if(_applicationStatusUpdater != null) {
+			_applicationStatusUpdater.localSubscriptionAdded(
+					application, receiveSubscriptionInfo.getBaseSubscriptionInfo(), false, receiveSubscriptionInfo.isDrain()
+			);
+		}
 
 	}
 
@@ -130,7 +136,7 @@ public class HighLevelSubscriptionsManager extends AbstractSubscriptionsManager
 	public void removeLocalReceiveSubscriptions(
 			final ApplicationCommunicationInterface application, final BaseSubscriptionInfo baseSubscriptionInfo) {
 		super.removeLocalReceiveSubscriptions(application, baseSubscriptionInfo);
-		if(_applicationStatusUpdater != null) _applicationStatusUpdater.applicationUnsubscribeConnection(application);
+		if(_applicationStatusUpdater != null) _applicationStatusUpdater.localSubscriptionRemoved(application, baseSubscriptionInfo, false);
 	}
 
 	/**
@@ -255,6 +261,18 @@ public class HighLevelSubscriptionsManager extends AbstractSubscriptionsManager
 		return _telegramManager;
 	}
 
+	/**
+	 * Prüft von allen Anmeldungen die den Benutzer betreffen die Rechte erneut und verwirft zwischengespeicherte Ergebnisse der
+	 * Zugriffssteuerungs-Plugins für diesen Benutzer
+	 *
+	 * @param userId Id des Benutzers
+	 */
+	@Override
+	public void handleUserRightsChanged(final long userId) {
+		_telegramManager.handleUserRightsChanged(userId);
+		super.handleUserRightsChanged(userId);
+	}
+
 	@Override
 	public List<Long> getPotentialCentralDistributors(final BaseSubscriptionInfo baseSubscriptionInfo) {
 		return Longs.asList(_connectionsManager.getPotentialCentralDistributors(baseSubscriptionInfo));
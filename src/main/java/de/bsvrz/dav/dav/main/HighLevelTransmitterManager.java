@@ -32,13 +32,11 @@ import de.bsvrz.dav.daf.communication.srpAuthentication.SrpVerifierAndUser;
 import de.bsvrz.dav.daf.main.authentication.ClientCredentials;
 import de.bsvrz.dav.daf.main.impl.config.telegrams.TransmitterConnectionInfo;
 import de.bsvrz.dav.daf.util.Longs;
-import de.bsvrz.dav.daf.util.Throttler;
 import de.bsvrz.dav.dav.communication.davProtocol.T_T_HighLevelCommunication;
 import de.bsvrz.dav.dav.communication.davProtocol.T_T_HighLevelCommunicationInterface;
 import de.bsvrz.dav.dav.subscriptions.*;
 import de.bsvrz.sys.funclib.debug.Debug;
 
-import java.time.Duration;
 import java.util.List;
 
 /**
@@ -66,7 +64,7 @@ public class HighLevelTransmitterManager implements DistributionInterface, HighL
 	/**
 	 * Instanz zur Begrenzung der Login-Versuche
 	 */
-	private final Throttler _throttle = new Throttler(Duration.ofSeconds(1), Duration.ofSeconds(5));
+	private final LoginThrottle _loginThrottle = new LoginThrottle("Datenverteiler");
 
 	public HighLevelTransmitterManager(final HighLevelConnectionsManagerInterface connectionsManager, final ListsManager listsManager) {
 		_connectionsManager = connectionsManager;
@@ -259,6 +257,7 @@ public class HighLevelTransmitterManager implements DistributionInterface, HighL
 
 	@Override
 	public void addWay(final T_T_HighLevelCommunication communication) {
+		_connectionsManager.addConnection(communication);
 		_bestWayManager.addWay(communication);
 	}
 
@@ -268,8 +267,13 @@ public class HighLevelTransmitterManager implements DistributionInterface, HighL
 	}
 
 	@Override
-	public void throttleLoginAttempt(final boolean passwordWasCorrect) {
-		_throttle.trigger(!passwordWasCorrect);
+	public LoginThrottle getLoginThrottle() {
+		return _loginThrottle;
+	}
+
+	@Override
+	public void invalidateSrpVerifier(final String userName) {
+		_connectionsManager.invalidateSrpVerifier(userName);
 	}
 
 	@Override
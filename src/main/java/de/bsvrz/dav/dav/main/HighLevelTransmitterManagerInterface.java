@@ -175,8 +175,14 @@ public interface HighLevelTransmitterManagerInterface {
 	void updateBestWay(T_T_HighLevelCommunication communication, TransmitterBestWayUpdate transmitterBestWayUpdate);
 
 	/**
-	 * Wird bei jedem Login-Versuch aufgerufen und sorgt dafür, dass bei wiederholten Brute-Force-Angriffen der Login verzögert wird.
-	 * @param passwordWasCorrect War das Passwort korrekt? Ausgebremst wird zwar immer, aber nur wenn das passwort falsch war, hat das eine Auswirkung auf folgende Login-Vesuche
+	 * Gibt die Brute-Force-Bremse zurück, mit der bei wiederholten Fehlversuchen eines Benutzers von einer Adresse die Login-Antworten verzögert werden.
+	 * @return Brute-Force-Bremse für Datenverteilerverbindungen
 	 */
-	void throttleLoginAttempt(boolean passwordWasCorrect);
+	LoginThrottle getLoginThrottle();
+
+	/**
+	 * Verwirft einen zwischengespeicherten SRP-Überprüfungscode, z.B. weil eine Anmeldung damit fehlgeschlagen ist
+	 * @param userName Benutzername
+	 */
+	void invalidateSrpVerifier(String userName);
 }
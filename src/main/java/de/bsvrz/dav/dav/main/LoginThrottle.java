@@ -0,0 +1,361 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.main;
+
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Brute-Force-Bremse für Login-Versuche. Es werden Token-Buckets für jede Kombination aus Benutzername und entfernter Adresse sowie für jede
+ * entfernte Adresse über alle Benutzer geführt. Tokens werden nur durch Fehlversuche verbraucht und mit einer festen Rate nachgefüllt, ein
+ * erfolgreicher Login füllt den Bucket des Benutzers und der Adresse wieder auf. Viele gleichzeitige erfolgreiche Anmeldungen von einem
+ * Rechner (z.B. nach einem Neustart des Datenverteilers) werden daher weder verzögert noch abgewiesen.
+ * <p>
+ * Ein Login-Versuch wird mit {@link #startAttempt(String, String)} begonnen. Fehlen Tokens, wird die Prüfung des Passworts so lange
+ * verzögert, bis wieder ein Token verfügbar ist. Zusätzlich zählen gleichzeitig laufende Versuche des gleichen Benutzers von der gleichen
+ * Adresse bei der Berechnung der Verzögerung mit, damit viele parallele Verbindungen nicht gleichzeitig raten können. Eine Verzögerung führt
+ * nie zu einer Ablehnung: Nach Ablauf der Verzögerung wird das Passwort geprüft ({@link Attempt#checkAllowed()}), es sei denn, die Tokens
+ * wurden zwischenzeitlich durch Fehlversuche aufgebraucht. Müsste wegen vorheriger Fehlversuche länger als {@link #MAX_DELAY} Millisekunden
+ * gewartet werden, wird der Versuch sofort abgewiesen: Er verbraucht kein Token, wird nach {@link #MAX_DELAY} Millisekunden beantwortet und
+ * das Passwort wird nicht geprüft.
+ * <p>
+ * Die Verzögerung wird nicht durch Warten im Thread der Verbindung umgesetzt, sondern die Prüfung bzw. Antwort wird zeitgesteuert
+ * ausgeführt ({@link Attempt#execute(Runnable)}).
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public final class LoginThrottle {
+
+	private static final Debug _debug = Debug.getLogger();
+
+	/** Anzahl Fehlversuche eines Benutzers von einer Adresse, nach denen noch ohne Verzögerung geprüft wird */
+	static final int BURST = 5;
+
+	/** Zeit in Millisekunden, nach der ein Token eines Benutzers und einer Adresse nachgefüllt wird */
+	static final long REFILL_INTERVAL = 1000;
+
+	/** Anzahl Fehlversuche von einer Adresse über alle Benutzer, nach denen noch ohne Verzögerung geprüft wird */
+	static final int ADDRESS_BURST = 100;
+
+	/** Zeit in Millisekunden, nach der ein Token einer Adresse nachgefüllt wird */
+	static final long ADDRESS_REFILL_INTERVAL = 200;
+
+	/** Maximale Verzögerung in Millisekunden, müsste wegen Fehlversuchen länger gewartet werden, wird der Login-Versuch abgewiesen */
+	static final long MAX_DELAY = 30000;
+
+	/** Ab dieser Anzahl Einträge werden wieder vollständig gefüllte Buckets entfernt */
+	private static final int PURGE_THRESHOLD = 10000;
+
+	/** Führt verzögerte Prüfungen und Antworten aus */
+	private static final ScheduledExecutorService _executor = Executors.newScheduledThreadPool(
+			2,
+			new ThreadFactory() {
+				private final AtomicInteger _threadNumber = new AtomicInteger();
+
+				@Override
+				public Thread newThread(final Runnable r) {
+					final Thread thread = new Thread(r, "Login-Verzögerung-" + _threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			}
+	);
+
+	/** Bezeichnung für Debug-Ausgaben */
+	private final String _name;
+
+	/** Token-Buckets je Benutzername und Adresse, wird auch als Sperre für {@link #_addressBuckets} verwendet */
+	private final Map<String, Bucket> _buckets = new HashMap<String, Bucket>();
+
+	/** Token-Buckets je Adresse */
+	private final Map<String, Bucket> _addressBuckets = new HashMap<String, Bucket>();
+
+	private final AtomicLong _failedAttempts = new AtomicLong();
+
+	private final AtomicLong _throttledAttempts = new AtomicLong();
+
+	private final AtomicLong _rejectedAttempts = new AtomicLong();
+
+	/**
+	 * Erstellt eine neue Brute-Force-Bremse
+	 *
+	 * @param name Bezeichnung für Debug-Ausgaben
+	 */
+	public LoginThrottle(final String name) {
+		_name = name;
+	}
+
+	/**
+	 * Beginnt einen Login-Versuch und bestimmt, wie lange die Prüfung des Passworts verzögert wird. Der Versuch muss mit
+	 * {@link Attempt#succeeded()}, {@link Attempt#failed()} oder {@link Attempt#cancel()} beendet werden.
+	 *
+	 * @param userName Benutzername
+	 * @param address  Entfernte Adresse
+	 * @return Login-Versuch
+	 */
+	public Attempt startAttempt(final String userName, final String address) {
+		final long now = System.nanoTime();
+		final String key = getKey(userName, address);
+		final long delay;
+		synchronized(_buckets) {
+			final Bucket bucket = getBucket(_buckets, key, BURST, REFILL_INTERVAL, now);
+			final Bucket addressBucket = getBucket(_addressBuckets, address, ADDRESS_BURST, ADDRESS_REFILL_INTERVAL, now);
+			final long failureDelay = Math.max(bucket.getDelay(1), addressBucket.getDelay(1));
+			if(failureDelay > MAX_DELAY) {
+				_rejectedAttempts.incrementAndGet();
+				_debug.fine("Login-Versuch von " + key + " wird abgewiesen, zu viele Fehlversuche");
+				return new Attempt(key, address, MAX_DELAY, now, true);
+			}
+			// Laufende Versuche zählen mit, damit parallele Versuche nacheinander geprüft werden. Dieser Anteil führt nie zur Abweisung.
+			delay = Math.min(MAX_DELAY, Math.max(failureDelay, bucket.getDelay(bucket._pending + 1)));
+			bucket._pending++;
+		}
+		if(delay > 0) {
+			_throttledAttempts.incrementAndGet();
+			_debug.fine("Login-Versuch von " + key + " wird um " + delay + " ms verzögert geprüft");
+		}
+		return new Attempt(key, address, delay, now, false);
+	}
+
+	/**
+	 * Gibt die Zähler als Text zurück
+	 *
+	 * @return Text für Debug-Ausgaben
+	 */
+	public String getStatistics() {
+		final int buckets;
+		final int addressBuckets;
+		synchronized(_buckets) {
+			buckets = _buckets.size();
+			addressBuckets = _addressBuckets.size();
+		}
+		return "Login-Versuche " + _name + ": " + _failedAttempts.get() + " Fehlversuche, " + _throttledAttempts.get() + " verzögert, "
+				+ _rejectedAttempts.get() + " abgewiesen, " + buckets + " gebremste Benutzer/Adressen, " + addressBuckets + " gebremste Adressen";
+	}
+
+	private static Bucket getBucket(final Map<String, Bucket> buckets, final String key, final int burst, final long refillInterval, final long now) {
+		Bucket bucket = buckets.get(key);
+		if(bucket == null) {
+			if(buckets.size() >= PURGE_THRESHOLD) purgeFullBuckets(buckets, now);
+			bucket = new Bucket(burst, refillInterval, now);
+			buckets.put(key, bucket);
+		}
+		bucket.refill(now);
+		return bucket;
+	}
+
+	private static void purgeFullBuckets(final Map<String, Bucket> buckets, final long now) {
+		final Iterator<Bucket> iterator = buckets.values().iterator();
+		while(iterator.hasNext()) {
+			final Bucket bucket = iterator.next();
+			bucket.refill(now);
+			if(bucket._tokens >= bucket._burst && bucket._pending == 0) iterator.remove();
+		}
+	}
+
+	private static String getKey(final String userName, final String address) {
+		return userName + "@" + address;
+	}
+
+	/**
+	 * Ein mit {@link #startAttempt(String, String)} begonnener Login-Versuch
+	 */
+	public final class Attempt {
+
+		private final String _key;
+
+		private final String _address;
+
+		private final long _delay;
+
+		private final long _startTime;
+
+		private final boolean _rejected;
+
+		/** true, sobald der Versuch beendet wurde, wird mit {@link #_buckets} synchronisiert */
+		private boolean _finished;
+
+		private Attempt(final String key, final String address, final long delay, final long startTime, final boolean rejected) {
+			_key = key;
+			_address = address;
+			_delay = delay;
+			_startTime = startTime;
+			_rejected = rejected;
+			_finished = rejected;
+		}
+
+		/**
+		 * Gibt die Verzögerung der Prüfung zurück
+		 *
+		 * @return Verzögerung in Millisekunden (0, falls sofort geprüft werden kann)
+		 */
+		public long getDelay() {
+			return _delay;
+		}
+
+		/**
+		 * Gibt zurück, ob der Versuch wegen zu vieler Fehlversuche abgewiesen wurde. Das Passwort wird dann nicht geprüft.
+		 *
+		 * @return true, falls abgewiesen
+		 */
+		public boolean isRejected() {
+			return _rejected;
+		}
+
+		/**
+		 * Gibt zurück, ob die Verzögerung abgelaufen ist
+		 *
+		 * @return true, falls das Passwort jetzt geprüft werden darf
+		 */
+		public boolean isDue() {
+			return System.nanoTime() - _startTime >= TimeUnit.MILLISECONDS.toNanos(_delay);
+		}
+
+		/**
+		 * Wird unmittelbar vor der Prüfung des Passworts aufgerufen. Die Prüfung wird nur untersagt, wenn der Versuch abgewiesen wurde oder die
+		 * Tokens inzwischen durch Fehlversuche aufgebraucht sind. In diesem Fall ist der Versuch beendet.
+		 *
+		 * @return true, falls das Passwort geprüft werden darf
+		 */
+		public boolean checkAllowed() {
+			if(_rejected) return false;
+			final long now = System.nanoTime();
+			synchronized(_buckets) {
+				final Bucket bucket = getBucket(_buckets, _key, BURST, REFILL_INTERVAL, now);
+				final Bucket addressBucket = getBucket(_addressBuckets, _address, ADDRESS_BURST, ADDRESS_REFILL_INTERVAL, now);
+				if(bucket._tokens >= 1 && addressBucket._tokens >= 1) return true;
+			}
+			_rejectedAttempts.incrementAndGet();
+			_debug.fine("Login-Versuch von " + _key + " wird abgewiesen, die Tokens wurden durch Fehlversuche verbraucht");
+			cancel();
+			return false;
+		}
+
+		/**
+		 * Führt die übergebene Aktion (normalerweise die Prüfung des Passworts oder den Versand einer Antwort) nach Ablauf der Verzögerung aus.
+		 * Ohne Verzögerung wird sie sofort im aufrufenden Thread ausgeführt.
+		 *
+		 * @param action Auszuführende Aktion
+		 */
+		public void execute(final Runnable action) {
+			if(_delay == 0) {
+				action.run();
+				return;
+			}
+			_executor.schedule(
+					new Runnable() {
+						@Override
+						public void run() {
+							try {
+								action.run();
+							}
+							catch(RuntimeException e) {
+								_debug.warning("Fehler beim verzögerten Bearbeiten eines Login-Versuchs", e);
+							}
+						}
+					}, _delay, TimeUnit.MILLISECONDS
+			);
+		}
+
+		/** Beendet den Versuch nach einer erfolgreichen Prüfung des Passworts. Der Bucket des Benutzers und der Adresse wird wieder aufgefüllt. */
+		public void succeeded() {
+			synchronized(_buckets) {
+				final Bucket bucket = finish();
+				if(bucket != null) bucket._tokens = bucket._burst;
+			}
+		}
+
+		/** Beendet den Versuch nach einem Fehlversuch. Es wird je ein Token für den Benutzer und die Adresse sowie für die Adresse verbraucht. */
+		public void failed() {
+			synchronized(_buckets) {
+				final Bucket bucket = finish();
+				if(bucket == null) return;
+				bucket._tokens--;
+				getBucket(_addressBuckets, _address, ADDRESS_BURST, ADDRESS_REFILL_INTERVAL, System.nanoTime())._tokens--;
+			}
+			_failedAttempts.incrementAndGet();
+		}
+
+		/** Beendet den Versuch, ohne dass das Passwort geprüft wurde, z.B. weil die Verbindung vorher beendet wurde. */
+		public void cancel() {
+			synchronized(_buckets) {
+				finish();
+			}
+		}
+
+		private Bucket finish() {
+			if(_finished) return null;
+			_finished = true;
+			final Bucket bucket = getBucket(_buckets, _key, BURST, REFILL_INTERVAL, System.nanoTime());
+			bucket._pending--;
+			return bucket;
+		}
+	}
+
+	private static final class Bucket {
+
+		final int _burst;
+
+		final long _refillInterval;
+
+		double _tokens;
+
+		long _lastRefill;
+
+		/** Anzahl laufender Versuche, die noch nicht beendet wurden */
+		int _pending;
+
+		Bucket(final int burst, final long refillInterval, final long now) {
+			_burst = burst;
+			_refillInterval = refillInterval;
+			_tokens = burst;
+			_lastRefill = now;
+		}
+
+		void refill(final long now) {
+			final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(now - _lastRefill);
+			if(elapsedMillis <= 0) return;
+			_tokens = Math.min(_burst, _tokens + (double) elapsedMillis / _refillInterval);
+			_lastRefill += TimeUnit.MILLISECONDS.toNanos(elapsedMillis);
+		}
+
+		/** Wartezeit in Millisekunden, bis die angegebene Anzahl Tokens vorhanden ist (0, falls bereits vorhanden) */
+		long getDelay(final int tokens) {
+			if(_tokens >= tokens) return 0;
+			return (long) Math.ceil((tokens - _tokens) * _refillInterval);
+		}
+	}
+}
@@ -28,20 +28,39 @@ package de.bsvrz.dav.dav.main;
 
 import de.bsvrz.dav.daf.communication.lowLevel.ConnectionInterface;
 import de.bsvrz.dav.daf.communication.lowLevel.LowLevelCommunication;
+import de.bsvrz.dav.daf.communication.lowLevel.LowLevelCommunicationInterface;
 import de.bsvrz.dav.daf.communication.lowLevel.ParameterizedConnectionInterface;
 import de.bsvrz.dav.daf.communication.lowLevel.ServerConnectionInterface;
 import de.bsvrz.dav.daf.main.CommunicationError;
 import de.bsvrz.dav.daf.main.ConnectionException;
 import de.bsvrz.dav.dav.communication.appProtocol.T_A_HighLevelCommunication;
+import de.bsvrz.dav.dav.communication.tcpCommunication.InProcessServerCommunication;
+import de.bsvrz.dav.dav.communication.tcpCommunication.TCP_IP_NioServerCommunication;
+import de.bsvrz.dav.dav.util.LatencyStatistics;
 import de.bsvrz.sys.funclib.debug.Debug;
 
+import java.net.InetSocketAddress;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Diese Klasse verwaltet Applikations-Verbindung auf unterster Protokoll-Ebene. Es wird über das ServerConnectionInterface auf neue Applikationsverbindungen
  * gewartet und aus dieser wird eine neue T_A_HighLevelCommunication-Klasse erzeugt und gespeichert. Dabei werden gegebenenfalls Verbindungsaufbau auf
  * Protokollebene, Authentifizierung usw. durchgeführt.
+ * <p>
+ * Der Aufbau neuer Verbindungen erfolgt in einem Threadpool mit begrenzter Thread-Anzahl und Warteschlange. Ist die Warteschlange voll, werden
+ * keine weiteren Verbindungen entgegengenommen, sodass diese in der Warteschlange des Betriebssystems verbleiben, bis wieder Kapazität
+ * vorhanden ist. Die Zeit zwischen Entgegennahme und erfolgreicher Authentifizierung einer Verbindung wird erfasst.
+ * <p>
+ * Im lokalen Modus wird die eigene Datenverteilerverbindung zusätzlich über einen prozessinternen Server ({@link InProcessServerCommunication})
+ * entgegengenommen. Zusätzlich können weitere Ports bzw. Netzwerkschnittstellen und mehrere Acceptoren je Port ({@code SO_REUSEPORT})
+ * konfiguriert werden.
  *
  * @author Kappich Systemberatung
  * @version $Revision$
@@ -52,6 +71,16 @@ public final class LowLevelApplicationConnections {
 
 	private final ServerConnectionInterface _applicationsServerConnection;
 
+	/** Prozessinterner Server für die eigene Datenverteilerverbindung oder null */
+	private final ServerConnectionInterface _inProcessServerConnection;
+
+	private final ApplicationConnectionsSubscriber _inProcessConnectionsSubscriber;
+
+	/** Weitere Server-Verbindungen für zusätzliche Adressen und für mit {@code SO_REUSEPORT} verteilte Acceptoren */
+	private final List<ServerConnectionInterface> _additionalServerConnections = new ArrayList<ServerConnectionInterface>();
+
+	private final List<ApplicationConnectionsSubscriber> _additionalConnectionsSubscribers = new ArrayList<ApplicationConnectionsSubscriber>();
+
 	private final Map<Long, T_A_HighLevelCommunication> _applicationConnections = new ConcurrentHashMap<Long, T_A_HighLevelCommunication>(32, 0.75f, 6);
 
 	private final Set<T_A_HighLevelCommunication> _unsortedApplicationConnections = Collections.synchronizedSet(new HashSet<T_A_HighLevelCommunication>());
@@ -64,6 +93,19 @@ public final class LowLevelApplicationConnections {
 
 	private boolean _configurationAvailable = false;
 
+	/** Threadpool für den Aufbau neu entgegengenommener Verbindungen */
+	private final ThreadPoolExecutor _connectionSetupExecutor;
+
+	/**
+	 * Zeitpunkt der Entgegennahme ({@link System#nanoTime()}) je noch nicht authentifizierter Verbindung. Schlüssel ist die Verbindung auf
+	 * unterster Protokollebene, damit der Zeitpunkt schon vor dem Anlegen der {@link T_A_HighLevelCommunication} eingetragen werden kann, die
+	 * sofort mit der Authentifizierung beginnt.
+	 */
+	private final Map<LowLevelCommunicationInterface, Long> _acceptTimes = new ConcurrentHashMap<LowLevelCommunicationInterface, Long>();
+
+	/** Zeit von der Entgegennahme einer Verbindung bis zur erfolgreichen Authentifizierung */
+	private final LatencyStatistics _authenticationLatency = new LatencyStatistics("Zeit bis zur Authentifizierung von Applikationen");
+
 	private static final Debug _debug = Debug.getLogger();
 
 	/**
@@ -88,13 +130,59 @@ public final class LowLevelApplicationConnections {
 
 		_serverDavParameters = serverDavParameters;
 
+		final int setupThreads = _serverDavParameters.getConnectionSetupThreads();
+		_connectionSetupExecutor = new ThreadPoolExecutor(
+				setupThreads,
+				setupThreads,
+				60,
+				TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(_serverDavParameters.getConnectionSetupQueueSize()),
+				new ThreadFactory() {
+					private final AtomicInteger _threadNumber = new AtomicInteger();
+
+					@Override
+					public Thread newThread(final Runnable r) {
+						final Thread thread = new Thread(r, "Applikationsverbindungsaufbau-" + _threadNumber.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				},
+				new RejectedExecutionHandler() {
+					@Override
+					public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+						if(executor.isShutdown()) return;
+						// Warteschlange ist voll, den entgegennehmenden Thread blockieren, bis wieder Platz ist
+						try {
+							executor.getQueue().put(r);
+						}
+						catch(InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				}
+		);
+		_connectionSetupExecutor.allowCoreThreadTimeOut(true);
 
 		// Startet die Netzwerkschnittstelle, die auf Verbindungen wartet
 		_applicationsServerConnection = startApplicationConnectionListener(communicationProtocolClass);
 
 		// Den Thread starten, der auf dieser Netzwerkschnittstelle auf ankommende Verbindungen wartet
-		_applicationConnectionsSubscriber = new ApplicationConnectionsSubscriber();
+		_applicationConnectionsSubscriber = new ApplicationConnectionsSubscriber(_applicationsServerConnection, "ApplicationConnectionsSubscriber");
 		_applicationConnectionsSubscriber.start();
+
+		startAdditionalListeners();
+
+		// Die eigene Datenverteilerverbindung wird im lokalen Modus prozessintern aufgebaut (siehe ServerDavParameters.getClientDavParameters())
+		if(_serverDavParameters.isLocalMode() && _serverDavParameters.isInProcessSelfConnection()) {
+			_inProcessServerConnection = new InProcessServerCommunication();
+			_inProcessServerConnection.connect(_serverDavParameters.getApplicationConnectionsSubAddress());
+			_inProcessConnectionsSubscriber = new ApplicationConnectionsSubscriber(_inProcessServerConnection, "InProcessConnectionsSubscriber");
+			_inProcessConnectionsSubscriber.start();
+		}
+		else {
+			_inProcessServerConnection = null;
+			_inProcessConnectionsSubscriber = null;
+		}
 	}
 
 	private ServerConnectionInterface startApplicationConnectionListener(final Class<? extends ServerConnectionInterface> communicationProtocolClass)
@@ -103,7 +191,11 @@ public final class LowLevelApplicationConnections {
 		final ServerConnectionInterface applicationsServerConnection;
 		applicationsServerConnection = communicationProtocolClass.newInstance();
 		// Falls vorhanden und möglich Parameter für das Kommunikationsinterface weitergeben
-		final String communicationParameters = _serverDavParameters.getLowLevelCommunicationParameters();
+		String communicationParameters = _serverDavParameters.getLowLevelCommunicationParameters();
+		if(_serverDavParameters.getApplicationAcceptors() > 1 && applicationsServerConnection instanceof TCP_IP_NioServerCommunication) {
+			// Weitere Acceptoren binden den gleichen Port, siehe startAdditionalListeners()
+			communicationParameters = communicationParameters.isEmpty() ? "reuseport=ja" : communicationParameters + ",reuseport=ja";
+		}
 		if(communicationParameters.length() != 0 && applicationsServerConnection instanceof ParameterizedConnectionInterface) {
 			final ParameterizedConnectionInterface parameterizedConnection = (ParameterizedConnectionInterface)applicationsServerConnection;
 			parameterizedConnection.setParameters(communicationParameters);
@@ -113,6 +205,50 @@ public final class LowLevelApplicationConnections {
 		return applicationsServerConnection;
 	}
 
+	/**
+	 * Startet die zusätzlichen Server-Verbindungen. Bei mehreren Acceptoren je Port werden auf dem Applikationsport weitere Instanzen von
+	 * {@link TCP_IP_NioServerCommunication} mit {@code SO_REUSEPORT} gebunden, sodass das Betriebssystem die ankommenden Verbindungen auf
+	 * mehrere Threads verteilt. Für jede zusätzliche Adresse werden entsprechend viele Instanzen gebunden, bei Angabe einer Adresse nur auf
+	 * der zugehörigen Netzwerkschnittstelle.
+	 *
+	 * @throws CommunicationError Fehler beim Binden eines Ports
+	 */
+	private void startAdditionalListeners() throws CommunicationError {
+		final int acceptors = _serverDavParameters.getApplicationAcceptors();
+		if(acceptors > 1) {
+			if(_applicationsServerConnection instanceof TCP_IP_NioServerCommunication) {
+				for(int i = 1; i < acceptors; i++) {
+					startAdditionalListener(null, _serverDavParameters.getApplicationConnectionsSubAddress(), true);
+				}
+			}
+			else {
+				_debug.warning(
+						"Mehrere Acceptoren auf dem Applikationsport werden nur mit " + TCP_IP_NioServerCommunication.class.getName()
+						+ " und davon abgeleiteten Kommunikationsmodulen unterstützt"
+				);
+			}
+		}
+		for(final InetSocketAddress address : _serverDavParameters.getAdditionalApplicationAddresses()) {
+			// Nicht aufgelöste Adressen bezeichnen eine bestimmte Netzwerkschnittstelle
+			final String host = address.isUnresolved() ? address.getHostString() : null;
+			for(int i = 0; i < acceptors; i++) {
+				startAdditionalListener(host, address.getPort(), acceptors > 1);
+			}
+		}
+	}
+
+	private void startAdditionalListener(final String host, final int port, final boolean reusePort) throws CommunicationError {
+		final TCP_IP_NioServerCommunication serverConnection = new TCP_IP_NioServerCommunication();
+		serverConnection.setParameters("reuseport=" + (reusePort ? "ja" : "nein") + (host == null ? "" : ",adresse=" + host));
+		serverConnection.connect(port);
+		final ApplicationConnectionsSubscriber subscriber = new ApplicationConnectionsSubscriber(
+				serverConnection, "ApplicationConnectionsSubscriber-" + (host == null ? "" : host + ":") + port + "-" + (_additionalServerConnections.size() + 1)
+		);
+		_additionalServerConnections.add(serverConnection);
+		_additionalConnectionsSubscribers.add(subscriber);
+		subscriber.start();
+	}
+
 	public void continueAuthentication() {
 		for(final T_A_HighLevelCommunication connection : getApplicationConnections()) {
 			if(connection != null) {
@@ -149,9 +285,20 @@ public final class LowLevelApplicationConnections {
 	public synchronized void close(final boolean error, final String message) {
 
 		_applicationConnectionsSubscriber.interrupt();
+		_connectionSetupExecutor.shutdownNow();
 		if(_applicationsServerConnection != null) {
 			_applicationsServerConnection.disconnect();
 		}
+		if(_inProcessServerConnection != null) {
+			_inProcessConnectionsSubscriber.interrupt();
+			_inProcessServerConnection.disconnect();
+		}
+		for(final ApplicationConnectionsSubscriber subscriber : _additionalConnectionsSubscribers) {
+			subscriber.interrupt();
+		}
+		for(final ServerConnectionInterface serverConnection : _additionalServerConnections) {
+			serverConnection.disconnect();
+		}
 
 		for(final T_A_HighLevelCommunication applicationConnection : _unsortedApplicationConnections) {
 			applicationConnection.terminate(error, message);
@@ -171,6 +318,14 @@ public final class LowLevelApplicationConnections {
 			return;
 		}
 		_applicationConnections.put(communication.getId(), communication);
+		final Long acceptTime = _acceptTimes.remove(communication.getLowLevelCommunication());
+		if(acceptTime != null) {
+			_authenticationLatency.recordSince(acceptTime);
+			if(_acceptTimes.isEmpty()) {
+				// Alle entgegengenommenen Verbindungen sind authentifiziert oder beendet
+				_debug.fine(_authenticationLatency.toString());
+			}
+		}
 	}
 
 	public synchronized Collection<T_A_HighLevelCommunication> getApplicationConnections() {
@@ -183,56 +338,65 @@ public final class LowLevelApplicationConnections {
 	/** Diese Subklasse startet einen Thread, der eine Application bei einem Datenverteiler anmeldet. */
 	private class ApplicationConnectionsSubscriber extends Thread {
 
-		public ApplicationConnectionsSubscriber() {
-			super("ApplicationConnectionsSubscriber");
+		private final ServerConnectionInterface _serverConnection;
+
+		public ApplicationConnectionsSubscriber(final ServerConnectionInterface serverConnection, final String name) {
+			super(name);
+			_serverConnection = serverConnection;
 		}
 
 		/** The run method that loops through */
 		@Override
 		public final void run() {
-			if(_applicationsServerConnection == null) {
+			if(_serverConnection == null) {
 				return;
 			}
 			while(!isInterrupted()) {
-				final ConnectionInterface connection = _applicationsServerConnection.accept();
-				final Thread thread = new Thread(
+				final ConnectionInterface connection = _serverConnection.accept();
+				if(connection == null) {
+					continue;
+				}
+				final long acceptTime = System.nanoTime();
+				_connectionSetupExecutor.execute(
 						new Runnable() {
 							@Override
 							public void run() {
-								if(connection == null) {
-									return;
-								}
 								try {
-									startApplicationConnection(connection);
+									startApplicationConnection(connection, acceptTime);
 								}
 								catch(ConnectionException ex) {
-									ex.printStackTrace();
+									_debug.warning("Fehler beim Aufbau einer Applikationsverbindung", ex);
 								}
 							}
 						}
 				);
-				thread.start();
 			}
 		}
 	}
 
-	private void startApplicationConnection(final ConnectionInterface connection) throws ConnectionException {
+	private void startApplicationConnection(final ConnectionInterface connection, final long acceptTime) throws ConnectionException {
 		final LowLevelCommunication lowLevelCommunication = createLowLevelConnection(connection, true);
 		final ServerConnectionProperties properties = new ServerConnectionProperties(
 				lowLevelCommunication, _lowLevelConnectionsManager.getLowLevelAuthentication().getAuthenticationComponent(), _serverDavParameters
 		);
-		final T_A_HighLevelCommunication highLevelCommunication = new T_A_HighLevelCommunication(
-				properties, _applicationManager, _lowLevelConnectionsManager, !_configurationAvailable
-		);
-
-		addApplicationConnection(highLevelCommunication);
-	}
+		// Vor dem Anlegen eintragen, da die Authentifizierung schon während des Konstruktors beginnen kann
+		_acceptTimes.put(lowLevelCommunication, acceptTime);
+		final T_A_HighLevelCommunication highLevelCommunication;
+		try {
+			highLevelCommunication = new T_A_HighLevelCommunication(
+					properties, _applicationManager, _lowLevelConnectionsManager, !_configurationAvailable
+			);
+		}
+		catch(RuntimeException e) {
+			_acceptTimes.remove(lowLevelCommunication);
+			throw e;
+		}
 
-	private void addApplicationConnection(final T_A_HighLevelCommunication highLevelCommunication) {
 		_unsortedApplicationConnections.add(highLevelCommunication);
 	}
 
 	public boolean removeApplicationConnection(final T_A_HighLevelCommunication applicationCommunication) {
+		_acceptTimes.remove(applicationCommunication.getLowLevelCommunication());
 		if(_unsortedApplicationConnections.remove(applicationCommunication)) return true;
 		return _applicationConnections.remove(applicationCommunication.getId()) != null;
 	}
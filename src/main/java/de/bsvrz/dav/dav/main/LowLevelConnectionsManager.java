@@ -41,6 +41,7 @@ import de.bsvrz.dav.dav.communication.davProtocol.T_T_HighLevelCommunication;
 import de.bsvrz.sys.funclib.debug.Debug;
 
 import java.util.*;
+import java.util.concurrent.Semaphore;
 
 /**
  * Klasse, die die Verbindungen des Datenverteilers verwaltet. Diese Klasse initialisiert die LowLevelApplicationConnections,
@@ -72,6 +73,12 @@ public class LowLevelConnectionsManager implements LowLevelConnectionsManagerInt
 
 	private final LowLevelAuthentication _lowLevelAuthentication;
 
+	/**
+	 * Begrenzt die Anzahl gleichzeitig laufender Passwortprüfungen von Applikationen. Der Aufbau der Verbindungsobjekte selbst ist billig, die
+	 * eigentliche Authentifizierung läuft anschließend im Empfangsthread jeder Verbindung.
+	 */
+	private final Semaphore _applicationAuthenticationPermits;
+
 	private volatile boolean _closing = false;
 
 	private final HighLevelConnectionsManager _highLevelConnectionsManager;
@@ -96,6 +103,7 @@ public class LowLevelConnectionsManager implements LowLevelConnectionsManagerInt
 			// Grundlegende Initialisierungen
 			_debug.fine("Starte LowLevelConnectionsManager");
 			_serverDavParameters = serverDavParameters;
+			_applicationAuthenticationPermits = new Semaphore(_serverDavParameters.getConcurrentAuthentications(), true);
 			_clientDavParameters = _serverDavParameters.getClientDavParameters();
 			_transmitterId = _serverDavParameters.getDataTransmitterId();
 
@@ -344,6 +352,7 @@ public class LowLevelConnectionsManager implements LowLevelConnectionsManagerInt
 			}
 			if(_lowLevelTransmitterConnections != null) _lowLevelTransmitterConnections.close(error, message);
 			_lowLevelApplicationConnections.close(error, message);
+			_highLevelConnectionsManager.getApplicationManager().close();
 			try {
 				_selfClientDavConnection.getConnection().disconnect(error, message);
 			}
@@ -429,6 +438,11 @@ public class LowLevelConnectionsManager implements LowLevelConnectionsManagerInt
 		return _lowLevelApplicationConnections.getApplicationConnection(applicationId);
 	}
 
+	@Override
+	public Semaphore getApplicationAuthenticationPermits() {
+		return _applicationAuthenticationPermits;
+	}
+
 	@Override
 	public short getWeight(final long transmitterId) {
 		return _lowLevelTransmitterConnections.getWeight(transmitterId);
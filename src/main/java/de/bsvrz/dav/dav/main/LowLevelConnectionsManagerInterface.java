@@ -35,6 +35,7 @@ import de.bsvrz.dav.dav.communication.appProtocol.T_A_HighLevelCommunication;
 import de.bsvrz.dav.dav.communication.davProtocol.T_T_HighLevelCommunication;
 
 import java.util.Collection;
+import java.util.concurrent.Semaphore;
 
 /**
  * Interface für die Verwaltung der Verbindungen
@@ -129,6 +130,13 @@ public interface LowLevelConnectionsManagerInterface {
 	 * @return Existierende Verbindung mit dieser Id oder null falls nicht vorhanden
 	 */
 	T_A_HighLevelCommunication getApplicationConnection(long applicationId);
+
+	/**
+	 * Gibt die Begrenzung der gleichzeitig laufenden Passwortprüfungen von Applikationen zurück. Die Genehmigung wird nur für die Dauer der
+	 * eigentlichen Prüfung gehalten und danach in jedem Fall zurückgegeben.
+	 * @return Semaphore für die Passwortprüfungen
+	 */
+	Semaphore getApplicationAuthenticationPermits();
 	/**
 	 * Diese Methode wird von der Protokollsteuerung aufgerufen, um einer Verbindung ein Gewicht zuzuweisen. Die Information wird von der Wegverwaltung benutzt,
 	 * wenn eine Verbindung bewertet wird.
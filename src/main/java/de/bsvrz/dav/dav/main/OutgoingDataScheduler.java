@@ -0,0 +1,273 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.dav.main;
+
+import de.bsvrz.dav.daf.communication.lowLevel.LowLevelCommunicationInterface;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.DataTelegram;
+import de.bsvrz.dav.dav.util.LatencyStatistics;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Steuert den Versand von Datentelegrammen über eine Verbindung so, dass die Telegramme großer, zerstückelter Datensätze mit kleinen Datensätzen
+ * anderer Datenidentifikationen verschränkt werden. Ohne diese Steuerung werden alle Telegramme eines großen Datensatzes direkt hintereinander
+ * versendet und kleine, zeitkritische Datensätze müssen warten, bis der große Datensatz vollständig im Sendepuffer liegt.
+ * <p>
+ * Kleine Datensätze werden direkt versendet, solange keine Telegramme großer Datensätze anstehen. Telegramme zerstückelter Datensätze werden in
+ * eine Warteschlange eingereiht und von einem eigenen Hintergrund-Thread der Verbindung versendet. Während dieser arbeitet, werden kleine Datensätze bevorzugt: Vor
+ * jedem Telegramm eines großen Datensatzes dürfen bis zu {@link #getSmallDatasetWeight()} wartende kleine Datensätze versendet werden. Die
+ * Reihenfolge der Telegramme einer Datenidentifikation bleibt immer erhalten: Kleine Datensätze einer Datenidentifikation, für die noch
+ * Telegramme eines großen Datensatzes anstehen, werden hinter diesen eingereiht.
+ * <p>
+ * Die Warteschlangen sind zusammen auf {@link #MAX_QUEUED_TELEGRAMS} Einträge begrenzt. Ist die Grenze erreicht, blockiert {@link
+ * #send(DataTelegram, BaseSubscriptionInfo, boolean)} so lange, bis der Hintergrund-Thread wieder Telegramme an die {@link
+ * LowLevelCommunicationInterface LowLevelCommunication} übergeben konnte. Ein langsamer Empfänger bremst den Absender damit wie beim direkten
+ * Versand über den Sendepuffer der Verbindung.
+ * <p>
+ * Für beide Klassen wird die Zeit zwischen Übergabe an diese Klasse und Übergabe an die {@link LowLevelCommunicationInterface
+ * LowLevelCommunication} verbindungsübergreifend erfasst, siehe {@link #getStatistics()}.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class OutgoingDataScheduler {
+
+	private static final Debug _debug = Debug.getLogger();
+
+	/** Laufzeiten der kleinen (nicht zerstückelten) Datensätze über alle Verbindungen */
+	private static final LatencyStatistics _smallDatasetLatency = new LatencyStatistics("Kleine Datensätze");
+
+	/** Laufzeiten der Telegramme großer (zerstückelter) Datensätze über alle Verbindungen */
+	private static final LatencyStatistics _largeDatasetLatency = new LatencyStatistics("Telegramme großer Datensätze");
+
+	/** Maximale Anzahl der wartenden Einträge beider Warteschlangen zusammen */
+	private static final int MAX_QUEUED_TELEGRAMS = 256;
+
+	private final LowLevelCommunicationInterface _lowLevelCommunication;
+
+	private final int _smallDatasetWeight;
+
+	/** Wartende kleine Datensätze */
+	private final ArrayDeque<Entry> _smallQueue = new ArrayDeque<Entry>();
+
+	/** Wartende Telegramme großer Datensätze und dahinter eingereihte kleine Datensätze der gleichen Datenidentifikation */
+	private final ArrayDeque<Entry> _largeQueue = new ArrayDeque<Entry>();
+
+	/** Anzahl der Einträge in {@link #_largeQueue} je Datenidentifikation, die noch nicht vollständig versendet wurden */
+	private final Map<BaseSubscriptionInfo, Integer> _pendingLargeTelegrams = new HashMap<BaseSubscriptionInfo, Integer>();
+
+	/** Thread dieser Verbindung, der die Warteschlangen abarbeitet. Wird beim ersten Telegramm eines großen Datensatzes gestartet. */
+	private Thread _worker = null;
+
+	/** true, solange der Hintergrund-Thread Einträge versendet; kleine Datensätze werden dann ebenfalls eingereiht */
+	private boolean _workerActive = false;
+
+	private boolean _closed = false;
+
+	/**
+	 * Erstellt eine neue Versandsteuerung
+	 *
+	 * @param lowLevelCommunication Verbindung, über die die Telegramme versendet werden
+	 * @param smallDatasetWeight    Anzahl der kleinen Datensätze, die vor jedem Telegramm eines großen Datensatzes versendet werden dürfen
+	 */
+	public OutgoingDataScheduler(final LowLevelCommunicationInterface lowLevelCommunication, final int smallDatasetWeight) {
+		_lowLevelCommunication = lowLevelCommunication;
+		_smallDatasetWeight = Math.max(1, smallDatasetWeight);
+	}
+
+	/**
+	 * Versendet ein Datentelegramm bzw. reiht es in die passende Warteschlange ein. Sind die Warteschlangen voll, wartet die Methode, bis wieder
+	 * Platz ist.
+	 *
+	 * @param telegram           Zu versendendes Telegramm
+	 * @param info               Datenidentifikation des Telegramms
+	 * @param partOfLargeDataset true, falls das Telegramm zu einem zerstückelten Datensatz gehört
+	 */
+	public void send(final DataTelegram telegram, final BaseSubscriptionInfo info, final boolean partOfLargeDataset) {
+		final long now = System.nanoTime();
+		synchronized(this) {
+			while(!_closed && _smallQueue.size() + _largeQueue.size() >= MAX_QUEUED_TELEGRAMS) {
+				try {
+					wait();
+				}
+				catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			if(_closed) return;
+			final Integer pending = _pendingLargeTelegrams.get(info);
+			if(partOfLargeDataset || pending != null) {
+				_pendingLargeTelegrams.put(info, pending == null ? 1 : pending + 1);
+				_largeQueue.add(new Entry(telegram, info, partOfLargeDataset, true, now));
+				startWorker();
+				return;
+			}
+			if(_workerActive) {
+				_smallQueue.add(new Entry(telegram, info, false, false, now));
+				return;
+			}
+		}
+		_lowLevelCommunication.send(telegram);
+		_smallDatasetLatency.recordSince(now);
+	}
+
+	/** Verwirft alle wartenden Telegramme, z.B. weil die Verbindung terminiert wurde. */
+	public synchronized void close() {
+		_closed = true;
+		_smallQueue.clear();
+		_largeQueue.clear();
+		_pendingLargeTelegrams.clear();
+		notifyAll();
+	}
+
+	/**
+	 * Gibt die Anzahl der kleinen Datensätze zurück, die vor jedem Telegramm eines großen Datensatzes versendet werden dürfen
+	 *
+	 * @return Gewichtung der kleinen Datensätze
+	 */
+	public int getSmallDatasetWeight() {
+		return _smallDatasetWeight;
+	}
+
+	/**
+	 * Gibt die Perzentile der Wartezeiten beider Klassen über alle Verbindungen als Text zurück
+	 *
+	 * @return Text für Debug-Ausgaben
+	 */
+	public static String getStatistics() {
+		return "Wartezeiten beim Versand von Datentelegrammen:\n" + _smallDatasetLatency + "\n" + _largeDatasetLatency;
+	}
+
+	private void startWorker() {
+		_workerActive = true;
+		if(_worker == null) {
+			_worker = new Thread(
+					new Runnable() {
+						@Override
+						public void run() {
+							sendQueuedTelegrams();
+						}
+					}, "Telegrammverschränkung"
+			);
+			_worker.setDaemon(true);
+			_worker.start();
+		}
+		else {
+			notifyAll();
+		}
+	}
+
+	private void sendQueuedTelegrams() {
+		int smallDatasetCredit = _smallDatasetWeight;
+		while(true) {
+			final Entry entry;
+			synchronized(this) {
+				while(!_closed && _smallQueue.isEmpty() && _largeQueue.isEmpty()) {
+					_workerActive = false;
+					try {
+						wait();
+					}
+					catch(InterruptedException e) {
+						_worker = null;
+						return;
+					}
+				}
+				if(_closed) {
+					_workerActive = false;
+					return;
+				}
+				if(!_smallQueue.isEmpty() && (smallDatasetCredit > 0 || _largeQueue.isEmpty())) {
+					entry = _smallQueue.poll();
+					smallDatasetCredit--;
+				}
+				else {
+					entry = _largeQueue.poll();
+					smallDatasetCredit = _smallDatasetWeight;
+				}
+				// Wartende Absender können wieder einreihen
+				notifyAll();
+			}
+			try {
+				_lowLevelCommunication.send(entry._telegram);
+			}
+			catch(RuntimeException e) {
+				_debug.warning("Fehler beim Versand eines Datentelegramms", e);
+			}
+			if(entry._partOfLargeDataset) {
+				_largeDatasetLatency.recordSince(entry._time);
+			}
+			else {
+				_smallDatasetLatency.recordSince(entry._time);
+			}
+			if(entry._inLargeQueue) {
+				synchronized(this) {
+					// Erst nach dem Versand freigeben, damit nachfolgende kleine Datensätze nicht überholen
+					final Integer pending = _pendingLargeTelegrams.get(entry._info);
+					if(pending != null) {
+						if(pending <= 1) {
+							_pendingLargeTelegrams.remove(entry._info);
+						}
+						else {
+							_pendingLargeTelegrams.put(entry._info, pending - 1);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static final class Entry {
+
+		private final DataTelegram _telegram;
+
+		private final BaseSubscriptionInfo _info;
+
+		private final boolean _partOfLargeDataset;
+
+		private final boolean _inLargeQueue;
+
+		private final long _time;
+
+		private Entry(
+				final DataTelegram telegram,
+				final BaseSubscriptionInfo info,
+				final boolean partOfLargeDataset,
+				final boolean inLargeQueue,
+				final long time) {
+			_telegram = telegram;
+			_info = info;
+			_partOfLargeDataset = partOfLargeDataset;
+			_inLargeQueue = inLargeQueue;
+			_time = time;
+		}
+	}
+}
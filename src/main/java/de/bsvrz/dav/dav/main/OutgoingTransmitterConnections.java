@@ -35,16 +35,29 @@ import de.bsvrz.dav.daf.main.authentication.ClientCredentials;
 import de.bsvrz.dav.daf.main.impl.config.telegrams.TransmitterConnectionInfo;
 import de.bsvrz.dav.daf.main.impl.config.telegrams.TransmitterInfo;
 import de.bsvrz.dav.dav.communication.davProtocol.T_T_HighLevelCommunication;
+import de.bsvrz.dav.dav.util.LatencyStatistics;
 import de.bsvrz.sys.funclib.debug.Debug;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Verwaltung für ausgehende Datenverteilerverbindungen
+ * <p>
+ * Verbindungsversuche werden zeitgesteuert eingeplant und parallel in einem eigenen Threadpool durchgeführt, damit ein nicht erreichbarer
+ * Datenverteiler mit langem Verbindungs-Timeout den Verbindungsaufbau zu anderen Datenverteilern nicht verzögert. Nach fehlgeschlagenen
+ * Versuchen wird die Wartezeit bis zum nächsten Versuch je Datenverteiler exponentiell bis zu einem Maximum erhöht und zufällig gestreut.
  *
  * @author Kappich Systemberatung
  * @version $Revision$
@@ -54,10 +67,51 @@ public class OutgoingTransmitterConnections extends AbstractTransmitterConnectio
 	private static final Debug _debug = Debug.getLogger();
 
 	/**
-	 * Threadpool, der nicht etablierte Verbindungen aufbaut
+	 * Faktor, um den die Wiederverbindungswartezeit nach mehreren fehlgeschlagenen Versuchen maximal erhöht wird
+	 */
+	private static final int MAXIMUM_BACKOFF_FACTOR = 8;
+
+	/**
+	 * Ergebnis eines Verbindungsversuchs
+	 */
+	private enum ConnectionAttemptResult {
+		/** Verbindung wurde hergestellt */
+		CONNECTED,
+		/** Verbindung konnte nicht hergestellt werden */
+		FAILED,
+		/** Es läuft bereits ein anderer Verbindungsversuch zum gleichen Datenverteiler, es wurde kein Versuch unternommen */
+		ALREADY_CONNECTING
+	}
+
+	/**
+	 * Threadpool, der Verbindungsversuche zeitgesteuert einplant
 	 */
 	private final ScheduledExecutorService _transmitterReconnectService = Executors.newScheduledThreadPool(1);
 
+	/**
+	 * Threadpool, der die (blockierenden) Verbindungsversuche parallel durchführt
+	 */
+	private final ExecutorService _transmitterConnectService = Executors.newCachedThreadPool(
+			new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable r) {
+					final Thread thread = new Thread(r, "DavDavVerbindungsaufbau");
+					thread.setDaemon(true);
+					return thread;
+				}
+			}
+	);
+
+	/**
+	 * Zustand des Verbindungsaufbaus je benachbartem Datenverteiler (ID)
+	 */
+	private final Map<Long, ReconnectionState> _reconnectionStates = new ConcurrentHashMap<Long, ReconnectionState>();
+
+	/**
+	 * IDs der Datenverteiler, zu denen gerade ein Verbindungsversuch läuft
+	 */
+	private final Set<Long> _connectingTransmitters = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+
 	/**
 	 * Verwaltung aller offenen Verbindungen
 	 */
@@ -87,6 +141,15 @@ public class OutgoingTransmitterConnections extends AbstractTransmitterConnectio
 		_serverConnection = serverConnection;
 		_reconnectionDelay = reconnectionDelay;
 		_connections = connectionMap;
+		// Zeiten bis zur Wiederherstellung der Verbindungen regelmäßig ausgeben
+		_transmitterReconnectService.scheduleAtFixedRate(
+				new Runnable() {
+					@Override
+					public void run() {
+						if(!_reconnectionStates.isEmpty()) _debug.fine(getReconnectionStatistics());
+					}
+				}, 60, 60, TimeUnit.SECONDS
+		);
 	}
 
 	public void start() {
@@ -99,10 +162,7 @@ public class OutgoingTransmitterConnections extends AbstractTransmitterConnectio
 			}
 			TransmitterInfo t1 = info.getTransmitter_1();
 			if(t1.getTransmitterId() == _connections.getMyTransmitterId()) {
-				if(!connectToMainTransmitter(info)) {
-					connectToAlternativeTransmitters(info);
-					scheduleTransmitterConnect(info, _reconnectionDelay, TimeUnit.MILLISECONDS);
-				}
+				scheduleTransmitterConnect(info, 0, TimeUnit.MILLISECONDS);
 			}
 		}
 	}
@@ -129,22 +189,22 @@ public class OutgoingTransmitterConnections extends AbstractTransmitterConnectio
 	 * die Spezifikation von Ersatzverbindungen festgelegt, um welche Art von Verrbindung es sich handelt.
 	 *
 	 * @param transmitterConnectionInfo Enthält Informationen zu der Verbindungart zwischen zwei Datenverteilern.
-	 * @return true: Verbindung hergestellt, false: Verbindung nicht hergestellt
-	 * @see #connectToTransmitter(TransmitterInfo, short, long, String)
+	 * @return Ergebnis des Verbindungsversuchs
+	 * @see #connectToTransmitter(TransmitterInfo, short, String)
 	 */
-	private boolean connectToMainTransmitter(final TransmitterConnectionInfo transmitterConnectionInfo) {
+	private ConnectionAttemptResult connectToMainTransmitter(final TransmitterConnectionInfo transmitterConnectionInfo) {
 		final TransmitterInfo t2 = transmitterConnectionInfo.getTransmitter_2();
 		final short weight = transmitterConnectionInfo.getWeight();
-		final long waitingTime = transmitterConnectionInfo.getConnectionTimeThreshold();
-		return connectToTransmitter(t2, weight, waitingTime, transmitterConnectionInfo.getUserName());
+		return connectToTransmitter(t2, weight, transmitterConnectionInfo.getUserName());
 	}
 
 	/**
 	 * Startet den Ersatzverbindungsaufbau zwischen zwei nicht direkt benachbarten Datenverteilern. Beim Verbindungsaufbau zwischen zwei DAV werden durch die Angabe der beiden Kommunikationspartner, die Wichtung der Verbindung, die Angabe, welche(r) Datenverteiler die Verbindung
 	 * aufbaut und die Spezifikation von Ersatzverbindungen festgelegt, um welche Art von Verrbindung es sich handelt. Ob Ersatzverbindungen automatisch etabliert werden sollen, wird durch das autoExchangeTransmitterDetection Flag festgelegt.
+	 * Die Ersatzverbindungen werden parallel im Hintergrund aufgebaut, diese Methode wartet nicht auf das Ergebnis.
 	 *
 	 * @param transmitterConnectionInfo Enthält Informationen zu der Verbindungart zwischen zwei Datenverteilern.
-	 * @see #connectToTransmitter(TransmitterInfo, short, long, String)
+	 * @see #connectToTransmitterAsync(TransmitterInfo, short, String)
 	 */
 	private void connectToAlternativeTransmitters(final TransmitterConnectionInfo transmitterConnectionInfo) {
 		final TransmitterInfo t2 = transmitterConnectionInfo.getTransmitter_2();
@@ -153,9 +213,8 @@ public class OutgoingTransmitterConnections extends AbstractTransmitterConnectio
 			for(final TransmitterConnectionInfo info : infos) {
 				final TransmitterInfo transmitterInfo = info.getTransmitter_2();
 				final short weight = info.getWeight();
-				final long time = info.getConnectionTimeThreshold();
 				if(transmitterInfo != null) {
-					connectToTransmitter(transmitterInfo, weight, time, transmitterConnectionInfo.getUserName());
+					connectToTransmitterAsync(transmitterInfo, weight, transmitterConnectionInfo.getUserName());
 				}
 			}
 		}
@@ -174,9 +233,8 @@ public class OutgoingTransmitterConnections extends AbstractTransmitterConnectio
 					}
 					if(tmpTransmitterConnectionInfo != null) {
 						final short weight = tmpTransmitterConnectionInfo.getWeight();
-						final long time = tmpTransmitterConnectionInfo.getConnectionTimeThreshold();
 						_connections.getActiveExchangeConnections().add(tmpTransmitterConnectionInfo);
-						connectToTransmitter(info, weight, time, tmpTransmitterConnectionInfo.getUserName());
+						connectToTransmitterAsync(info, weight, tmpTransmitterConnectionInfo.getUserName());
 					}
 				}
 			}
@@ -233,16 +291,38 @@ public class OutgoingTransmitterConnections extends AbstractTransmitterConnectio
 	}
 
 	/**
-	 * Startet den Verbindungsaufbau zwischen zwei Datenverteilern. Falls keine Verbindung etabliert werden konnte, wird eine entsprechende Exception gefangen
+	 * Startet einen Verbindungsversuch zu einem Datenverteiler im Hintergrund.
+	 *
+	 * @param transmitterInfo Information zum Datenverteiler
+	 * @param weight          Die Information wird von der Wegverwaltung benutzt, wenn eine Verbindung bewertet wird.
+	 * @param userName        Benutzername mit dem die Authentifizierung durchgeführt werden soll.
+	 * @see #connectToTransmitter(TransmitterInfo, short, String)
+	 */
+	private void connectToTransmitterAsync(final TransmitterInfo transmitterInfo, final short weight, final String userName) {
+		if(_lowLevelConnectionsManager.isClosing() || _connectingTransmitters.contains(transmitterInfo.getTransmitterId())) return;
+		_transmitterConnectService.execute(
+				new Runnable() {
+					@Override
+					public void run() {
+						if(_lowLevelConnectionsManager.isClosing()) return;
+						connectToTransmitter(transmitterInfo, weight, userName);
+					}
+				}
+		);
+	}
+
+	/**
+	 * Führt einen Verbindungsversuch zu einem Datenverteiler durch. Falls keine Verbindung etabliert werden konnte, wird eine entsprechende Exception gefangen.
+	 * Weitere Versuche werden vom Aufrufer eingeplant. Läuft bereits ein Verbindungsversuch zum gleichen Datenverteiler, wird kein weiterer gestartet.
 	 *
 	 * @param transmitterInfo Information zum Datenverteiler
 	 * @param weight          Die Information wird von der Wegverwaltung benutzt, wenn eine Verbindung bewertet wird.
-	 * @param time            Zeitspanne in der versucht werden soll eine Verbindung aufzubauen, in Millisekunden. Minimale Wartezeit eine Sekunde.
 	 * @param userName        Benutzername mit dem die Authentifizierung durchgeführt werden soll.
-	 * @return true, wenn Verbindung hergestellt werden konnte; false, wenn Verbindung nicht hergestellt werden konnte.
+	 * @return {@link ConnectionAttemptResult#CONNECTED}, wenn Verbindung hergestellt werden konnte; {@link ConnectionAttemptResult#FAILED}, wenn
+	 * Verbindung nicht hergestellt werden konnte; {@link ConnectionAttemptResult#ALREADY_CONNECTING}, wenn bereits ein anderer Versuch läuft.
 	 * @see #connectToTransmitter(TransmitterInfo, short, String, ClientCredentials) 
 	 */
-	private boolean connectToTransmitter(final TransmitterInfo transmitterInfo, final short weight, final long time, String userName) {
+	private ConnectionAttemptResult connectToTransmitter(final TransmitterInfo transmitterInfo, final short weight, String userName) {
 		final ClientCredentials clientCredentials;
 		if(userName.isEmpty()) {
 			userName = _serverDavParameters.getUserName();
@@ -252,40 +332,31 @@ public class OutgoingTransmitterConnections extends AbstractTransmitterConnectio
 			_debug.error(
 					"Passwort des Benutzers " + userName + " konnte nicht ermittelt werden. Es wird gebraucht für Datenverteilerkopplung mit " + transmitterInfo
 			);
-			return false;
+			return ConnectionAttemptResult.FAILED;
 		}
-		_debug.info("Starte Datenverteilerkopplung als Benutzer " + userName + " zu ", transmitterInfo);
-		_debug.finer(" time", time);
-		_debug.finer(" weight", weight);
-		long waitingTime = time;
-		if(waitingTime < 1000) {
-			waitingTime = 1000;
+		if(!_connectingTransmitters.add(transmitterInfo.getTransmitterId())) {
+			_debug.fine("Verbindungsversuch zum " + transmitterInfo + " läuft bereits");
+			return ConnectionAttemptResult.ALREADY_CONNECTING;
 		}
-		final long startTime = System.currentTimeMillis();
-		do {
-			try {
-				connectToTransmitter(transmitterInfo, weight, userName, clientCredentials);
-				return true;
-			}
-			catch(ConnectionException | CommunicationError ex) {
-				_debug.warning("Verbindung zum " + transmitterInfo + " konnte nicht aufgebaut werden", ex);
-				_lowLevelConnectionsManager.updateCommunicationState();
-				if(System.getProperty("agent.name") != null) {
-					// Wenn aus Testumgebung gestartet
-					System.out.println("Verbindung zum " + transmitterInfo + " konnte nicht aufgebaut werden: " + ex);
-					ex.printStackTrace();
-				}
-				try {
-					Thread.sleep(_reconnectionDelay);
-				}
-				catch(InterruptedException e) {
-					return false;
-				}
-				waitingTime -= (System.currentTimeMillis() - startTime);
+		try {
+			_debug.info("Starte Datenverteilerkopplung als Benutzer " + userName + " zu ", transmitterInfo);
+			_debug.finer(" weight", weight);
+			connectToTransmitter(transmitterInfo, weight, userName, clientCredentials);
+			return ConnectionAttemptResult.CONNECTED;
+		}
+		catch(ConnectionException | CommunicationError ex) {
+			_debug.warning("Verbindung zum " + transmitterInfo + " konnte nicht aufgebaut werden", ex);
+			_lowLevelConnectionsManager.updateCommunicationState();
+			if(System.getProperty("agent.name") != null) {
+				// Wenn aus Testumgebung gestartet
+				System.out.println("Verbindung zum " + transmitterInfo + " konnte nicht aufgebaut werden: " + ex);
+				ex.printStackTrace();
 			}
+			return ConnectionAttemptResult.FAILED;
+		}
+		finally {
+			_connectingTransmitters.remove(transmitterInfo.getTransmitterId());
 		}
-		while(waitingTime > 0);
-		return false;
 	}
 
 	/**
@@ -399,46 +470,231 @@ public class OutgoingTransmitterConnections extends AbstractTransmitterConnectio
 
 	public void close() {
 		_transmitterReconnectService.shutdown();
+		_transmitterConnectService.shutdown();
+	}
+
+	/**
+	 * Gibt die Zeiten bis zur (Wieder-)Herstellung der Verbindungen je benachbartem Datenverteiler als Text zurück
+	 *
+	 * @return Text für Debug-Ausgaben
+	 */
+	private String getReconnectionStatistics() {
+		final StringBuilder builder = new StringBuilder("Verbindungsaufbau zu benachbarten Datenverteilern:");
+		for(final ReconnectionState state : _reconnectionStates.values()) {
+			builder.append("\n").append(state);
+		}
+		return builder.toString();
 	}
 
 	class TransmitterReconnectionTask implements Runnable {
 
 		private final TransmitterConnectionInfo _transmitterConnectionInfo;
 
-		public TransmitterReconnectionTask(TransmitterConnectionInfo transmitterConnectionInfo) {
+		private final ReconnectionState _state;
+
+		public TransmitterReconnectionTask(TransmitterConnectionInfo transmitterConnectionInfo, final ReconnectionState state) {
 			_transmitterConnectionInfo = transmitterConnectionInfo;
+			_state = state;
 		}
 
 		/**
-		 * Behandelt den Verbindungsaufbau mit einem entfernten Datenverteiler (Transmitter)
+		 * Übergibt den fälligen Verbindungsversuch an den Threadpool für Verbindungsversuche
 		 */
 		@Override
 		public final void run() {
-			if(_lowLevelConnectionsManager.isClosing()) return;
+			synchronized(_state) {
+				_state._scheduledAttempt = null;
+				_state._attemptRunning = true;
+			}
+			try {
+				_transmitterConnectService.execute(
+						new Runnable() {
+							@Override
+							public void run() {
+								reconnect(_transmitterConnectionInfo, _state);
+							}
+						}
+				);
+			}
+			catch(RuntimeException e) {
+				synchronized(_state) {
+					_state._attemptRunning = false;
+				}
+				throw e;
+			}
+		}
+	}
 
-			if(_transmitterConnectionInfo != null) {
-				if(connectToMainTransmitter(_transmitterConnectionInfo)) {
-					// Verbindung erfolgreich wiederhergestellt, Ersatzverbindungen (falls vorhanden) entfernen.
-					disableReplacementConnection(_transmitterConnectionInfo);
+	/**
+	 * Behandelt den Verbindungsaufbau mit einem entfernten Datenverteiler (Transmitter) und plant bei Misserfolg den nächsten Versuch ein
+	 *
+	 * @param transmitterConnectionInfo Konfigurierte Verbindung
+	 * @param state                     Zustand des Verbindungsaufbaus zu diesem Datenverteiler
+	 */
+	private void reconnect(final TransmitterConnectionInfo transmitterConnectionInfo, final ReconnectionState state) {
+		ConnectionAttemptResult result = ConnectionAttemptResult.FAILED;
+		try {
+			if(_lowLevelConnectionsManager.isClosing()) return;
+			result = connectToMainTransmitter(transmitterConnectionInfo);
+			if(result == ConnectionAttemptResult.CONNECTED) {
+				// Verbindung erfolgreich wiederhergestellt, Ersatzverbindungen (falls vorhanden) entfernen.
+				disableReplacementConnection(transmitterConnectionInfo);
+			}
+			else if(result == ConnectionAttemptResult.FAILED) {
+				// Verbindung kann nicht aufgebaut werden, sicherstellen, dass eventuelle Ersatzverbindungen sofort aufgebaut werden.
+				connectToAlternativeTransmitters(transmitterConnectionInfo);
+			}
+		}
+		finally {
+			synchronized(state) {
+				state._attemptRunning = false;
+				if(result == ConnectionAttemptResult.ALREADY_CONNECTING) {
+					// Kein Fehlversuch: Ergebnis des laufenden Versuchs abwarten und mit unveränderter Wartezeit erneut prüfen
+					state._retryRequested = false;
+					scheduleAttempt(transmitterConnectionInfo, state, getRetryDelay(state._failedAttempts));
 				}
-				else {
-					try {
-						// Verbindung kann nicht aufgebaut werden, sicherstellen, dass eventuelle Ersatzverbindungen aufgebaut werden.
-						connectToAlternativeTransmitters(_transmitterConnectionInfo);
-					}
-					finally {
-						// Nach ein paar Sekunden neuen Verbindungsversuch starten.
-						scheduleTransmitterConnect(_transmitterConnectionInfo, _reconnectionDelay, TimeUnit.MILLISECONDS);
+				else if(result == ConnectionAttemptResult.CONNECTED) {
+					state.connected();
+					_debug.info(state.toString());
+					if(state._retryRequested) {
+						// Verbindung wurde zwischenzeitlich wieder abgebrochen
+						state._retryRequested = false;
+						state._outageStart = System.nanoTime();
+						scheduleAttempt(transmitterConnectionInfo, state, _reconnectionDelay);
 					}
 				}
+				else {
+					state._failedAttempts++;
+					state._totalFailedAttempts++;
+					state._retryRequested = false;
+					scheduleAttempt(transmitterConnectionInfo, state, getRetryDelay(state._failedAttempts));
+				}
 			}
 		}
 	}
 
+	/**
+	 * Plant einen Verbindungsversuch zu einem Datenverteiler ein. Ist bereits ein früherer Versuch eingeplant oder läuft gerade ein Versuch,
+	 * wird kein weiterer Versuch eingeplant.
+	 *
+	 * @param transmitterConnectionInfo Konfigurierte Verbindung
+	 * @param delay                     Wartezeit bis zum Versuch (wird zufällig gestreut)
+	 * @param timeUnit                  Einheit der Wartezeit
+	 */
 	void scheduleTransmitterConnect(final TransmitterConnectionInfo transmitterConnectionInfo, final int delay, final TimeUnit timeUnit) {
 		if(_lowLevelConnectionsManager.isClosing()) return;
-		_transmitterReconnectService.schedule(new TransmitterReconnectionTask(transmitterConnectionInfo), delay, timeUnit);
+		final ReconnectionState state = getReconnectionState(transmitterConnectionInfo);
+		synchronized(state) {
+			if(state._outageStart < 0) state._outageStart = System.nanoTime();
+			if(state._attemptRunning) {
+				// Der laufende Versuch plant danach ggf. selbst einen neuen Versuch ein
+				state._retryRequested = true;
+				return;
+			}
+			scheduleAttempt(transmitterConnectionInfo, state, addJitter(timeUnit.toMillis(delay)));
+		}
+	}
+
+	private void scheduleAttempt(final TransmitterConnectionInfo transmitterConnectionInfo, final ReconnectionState state, final long delayMillis) {
+		if(_lowLevelConnectionsManager.isClosing() || _transmitterReconnectService.isShutdown()) return;
+		if(state._scheduledAttempt != null) {
+			if(state._scheduledAttempt.getDelay(TimeUnit.MILLISECONDS) <= delayMillis) return;
+			state._scheduledAttempt.cancel(false);
+		}
+		state._scheduledAttempt = _transmitterReconnectService.schedule(
+				new TransmitterReconnectionTask(transmitterConnectionInfo, state), delayMillis, TimeUnit.MILLISECONDS
+		);
+	}
+
+	private ReconnectionState getReconnectionState(final TransmitterConnectionInfo transmitterConnectionInfo) {
+		final TransmitterInfo transmitterInfo = transmitterConnectionInfo.getTransmitter_2();
+		synchronized(_reconnectionStates) {
+			ReconnectionState state = _reconnectionStates.get(transmitterInfo.getTransmitterId());
+			if(state == null) {
+				state = new ReconnectionState(transmitterInfo);
+				_reconnectionStates.put(transmitterInfo.getTransmitterId(), state);
+			}
+			return state;
+		}
+	}
+
+	/**
+	 * Bestimmt die Wartezeit bis zum nächsten Versuch nach fehlgeschlagenen Verbindungsversuchen. Die Wiederverbindungswartezeit wird mit jedem
+	 * Fehlversuch verdoppelt, bis das {@link #MAXIMUM_BACKOFF_FACTOR}-fache erreicht ist.
+	 *
+	 * @param failedAttempts Anzahl der aufeinanderfolgenden Fehlversuche
+	 * @return Wartezeit in ms
+	 */
+	private long getRetryDelay(final int failedAttempts) {
+		final long maximumDelay = (long) _reconnectionDelay * MAXIMUM_BACKOFF_FACTOR;
+		long delay = _reconnectionDelay;
+		for(int i = 1; i < failedAttempts && delay < maximumDelay; i++) {
+			delay *= 2;
+		}
+		return addJitter(Math.min(delay, maximumDelay));
+	}
+
+	/**
+	 * Streut eine Wartezeit zufällig um +/- 20 %, damit sich Verbindungsversuche mehrerer Datenverteiler nach einem gemeinsamen Ausfall verteilen
+	 *
+	 * @param delay Wartezeit in ms
+	 * @return Gestreute Wartezeit in ms
+	 */
+	private static long addJitter(final long delay) {
+		if(delay <= 0) return 0;
+		final long jitter = delay / 5;
+		return delay - jitter + ThreadLocalRandom.current().nextLong(2 * jitter + 1);
 	}
 
+	/**
+	 * Zustand und Statistik des Verbindungsaufbaus zu einem benachbarten Datenverteiler
+	 */
+	private static final class ReconnectionState {
+
+		/** Zeiten vom Verbindungsabbruch (bzw. Start) bis zur hergestellten Verbindung */
+		private final LatencyStatistics _timeToReconnect;
+
+		private ScheduledFuture<?> _scheduledAttempt = null;
+
+		private boolean _attemptRunning = false;
+
+		/** Während eines laufenden Versuchs wurde ein neuer Versuch angefordert, z.B. weil die Verbindung wieder abgebrochen ist */
+		private boolean _retryRequested = false;
 
+		/** Aufeinanderfolgende Fehlversuche seit der letzten hergestellten Verbindung */
+		private int _failedAttempts = 0;
+
+		private long _totalFailedAttempts = 0;
+
+		/** Zeitpunkt (System.nanoTime()) des Verbindungsabbruchs oder -1, falls die Verbindung besteht */
+		private long _outageStart = -1;
+
+		private long _lastTimeToReconnect = -1;
+
+		private ReconnectionState(final TransmitterInfo transmitterInfo) {
+			_timeToReconnect = new LatencyStatistics("Zeit bis zur Verbindung mit " + transmitterInfo);
+		}
+
+		private void connected() {
+			if(_outageStart >= 0) {
+				_lastTimeToReconnect = System.nanoTime() - _outageStart;
+				_timeToReconnect.record(_lastTimeToReconnect);
+			}
+			_outageStart = -1;
+			_failedAttempts = 0;
+		}
+
+		@Override
+		public synchronized String toString() {
+			final StringBuilder builder = new StringBuilder(_timeToReconnect.toString());
+			builder.append(", Fehlversuche=").append(_totalFailedAttempts);
+			if(_lastTimeToReconnect >= 0) {
+				builder.append(", zuletzt=").append(TimeUnit.NANOSECONDS.toMillis(_lastTimeToReconnect)).append("ms");
+			}
+			if(_outageStart >= 0) {
+				builder.append(", nicht verbunden seit ").append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - _outageStart)).append("ms");
+			}
+			return builder.toString();
+		}
+	}
 }
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.main;
+
+import de.bsvrz.dav.dav.subscriptions.SubscriptionInfo;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Nachlauf von Anmeldungen bei entfernten Zentraldatenverteilern. Meldet sich der letzte Empfänger oder Sender einer Datenidentifikation ab,
+ * deren Zentraldatenverteiler ein anderer Datenverteiler ist, werden die Anmeldungen beim Zentraldatenverteiler nicht sofort abgemeldet,
+ * sondern bleiben für eine Nachlaufzeit bestehen. Meldet sich in dieser Zeit wieder ein Empfänger oder Sender an, kann er die bestehenden
+ * Anmeldungen sofort nutzen und erhält den zwischengespeicherten aktuellen Datensatz, ohne dass An- und Abmeldungen im Datenverteilernetz
+ * verschickt werden. Das vermeidet bei häufig wechselnden Anmeldungen (z.B. beim Umschalten von Ansichten in Bedienoberflächen) unnötige
+ * Last und Wartezeiten auf den ersten Datensatz.
+ * <p>
+ * Die Anzahl der nachlaufenden Datenidentifikationen und deren geschätzter Speicherbedarf sind begrenzt. Wird eine Grenze überschritten,
+ * wird der Nachlauf der ältesten Datenidentifikationen vorzeitig beendet.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class RemoteSubscriptionLinger {
+
+	private static final Debug _debug = Debug.getLogger();
+
+	/** Geschätzter Speicherbedarf einer nachlaufenden Datenidentifikation ohne den zwischengespeicherten Datensatz in Bytes */
+	private static final long ENTRY_OVERHEAD = 512;
+
+	/** Nachlaufzeit in ms */
+	private final long _lingerTime;
+
+	/** Maximale Anzahl gleichzeitig nachlaufender Datenidentifikationen */
+	private final int _maxCount;
+
+	/** Maximaler geschätzter Speicherbedarf aller nachlaufenden Datenidentifikationen in Bytes */
+	private final long _maxMemory;
+
+	/** Anmeldungsverwaltung */
+	private final SubscriptionsManager _subscriptionsManager;
+
+	/** Nachlaufende Datenidentifikationen in der Reihenfolge des Nachlaufbeginns */
+	private final LinkedHashMap<SubscriptionInfo, Entry> _lingering = new LinkedHashMap<SubscriptionInfo, Entry>();
+
+	private final Timer _timer = new Timer("AnmeldungsNachlauf", true);
+
+	/** Geschätzter Speicherbedarf aller nachlaufenden Datenidentifikationen in Bytes */
+	private long _memory = 0;
+
+	private long _reattached = 0;
+
+	private long _expired = 0;
+
+	private long _evicted = 0;
+
+	/**
+	 * Erstellt eine neue Verwaltung
+	 *
+	 * @param lingerTime           Nachlaufzeit in ms
+	 * @param maxCount             Maximale Anzahl gleichzeitig nachlaufender Datenidentifikationen
+	 * @param maxMemory            Maximaler geschätzter Speicherbedarf aller nachlaufenden Datenidentifikationen in Bytes
+	 * @param subscriptionsManager Anmeldungsverwaltung
+	 */
+	public RemoteSubscriptionLinger(final long lingerTime, final int maxCount, final long maxMemory, final SubscriptionsManager subscriptionsManager) {
+		_lingerTime = lingerTime;
+		_maxCount = maxCount;
+		_maxMemory = maxMemory;
+		_subscriptionsManager = subscriptionsManager;
+		final long period = Math.max(100, Math.min(1000, lingerTime));
+		_timer.schedule(
+				new TimerTask() {
+					@Override
+					public void run() {
+						endLingering(removeExpired());
+					}
+				}, period, period
+		);
+	}
+
+	/**
+	 * Beginnt den Nachlauf einer Datenidentifikation. Wird synchronisiert auf die Anmeldeinformation aufgerufen, daher wird der Nachlauf
+	 * verdrängter Datenidentifikationen asynchron beendet.
+	 *
+	 * @param subscriptionInfo Anmeldeinformation
+	 * @param lingerStart      Beginn des Nachlaufs
+	 * @param dataSize         Größe des zwischengespeicherten Datensatzes in Bytes
+	 * @return true, falls die Anmeldungen nachlaufen sollen, false, falls sie sofort abgemeldet werden müssen
+	 */
+	public boolean startLingering(final SubscriptionInfo subscriptionInfo, final long lingerStart, final long dataSize) {
+		final Entry entry = new Entry(subscriptionInfo, lingerStart, dataSize + ENTRY_OVERHEAD);
+		final List<Entry> evicted = new ArrayList<Entry>();
+		synchronized(this) {
+			if(_maxCount <= 0 || entry._size > _maxMemory) return false;
+			remove(subscriptionInfo);
+			_lingering.put(subscriptionInfo, entry);
+			_memory += entry._size;
+			final Iterator<Entry> iterator = _lingering.values().iterator();
+			while((_lingering.size() > _maxCount || _memory > _maxMemory) && iterator.hasNext()) {
+				final Entry oldest = iterator.next();
+				if(oldest == entry) continue;
+				iterator.remove();
+				_memory -= oldest._size;
+				_evicted++;
+				evicted.add(oldest);
+			}
+		}
+		if(!evicted.isEmpty()) {
+			_timer.schedule(
+					new TimerTask() {
+						@Override
+						public void run() {
+							endLingering(evicted);
+						}
+					}, 0
+			);
+		}
+		return true;
+	}
+
+	/**
+	 * Wird aufgerufen, wenn der Nachlauf einer Datenidentifikation vorzeitig beendet wurde
+	 *
+	 * @param subscriptionInfo Anmeldeinformation
+	 * @param reattached       true, falls die Anmeldungen wieder benötigt werden
+	 */
+	public synchronized void stopLingering(final SubscriptionInfo subscriptionInfo, final boolean reattached) {
+		if(remove(subscriptionInfo) && reattached) _reattached++;
+	}
+
+	private boolean remove(final SubscriptionInfo subscriptionInfo) {
+		final Entry entry = _lingering.remove(subscriptionInfo);
+		if(entry == null) return false;
+		_memory -= entry._size;
+		return true;
+	}
+
+	private synchronized List<Entry> removeExpired() {
+		final List<Entry> result = new ArrayList<Entry>();
+		final long expireTime = System.currentTimeMillis() - _lingerTime;
+		final Iterator<Entry> iterator = _lingering.values().iterator();
+		while(iterator.hasNext()) {
+			final Entry entry = iterator.next();
+			if(entry._lingerStart > expireTime) break;
+			iterator.remove();
+			_memory -= entry._size;
+			_expired++;
+			result.add(entry);
+		}
+		return result;
+	}
+
+	private void endLingering(final List<Entry> entries) {
+		for(final Entry entry : entries) {
+			final SubscriptionInfo subscriptionInfo = _subscriptionsManager.openExistingSubscriptionInfo(entry._subscriptionInfo.getBaseSubscriptionInfo());
+			if(subscriptionInfo == null) continue;
+			try {
+				if(subscriptionInfo == entry._subscriptionInfo) subscriptionInfo.endLingering(entry._lingerStart);
+			}
+			catch(RuntimeException e) {
+				_debug.warning("Fehler beim Beenden des Nachlaufs von " + subscriptionInfo, e);
+			}
+			finally {
+				subscriptionInfo.close();
+			}
+		}
+	}
+
+	/**
+	 * Gibt die Anzahl der nachlaufenden, wieder verwendeten, abgelaufenen und verdrängten Datenidentifikationen als Text zurück
+	 *
+	 * @return Text für Debug-Ausgaben
+	 */
+	public synchronized String getStatistics() {
+		return "Nachlauf von Anmeldungen: " + _lingering.size() + " nachlaufend (ca. " + _memory + " Bytes), " + _reattached
+				+ " wieder verwendet, " + _expired + " abgelaufen, " + _evicted + " verdrängt";
+	}
+
+	/** Nachlaufende Datenidentifikation */
+	private static final class Entry {
+
+		private final SubscriptionInfo _subscriptionInfo;
+
+		private final long _lingerStart;
+
+		private final long _size;
+
+		private Entry(final SubscriptionInfo subscriptionInfo, final long lingerStart, final long size) {
+			_subscriptionInfo = subscriptionInfo;
+			_lingerStart = lingerStart;
+			_size = size;
+		}
+	}
+}
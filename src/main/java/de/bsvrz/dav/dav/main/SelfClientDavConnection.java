@@ -40,6 +40,9 @@ public class SelfClientDavConnection {
 
 	private static final Debug _debug = Debug.getLogger();
 
+	/** Wartezeit in Millisekunden vor dem ersten erneuten Verbindungsversuch */
+	private static final long INITIAL_SLEEP_TIME = 100;
+
 	private final DafDataModel _dataModel;
 
 	private final ClientDavConnection _connection;
@@ -50,6 +53,9 @@ public class SelfClientDavConnection {
 			long waitingTime = 0;
 			final long startTime = System.currentTimeMillis();
 			final long maxWaitingTime = CommunicationConstant.MAX_WAITING_TIME_FOR_CONNECTION;
+			// Die Wartezeit beginnt kurz und wird bis zur bisherigen festen Wartezeit verdoppelt, damit eine kurz nach dem Datenverteiler
+			// gestartete Konfiguration ohne unnötige Verzögerung erreicht wird
+			long sleepTime = INITIAL_SLEEP_TIME;
 			DafDataModel dataModel = null;
 			while(waitingTime < maxWaitingTime) {
 				try {
@@ -64,7 +70,8 @@ public class SelfClientDavConnection {
 					_debug.warning("Es konnte keine Verbindung zur Konfiguration hergestellt werden", ex);
 					try {
 						_connection.disconnect(false, "");
-						Thread.sleep(CommunicationConstant.SLEEP_TIME_WAITING_FOR_CONNECTION);
+						Thread.sleep(sleepTime);
+						sleepTime = Math.min(sleepTime * 2, CommunicationConstant.SLEEP_TIME_WAITING_FOR_CONNECTION);
 						waitingTime = System.currentTimeMillis() - startTime;
 					}
 					catch(InterruptedException e) {
@@ -39,9 +39,11 @@ import de.bsvrz.dav.daf.main.authentication.*;
 import de.bsvrz.dav.daf.main.impl.ArgumentParser;
 import de.bsvrz.dav.daf.main.impl.CommunicationConstant;
 import de.bsvrz.dav.daf.main.impl.InvalidArgumentException;
+import de.bsvrz.dav.dav.communication.tcpCommunication.InProcessServerCommunication;
 import de.bsvrz.sys.funclib.commandLineArgs.ArgumentList;
 import de.bsvrz.sys.funclib.debug.Debug;
 
+import java.net.InetSocketAddress;
 import java.nio.file.Paths;
 import java.util.*;
 
@@ -225,6 +227,131 @@ public class ServerDavParameters {
 	 * Bevorzugte Konfiguration der Verschlüsselung
 	 */
 	private EncryptionConfiguration _encryptionPreference;
+
+	/**
+	 * Ob Datensätze über Datenverteilerverbindungen als Differenz zum zuletzt übertragenen Datensatz versendet werden sollen.
+	 */
+	private boolean _davDavDeltaEncoding;
+
+	/**
+	 * Ob zerstückelte Datensätze im Zentraldatenverteiler direkt beim Eintreffen der einzelnen Telegramme verteilt werden sollen.
+	 */
+	private boolean _splitDatasetStreaming;
+
+	/**
+	 * Anzahl kleiner Datensätze, die beim Versand vor jedem Telegramm eines großen, zerstückelten Datensatzes versendet werden dürfen (0: keine
+	 * Verschränkung).
+	 */
+	private int _dataInterleavingWeight;
+
+	/**
+	 * Verzeichnis für die Zwischenspeicherung von Datensätzen bei unterbrochenen Datenverteilerverbindungen oder null, falls nicht aktiviert.
+	 */
+	private String _transmitterDataSpoolDirectory;
+
+	/**
+	 * Maximale Größe des Zwischenspeichers je unterbrochener Datenverteilerverbindung in Bytes.
+	 */
+	private int _transmitterDataSpoolCapacity;
+
+	/**
+	 * Maximale Dauer der Zwischenspeicherung nach Unterbrechung einer Datenverteilerverbindung in Millisekunden.
+	 */
+	private long _transmitterDataSpoolDuration;
+
+	/**
+	 * Attributgruppenverwendungen ("atg.pid:asp.pid"), deren Datensätze bei unterbrochenen Datenverteilerverbindungen zwischengespeichert werden.
+	 */
+	private List<String> _transmitterDataSpoolUsages;
+
+	/**
+	 * Karenzzeit in Millisekunden, für die eingehende Anmeldungen eines anderen Datenverteilers nach einem Verbindungsabbruch zurückgehalten werden
+	 * (0: keine Wiederaufnahme).
+	 */
+	private long _transmitterResumptionGracePeriod;
+
+	/**
+	 * Karenzzeit in Millisekunden, für die die Anmeldungen einer Applikation nach einem Verbindungsabbruch zurückgehalten werden
+	 * (0: keine Wiederaufnahme). Gilt nur für Applikationen, die eine Sitzungskennung übergeben, siehe {@link ApplicationSessionResumption}.
+	 */
+	private long _applicationResumptionGracePeriod;
+
+	/**
+	 * Nachlaufzeit in Millisekunden, für die nicht mehr benötigte Anmeldungen bei entfernten Zentraldatenverteilern bestehen bleiben
+	 * (0: sofortige Abmeldung).
+	 */
+	private long _remoteSubscriptionLingerTime;
+
+	/**
+	 * Maximale Anzahl gleichzeitig nachlaufender Datenidentifikationen.
+	 */
+	private int _remoteSubscriptionLingerCount;
+
+	/**
+	 * Maximaler geschätzter Speicherbedarf aller nachlaufenden Datenidentifikationen in Bytes.
+	 */
+	private long _remoteSubscriptionLingerMemory;
+
+	/**
+	 * Anzahl der Threads, die neu entgegengenommene Applikationsverbindungen aufbauen.
+	 */
+	private int _connectionSetupThreads;
+
+	/**
+	 * Maximale Anzahl entgegengenommener Applikationsverbindungen, die auf das Anlegen der Verbindungsobjekte warten.
+	 */
+	private int _connectionSetupQueueSize;
+
+	/**
+	 * Maximale Anzahl gleichzeitig laufender Passwortprüfungen (Authentifizierung bzw. SRP-Schritte) von Applikationen. Weitere Verbindungen
+	 * warten in ihrem Empfangsthread, bis eine Prüfung abgeschlossen ist.
+	 */
+	private int _concurrentAuthentications;
+
+	/**
+	 * Legt fest, ob die eigene Datenverteilerverbindung im lokalen Modus prozessintern statt über den Applikationsport aufgebaut wird.
+	 */
+	private boolean _inProcessSelfConnection;
+
+	/**
+	 * Zusätzliche Adressen, auf denen Applikationsverbindungen entgegengenommen werden. Nicht aufgelöste Adressen stehen für eine bestimmte
+	 * Netzwerkschnittstelle, Wildcard-Adressen für alle Schnittstellen.
+	 */
+	private List<InetSocketAddress> _additionalApplicationAddresses;
+
+	/**
+	 * Anzahl der Threads und Server-Sockets, die je Port Applikationsverbindungen entgegennehmen. Bei mehr als einem wird {@code SO_REUSEPORT}
+	 * verwendet.
+	 */
+	private int _applicationAcceptors;
+
+	/**
+	 * Zeit in Millisekunden, innerhalb der Änderungen der angemeldeten Applikationen zu einem Statusdatensatz zusammengefasst werden.
+	 */
+	private long _statusCoalescingWindow;
+
+	/**
+	 * Zeit in Millisekunden, für die SRP-Überprüfungscodes zwischengespeichert werden. 0 (Standard) deaktiviert das Zwischenspeichern. Da
+	 * Passwortänderungen nicht gemeldet werden, bleibt ein geändertes Passwort bis zu dieser Zeit gültig.
+	 */
+	private long _srpVerifierCacheTime;
+
+	/**
+	 * Zeit in Millisekunden, innerhalb der Änderungen an der Menge "Applikationen" des Datenverteilers gesammelt und gemeinsam an die
+	 * Konfiguration übertragen werden.
+	 */
+	private long _applicationSetCoalescingWindow;
+
+	/**
+	 * Maximale Anzahl der zwischengespeicherten Ergebnisse der Zugriffssteuerungs-Plugins. 0 deaktiviert das Zwischenspeichern.
+	 */
+	private int _accessControlResultCacheSize;
+
+	/**
+	 * Zeitlimit in Millisekunden für die Bearbeitung eines Datensatzes durch ein Zugriffssteuerungs-Plugin. 0 führt die Plugins ohne Zeitlimit im
+	 * Empfangsthread aus.
+	 */
+	private long _accessControlPluginTimeout;
 	
 	/**
 	 * Erzeugt einen neuen Parametersatz mit Defaultwerten für die einzelnen Parameter und setzt die in den übergebenen Aufrufargumenten angegebenen Parameter mit
@@ -343,6 +470,51 @@ public class ServerDavParameters {
 		_allowHmacAuthentication = argumentList.fetchArgument("-erlaubeHmacAuthentifizierung=ja").booleanValue();
 
 		_encryptionPreference = argumentList.fetchArgument("-verschluesselung=auto").asEnum(EncryptionConfiguration.class);
+
+		_davDavDeltaEncoding = argumentList.fetchArgument("-davDavDifferenzKodierung=nein").booleanValue();
+
+		_splitDatasetStreaming = argumentList.fetchArgument("-zerstueckelteDatensaetzeDirektVerteilen=nein").booleanValue();
+
+		_dataInterleavingWeight = argumentList.fetchArgument("-telegrammVerschraenkung=0").intValueBetween(0, Integer.MAX_VALUE);
+
+		final String spoolDirectory = argumentList.fetchArgument("-davDavZwischenspeicherVerzeichnis=").asString().trim();
+		_transmitterDataSpoolDirectory = spoolDirectory.isEmpty() ? null : spoolDirectory;
+		_transmitterDataSpoolCapacity = argumentList.fetchArgument("-davDavZwischenspeicherGroesse=16777216").intValueBetween(1024, Integer.MAX_VALUE);
+		_transmitterDataSpoolDuration = argumentList.fetchArgument("-davDavZwischenspeicherDauer=1h").asRelativeTime();
+		_transmitterDataSpoolUsages = new ArrayList<String>();
+		for(final String usage : argumentList.fetchArgument("-davDavZwischenspeicherDaten=").asString().split(",")) {
+			if(!usage.trim().isEmpty()) _transmitterDataSpoolUsages.add(usage.trim());
+		}
+
+		_transmitterResumptionGracePeriod = argumentList.fetchArgument("-davDavWiederaufnahmeZeit=0s").asRelativeTime();
+
+		_applicationResumptionGracePeriod = argumentList.fetchArgument("-applikationsWiederaufnahmeZeit=0s").asRelativeTime();
+
+		_remoteSubscriptionLingerTime = argumentList.fetchArgument("-anmeldungsNachlaufZeit=0s").asRelativeTime();
+		_remoteSubscriptionLingerCount = argumentList.fetchArgument("-anmeldungsNachlaufAnzahl=10000").intValueBetween(1, Integer.MAX_VALUE);
+		_remoteSubscriptionLingerMemory = argumentList.fetchArgument("-anmeldungsNachlaufSpeicher=67108864").intValueBetween(1024, Integer.MAX_VALUE);
+
+		_connectionSetupThreads = argumentList.fetchArgument("-verbindungsaufbauThreads=8").intValueBetween(1, 1024);
+		_connectionSetupQueueSize = argumentList.fetchArgument("-verbindungsaufbauWarteschlange=256").intValueBetween(1, Integer.MAX_VALUE);
+		_concurrentAuthentications = argumentList.fetchArgument("-authentifizierungenParallel=8").intValueBetween(1, 1024);
+
+		_inProcessSelfConnection = argumentList.fetchArgument("-interneVerbindungImProzess=ja").booleanValue();
+
+		_additionalApplicationAddresses = new ArrayList<InetSocketAddress>();
+		for(final String address : argumentList.fetchArgument("-zusaetzlicheApplikationsAdressen=").asString().split(",")) {
+			if(!address.trim().isEmpty()) _additionalApplicationAddresses.add(parseSocketAddress(address.trim()));
+		}
+		_applicationAcceptors = argumentList.fetchArgument("-applikationsAcceptoren=1").intValueBetween(1, 64);
+
+		_statusCoalescingWindow = argumentList.fetchArgument("-statusBuendelungsZeit=1s").asRelativeTime();
+
+		_srpVerifierCacheTime = argumentList.fetchArgument("-srpCacheZeit=0s").asRelativeTime();
+
+		_applicationSetCoalescingWindow = argumentList.fetchArgument("-applikationsMengenBuendelungsZeit=0s").asRelativeTime();
+
+		_accessControlResultCacheSize = argumentList.fetchArgument("-zugriffsRechtePluginsZwischenspeicher=0").intValueBetween(0, Integer.MAX_VALUE);
+
+		_accessControlPluginTimeout = argumentList.fetchArgument("-zugriffsRechtePluginsZeitlimit=0s").asRelativeTime();
 	}
 
 	/**
@@ -1653,7 +1825,13 @@ public class ServerDavParameters {
 		sendKeepAliveTimeout = getSendKeepAliveTimeout();
 		outputBufferSize = getAppCommunicationOutputBufferSize();
 		inputBufferSize = getAppCommunicationInputBufferSize();
-		communicationProtocolName = getLowLevelCommunicationName();
+		if(isLocalMode() && _inProcessSelfConnection) {
+			// Eigene Datenverteilerverbindung ohne Umweg über den Applikationsport
+			communicationProtocolName = InProcessServerCommunication.class.getName();
+		}
+		else {
+			communicationProtocolName = getLowLevelCommunicationName();
+		}
 		ClientDavParameters clientDavParameters = new ClientDavParameters(
 				configurationPid,
 				address,
@@ -1745,6 +1923,402 @@ public class ServerDavParameters {
 		_encryptionPreference = encryptionPreference;
 	}
 
+	/**
+	 * Gibt <tt>true</tt> zurück, wenn Datensätze zu anderen Datenverteilern als Differenz zum zuletzt übertragenen Datensatz der gleichen
+	 * Datenidentifikation versendet werden sollen (sofern der andere Datenverteiler das unterstützt).
+	 * @return <tt>true</tt>, wenn die Differenzkodierung aktiviert ist, sonst <tt>false</tt>
+	 */
+	public boolean isDavDavDeltaEncodingEnabled() {
+		return _davDavDeltaEncoding;
+	}
+
+	/**
+	 * Setzt, ob Datensätze zu anderen Datenverteilern als Differenz versendet werden sollen
+	 * @param davDavDeltaEncoding
+	 */
+	public void setDavDavDeltaEncoding(final boolean davDavDeltaEncoding) {
+		_davDavDeltaEncoding = davDavDeltaEncoding;
+	}
+
+	/**
+	 * Gibt <tt>true</tt> zurück, wenn zerstückelte Datensätze im Zentraldatenverteiler bereits beim Eintreffen der einzelnen Telegramme
+	 * verteilt werden sollen, statt vorher alle Telegramme des Datensatzes zu sammeln.
+	 * @return <tt>true</tt>, wenn zerstückelte Datensätze direkt verteilt werden, sonst <tt>false</tt>
+	 */
+	public boolean isSplitDatasetStreamingEnabled() {
+		return _splitDatasetStreaming;
+	}
+
+	/**
+	 * Setzt, ob zerstückelte Datensätze im Zentraldatenverteiler direkt beim Eintreffen der einzelnen Telegramme verteilt werden sollen
+	 * @param splitDatasetStreaming
+	 */
+	public void setSplitDatasetStreaming(final boolean splitDatasetStreaming) {
+		_splitDatasetStreaming = splitDatasetStreaming;
+	}
+
+	/**
+	 * Gibt zurück, wie viele kleine Datensätze beim Versand über eine Verbindung vor jedem Telegramm eines großen, zerstückelten Datensatzes
+	 * versendet werden dürfen.
+	 * @return Gewichtung der kleinen Datensätze oder 0, falls die Telegramme großer Datensätze ohne Verschränkung direkt versendet werden
+	 */
+	public int getDataInterleavingWeight() {
+		return _dataInterleavingWeight;
+	}
+
+	/**
+	 * Setzt, wie viele kleine Datensätze beim Versand vor jedem Telegramm eines großen, zerstückelten Datensatzes versendet werden dürfen
+	 * @param dataInterleavingWeight Gewichtung, 0 deaktiviert die Verschränkung
+	 */
+	public void setDataInterleavingWeight(final int dataInterleavingWeight) {
+		_dataInterleavingWeight = dataInterleavingWeight;
+	}
+
+	/**
+	 * Gibt das Verzeichnis für die Zwischenspeicherung von Datensätzen bei unterbrochenen Datenverteilerverbindungen zurück
+	 * @return Verzeichnis oder null, falls die Zwischenspeicherung nicht aktiviert ist
+	 */
+	public String getTransmitterDataSpoolDirectory() {
+		return _transmitterDataSpoolDirectory;
+	}
+
+	/**
+	 * Setzt das Verzeichnis für die Zwischenspeicherung von Datensätzen bei unterbrochenen Datenverteilerverbindungen
+	 * @param transmitterDataSpoolDirectory Verzeichnis oder null, um die Zwischenspeicherung zu deaktivieren
+	 */
+	public void setTransmitterDataSpoolDirectory(final String transmitterDataSpoolDirectory) {
+		_transmitterDataSpoolDirectory = transmitterDataSpoolDirectory;
+	}
+
+	/**
+	 * Gibt die maximale Größe des Zwischenspeichers je unterbrochener Datenverteilerverbindung zurück
+	 * @return Größe in Bytes
+	 */
+	public int getTransmitterDataSpoolCapacity() {
+		return _transmitterDataSpoolCapacity;
+	}
+
+	/**
+	 * Setzt die maximale Größe des Zwischenspeichers je unterbrochener Datenverteilerverbindung
+	 * @param transmitterDataSpoolCapacity Größe in Bytes
+	 */
+	public void setTransmitterDataSpoolCapacity(final int transmitterDataSpoolCapacity) {
+		_transmitterDataSpoolCapacity = transmitterDataSpoolCapacity;
+	}
+
+	/**
+	 * Gibt zurück, wie lange nach Unterbrechung einer Datenverteilerverbindung Datensätze zwischengespeichert werden
+	 * @return Dauer in Millisekunden
+	 */
+	public long getTransmitterDataSpoolDuration() {
+		return _transmitterDataSpoolDuration;
+	}
+
+	/**
+	 * Setzt, wie lange nach Unterbrechung einer Datenverteilerverbindung Datensätze zwischengespeichert werden
+	 * @param transmitterDataSpoolDuration Dauer in Millisekunden
+	 */
+	public void setTransmitterDataSpoolDuration(final long transmitterDataSpoolDuration) {
+		_transmitterDataSpoolDuration = transmitterDataSpoolDuration;
+	}
+
+	/**
+	 * Gibt die Attributgruppenverwendungen zurück, deren Datensätze bei unterbrochenen Datenverteilerverbindungen zwischengespeichert werden
+	 * @return Liste mit Einträgen der Form "atg.pid:asp.pid"
+	 */
+	public List<String> getTransmitterDataSpoolUsages() {
+		return Collections.unmodifiableList(_transmitterDataSpoolUsages);
+	}
+
+	/**
+	 * Setzt die Attributgruppenverwendungen, deren Datensätze bei unterbrochenen Datenverteilerverbindungen zwischengespeichert werden
+	 * @param transmitterDataSpoolUsages Liste mit Einträgen der Form "atg.pid:asp.pid"
+	 */
+	public void setTransmitterDataSpoolUsages(final List<String> transmitterDataSpoolUsages) {
+		_transmitterDataSpoolUsages = new ArrayList<String>(transmitterDataSpoolUsages);
+	}
+
+	/**
+	 * Gibt zurück, wie lange eingehende Anmeldungen eines anderen Datenverteilers nach einem Verbindungsabbruch für eine Wiederverbindung
+	 * zurückgehalten werden
+	 * @return Karenzzeit in Millisekunden oder 0, falls die Anmeldungen sofort entfernt werden
+	 */
+	public long getTransmitterResumptionGracePeriod() {
+		return _transmitterResumptionGracePeriod;
+	}
+
+	/**
+	 * Setzt, wie lange eingehende Anmeldungen eines anderen Datenverteilers nach einem Verbindungsabbruch zurückgehalten werden
+	 * @param transmitterResumptionGracePeriod Karenzzeit in Millisekunden, 0 deaktiviert die Wiederaufnahme
+	 */
+	public void setTransmitterResumptionGracePeriod(final long transmitterResumptionGracePeriod) {
+		_transmitterResumptionGracePeriod = transmitterResumptionGracePeriod;
+	}
+
+	/**
+	 * Gibt zurück, wie lange die Anmeldungen einer Applikation nach einem Verbindungsabbruch für eine Wiederverbindung zurückgehalten werden
+	 * @return Karenzzeit in Millisekunden oder 0, falls die Anmeldungen sofort entfernt werden
+	 */
+	public long getApplicationResumptionGracePeriod() {
+		return _applicationResumptionGracePeriod;
+	}
+
+	/**
+	 * Setzt, wie lange die Anmeldungen einer Applikation nach einem Verbindungsabbruch zurückgehalten werden
+	 * @param applicationResumptionGracePeriod Karenzzeit in Millisekunden, 0 deaktiviert die Wiederaufnahme
+	 */
+	public void setApplicationResumptionGracePeriod(final long applicationResumptionGracePeriod) {
+		_applicationResumptionGracePeriod = applicationResumptionGracePeriod;
+	}
+
+	/**
+	 * Gibt zurück, wie lange nicht mehr benötigte Anmeldungen bei entfernten Zentraldatenverteilern bestehen bleiben
+	 * @return Nachlaufzeit in Millisekunden oder 0, falls die Anmeldungen sofort abgemeldet werden
+	 */
+	public long getRemoteSubscriptionLingerTime() {
+		return _remoteSubscriptionLingerTime;
+	}
+
+	/**
+	 * Setzt, wie lange nicht mehr benötigte Anmeldungen bei entfernten Zentraldatenverteilern bestehen bleiben
+	 * @param remoteSubscriptionLingerTime Nachlaufzeit in Millisekunden, 0 deaktiviert den Nachlauf
+	 */
+	public void setRemoteSubscriptionLingerTime(final long remoteSubscriptionLingerTime) {
+		_remoteSubscriptionLingerTime = remoteSubscriptionLingerTime;
+	}
+
+	/**
+	 * Gibt die maximale Anzahl gleichzeitig nachlaufender Datenidentifikationen zurück
+	 * @return Anzahl
+	 */
+	public int getRemoteSubscriptionLingerCount() {
+		return _remoteSubscriptionLingerCount;
+	}
+
+	/**
+	 * Setzt die maximale Anzahl gleichzeitig nachlaufender Datenidentifikationen
+	 * @param remoteSubscriptionLingerCount Anzahl
+	 */
+	public void setRemoteSubscriptionLingerCount(final int remoteSubscriptionLingerCount) {
+		_remoteSubscriptionLingerCount = remoteSubscriptionLingerCount;
+	}
+
+	/**
+	 * Gibt den maximalen geschätzten Speicherbedarf aller nachlaufenden Datenidentifikationen zurück
+	 * @return Speicherbedarf in Bytes
+	 */
+	public long getRemoteSubscriptionLingerMemory() {
+		return _remoteSubscriptionLingerMemory;
+	}
+
+	/**
+	 * Setzt den maximalen geschätzten Speicherbedarf aller nachlaufenden Datenidentifikationen
+	 * @param remoteSubscriptionLingerMemory Speicherbedarf in Bytes
+	 */
+	public void setRemoteSubscriptionLingerMemory(final long remoteSubscriptionLingerMemory) {
+		_remoteSubscriptionLingerMemory = remoteSubscriptionLingerMemory;
+	}
+
+	/**
+	 * Gibt die Anzahl der Threads zurück, die neu entgegengenommene Applikationsverbindungen aufbauen
+	 * @return Anzahl Threads
+	 */
+	public int getConnectionSetupThreads() {
+		return _connectionSetupThreads;
+	}
+
+	/**
+	 * Setzt die Anzahl der Threads, die neu entgegengenommene Applikationsverbindungen aufbauen
+	 * @param connectionSetupThreads Anzahl Threads
+	 */
+	public void setConnectionSetupThreads(final int connectionSetupThreads) {
+		_connectionSetupThreads = connectionSetupThreads;
+	}
+
+	/**
+	 * Gibt zurück, wie viele entgegengenommene Applikationsverbindungen maximal auf den Aufbau warten
+	 * @return Maximale Anzahl wartender Verbindungen
+	 */
+	public int getConnectionSetupQueueSize() {
+		return _connectionSetupQueueSize;
+	}
+
+	/**
+	 * Setzt, wie viele entgegengenommene Applikationsverbindungen maximal auf den Aufbau warten
+	 * @param connectionSetupQueueSize Maximale Anzahl wartender Verbindungen
+	 */
+	public void setConnectionSetupQueueSize(final int connectionSetupQueueSize) {
+		_connectionSetupQueueSize = connectionSetupQueueSize;
+	}
+
+	/**
+	 * Gibt zurück, wie viele Passwortprüfungen von Applikationen maximal gleichzeitig laufen
+	 * @return Maximale Anzahl gleichzeitiger Prüfungen
+	 */
+	public int getConcurrentAuthentications() {
+		return _concurrentAuthentications;
+	}
+
+	/**
+	 * Setzt, wie viele Passwortprüfungen von Applikationen maximal gleichzeitig laufen
+	 * @param concurrentAuthentications Maximale Anzahl gleichzeitiger Prüfungen
+	 */
+	public void setConcurrentAuthentications(final int concurrentAuthentications) {
+		_concurrentAuthentications = concurrentAuthentications;
+	}
+
+	/**
+	 * Gibt zurück, ob die eigene Datenverteilerverbindung im lokalen Modus prozessintern aufgebaut wird
+	 * @return true: prozessintern, false: über den Applikationsport
+	 */
+	public boolean isInProcessSelfConnection() {
+		return _inProcessSelfConnection;
+	}
+
+	/**
+	 * Legt fest, ob die eigene Datenverteilerverbindung im lokalen Modus prozessintern aufgebaut wird
+	 * @param inProcessSelfConnection true: prozessintern, false: über den Applikationsport
+	 */
+	public void setInProcessSelfConnection(final boolean inProcessSelfConnection) {
+		_inProcessSelfConnection = inProcessSelfConnection;
+	}
+
+	/**
+	 * Wandelt eine Adresse der Form {@code [Adresse:]Port} um. IPv6-Adressen werden in eckigen Klammern angegeben.
+	 * @param address Adresse
+	 * @return Nicht aufgelöste Adresse oder Wildcard-Adresse, falls nur ein Port angegeben ist
+	 * @throws MissingParameterException bei ungültiger Adresse
+	 */
+	private static InetSocketAddress parseSocketAddress(final String address) throws MissingParameterException {
+		final int separator = address.lastIndexOf(':');
+		try {
+			final int port = Integer.parseInt(address.substring(separator + 1));
+			if(separator < 0) return new InetSocketAddress(port);
+			String host = address.substring(0, separator);
+			if(host.startsWith("[") && host.endsWith("]")) host = host.substring(1, host.length() - 1);
+			return InetSocketAddress.createUnresolved(host, port);
+		}
+		catch(IllegalArgumentException e) {
+			throw new MissingParameterException("Ungültige Adresse für -zusaetzlicheApplikationsAdressen: " + address, e);
+		}
+	}
+
+	/**
+	 * Gibt die zusätzlichen Adressen zurück, auf denen Applikationsverbindungen entgegengenommen werden
+	 * @return Nicht aufgelöste Adressen für bestimmte Netzwerkschnittstellen oder Wildcard-Adressen für alle Schnittstellen
+	 */
+	public List<InetSocketAddress> getAdditionalApplicationAddresses() {
+		return _additionalApplicationAddresses;
+	}
+
+	/**
+	 * Setzt die zusätzlichen Adressen, auf denen Applikationsverbindungen entgegengenommen werden
+	 * @param additionalApplicationAddresses Nicht aufgelöste Adressen oder Wildcard-Adressen
+	 */
+	public void setAdditionalApplicationAddresses(final List<InetSocketAddress> additionalApplicationAddresses) {
+		_additionalApplicationAddresses = additionalApplicationAddresses;
+	}
+
+	/**
+	 * Gibt die Anzahl der Threads zurück, die je Port Applikationsverbindungen entgegennehmen
+	 * @return Anzahl Threads
+	 */
+	public int getApplicationAcceptors() {
+		return _applicationAcceptors;
+	}
+
+	/**
+	 * Setzt die Anzahl der Threads, die je Port Applikationsverbindungen entgegennehmen
+	 * @param applicationAcceptors Anzahl Threads
+	 */
+	public void setApplicationAcceptors(final int applicationAcceptors) {
+		_applicationAcceptors = applicationAcceptors;
+	}
+
+	/**
+	 * Gibt die Zeit zurück, innerhalb der Änderungen der angemeldeten Applikationen zu einem Statusdatensatz zusammengefasst werden
+	 * @return Zeit in Millisekunden
+	 */
+	public long getStatusCoalescingWindow() {
+		return _statusCoalescingWindow;
+	}
+
+	/**
+	 * Setzt die Zeit, innerhalb der Änderungen der angemeldeten Applikationen zu einem Statusdatensatz zusammengefasst werden
+	 * @param statusCoalescingWindow Zeit in Millisekunden
+	 */
+	public void setStatusCoalescingWindow(final long statusCoalescingWindow) {
+		_statusCoalescingWindow = statusCoalescingWindow;
+	}
+
+	/**
+	 * Gibt die Zeit zurück, für die SRP-Überprüfungscodes zwischengespeichert werden
+	 * @return Zeit in Millisekunden, 0 falls nicht zwischengespeichert wird
+	 */
+	public long getSrpVerifierCacheTime() {
+		return _srpVerifierCacheTime;
+	}
+
+	/**
+	 * Setzt die Zeit, für die SRP-Überprüfungscodes zwischengespeichert werden
+	 * @param srpVerifierCacheTime Zeit in Millisekunden, 0 deaktiviert das Zwischenspeichern
+	 */
+	public void setSrpVerifierCacheTime(final long srpVerifierCacheTime) {
+		_srpVerifierCacheTime = srpVerifierCacheTime;
+	}
+
+	/**
+	 * Gibt die Zeit zurück, innerhalb der Änderungen an der Menge "Applikationen" gesammelt werden
+	 * @return Zeit in Millisekunden
+	 */
+	public long getApplicationSetCoalescingWindow() {
+		return _applicationSetCoalescingWindow;
+	}
+
+	/**
+	 * Setzt die Zeit, innerhalb der Änderungen an der Menge "Applikationen" gesammelt werden
+	 * @param applicationSetCoalescingWindow Zeit in Millisekunden, bei 0 werden nur die während einer laufenden Übertragung
+	 *                                       angefallenen Änderungen zusammengefasst
+	 */
+	public void setApplicationSetCoalescingWindow(final long applicationSetCoalescingWindow) {
+		_applicationSetCoalescingWindow = applicationSetCoalescingWindow;
+	}
+
+	/**
+	 * Gibt die maximale Anzahl der zwischengespeicherten Ergebnisse der Zugriffssteuerungs-Plugins zurück
+	 * @return Anzahl Einträge, 0 falls nicht zwischengespeichert wird
+	 */
+	public int getAccessControlResultCacheSize() {
+		return _accessControlResultCacheSize;
+	}
+
+	/**
+	 * Setzt die maximale Anzahl der zwischengespeicherten Ergebnisse der Zugriffssteuerungs-Plugins. Das Zwischenspeichern sollte nur
+	 * aktiviert werden, wenn die Plugins für gleiche Datensätze und Benutzer stets das gleiche Ergebnis liefern und beim Filtern keine eigenen
+	 * Antworten verschicken.
+	 * @param accessControlResultCacheSize Anzahl Einträge, 0 deaktiviert das Zwischenspeichern
+	 */
+	public void setAccessControlResultCacheSize(final int accessControlResultCacheSize) {
+		_accessControlResultCacheSize = accessControlResultCacheSize;
+	}
+
+	/**
+	 * Gibt das Zeitlimit für die Bearbeitung eines Datensatzes durch ein Zugriffssteuerungs-Plugin zurück
+	 * @return Zeit in Millisekunden, 0 falls die Plugins ohne Zeitlimit ausgeführt werden
+	 */
+	public long getAccessControlPluginTimeout() {
+		return _accessControlPluginTimeout;
+	}
+
+	/**
+	 * Setzt das Zeitlimit für die Bearbeitung eines Datensatzes durch ein Zugriffssteuerungs-Plugin. Datensätze, die nicht rechtzeitig bearbeitet
+	 * werden, werden verworfen.
+	 * @param accessControlPluginTimeout Zeit in Millisekunden, 0 führt die Plugins ohne Zeitlimit im Empfangsthread aus
+	 */
+	public void setAccessControlPluginTimeout(final long accessControlPluginTimeout) {
+		_accessControlPluginTimeout = accessControlPluginTimeout;
+	}
+
 	/**
 	 * @author Kappich Systemberatung
 	 * @version $Revision$
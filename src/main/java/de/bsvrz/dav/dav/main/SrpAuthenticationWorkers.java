@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.main;
+
+import de.bsvrz.dav.daf.communication.srpAuthentication.SrpNotSupportedException;
+import de.bsvrz.dav.daf.communication.srpAuthentication.SrpServerAuthentication;
+import de.bsvrz.dav.daf.main.InconsistentLoginException;
+import de.bsvrz.dav.dav.util.LatencyStatistics;
+
+import java.math.BigInteger;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Führt die rechenintensiven Schritte der SRP-Authentifizierung (modulare Exponentiationen) in einem begrenzten Thread-Pool aus. Bei vielen
+ * gleichzeitigen Anmeldungen rechnen dadurch höchstens so viele Threads wie Prozessoren vorhanden sind, die Threads der einzelnen Verbindungen
+ * warten auf das Ergebnis. Ist die Warteschlange des Pools voll, rechnet der aufrufende Thread selbst.
+ * <p>
+ * Zusätzlich werden die Dauer der Abfrage von SRP-Überprüfungscodes und die Dauer der Anmeldungen erfasst.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public final class SrpAuthenticationWorkers {
+
+	/** Anzahl Threads für die Berechnungen */
+	private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	/** Maximale Anzahl wartender Berechnungen */
+	private static final int QUEUE_SIZE = 1024;
+
+	private static final ThreadPoolExecutor _executor = new ThreadPoolExecutor(
+			THREADS, THREADS, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(QUEUE_SIZE),
+			new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable r) {
+					final Thread thread = new Thread(r, "SRP-Authentifizierung");
+					thread.setDaemon(true);
+					return thread;
+				}
+			},
+			new ThreadPoolExecutor.CallerRunsPolicy()
+	);
+
+	static {
+		_executor.allowCoreThreadTimeOut(true);
+	}
+
+	/** Dauer der Abfrage von SRP-Überprüfungscodes (einschließlich Cache-Treffern) */
+	private static final LatencyStatistics _verifierLatency = new LatencyStatistics("Abfrage SRP-Überprüfungscode");
+
+	/** Dauer vom Eingang der SRP-Anfrage bis zur erfolgreichen Überprüfung des Passworts */
+	private static final LatencyStatistics _loginLatency = new LatencyStatistics("SRP-Anmeldung");
+
+	private SrpAuthenticationWorkers() {
+	}
+
+	/**
+	 * Führt {@link SrpServerAuthentication#step1(String, BigInteger, BigInteger, boolean)} im Thread-Pool aus und wartet auf das Ergebnis.
+	 *
+	 * @param session      SRP-Sitzung
+	 * @param userName     Benutzername
+	 * @param salt         Salt
+	 * @param verifier     Überprüfungscode
+	 * @param fakeVerifier <code>true</code>, falls es den Benutzer nicht gibt und eine Fake-Authentifizierung durchgeführt wird
+	 * @return Wert B, der an den Client gesendet wird
+	 */
+	public static BigInteger step1(
+			final SrpServerAuthentication session,
+			final String userName,
+			final BigInteger salt,
+			final BigInteger verifier,
+			final boolean fakeVerifier) {
+		try {
+			return compute(() -> session.step1(userName, salt, verifier, fakeVerifier));
+		}
+		catch(InconsistentLoginException | SrpNotSupportedException e) {
+			// Kann bei Schritt 1 nicht auftreten
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Führt {@link SrpServerAuthentication#step2(BigInteger, BigInteger)} im Thread-Pool aus und wartet auf das Ergebnis.
+	 *
+	 * @param session SRP-Sitzung
+	 * @param a       Wert A vom Client
+	 * @param m1      Wert M1 vom Client
+	 * @return Wert M2, der an den Client gesendet wird
+	 * @throws InconsistentLoginException Das Passwort ist falsch
+	 * @throws SrpNotSupportedException   SRP wird nicht unterstützt
+	 */
+	public static BigInteger step2(final SrpServerAuthentication session, final BigInteger a, final BigInteger m1)
+			throws InconsistentLoginException, SrpNotSupportedException {
+		return compute(() -> session.step2(a, m1));
+	}
+
+	private static <T> T compute(final Callable<T> computation) throws InconsistentLoginException, SrpNotSupportedException {
+		final FutureTask<T> task = new FutureTask<T>(computation);
+		_executor.execute(task);
+		try {
+			return task.get();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Unterbrochen beim Warten auf die SRP-Berechnung", e);
+		}
+		catch(ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if(cause instanceof InconsistentLoginException) throw (InconsistentLoginException) cause;
+			if(cause instanceof SrpNotSupportedException) throw (SrpNotSupportedException) cause;
+			if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if(cause instanceof Error) throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Erfasst die Dauer einer Abfrage eines SRP-Überprüfungscodes
+	 *
+	 * @param startNanos Startzeitpunkt in Nanosekunden ({@link System#nanoTime()})
+	 */
+	public static void recordVerifierFetch(final long startNanos) {
+		_verifierLatency.recordSince(startNanos);
+	}
+
+	/**
+	 * Erfasst die Dauer einer erfolgreichen Anmeldung
+	 *
+	 * @param startNanos Eingang der SRP-Anfrage in Nanosekunden ({@link System#nanoTime()})
+	 */
+	public static void recordLogin(final long startNanos) {
+		_loginLatency.recordSince(startNanos);
+	}
+
+	/**
+	 * Gibt die Perzentile der Abfrage- und Anmeldedauern als Text zurück
+	 *
+	 * @return Text für Debug-Ausgaben
+	 */
+	public static String getStatistics() {
+		return "Dauer der SRP-Authentifizierung:\n" + _verifierLatency + "\n" + _loginLatency;
+	}
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.main;
+
+import de.bsvrz.dav.daf.communication.srpAuthentication.SrpNotSupportedException;
+import de.bsvrz.dav.daf.communication.srpAuthentication.SrpVerifierAndUser;
+import de.bsvrz.dav.daf.main.config.DataModel;
+import de.bsvrz.dav.daf.main.config.DynamicObject;
+import de.bsvrz.dav.daf.main.config.DynamicObjectType;
+import de.bsvrz.dav.daf.main.config.SystemObjectType;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Zwischenspeicher für SRP-Überprüfungscodes, damit bei vielen Anmeldungen desselben Benutzers (z.B. beim Wiederverbinden vieler Applikationen)
+ * nicht jedes Mal die Konfiguration gefragt werden muss. Einträge verfallen nach einer festen Zeit und werden verworfen, sobald die Konfiguration
+ * eine Änderung des Benutzerobjekts meldet oder eine Anmeldung mit dem gespeicherten Überprüfungscode fehlschlägt (z.B. nach einer
+ * Passwortänderung). Fragen mehrere Threads gleichzeitig den Überprüfungscode eines nicht gespeicherten Benutzers an, so wird die Konfiguration
+ * nur einmal gefragt.
+ * <p>
+ * Überprüfungscodes von Einmalpasswörtern und von nicht existierenden Benutzern werden nicht gespeichert, damit nicht authentifizierte
+ * Verbindungen den Speicher nicht mit beliebigen Benutzernamen füllen können. Zusätzlich ist die Anzahl der Einträge auf {@link #MAX_ENTRIES}
+ * begrenzt, bei Überschreitung wird der am längsten nicht verwendete Eintrag verworfen.
+ * <p>
+ * Eine Passwortänderung in der Benutzerverwaltung wird von der Konfiguration nicht gemeldet. Bis zum Verfall des Eintrags oder bis zur nächsten
+ * fehlgeschlagenen Anmeldung bleibt das alte Passwort daher gültig. Das Zwischenspeichern ist deshalb standardmäßig ausgeschaltet.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+class SrpVerifierCache {
+
+	private static final Debug _debug = Debug.getLogger();
+
+	/** Maximale Anzahl gespeicherter Überprüfungscodes */
+	static final int MAX_ENTRIES = 1000;
+
+	/** Gültigkeitsdauer eines Eintrags in Millisekunden, 0 deaktiviert das Speichern */
+	private final long _timeToLive;
+
+	/** Gespeicherte Überprüfungscodes je Benutzername in der Reihenfolge der letzten Verwendung */
+	private final Map<String, Entry> _entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, SrpVerifierCache.Entry> eldest) {
+			if(size() <= MAX_ENTRIES) return false;
+			_evictions++;
+			return true;
+		}
+	};
+
+	/** Laufende Abfragen je Benutzername */
+	private final Map<String, CompletableFuture<SrpVerifierAndUser>> _pendingRequests = new HashMap<String, CompletableFuture<SrpVerifierAndUser>>();
+
+	/** Wird bei jeder Invalidierung erhöht, damit Ergebnisse von Abfragen, die vor der Invalidierung gestartet wurden, nicht gespeichert werden */
+	private long _generation = 0;
+
+	private long _hits = 0;
+
+	private long _misses = 0;
+
+	private long _invalidations = 0;
+
+	private long _evictions = 0;
+
+	/**
+	 * Erstellt einen neuen Zwischenspeicher
+	 *
+	 * @param timeToLive Gültigkeitsdauer eines Eintrags in Millisekunden, 0 deaktiviert das Speichern
+	 */
+	SrpVerifierCache(final long timeToLive) {
+		_timeToLive = timeToLive;
+	}
+
+	/**
+	 * Gibt den Überprüfungscode eines Benutzers zurück. Ist kein gültiger Eintrag vorhanden, wird er mit dem übergebenen Loader ermittelt bzw. auf eine
+	 * bereits laufende Abfrage gewartet.
+	 *
+	 * @param userName Benutzername
+	 * @param loader   Ermittelt den Überprüfungscode bei der Konfiguration
+	 * @return Überprüfungscode und Benutzer
+	 * @throws SrpNotSupportedException SRP wird von der Konfiguration nicht unterstützt
+	 */
+	SrpVerifierAndUser get(final String userName, final Loader loader) throws SrpNotSupportedException {
+		final CompletableFuture<SrpVerifierAndUser> pendingRequest;
+		final CompletableFuture<SrpVerifierAndUser> request = new CompletableFuture<SrpVerifierAndUser>();
+		final long generation;
+		synchronized(this) {
+			final Entry entry = _entries.get(userName);
+			if(entry != null) {
+				if(entry._expirationTime - System.currentTimeMillis() > 0) {
+					_hits++;
+					return entry._verifierAndUser;
+				}
+				_entries.remove(userName);
+			}
+			pendingRequest = _pendingRequests.get(userName);
+			if(pendingRequest == null) {
+				_misses++;
+				_pendingRequests.put(userName, request);
+			}
+			else {
+				_hits++;
+			}
+			generation = _generation;
+		}
+		if(pendingRequest != null) {
+			// Ein anderer Thread fragt bereits die Konfiguration
+			return waitFor(pendingRequest);
+		}
+		try {
+			final SrpVerifierAndUser verifierAndUser = loader.load(userName);
+			synchronized(this) {
+				_pendingRequests.remove(userName);
+				// Für nicht existierende Benutzer wird bei jeder Abfrage ein zufälliger Überprüfungscode erzeugt, der nicht gespeichert wird
+				if(_timeToLive > 0 && generation == _generation && verifierAndUser.getUserLogin().isAuthenticated()) {
+					_entries.put(userName, new Entry(verifierAndUser, System.currentTimeMillis() + _timeToLive));
+				}
+			}
+			request.complete(verifierAndUser);
+			return verifierAndUser;
+		}
+		catch(SrpNotSupportedException | RuntimeException e) {
+			synchronized(this) {
+				_pendingRequests.remove(userName);
+			}
+			request.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	private static SrpVerifierAndUser waitFor(final CompletableFuture<SrpVerifierAndUser> request) throws SrpNotSupportedException {
+		try {
+			return request.get();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Unterbrochen beim Warten auf den SRP-Überprüfungscode", e);
+		}
+		catch(ExecutionException e) {
+			if(e.getCause() instanceof SrpNotSupportedException) throw (SrpNotSupportedException) e.getCause();
+			if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Verwirft den gespeicherten Überprüfungscode eines Benutzers
+	 *
+	 * @param userName Benutzername
+	 */
+	synchronized void invalidate(final String userName) {
+		_generation++;
+		if(_entries.remove(userName) != null) _invalidations++;
+	}
+
+	/** Verwirft alle gespeicherten Überprüfungscodes */
+	synchronized void clear() {
+		_generation++;
+		_invalidations += _entries.size();
+		_entries.clear();
+	}
+
+	/**
+	 * Meldet sich bei der Konfiguration auf Änderungen der Benutzerobjekte an. Wird ein Benutzer angelegt, gelöscht oder umbenannt, werden die
+	 * betroffenen Einträge verworfen.
+	 *
+	 * @param dataModel Datenmodell
+	 */
+	void subscribeUserChanges(final DataModel dataModel) {
+		final SystemObjectType userType = dataModel.getType("typ.benutzer");
+		if(!(userType instanceof DynamicObjectType)) {
+			_debug.fine("Änderungen an Benutzerobjekten können nicht überwacht werden, gespeicherte SRP-Überprüfungscodes verfallen nur zeitgesteuert");
+			return;
+		}
+		final DynamicObjectType dynamicUserType = (DynamicObjectType) userType;
+		dynamicUserType.addObjectCreationListener(this::handleUserChanged);
+		dynamicUserType.addInvalidationListener(this::handleUserChanged);
+		// Der alte Name ist nicht bekannt
+		dynamicUserType.addNameChangeListener(object -> clear());
+	}
+
+	private void handleUserChanged(final DynamicObject user) {
+		invalidate(user.getName());
+	}
+
+	/**
+	 * Gibt eine Beschreibung der Trefferquote zurück
+	 *
+	 * @return Text für Debug-Ausgaben
+	 */
+	synchronized String getStatistics() {
+		return "SRP-Überprüfungscodes: " + _entries.size() + " gespeichert, " + _hits + " Treffer, " + _misses + " Abfragen, "
+				+ _invalidations + " verworfen, " + _evictions + " verdrängt";
+	}
+
+	/** Ermittelt den Überprüfungscode eines Benutzers bei der Konfiguration */
+	interface Loader {
+
+		/**
+		 * @param userName Benutzername
+		 * @return Überprüfungscode und Benutzer
+		 * @throws SrpNotSupportedException SRP wird von der Konfiguration nicht unterstützt
+		 */
+		SrpVerifierAndUser load(String userName) throws SrpNotSupportedException;
+	}
+
+	private static final class Entry {
+
+		final SrpVerifierAndUser _verifierAndUser;
+
+		final long _expirationTime;
+
+		Entry(final SrpVerifierAndUser verifierAndUser, final long expirationTime) {
+			_verifierAndUser = verifierAndUser;
+			_expirationTime = expirationTime;
+		}
+	}
+}
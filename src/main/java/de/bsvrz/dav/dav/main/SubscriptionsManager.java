@@ -146,6 +146,27 @@ public interface SubscriptionsManager extends UserRightsChangeHandler {
 	 */
 	void connectToRemoteSources(SubscriptionInfo subscriptionInfo, final Set<Long> distributorsToUse);
 
+	/**
+	 * Wird aufgerufen, wenn die Anmeldungen einer Datenidentifikation bei entfernten Zentraldatenverteilern nicht mehr benötigt werden, weil
+	 * keine gültigen Sender oder Empfänger mehr vorhanden sind.
+	 *
+	 * @param subscriptionInfo Anmeldeinformation
+	 * @param lingerStart      Beginn des Nachlaufs, wird beim Ende des Nachlaufs an {@link SubscriptionInfo#endLingering(long)} übergeben
+	 * @param dataSize         Größe des zwischengespeicherten Datensatzes in Bytes
+	 * @return true, falls die Anmeldungen für eine Nachlaufzeit bestehen bleiben sollen, false, falls sie sofort abgemeldet werden müssen
+	 * @see RemoteSubscriptionLinger
+	 */
+	boolean startLingering(SubscriptionInfo subscriptionInfo, long lingerStart, long dataSize);
+
+	/**
+	 * Wird aufgerufen, wenn der Nachlauf der Anmeldungen bei entfernten Zentraldatenverteilern beendet wird, bevor die Nachlaufzeit
+	 * abgelaufen ist.
+	 *
+	 * @param subscriptionInfo Anmeldeinformation
+	 * @param reattached       true, falls die Anmeldungen wieder benötigt werden, false, falls sie nicht mehr benötigt werden
+	 */
+	void stopLingering(SubscriptionInfo subscriptionInfo, boolean reattached);
+
 	/**
 	 * Wandlt eine Anmeldung in einen darstellbaren Text um
 	 *
@@ -202,6 +223,16 @@ public interface SubscriptionsManager extends UserRightsChangeHandler {
 	 */
 	long getNextDataIndex(BaseSubscriptionInfo baseSubscriptionInfo);
 
+	/**
+	 * Gibt mehrere aufeinanderfolgende Datenindizes für die angegebene Anmeldung zurück und zählt den Index entsprechend hoch. Die Anmeldung
+	 * wird dabei nur einmal gesperrt.
+	 *
+	 * @param baseSubscriptionInfo Anmeldung
+	 * @param count                Anzahl Datenindizes
+	 * @return Datenindizes
+	 */
+	long[] getNextDataIndexes(BaseSubscriptionInfo baseSubscriptionInfo, int count);
+
 	/**
 	 * Gibt den aktuellen (zuletzt generierten) Datenindex für die angegebene Anmeldung zurück
 	 *
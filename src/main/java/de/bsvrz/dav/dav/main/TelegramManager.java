@@ -37,6 +37,9 @@ import de.bsvrz.dav.daf.main.config.AttributeGroup;
 import de.bsvrz.dav.daf.main.config.AttributeGroupUsage;
 import de.bsvrz.dav.daf.main.impl.config.DafDataModel;
 import de.bsvrz.dav.dav.communication.accessControl.AccessControlPlugin;
+import de.bsvrz.dav.dav.communication.accessControl.AccessControlPluginExecutor;
+import de.bsvrz.dav.dav.communication.accessControl.AccessControlPluginTimeoutException;
+import de.bsvrz.dav.dav.communication.accessControl.AccessControlResultCache;
 import de.bsvrz.dav.dav.communication.accessControl.AccessControlUtil;
 import de.bsvrz.dav.dav.subscriptions.CommunicationInterface;
 import de.bsvrz.dav.dav.subscriptions.LocalReceivingSubscription;
@@ -45,6 +48,7 @@ import de.bsvrz.dav.dav.subscriptions.SubscriptionInfo;
 import de.bsvrz.sys.funclib.debug.Debug;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Diese Klasse verarbeitet ankommende Datentelegramme, prüft ob der Absender erlaubt war die Daten zu verschicken (Anmeldung gültig),
@@ -81,15 +85,48 @@ public class TelegramManager implements TelegramManagerTransactionInterface {
 
 	private volatile boolean _pluginFilterMapInitialized = false;
 
+	/** Anzahl der Datentelegramme, die ohne Zusammenfassen direkt an andere Datenverteiler weitergeleitet wurden */
+	private final AtomicLong _relayedTelegramCount = new AtomicLong();
+
+	/** Anzahl der Datentelegramme, die vor der Verteilung mit den übrigen Telegrammen des Datensatzes zusammengefasst wurden */
+	private final AtomicLong _aggregatedTelegramCount = new AtomicLong();
+
+	/** Anzahl der Telegramme zerstückelter Datensätze, die im Zentraldatenverteiler ohne Zusammenfassen verteilt wurden */
+	private final AtomicLong _streamedTelegramCount = new AtomicLong();
+
+	/** Sollen zerstückelte Datensätze im Zentraldatenverteiler telegrammweise verteilt werden? */
+	private final boolean _streamSplitDatasets;
+
+	/** Zwischenspeicher für die Ergebnisse der Zugriffssteuerungs-Plugins oder null, falls nicht zwischengespeichert wird */
+	private final AccessControlResultCache _accessControlResultCache;
+
+	/** Führt die Zugriffssteuerungs-Plugins aus, ggf. mit Zeitlimit, und erfasst ihre Bearbeitungsdauer */
+	private final AccessControlPluginExecutor _accessControlPluginExecutor;
+
 
 	/**
 	 * Erstellt einen neuen TelegramManager
 	 * @param connectionsManager Verbindungsverwaltung
 	 * @param userRightsChecking  Welche Art von Rechteprüfung durchgeführt werden soll
+	 * @param streamSplitDatasets Sollen zerstückelte Datensätze im Zentraldatenverteiler telegrammweise verteilt werden?
+	 * @param accessControlResultCacheSize Maximale Anzahl zwischengespeicherter Ergebnisse der Zugriffssteuerungs-Plugins, 0 deaktiviert das
+	 *                                     Zwischenspeichern
+	 * @param accessControlPluginTimeout Zeitlimit in Millisekunden je Aufruf eines Zugriffssteuerungs-Plugins, 0 für Aufrufe ohne Zeitlimit im
+	 *                                   Empfangsthread
 	 */
-	public TelegramManager(final HighLevelConnectionsManagerInterface connectionsManager, final ServerDavParameters.UserRightsChecking userRightsChecking) {
+	public TelegramManager(
+			final HighLevelConnectionsManagerInterface connectionsManager,
+			final ServerDavParameters.UserRightsChecking userRightsChecking,
+			final boolean streamSplitDatasets,
+			final int accessControlResultCacheSize,
+			final long accessControlPluginTimeout) {
 		_connectionsManager = connectionsManager;
 		_userRightsChecking = userRightsChecking;
+		_streamSplitDatasets = streamSplitDatasets;
+		_accessControlResultCache = accessControlResultCacheSize > 0 ? new AccessControlResultCache(accessControlResultCacheSize) : null;
+		_accessControlPluginExecutor = new AccessControlPluginExecutor(
+				accessControlPluginTimeout, Math.max(2, Runtime.getRuntime().availableProcessors())
+		);
 		_subscriptionsManager = new HighLevelSubscriptionsManager(this, _userRightsChecking);
 	}
 
@@ -175,13 +212,49 @@ public class TelegramManager implements TelegramManagerTransactionInterface {
 		return _connectionsManager;
 	}
 
+	/**
+	 * Gibt eine Beschreibung zurück, wie viele Datentelegramme ohne Zusammenfassen direkt an andere Datenverteiler weitergeleitet, im
+	 * Zentraldatenverteiler ohne Zusammenfassen verteilt und vor der Verteilung zusammengefasst wurden
+	 * @return Text für Debug-Ausgaben
+	 */
+	public String getDistributionStatistics() {
+		return "Datentelegramme: " + _relayedTelegramCount.get() + " direkt weitergeleitet, " + _streamedTelegramCount.get()
+				+ " ohne Zusammenfassen verteilt, " + _aggregatedTelegramCount.get() + " zusammengefasst";
+	}
+
+	/**
+	 * Gibt den Zwischenspeicher für die Ergebnisse der Zugriffssteuerungs-Plugins zurück
+	 * @return Zwischenspeicher oder null, falls nicht zwischengespeichert wird
+	 */
+	public AccessControlResultCache getAccessControlResultCache() {
+		return _accessControlResultCache;
+	}
+
+	/**
+	 * Gibt den Executor zurück, der die Zugriffssteuerungs-Plugins ausführt
+	 * @return Executor
+	 */
+	public AccessControlPluginExecutor getAccessControlPluginExecutor() {
+		return _accessControlPluginExecutor;
+	}
+
+	/**
+	 * Verwirft die zwischengespeicherten Ergebnisse der Zugriffssteuerungs-Plugins für einen Benutzer, dessen Rechte sich geändert haben
+	 * @param userId Id des Benutzers
+	 */
+	public void handleUserRightsChanged(final long userId) {
+		if(_accessControlResultCache != null) _accessControlResultCache.invalidateUser(userId);
+	}
+
 	/**
 	 * Verarbeitet ein eingehendes Datentelegram von einem anderen Datenverteiler
 	 * @param communication Verbindung über die das Telegramm eingeht
 	 * @param transmitterDataTelegram Telegram
 	 */
 	public void handleDataTelegram(final CommunicationInterface communication, final TransmitterDataTelegram transmitterDataTelegram) {
-		handleDataTelegram(communication, transmitterDataTelegram.getApplicationDataTelegram(), transmitterDataTelegram.getDirection() == 0);
+		handleDataTelegram(
+				communication, transmitterDataTelegram.getApplicationDataTelegram(), transmitterDataTelegram.getDirection() == 0, transmitterDataTelegram
+		);
 	}
 
 	/**
@@ -191,6 +264,22 @@ public class TelegramManager implements TelegramManagerTransactionInterface {
 	 * @param toCentralDistributor wenn das Telegramm noch nicht beim Zentraldatenverteiler behandelt wurde, also der Datenindex noch nicht vernünftig gesetzt wurde
 	 */
 	public void handleDataTelegram(final CommunicationInterface communication, final ApplicationDataTelegram applicationDataTelegram, final boolean toCentralDistributor) {
+		handleDataTelegram(communication, applicationDataTelegram, toCentralDistributor, null);
+	}
+
+	/**
+	 * Verarbeitet ein eingehendes Datentelegram
+	 * @param communication Verbindung über die das Telegramm eingeht
+	 * @param applicationDataTelegram Telegram
+	 * @param toCentralDistributor wenn das Telegramm noch nicht beim Zentraldatenverteiler behandelt wurde, also der Datenindex noch nicht vernünftig gesetzt wurde
+	 * @param transmitterDataTelegram Ursprüngliches Telegramm, falls es von einem anderen Datenverteiler stammt und ggf. unverändert
+	 *                                weitergeleitet werden kann, sonst null
+	 */
+	private void handleDataTelegram(
+			final CommunicationInterface communication,
+			final ApplicationDataTelegram applicationDataTelegram,
+			final boolean toCentralDistributor,
+			final TransmitterDataTelegram transmitterDataTelegram) {
 		final BaseSubscriptionInfo baseSubscriptionInfo = applicationDataTelegram.getBaseSubscriptionInfo();
 		final SubscriptionInfo subscriptionInfo = _subscriptionsManager.getSubscriptionInfo(baseSubscriptionInfo);
 
@@ -205,14 +294,28 @@ public class TelegramManager implements TelegramManagerTransactionInterface {
 			return;
 		}
 
+		final List<AccessControlPlugin> plugins = getPluginFilterMap().get(baseSubscriptionInfo.getUsageIdentification());
+		final boolean usePlugins = plugins != null && communication.getUserLogin().isRegularUser();
+
+		// Auf Durchgangs-Datenverteilern das Telegramm ohne Zusammenfassen direkt an andere Datenverteiler weiterleiten
+		if(transmitterDataTelegram != null && !usePlugins && subscriptionInfo.relayTelegram(transmitterDataTelegram, communication)) {
+			_relayedTelegramCount.incrementAndGet();
+			return;
+		}
+
+		// Im Zentraldatenverteiler zerstückelte Datensätze telegrammweise verteilen
+		if(_streamSplitDatasets && !usePlugins && applicationDataTelegram.getTotalTelegramsCount() > 1
+				&& streamTelegramAsCentralDistributor(applicationDataTelegram, subscriptionInfo, communication)) {
+			_streamedTelegramCount.incrementAndGet();
+			return;
+		}
+		_aggregatedTelegramCount.incrementAndGet();
+
 		List<ApplicationDataTelegram> telegrams = _localTelegramAggregator.aggregate(applicationDataTelegram, subscriptionInfo);
 		if(telegrams.size() == 0) return;
 
-		final List<AccessControlPlugin> plugins = getPluginFilterMap().get(baseSubscriptionInfo.getUsageIdentification());
-		if(plugins != null && communication.getUserLogin().isRegularUser()) {
-			telegrams = AccessControlUtil.handleApplicationDataTelegram(
-					telegrams, plugins, communication.getUserLogin().getRemoteUserId(), _selfClientDavConnection.getDataModel()
-			);
+		if(usePlugins) {
+			telegrams = filterByPlugins(telegrams, plugins, communication.getUserLogin().getRemoteUserId());
 			if(telegrams.size() == 0) return;
 		}
 
@@ -224,6 +327,61 @@ public class TelegramManager implements TelegramManagerTransactionInterface {
 		}
 	}
 
+	/**
+	 * Filtert einen Datensatz durch die Zugriffssteuerungs-Plugins. Liegt für den Datensatz und Benutzer bereits ein Ergebnis im Zwischenspeicher,
+	 * wird dieses verwendet. Überschreitet ein Plugin das Zeitlimit, wird der Datensatz verworfen.
+	 * @param telegrams Zusammengehörige Telegramme des Datensatzes
+	 * @param plugins Zuständige Plugins
+	 * @param userId Benutzer, von dem der Datensatz stammt
+	 * @return Zu verteilende Telegramme, leer falls der Datensatz verworfen wurde
+	 */
+	private List<ApplicationDataTelegram> filterByPlugins(
+			final List<ApplicationDataTelegram> telegrams, final List<AccessControlPlugin> plugins, final long userId) {
+		if(_accessControlResultCache != null) {
+			final List<ApplicationDataTelegram> cachedResult = _accessControlResultCache.get(telegrams, userId);
+			if(cachedResult != null) return cachedResult;
+		}
+		final List<ApplicationDataTelegram> result;
+		try {
+			result = AccessControlUtil.handleApplicationDataTelegram(
+					telegrams, plugins, userId, _selfClientDavConnection.getDataModel(), _accessControlPluginExecutor
+			);
+		}
+		catch(AccessControlPluginTimeoutException e) {
+			_debug.warning("Datensatz " + telegrams.get(0).getBaseSubscriptionInfo() + " wird verworfen: " + e.getMessage());
+			return Collections.emptyList();
+		}
+		if(_accessControlResultCache != null) _accessControlResultCache.put(telegrams, userId, result);
+		return result;
+	}
+
+	/**
+	 * Verteilt ein Telegramm eines zerstückelten Datensatzes als Zentraldatenverteiler, ohne vorher auf die übrigen Telegramme des Datensatzes
+	 * zu warten. Der Datenindex wird beim ersten Telegramm vergeben. Transaktionen müssen vollständig vorliegen und werden daher wie bisher
+	 * zusammengefasst.
+	 * @param telegram Telegramm
+	 * @param subscriptionInfo Objekt, das die dazugehörigen Anmeldungen verwaltet und an das die Daten gesendet werden.
+	 * @param communication Verbindung über die der Emfang erfolgt
+	 * @return true, wenn das Telegramm verteilt wurde, false wenn es zusammengefasst werden muss
+	 */
+	private boolean streamTelegramAsCentralDistributor(
+			final ApplicationDataTelegram telegram, final SubscriptionInfo subscriptionInfo, final CommunicationInterface communication) {
+		synchronized(subscriptionInfo) {
+			if(telegram.getTelegramNumber() == 0) {
+				if(_davTransactionManager != null && _davTransactionManager.isTransaction(telegram.getBaseSubscriptionInfo().getUsageIdentification())) {
+					return false;
+				}
+				if(!subscriptionInfo.canStream()) return false;
+				subscriptionInfo.startStream(_subscriptionsManager.getNextDataIndex(subscriptionInfo), communication);
+			}
+			else if(!subscriptionInfo.isStreaming(communication)) {
+				return false;
+			}
+			subscriptionInfo.streamTelegram(telegram);
+			return true;
+		}
+	}
+
 	/**
 	 * Verarbeitet Datentelegramem als Zentraldatenverteiler
 	 * @param telegrams Aggregierte Liste mit zusammengehörigen Datentelegrammen
@@ -293,6 +451,27 @@ public class TelegramManager implements TelegramManagerTransactionInterface {
 		subscriptionInfo.distributeTelegrams(Arrays.asList(dataTelegrams), false, null);
 	}
 
+	@Override
+	public void sendDatasetsFromTransaction(final boolean isSource, final List<ApplicationDataTelegram[]> datasets) {
+		final Map<BaseSubscriptionInfo, List<List<ApplicationDataTelegram>>> datasetsByIdentification
+				= new LinkedHashMap<BaseSubscriptionInfo, List<List<ApplicationDataTelegram>>>();
+		for(final ApplicationDataTelegram[] dataset : datasets) {
+			final BaseSubscriptionInfo baseSubscriptionInfo = dataset[0].getBaseSubscriptionInfo();
+			List<List<ApplicationDataTelegram>> list = datasetsByIdentification.get(baseSubscriptionInfo);
+			if(list == null) {
+				list = new ArrayList<List<ApplicationDataTelegram>>();
+				datasetsByIdentification.put(baseSubscriptionInfo, list);
+			}
+			list.add(Arrays.asList(dataset));
+		}
+		for(final Map.Entry<BaseSubscriptionInfo, List<List<ApplicationDataTelegram>>> entry : datasetsByIdentification.entrySet()) {
+			final SubscriptionInfo subscriptionInfo = _subscriptionsManager.getSubscriptionInfo(entry.getKey());
+			if(subscriptionInfo == null) continue;
+			/* Nicht #handleTelegramAsCentralDistributor aufrufen, damit der DatenIndex nicht noch einmal gesetzt wird */
+			subscriptionInfo.distributeDatasets(entry.getValue());
+		}
+	}
+
 	/**
 	 * Berechnet für eine Anmeldung den nächsten Datenindex und gibt diesen zurück
 	 */
@@ -301,6 +480,11 @@ public class TelegramManager implements TelegramManagerTransactionInterface {
 		return _subscriptionsManager.getNextDataIndex(info);
 	}
 
+	@Override
+	public long[] getNextDataIndexes(final BaseSubscriptionInfo info, final int count) {
+		return _subscriptionsManager.getNextDataIndexes(info, count);
+	}
+
 	/**
 	 * Benachrichtigt den _davTransactionManager dass eine lokale Anmeldung nicht mehr vorhanden ist. Der Transaktionsmanager meldet daraufhin eventuell vorhandene
 	 * innere Datensätze ab.
@@ -29,6 +29,8 @@ package de.bsvrz.dav.dav.main;
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.ApplicationDataTelegram;
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
 
+import java.util.List;
+
 /**
  * Schnittstelle für die Transaktionen, die der Subscriptionsmanager implementieren sollte
  *
@@ -45,6 +47,14 @@ public interface TelegramManagerTransactionInterface {
 	void sendTelegramsFromTransaction(
 			boolean isSource, ApplicationDataTelegram[] dataTelegrams);
 
+	/**
+	 * Sendet mehrere Datensätze mit vorgegebenem Datenindex. Die Datensätze werden je Datenidentifikation in der angegebenen Reihenfolge
+	 * verteilt, die Anmeldung wird dabei je Datenidentifikation nur einmal ermittelt und gesperrt.
+	 * @param isSource true wenn Quelle
+	 * @param datasets Datensätze, jeweils als Telegramm (oder mehrere falls gesplittet)
+	 */
+	void sendDatasetsFromTransaction(boolean isSource, List<ApplicationDataTelegram[]> datasets);
+
 	/**
 	 * Gibt den nächsten Datenindex für eine gegebene Anmeldung zurück
 	 *
@@ -54,4 +64,14 @@ public interface TelegramManagerTransactionInterface {
 	 *
 	 */
 	long getNextDataIndex(BaseSubscriptionInfo info);
+
+	/**
+	 * Gibt mehrere aufeinanderfolgende Datenindizes für eine gegebene Anmeldung zurück
+	 *
+	 * @param info  Anmeldungs-Info
+	 * @param count Anzahl Datenindizes
+	 *
+	 * @return Datenindizes
+	 */
+	long[] getNextDataIndexes(BaseSubscriptionInfo info, int count);
 }
@@ -0,0 +1,436 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.dav.main;
+
+import de.bsvrz.dav.daf.main.config.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Liest die inneren Datensätze eines serialisierten Transaktionsdatensatzes direkt aus dem Byte-Array und trägt die Datenindizes dort ein, ohne
+ * dafür Data-Objekte zu erzeugen. Der Aufbau der Attributgruppe wird dazu einmalig aus der Konfiguration ermittelt (Positionen und Größen der
+ * Attribute "Transaktion", "Datensatz", "Datenidentifikation", "Datenindex", "Datenzeit" und "Daten").
+ * <p>
+ * Die Serialisierung wird hier nachgebildet. Damit eine Abweichung vom Serialisierer der Datenverteiler-Applikationsfunktionen nicht zu falschen
+ * Daten führt, muss das Ergebnis einmalig mit dem Ergebnis der Verarbeitung über Data-Objekte verglichen und das Objekt erst danach mit
+ * {@link #setVerified(boolean)} freigegeben werden.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+final class TransactionDataIndexPatcher {
+
+	/** Größe eines Elements eines Attributs mit variabler Größe (Listen, Arrays von Listen) */
+	private static final int VARIABLE_SIZE = -1;
+
+	private final Field[] _fields;
+
+	/** null = noch nicht geprüft, true = Ergebnis stimmt mit der Verarbeitung über Data-Objekte überein, false = nicht verwenden */
+	private volatile Boolean _verified = null;
+
+	/**
+	 * Ermittelt den Aufbau einer Transaktionsattributgruppe
+	 *
+	 * @param attributeGroup Transaktionsattributgruppe
+	 *
+	 * @throws IllegalArgumentException falls die Attributgruppe Attribute enthält, deren serialisierte Größe nicht bestimmt werden kann, oder die
+	 *                                  erwarteten Attribute fehlen
+	 */
+	TransactionDataIndexPatcher(final AttributeGroup attributeGroup) {
+		_fields = compile(attributeGroup.getAttributes());
+		final Field transaction = find(_fields, "Transaktion");
+		if(transaction == null || transaction._array || transaction._children == null) {
+			throw new IllegalArgumentException("Attribut Transaktion fehlt oder ist keine Liste");
+		}
+		final Field dataset = find(transaction._children, "Datensatz");
+		if(dataset == null || !dataset._array || dataset._children == null) {
+			throw new IllegalArgumentException("Attribut Datensatz fehlt oder ist kein Array von Listen");
+		}
+		final Field dataIdentification = find(dataset._children, "Datenidentifikation");
+		if(dataIdentification == null || dataIdentification._array || dataIdentification._children == null) {
+			throw new IllegalArgumentException("Attribut Datenidentifikation fehlt oder ist keine Liste");
+		}
+		requireReference(dataIdentification._children, "Objekt");
+		requireReference(dataIdentification._children, "Attributgruppe");
+		requireReference(dataIdentification._children, "Aspekt");
+		final Field dataIndex = find(dataset._children, "Datenindex");
+		if(dataIndex == null || dataIndex._array || dataIndex._kind != Kind.INTEGER || dataIndex._size != 8) {
+			throw new IllegalArgumentException("Attribut Datenindex fehlt oder ist keine 8-Byte-Ganzzahl");
+		}
+		final Field dataTime = find(dataset._children, "Datenzeit");
+		if(dataTime == null || dataTime._array || dataTime._kind != Kind.TIME || dataTime._size != 8) {
+			throw new IllegalArgumentException("Attribut Datenzeit fehlt oder ist keine Zeitangabe in Millisekunden");
+		}
+		final Field data = find(dataset._children, "Daten");
+		if(data == null || !data._array || data._kind != Kind.INTEGER || data._size != 1) {
+			throw new IllegalArgumentException("Attribut Daten fehlt oder ist kein Byte-Array");
+		}
+	}
+
+	/**
+	 * Gibt zurück, ob das Ergebnis bereits mit der Verarbeitung über Data-Objekte verglichen wurde
+	 *
+	 * @return null, falls noch nicht geprüft wurde, sonst das Ergebnis der Prüfung
+	 */
+	Boolean getVerified() {
+		return _verified;
+	}
+
+	/**
+	 * Speichert das Ergebnis des Vergleichs mit der Verarbeitung über Data-Objekte
+	 *
+	 * @param verified true, falls die Ergebnisse übereinstimmen
+	 */
+	void setVerified(final boolean verified) {
+		_verified = verified;
+	}
+
+	/**
+	 * Liest die inneren Datensätze
+	 *
+	 * @param bytes Serialisierter Transaktionsdatensatz
+	 *
+	 * @return Innere Datensätze in der Reihenfolge des Datensatzes
+	 *
+	 * @throws IllegalArgumentException falls das Byte-Array nicht dem ermittelten Aufbau entspricht
+	 */
+	List<InnerDataset> read(final byte[] bytes) {
+		final Reader reader = new Reader(bytes);
+		final List<InnerDataset> result = new ArrayList<InnerDataset>();
+		try {
+			for(final Field field : _fields) {
+				if(field._name.equals("Transaktion")) {
+					for(final Field child : field._children) {
+						if(child._name.equals("Datensatz")) {
+							final int count = reader.readCount(child);
+							for(int i = 0; i < count; i++) {
+								result.add(readDataset(reader, child._children));
+							}
+						}
+						else {
+							reader.skip(child);
+						}
+					}
+				}
+				else {
+					reader.skip(field);
+				}
+			}
+		}
+		catch(ArrayIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Transaktionsdatensatz ist kürzer als erwartet", e);
+		}
+		if(reader._position != bytes.length) {
+			throw new IllegalArgumentException("Transaktionsdatensatz enthält " + (bytes.length - reader._position) + " unerwartete Bytes");
+		}
+		return result;
+	}
+
+	private static InnerDataset readDataset(final Reader reader, final Field[] fields) {
+		long objectId = 0, attributeGroupId = 0, aspectId = 0, dataTime = 0;
+		int dataIndexOffset = -1, dataOffset = -1, dataLength = 0;
+		for(final Field field : fields) {
+			if(field._name.equals("Datenidentifikation")) {
+				for(final Field child : field._children) {
+					if(child._name.equals("Objekt")) {
+						objectId = reader.readLong();
+					}
+					else if(child._name.equals("Attributgruppe")) {
+						attributeGroupId = reader.readLong();
+					}
+					else if(child._name.equals("Aspekt")) {
+						aspectId = reader.readLong();
+					}
+					else {
+						reader.skip(child);
+					}
+				}
+			}
+			else if(field._name.equals("Datenindex")) {
+				dataIndexOffset = reader._position;
+				reader.readLong();
+			}
+			else if(field._name.equals("Datenzeit")) {
+				dataTime = reader.readLong();
+			}
+			else if(field._name.equals("Daten")) {
+				dataLength = reader.readCount(field);
+				dataOffset = reader._position;
+				reader.advance(dataLength);
+			}
+			else {
+				reader.skip(field);
+			}
+		}
+		return new InnerDataset(objectId, attributeGroupId, aspectId, dataIndexOffset, dataTime, dataOffset, dataLength);
+	}
+
+	/**
+	 * Trägt einen Datenindex in einen inneren Datensatz ein
+	 *
+	 * @param bytes     Serialisierter Transaktionsdatensatz, wird verändert
+	 * @param dataset   Innerer Datensatz
+	 * @param dataIndex Datenindex
+	 */
+	static void patchDataIndex(final byte[] bytes, final InnerDataset dataset, final long dataIndex) {
+		final int offset = dataset._dataIndexOffset;
+		for(int i = 0; i < 8; i++) {
+			bytes[offset + i] = (byte) (dataIndex >>> (56 - 8 * i));
+		}
+	}
+
+	private static Field find(final Field[] fields, final String name) {
+		for(final Field field : fields) {
+			if(field._name.equals(name)) return field;
+		}
+		return null;
+	}
+
+	private static void requireReference(final Field[] fields, final String name) {
+		final Field field = find(fields, name);
+		if(field == null || field._array || field._kind != Kind.REFERENCE) {
+			throw new IllegalArgumentException("Attribut " + name + " fehlt oder ist keine Referenz");
+		}
+	}
+
+	private static Field[] compile(final List<Attribute> attributes) {
+		final Field[] fields = new Field[attributes.size()];
+		for(int i = 0; i < fields.length; i++) {
+			fields[i] = compile(attributes.get(i));
+		}
+		return fields;
+	}
+
+	private static Field compile(final Attribute attribute) {
+		final AttributeType type = attribute.getAttributeType();
+		final String name = attribute.getName();
+		final boolean array = attribute.isArray();
+		final int countSize;
+		if(!array || !attribute.isCountVariable()) {
+			countSize = 0;
+		}
+		else if(!attribute.isCountLimited() || attribute.getMaxCount() > 65535) {
+			countSize = 4;
+		}
+		else if(attribute.getMaxCount() > 255) {
+			countSize = 2;
+		}
+		else {
+			countSize = 1;
+		}
+		final int fixedCount = array ? attribute.getMaxCount() : 1;
+		if(type instanceof AttributeListDefinition) {
+			final Field[] children = compile(((AttributeListDefinition) type).getAttributes());
+			return new Field(name, Kind.LIST, VARIABLE_SIZE, array, countSize, fixedCount, children);
+		}
+		if(type instanceof ReferenceAttributeType) {
+			return new Field(name, Kind.REFERENCE, 8, array, countSize, fixedCount, null);
+		}
+		if(type instanceof IntegerAttributeType) {
+			return new Field(name, Kind.INTEGER, ((IntegerAttributeType) type).getByteCount(), array, countSize, fixedCount, null);
+		}
+		if(type instanceof TimeAttributeType) {
+			final TimeAttributeType timeType = (TimeAttributeType) type;
+			final int size = timeType.isRelative() && timeType.getAccuracy() == TimeAttributeType.SECONDS ? 4 : 8;
+			return new Field(name, Kind.TIME, size, array, countSize, fixedCount, null);
+		}
+		if(type instanceof DoubleAttributeType) {
+			final int size = ((DoubleAttributeType) type).getAccuracy() == DoubleAttributeType.FLOAT ? 4 : 8;
+			return new Field(name, Kind.DOUBLE, size, array, countSize, fixedCount, null);
+		}
+		throw new IllegalArgumentException("Attribut " + name + " hat einen nicht unterstützten Typ: " + type);
+	}
+
+	private enum Kind {
+		LIST,
+		REFERENCE,
+		INTEGER,
+		TIME,
+		DOUBLE
+	}
+
+	/** Aufbau eines Attributs */
+	private static final class Field {
+
+		private final String _name;
+
+		private final Kind _kind;
+
+		/** Größe eines Elements in Bytes oder {@link #VARIABLE_SIZE} */
+		private final int _size;
+
+		private final boolean _array;
+
+		/** Größe der Längenangabe in Bytes, 0 bei Arrays fester Länge und bei Attributen, die keine Arrays sind */
+		private final int _countSize;
+
+		/** Anzahl Elemente bei Arrays fester Länge */
+		private final int _fixedCount;
+
+		/** Unterattribute bei Listen, sonst null */
+		private final Field[] _children;
+
+		private Field(
+				final String name,
+				final Kind kind,
+				final int size,
+				final boolean array,
+				final int countSize,
+				final int fixedCount,
+				final Field[] children) {
+			_name = name;
+			_kind = kind;
+			_size = size;
+			_array = array;
+			_countSize = countSize;
+			_fixedCount = fixedCount;
+			_children = children;
+		}
+	}
+
+	/** Lesezeiger auf dem serialisierten Datensatz */
+	private static final class Reader {
+
+		private final byte[] _bytes;
+
+		private int _position = 0;
+
+		private Reader(final byte[] bytes) {
+			_bytes = bytes;
+		}
+
+		private long readLong() {
+			long result = 0;
+			for(int i = 0; i < 8; i++) {
+				result = (result << 8) | (_bytes[_position++] & 0xFF);
+			}
+			return result;
+		}
+
+		private int readCount(final Field field) {
+			if(!field._array) return 1;
+			if(field._countSize == 0) return field._fixedCount;
+			int result = 0;
+			for(int i = 0; i < field._countSize; i++) {
+				result = (result << 8) | (_bytes[_position++] & 0xFF);
+			}
+			if(result < 0) throw new IllegalArgumentException("Ungültige Arraylänge " + result + " bei Attribut " + field._name);
+			return result;
+		}
+
+		/**
+		 * Überspringt die angegebene Anzahl Bytes
+		 *
+		 * @param length Anzahl Bytes, als long, damit die Größe großer Arrays nicht überläuft
+		 *
+		 * @throws ArrayIndexOutOfBoundsException falls der Datensatz nicht genügend Bytes enthält
+		 */
+		private void advance(final long length) {
+			if(length < 0 || length > _bytes.length - _position) {
+				throw new ArrayIndexOutOfBoundsException("Position " + _position + " + " + length + " Bytes, Länge " + _bytes.length);
+			}
+			_position += (int) length;
+		}
+
+		private void skip(final Field field) {
+			final int count = readCount(field);
+			if(field._size != VARIABLE_SIZE) {
+				advance((long) count * field._size);
+				return;
+			}
+			for(int i = 0; i < count; i++) {
+				for(final Field child : field._children) {
+					skip(child);
+				}
+			}
+		}
+	}
+
+	/** Position und Kopfdaten eines inneren Datensatzes im serialisierten Transaktionsdatensatz */
+	static final class InnerDataset {
+
+		private final long _objectId;
+
+		private final long _attributeGroupId;
+
+		private final long _aspectId;
+
+		private final int _dataIndexOffset;
+
+		private final long _dataTime;
+
+		private final int _dataOffset;
+
+		private final int _dataLength;
+
+		private InnerDataset(
+				final long objectId,
+				final long attributeGroupId,
+				final long aspectId,
+				final int dataIndexOffset,
+				final long dataTime,
+				final int dataOffset,
+				final int dataLength) {
+			_objectId = objectId;
+			_attributeGroupId = attributeGroupId;
+			_aspectId = aspectId;
+			_dataIndexOffset = dataIndexOffset;
+			_dataTime = dataTime;
+			_dataOffset = dataOffset;
+			_dataLength = dataLength;
+		}
+
+		long getObjectId() {
+			return _objectId;
+		}
+
+		long getAttributeGroupId() {
+			return _attributeGroupId;
+		}
+
+		long getAspectId() {
+			return _aspectId;
+		}
+
+		long getDataTime() {
+			return _dataTime;
+		}
+
+		int getDataIndexOffset() {
+			return _dataIndexOffset;
+		}
+
+		int getDataOffset() {
+			return _dataOffset;
+		}
+
+		int getDataLength() {
+			return _dataLength;
+		}
+	}
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.dav.main;
+
+import de.bsvrz.dav.daf.communication.dataRepresentation.datavalue.SendDataObject;
+import de.bsvrz.dav.daf.communication.lowLevel.TelegramUtility;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.ApplicationDataTelegram;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * Zwischenspeicher für Datensätze, die während einer Unterbrechung einer ausgehenden Datenverteilerverbindung nicht an den anderen
+ * Datenverteiler übertragen werden konnten. Die Datensätze werden in einer Datei auf der lokalen Festplatte abgelegt, die in den Speicher
+ * eingeblendet wird. Die Größe der Datei ist fest vorgegeben; passt ein Datensatz nicht mehr hinein, wird er verworfen und gezählt.
+ * <p>
+ * Nach dem Wiederaufbau der Verbindung werden die Datensätze einer Datenidentifikation mit {@link #takeDatasets(BaseSubscriptionInfo, long)}
+ * entnommen und als nachgelieferte Daten versendet. Jeder Eintrag hat folgendes Format:
+ * <pre>
+ * int    Länge der folgenden Bytes ohne Gültigkeitskennung
+ * byte   Gültigkeitskennung (1: gültig, 0: bereits entnommen)
+ * long   Objekt-ID
+ * long   Attributgruppenverwendung
+ * short  Simulationsvariante
+ * long   Datenindex
+ * long   Datenzeit
+ * byte   Fehlerkennung
+ * int    Länge der Attributindikatoren, gefolgt von den Bytes (-1 falls nicht vorhanden)
+ * int    Länge der Nutzdaten, gefolgt von den Bytes
+ * </pre>
+ * Sind alle Einträge entnommen, wird wieder vom Anfang der Datei an geschrieben.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class TransmitterDataSpool {
+
+	private static final Debug _debug = Debug.getLogger();
+
+	private static final byte VALID = 1;
+
+	private static final byte TAKEN = 0;
+
+	private static final int FIXED_ENTRY_SIZE = 4 + 1 + 8 + 8 + 2 + 8 + 8 + 1 + 4 + 4;
+
+	/** ID des Datenverteilers, zu dem die Verbindung unterbrochen ist */
+	private final long _transmitterId;
+
+	private final File _file;
+
+	private final RandomAccessFile _randomAccessFile;
+
+	private final MappedByteBuffer _buffer;
+
+	/** Zuletzt gespeicherter Datenindex je Datenidentifikation, um doppelte Datensätze zu erkennen */
+	private final Map<BaseSubscriptionInfo, Long> _lastDataIndex = new HashMap<BaseSubscriptionInfo, Long>();
+
+	/** Datenidentifikationen, deren Datensätze noch nicht mit {@link #takeDatasets(BaseSubscriptionInfo, long)} entnommen wurden */
+	private final Set<BaseSubscriptionInfo> _pendingReplays = new HashSet<BaseSubscriptionInfo>();
+
+	/** Wird aufgerufen, sobald die Datensätze aller Datenidentifikationen entnommen wurden */
+	private Runnable _replayCompletedHandler = null;
+
+	/** Position, an der der nächste Eintrag geschrieben wird */
+	private int _writePosition = 0;
+
+	/** Anzahl noch nicht entnommener Einträge */
+	private int _validEntries = 0;
+
+	/** Belegte Bytes der noch nicht entnommenen Einträge */
+	private long _validBytes = 0;
+
+	private long _storedDatasets = 0;
+
+	private long _droppedDatasets = 0;
+
+	private long _replayedDatasets = 0;
+
+	private long _replayedBytes = 0;
+
+	private long _replayNanos = 0;
+
+	private boolean _closed = false;
+
+	/**
+	 * Erstellt einen neuen Zwischenspeicher. Eine eventuell vorhandene Datei gleichen Namens wird überschrieben.
+	 *
+	 * @param transmitterId ID des Datenverteilers, zu dem die Verbindung unterbrochen ist
+	 * @param directory     Verzeichnis, in dem die Datei angelegt wird
+	 * @param capacity      Größe der Datei in Bytes
+	 * @throws IOException Falls die Datei nicht angelegt oder eingeblendet werden kann
+	 */
+	public TransmitterDataSpool(final long transmitterId, final File directory, final int capacity) throws IOException {
+		_transmitterId = transmitterId;
+		_file = new File(directory, "davDavZwischenspeicher_" + transmitterId + ".dat");
+		_randomAccessFile = new RandomAccessFile(_file, "rw");
+		try {
+			_randomAccessFile.setLength(capacity);
+			_buffer = _randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+		}
+		catch(IOException e) {
+			_randomAccessFile.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gibt die ID des Datenverteilers zurück, für den die Datensätze gespeichert werden
+	 *
+	 * @return Datenverteiler-ID
+	 */
+	public long getTransmitterId() {
+		return _transmitterId;
+	}
+
+	/**
+	 * Vermerkt eine Datenidentifikation, deren Datensätze in diesem Zwischenspeicher gesammelt und später nachgeliefert werden
+	 *
+	 * @param info Datenidentifikation
+	 */
+	public synchronized void addPendingReplay(final BaseSubscriptionInfo info) {
+		if(!_closed) _pendingReplays.add(info);
+	}
+
+	/**
+	 * Gibt zurück, ob für vermerkte Datenidentifikationen noch Datensätze nachzuliefern sind
+	 *
+	 * @return true, falls noch nicht alle Datenidentifikationen nachgeliefert wurden
+	 */
+	public synchronized boolean hasPendingReplays() {
+		return !_pendingReplays.isEmpty();
+	}
+
+	/**
+	 * Setzt die Aktion, die ausgeführt wird, sobald die Datensätze aller vermerkten Datenidentifikationen entnommen wurden. Die Aktion wird
+	 * innerhalb von {@link #takeDatasets(BaseSubscriptionInfo, long)} aufgerufen und darf daher nicht blockieren.
+	 *
+	 * @param replayCompletedHandler Aktion
+	 */
+	public synchronized void setReplayCompletedHandler(final Runnable replayCompletedHandler) {
+		_replayCompletedHandler = replayCompletedHandler;
+	}
+
+	/**
+	 * Speichert einen vollständigen Datensatz. Datensätze, deren Datenindex nicht größer als der des zuletzt gespeicherten Datensatzes der
+	 * gleichen Datenidentifikation ist, werden ignoriert.
+	 *
+	 * @param telegrams Telegramme des Datensatzes
+	 */
+	public synchronized void append(final List<ApplicationDataTelegram> telegrams) {
+		if(_closed) return;
+		final ApplicationDataTelegram first = telegrams.get(0);
+		final BaseSubscriptionInfo info = first.getBaseSubscriptionInfo();
+		final Long lastDataIndex = _lastDataIndex.get(info);
+		if(lastDataIndex != null && first.getDataNumber() <= lastDataIndex) return;
+
+		final SendDataObject sendDataObject = TelegramUtility.getSendDataObject(telegrams.toArray(new ApplicationDataTelegram[telegrams.size()]));
+		final byte[] attributesIndicator = sendDataObject.getAttributesIndicator();
+		final byte[] data = sendDataObject.getData();
+		final int entrySize = FIXED_ENTRY_SIZE + (attributesIndicator == null ? 0 : attributesIndicator.length) + (data == null ? 0 : data.length);
+		if(_buffer.capacity() - _writePosition < entrySize) {
+			_droppedDatasets++;
+			return;
+		}
+		_buffer.position(_writePosition);
+		_buffer.putInt(entrySize - 5);
+		_buffer.put(VALID);
+		_buffer.putLong(info.getObjectID());
+		_buffer.putLong(info.getUsageIdentification());
+		_buffer.putShort(info.getSimulationVariant());
+		_buffer.putLong(sendDataObject.getDataNumber());
+		_buffer.putLong(sendDataObject.getDataTime());
+		_buffer.put(sendDataObject.getErrorFlag());
+		if(attributesIndicator == null) {
+			_buffer.putInt(-1);
+		}
+		else {
+			_buffer.putInt(attributesIndicator.length);
+			_buffer.put(attributesIndicator);
+		}
+		if(data == null) {
+			// Datensatz ohne Nutzdaten (z.B. "keine Daten" einer Quelle)
+			_buffer.putInt(-1);
+		}
+		else {
+			_buffer.putInt(data.length);
+			_buffer.put(data);
+		}
+		_writePosition += entrySize;
+		_validEntries++;
+		_validBytes += entrySize;
+		_storedDatasets++;
+		_lastDataIndex.put(info, sendDataObject.getDataNumber());
+	}
+
+	/**
+	 * Entnimmt alle gespeicherten Datensätze einer Datenidentifikation und gibt sie als nachgelieferte Datensätze in aufsteigender Reihenfolge
+	 * der Datenindizes zurück.
+	 *
+	 * @param info               Datenidentifikation
+	 * @param maximumDataIndex   Nur Datensätze mit kleinerem Datenindex werden zurückgegeben (z.B. der Datenindex des aktuellen Datensatzes,
+	 *                           der ohnehin versendet wird). Datensätze mit größerem oder gleichem Datenindex werden verworfen.
+	 * @return Liste mit den Telegrammen der Datensätze
+	 */
+	public synchronized List<ApplicationDataTelegram[]> takeDatasets(final BaseSubscriptionInfo info, final long maximumDataIndex) {
+		final long start = System.nanoTime();
+		final List<ApplicationDataTelegram[]> result = new ArrayList<ApplicationDataTelegram[]>();
+		if(_closed) return result;
+		long bytes = 0;
+		long lastDataIndex = 0;
+		int position = 0;
+		while(position < _writePosition) {
+			final int length = _buffer.getInt(position);
+			final int entrySize = length + 5;
+			if(_buffer.get(position + 4) == VALID
+					&& _buffer.getLong(position + 5) == info.getObjectID()
+					&& _buffer.getLong(position + 13) == info.getUsageIdentification()
+					&& _buffer.getShort(position + 21) == info.getSimulationVariant()) {
+				final long dataIndex = _buffer.getLong(position + 23);
+				if(dataIndex > lastDataIndex && dataIndex < maximumDataIndex) {
+					result.add(readDataset(info, position));
+					bytes += entrySize;
+					lastDataIndex = dataIndex;
+				}
+				_buffer.put(position + 4, TAKEN);
+				_validEntries--;
+				_validBytes -= entrySize;
+			}
+			position += entrySize;
+		}
+		_lastDataIndex.remove(info);
+		if(_validEntries == 0) _writePosition = 0;
+		_replayedDatasets += result.size();
+		_replayedBytes += bytes;
+		_replayNanos += System.nanoTime() - start;
+		if(_pendingReplays.remove(info) && _pendingReplays.isEmpty() && _replayCompletedHandler != null) {
+			_replayCompletedHandler.run();
+		}
+		return result;
+	}
+
+	private ApplicationDataTelegram[] readDataset(final BaseSubscriptionInfo info, final int position) {
+		_buffer.position(position + 23);
+		final long dataIndex = _buffer.getLong();
+		final long dataTime = _buffer.getLong();
+		final byte errorFlag = _buffer.get();
+		final int attributesIndicatorLength = _buffer.getInt();
+		byte[] attributesIndicator = null;
+		if(attributesIndicatorLength >= 0) {
+			attributesIndicator = new byte[attributesIndicatorLength];
+			_buffer.get(attributesIndicator);
+		}
+		final int dataLength = _buffer.getInt();
+		byte[] data = null;
+		if(dataLength >= 0) {
+			data = new byte[dataLength];
+			_buffer.get(data);
+		}
+		return TelegramUtility.splitToApplicationTelegrams(
+				new SendDataObject(info, true, dataIndex, dataTime, errorFlag, attributesIndicator, data)
+		);
+	}
+
+	/**
+	 * Gibt zurück, ob noch nicht entnommene Datensätze vorhanden sind
+	 *
+	 * @return true falls der Zwischenspeicher leer ist
+	 */
+	public synchronized boolean isEmpty() {
+		return _validEntries == 0;
+	}
+
+	/** Verwirft alle gespeicherten Datensätze und löscht die Datei. */
+	public synchronized void close() {
+		if(_closed) return;
+		_closed = true;
+		_lastDataIndex.clear();
+		_pendingReplays.clear();
+		_validEntries = 0;
+		_validBytes = 0;
+		try {
+			_randomAccessFile.close();
+		}
+		catch(IOException e) {
+			_debug.warning("Fehler beim Schließen des Zwischenspeichers " + _file, e);
+		}
+		if(!_file.delete()) {
+			// Unter Windows kann die Datei erst gelöscht werden, wenn der eingeblendete Speicher freigegeben wurde
+			_file.deleteOnExit();
+		}
+	}
+
+	/**
+	 * Gibt Belegung und Durchsatz des Zwischenspeichers als Text zurück
+	 *
+	 * @return Text für Debug-Ausgaben
+	 */
+	public synchronized String getStatistics() {
+		final double replaySeconds = _replayNanos / 1e9;
+		return "Zwischenspeicher für Datenverteiler " + _transmitterId + ": "
+				+ _validEntries + " Datensätze (" + _validBytes + " von " + _buffer.capacity() + " Bytes belegt), "
+				+ _storedDatasets + " gespeichert, " + _droppedDatasets + " wegen Platzmangel verworfen, "
+				+ _replayedDatasets + " nachgeliefert (" + _replayedBytes + " Bytes"
+				+ (replaySeconds > 0 ? String.format(", %.0f Bytes/s", _replayedBytes / replaySeconds) : "") + ")";
+	}
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.dav.main;
+
+import de.bsvrz.dav.daf.main.config.Aspect;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.AttributeGroupUsage;
+import de.bsvrz.dav.daf.main.config.DataModel;
+import de.bsvrz.dav.dav.communication.davProtocol.T_T_HighLevelCommunication;
+import de.bsvrz.dav.dav.subscriptions.RemoteReceiverSubscription;
+import de.bsvrz.dav.dav.subscriptions.Subscription;
+import de.bsvrz.dav.dav.subscriptions.SubscriptionInfo;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Verwaltet die {@link TransmitterDataSpool Zwischenspeicher} für unterbrochene ausgehende Datenverteilerverbindungen. Wird eine ausgehende
+ * Verbindung terminiert, werden für alle über diese Verbindung angemeldeten Empfänger der konfigurierten Attributgruppenverwendungen die
+ * weiterhin verteilten Datensätze zwischengespeichert. Meldet sich der andere Datenverteiler nach dem Wiederaufbau der Verbindung erneut als
+ * Empfänger an, werden die gespeicherten Datensätze als nachgelieferte Daten vor dem aktuellen Datensatz versendet (siehe {@link
+ * SubscriptionInfo#startSpooling(TransmitterDataSpool)}). Sind alle Datenidentifikationen nachgeliefert, wird der Zwischenspeicher
+ * geschlossen und seine Datei gelöscht. Nach Ablauf der maximalen Speicherdauer werden noch nicht nachgelieferte Datensätze verworfen. Bricht
+ * die Verbindung erneut ab, bevor alle Datenidentifikationen nachgeliefert wurden, wird der vorhandene Zwischenspeicher weiter verwendet.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class TransmitterDataSpoolManager {
+
+	private static final Debug _debug = Debug.getLogger();
+
+	/** Verzeichnis, in dem die Zwischenspeicher-Dateien angelegt werden */
+	private final File _directory;
+
+	/** Größe eines Zwischenspeichers in Bytes */
+	private final int _capacity;
+
+	/** Maximale Speicherdauer in ms */
+	private final long _maximumDuration;
+
+	/** Zwischenzuspeichernde Datenidentifikationen in der Form "Attributgruppe:Aspekt" */
+	private final List<String> _attributeGroupUsagePids;
+
+	/** IDs der zwischenzuspeichernden Attributgruppenverwendungen, null solange das Datenmodell nicht verfügbar ist */
+	private volatile Set<Long> _attributeGroupUsages = null;
+
+	/** Aktive Zwischenspeicher je Datenverteiler-ID */
+	private final Map<Long, TransmitterDataSpool> _spools = new HashMap<Long, TransmitterDataSpool>();
+
+	/** Anmeldungsinformationen, die in den einzelnen Zwischenspeicher schreiben */
+	private final Map<TransmitterDataSpool, List<SubscriptionInfo>> _subscriptionInfos = new HashMap<TransmitterDataSpool, List<SubscriptionInfo>>();
+
+	/** Aufgaben, die die einzelnen Zwischenspeicher nach Ablauf der maximalen Speicherdauer beenden */
+	private final Map<TransmitterDataSpool, TimerTask> _expiryTasks = new HashMap<TransmitterDataSpool, TimerTask>();
+
+	private final Timer _timer = new Timer("DavDavZwischenspeicher", true);
+
+	/**
+	 * Erstellt eine neue Verwaltung
+	 *
+	 * @param directory               Verzeichnis, in dem die Zwischenspeicher-Dateien angelegt werden
+	 * @param capacity                Größe eines Zwischenspeichers in Bytes
+	 * @param maximumDuration         Maximale Speicherdauer in ms
+	 * @param attributeGroupUsagePids Zwischenzuspeichernde Datenidentifikationen in der Form "Attributgruppe:Aspekt"
+	 */
+	public TransmitterDataSpoolManager(
+			final File directory, final int capacity, final long maximumDuration, final List<String> attributeGroupUsagePids) {
+		_directory = directory;
+		_capacity = capacity;
+		_maximumDuration = maximumDuration;
+		_attributeGroupUsagePids = attributeGroupUsagePids;
+	}
+
+	/**
+	 * Ermittelt die zwischenzuspeichernden Attributgruppenverwendungen, sobald das Datenmodell verfügbar ist
+	 *
+	 * @param dataModel Datenmodell
+	 */
+	public void setDataModel(final DataModel dataModel) {
+		final Set<Long> result = new HashSet<Long>();
+		for(final String pids : _attributeGroupUsagePids) {
+			final String[] split = pids.split(":", 2);
+			final AttributeGroup attributeGroup = dataModel.getAttributeGroup(split[0].trim());
+			final Aspect aspect = split.length < 2 ? null : dataModel.getAspect(split[1].trim());
+			final AttributeGroupUsage usage = attributeGroup == null || aspect == null ? null : attributeGroup.getAttributeGroupUsage(aspect);
+			if(usage == null) {
+				_debug.warning("Ungültige Attributgruppenverwendung für den Zwischenspeicher von Datenverteilerverbindungen: " + pids);
+				continue;
+			}
+			result.add(usage.getId());
+		}
+		_attributeGroupUsages = result;
+	}
+
+	/**
+	 * Wird aufgerufen, wenn eine ausgehende Datenverteilerverbindung terminiert wurde, bevor die Anmeldungen der Verbindung entfernt werden.
+	 * Beginnt die Zwischenspeicherung für alle betroffenen Empfänger-Anmeldungen.
+	 *
+	 * @param communication        Terminierte Verbindung
+	 * @param subscriptionsManager Anmeldungsverwaltung
+	 */
+	public synchronized void connectionLost(final T_T_HighLevelCommunication communication, final AbstractSubscriptionsManager subscriptionsManager) {
+		final Set<Long> attributeGroupUsages = _attributeGroupUsages;
+		if(attributeGroupUsages == null || attributeGroupUsages.isEmpty()) return;
+		final long transmitterId = communication.getId();
+		if(transmitterId < 0) return;
+
+		// Ein noch nicht vollständig nachgelieferter Zwischenspeicher wird weiter verwendet
+		TransmitterDataSpool spool = _spools.get(transmitterId);
+		final boolean existingSpool = spool != null;
+		final List<SubscriptionInfo> subscriptionInfos = existingSpool ? _subscriptionInfos.get(spool) : new ArrayList<SubscriptionInfo>();
+		for(final Subscription subscription : subscriptionsManager.getAllSubscriptions(communication)) {
+			if(!(subscription instanceof RemoteReceiverSubscription)) continue;
+			if(!attributeGroupUsages.contains(subscription.getBaseSubscriptionInfo().getUsageIdentification())) continue;
+			final SubscriptionInfo subscriptionInfo = subscriptionsManager.getSubscriptionInfo(subscription.getBaseSubscriptionInfo());
+			if(subscriptionInfo == null) continue;
+			if(spool == null) {
+				try {
+					spool = new TransmitterDataSpool(transmitterId, _directory, _capacity);
+				}
+				catch(IOException e) {
+					_debug.warning("Zwischenspeicher für Datenverteiler " + transmitterId + " konnte nicht angelegt werden", e);
+					return;
+				}
+			}
+			subscriptionInfo.startSpooling(spool);
+			spool.addPendingReplay(subscriptionInfo.getBaseSubscriptionInfo());
+			if(!subscriptionInfos.contains(subscriptionInfo)) subscriptionInfos.add(subscriptionInfo);
+		}
+		if(spool == null) return;
+
+		_debug.info("Datensätze für Datenverteiler " + transmitterId + " werden zwischengespeichert: " + subscriptionInfos.size() + " Datenidentifikationen");
+		if(existingSpool) return;
+		_spools.put(transmitterId, spool);
+		_subscriptionInfos.put(spool, subscriptionInfos);
+		final TransmitterDataSpool finalSpool = spool;
+		finalSpool.setReplayCompletedHandler(
+				new Runnable() {
+					@Override
+					public void run() {
+						// Wird unter der Sperre einer Anmeldungsinformation aufgerufen, daher nicht direkt beenden
+						_timer.schedule(
+								new TimerTask() {
+									@Override
+									public void run() {
+										replayCompleted(finalSpool, subscriptionsManager);
+									}
+								}, 0
+						);
+					}
+				}
+		);
+		final TimerTask expiryTask = new TimerTask() {
+			@Override
+			public void run() {
+				expire(finalSpool, subscriptionsManager);
+			}
+		};
+		_expiryTasks.put(spool, expiryTask);
+		_timer.schedule(expiryTask, _maximumDuration);
+	}
+
+	/**
+	 * Beendet die Zwischenspeicherung, nachdem die Datensätze aller Datenidentifikationen nachgeliefert wurden. Wurde die Verbindung inzwischen
+	 * erneut unterbrochen, bleibt der Zwischenspeicher bestehen.
+	 *
+	 * @param spool                Zwischenspeicher
+	 * @param subscriptionsManager Anmeldungsverwaltung
+	 */
+	private synchronized void replayCompleted(final TransmitterDataSpool spool, final AbstractSubscriptionsManager subscriptionsManager) {
+		if(spool.hasPendingReplays()) return;
+		expire(spool, subscriptionsManager);
+	}
+
+	/**
+	 * Beendet die Zwischenspeicherung nach Ablauf der maximalen Speicherdauer bzw. nach vollständiger Nachlieferung, verwirft die nicht
+	 * nachgelieferten Datensätze und löscht die Datei des Zwischenspeichers
+	 *
+	 * @param spool                Zwischenspeicher
+	 * @param subscriptionsManager Anmeldungsverwaltung
+	 */
+	private synchronized void expire(final TransmitterDataSpool spool, final AbstractSubscriptionsManager subscriptionsManager) {
+		final List<SubscriptionInfo> subscriptionInfos = _subscriptionInfos.remove(spool);
+		if(subscriptionInfos == null) {
+			// Bereits beendet
+			return;
+		}
+		_spools.remove(spool.getTransmitterId());
+		final TimerTask expiryTask = _expiryTasks.remove(spool);
+		if(expiryTask != null) expiryTask.cancel();
+		for(final SubscriptionInfo subscriptionInfo : subscriptionInfos) {
+			subscriptionInfo.stopSpooling(spool);
+			// Nicht mehr benötigte Anmeldungsinformationen entfernen
+			final SubscriptionInfo info = subscriptionsManager.openExistingSubscriptionInfo(subscriptionInfo.getBaseSubscriptionInfo());
+			if(info != null) info.close();
+		}
+		_debug.info(spool.getStatistics());
+		spool.close();
+	}
+
+	/**
+	 * Gibt Belegung und Durchsatz aller aktiven Zwischenspeicher als Text zurück
+	 *
+	 * @return Text für Debug-Ausgaben
+	 */
+	public synchronized String getStatistics() {
+		final StringBuilder builder = new StringBuilder("Zwischenspeicher von Datenverteilerverbindungen: " + _spools.size() + " aktiv");
+		for(final TransmitterDataSpool spool : _spools.values()) {
+			builder.append("\n").append(spool.getStatistics());
+		}
+		return builder.toString();
+	}
+}
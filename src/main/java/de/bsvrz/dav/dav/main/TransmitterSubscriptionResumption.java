@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.dav.main;
+
+import de.bsvrz.dav.dav.communication.davProtocol.T_T_HighLevelCommunication;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Wiederaufnahme von Datenverteilerverbindungen nach kurzen Unterbrechungen. Bricht eine Datenverteilerverbindung ab, werden die eingehenden
+ * Anmeldungen des anderen Datenverteilers (entfernte Sender und Empfänger) nicht sofort entfernt, sondern für eine Karenzzeit zurückgehalten.
+ * Verbindet sich der gleiche Datenverteiler innerhalb dieser Zeit wieder, werden die Anmeldungen der neuen Verbindung zugeordnet. Die vom
+ * anderen Datenverteiler erneut übertragenen Anmeldungen werden dann mit den übernommenen Anmeldungen abgeglichen, sodass bei unveränderten
+ * Anmeldungen nur die Quittungen erneut verschickt werden und sich der Anmeldestatus der beteiligten Quellen, Senken und Empfänger nicht
+ * ändert. Übernommene Anmeldungen, die nach Ablauf der Karenzzeit nicht erneut angemeldet wurden, werden entfernt.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class TransmitterSubscriptionResumption {
+
+	private static final Debug _debug = Debug.getLogger();
+
+	/** Karenzzeit in ms */
+	private final long _gracePeriod;
+
+	/** Anmeldungsverwaltung */
+	private final AbstractSubscriptionsManager _subscriptionsManager;
+
+	/** Unterbrochene Verbindungen mit zurückgehaltenen Anmeldungen je Datenverteiler-ID */
+	private final Map<Long, T_T_HighLevelCommunication> _parkedConnections = new HashMap<Long, T_T_HighLevelCommunication>();
+
+	private final Timer _timer = new Timer("DavDavWiederaufnahme", true);
+
+	private long _resumedConnections = 0;
+
+	private long _expiredConnections = 0;
+
+	/**
+	 * Erstellt eine neue Verwaltung
+	 *
+	 * @param gracePeriod          Karenzzeit in ms, für die Anmeldungen nach einem Verbindungsabbruch zurückgehalten werden
+	 * @param subscriptionsManager Anmeldungsverwaltung
+	 */
+	public TransmitterSubscriptionResumption(final long gracePeriod, final AbstractSubscriptionsManager subscriptionsManager) {
+		_gracePeriod = gracePeriod;
+		_subscriptionsManager = subscriptionsManager;
+	}
+
+	/**
+	 * Wird aufgerufen, wenn eine Datenverteilerverbindung terminiert wurde. Hält die eingehenden Anmeldungen des anderen Datenverteilers
+	 * zurück und entfernt die übrigen Anmeldungen der Verbindung.
+	 *
+	 * @param communication Terminierte Verbindung
+	 * @return true, falls die Anmeldungen behandelt wurden, false, falls sie wie bisher vollständig entfernt werden müssen
+	 */
+	public synchronized boolean connectionLost(final T_T_HighLevelCommunication communication) {
+		final long transmitterId = communication.getId();
+		if(transmitterId < 0 || _parkedConnections.containsKey(transmitterId)) return false;
+		final int count = _subscriptionsManager.parkRemoteSubscriptions(communication);
+		if(count == 0) return true;
+		_parkedConnections.put(transmitterId, communication);
+		_timer.schedule(
+				new TimerTask() {
+					@Override
+					public void run() {
+						expire(transmitterId, communication);
+					}
+				}, _gracePeriod
+		);
+		_debug.info(count + " Anmeldungen des Datenverteilers " + transmitterId + " werden für " + _gracePeriod + " ms zurückgehalten");
+		return true;
+	}
+
+	/**
+	 * Wird aufgerufen, wenn eine Verbindung zu einem Datenverteiler initialisiert wurde, bevor die vom anderen Datenverteiler übertragenen
+	 * Anmeldungen verarbeitet werden. Ordnet zurückgehaltene Anmeldungen der neuen Verbindung zu.
+	 *
+	 * @param communication Neue Verbindung
+	 */
+	public void connectionEstablished(final T_T_HighLevelCommunication communication) {
+		final T_T_HighLevelCommunication oldCommunication;
+		synchronized(this) {
+			oldCommunication = _parkedConnections.remove(communication.getId());
+			if(oldCommunication == null) return;
+			_resumedConnections++;
+		}
+		final int count = _subscriptionsManager.resumeRemoteSubscriptions(oldCommunication, communication);
+		_debug.info(count + " Anmeldungen des Datenverteilers " + communication.getId() + " wurden nach der Wiederverbindung übernommen");
+		_timer.schedule(
+				new TimerTask() {
+					@Override
+					public void run() {
+						final int removed = _subscriptionsManager.removeUnconfirmedRemoteSubscriptions(communication);
+						if(removed > 0) {
+							_debug.info(removed + " übernommene Anmeldungen des Datenverteilers " + communication.getId() + " wurden nicht bestätigt und entfernt");
+						}
+					}
+				}, _gracePeriod
+		);
+	}
+
+	private void expire(final long transmitterId, final T_T_HighLevelCommunication communication) {
+		synchronized(this) {
+			if(_parkedConnections.get(transmitterId) != communication) return;
+			_parkedConnections.remove(transmitterId);
+			_expiredConnections++;
+		}
+		_debug.info("Datenverteiler " + transmitterId + " hat sich nicht rechtzeitig wieder verbunden, zurückgehaltene Anmeldungen werden entfernt");
+		_subscriptionsManager.removeAllSubscriptions(communication);
+	}
+
+	/**
+	 * Gibt die Anzahl der wiederaufgenommenen und der verfallenen Verbindungen als Text zurück
+	 *
+	 * @return Text für Debug-Ausgaben
+	 */
+	public synchronized String getStatistics() {
+		return "Wiederaufnahme von Datenverteilerverbindungen: " + _parkedConnections.size() + " unterbrochen, " + _resumedConnections
+				+ " wiederaufgenommen, " + _expiredConnections + " verfallen";
+	}
+}
@@ -63,6 +63,19 @@ public class DataIndexCounter<E> {
 		return inc;
 	}
 
+	/**
+	 * Zählt den Index um mehrere Schritte auf einmal hoch
+	 * @param obj Objekt
+	 * @param count Anzahl Schritte
+	 * @return Erster der reservierten Indizes, die übrigen schließen sich lückenlos an
+	 */
+	public long increment(E obj, int count){
+		// Synchronisation wie bei increment(E)
+		long first = get(obj) + 1;
+		_innerMap.put(obj, first + count - 1);
+		return first;
+	}
+
 	@Override
 	public String toString() {
 		return _innerMap.toString();
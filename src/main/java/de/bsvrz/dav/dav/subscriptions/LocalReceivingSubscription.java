@@ -46,7 +46,7 @@ public class LocalReceivingSubscription implements LocalSubscription, ReceivingS
 
 	private final SubscriptionsManager _subscriptionsManager;
 
-	private final long _applicationId;
+	private volatile long _applicationId;
 
 	private final BaseSubscriptionInfo _baseSubscriptionInfo;
 
@@ -54,10 +54,19 @@ public class LocalReceivingSubscription implements LocalSubscription, ReceivingS
 
 	private final ReceiveOptions _receiveOptions;
 
-	private final ApplicationCommunicationInterface _applicationConnection;
+	private volatile ApplicationCommunicationInterface _applicationConnection;
 
 	private DataState _lastSendDataState = null;
 
+	/**
+	 * Die Verbindung zur Applikation wurde unterbrochen und die Anmeldung wird bis zur Wiederverbindung und erneuten Anmeldung durch die
+	 * Applikation zurückgehalten, es werden keine Telegramme versendet
+	 */
+	private volatile boolean _parked = false;
+
+	/** Die Anmeldung wurde einer neuen Verbindung zugeordnet, aber von der Applikation noch nicht erneut angemeldet */
+	private volatile boolean _resumed = false;
+
 	private ReceiverState _receiverState = ReceiverState.UNKNOWN;
 
 	public LocalReceivingSubscription(
@@ -100,6 +109,44 @@ public class LocalReceivingSubscription implements LocalSubscription, ReceivingS
 		return _applicationConnection;
 	}
 
+	/**
+	 * Hält die Anmeldung nach Abbruch der Verbindung zur Applikation zurück. Bis zur Wiederverbindung werden keine Telegramme mehr versendet.
+	 */
+	public void park() {
+		_parked = true;
+	}
+
+	/**
+	 * Ordnet die zurückgehaltene Anmeldung nach einer Wiederverbindung der neuen Verbindung der gleichen Applikation zu. Die Anmeldung gilt als
+	 * unbestätigt, bis die Applikation sie erneut anmeldet, und bleibt bis dahin stumm, da die Applikation zu diesem Zeitpunkt noch keine
+	 * Antwort auf ihre Authentifizierung erhalten hat.
+	 *
+	 * @param applicationConnection Neue Verbindung
+	 */
+	public void resume(final ApplicationCommunicationInterface applicationConnection) {
+		_applicationConnection = applicationConnection;
+		_applicationId = applicationConnection.getId();
+		_resumed = true;
+	}
+
+	/**
+	 * Gibt zurück, ob die Anmeldung nach einer Wiederverbindung übernommen, aber noch nicht von der Applikation bestätigt wurde
+	 *
+	 * @return true, falls die Anmeldung noch unbestätigt ist
+	 */
+	public boolean isResumed() {
+		return _resumed;
+	}
+
+	/**
+	 * Markiert eine nach einer Wiederverbindung übernommene Anmeldung als bestätigt, weil die Applikation sie erneut angemeldet hat.
+	 */
+	public void confirmResumption() {
+		_resumed = false;
+		_lastSendDataState = null;
+		_parked = false;
+	}
+
 	@Override
 	public boolean isDrain() {
 		return _drain;
@@ -112,6 +159,7 @@ public class LocalReceivingSubscription implements LocalSubscription, ReceivingS
 
 	@Override
 	public void sendDataTelegram(final ApplicationDataTelegram applicationDataTelegram) {
+		if(_parked) return;
 		_applicationConnection.sendData(applicationDataTelegram, false);
 		_lastSendDataState = null;
 	}
@@ -147,7 +195,7 @@ public class LocalReceivingSubscription implements LocalSubscription, ReceivingS
 			default:
 				throw new IllegalArgumentException(receiverState.toString());
 		}
-		if(_lastSendDataState == newState) return; // Keine mehrfachen gleichen Statusnachrichten senden
+		if(_parked || _lastSendDataState == newState) return; // Keine mehrfachen gleichen Statusnachrichten senden
 		_lastSendDataState = newState;
 
 		byte errorFlag = (byte)(newState.getCode() - 1);
@@ -42,7 +42,7 @@ public class LocalSendingSubscription implements LocalSubscription, SendingSubsc
 
 	private final SubscriptionsManager _subscriptionsManager;
 
-	private final long _applicationId;
+	private volatile long _applicationId;
 
 	private final BaseSubscriptionInfo _baseSubscriptionInfo;
 
@@ -50,10 +50,19 @@ public class LocalSendingSubscription implements LocalSubscription, SendingSubsc
 
 	private final boolean _requestSupported;
 
-	private final ApplicationCommunicationInterface _applicationConnection;
+	private volatile ApplicationCommunicationInterface _applicationConnection;
 
 	private SenderState _senderState = SenderState.UNKNOWN;
 
+	/**
+	 * Die Verbindung zur Applikation wurde unterbrochen und die Anmeldung wird bis zur Wiederverbindung und erneuten Anmeldung durch die
+	 * Applikation zurückgehalten, es werden keine Telegramme versendet
+	 */
+	private volatile boolean _parked = false;
+
+	/** Die Anmeldung wurde einer neuen Verbindung zugeordnet, aber von der Applikation noch nicht erneut angemeldet */
+	private volatile boolean _resumed = false;
+
 	private static final Debug _debug = Debug.getLogger();
 
 	public LocalSendingSubscription(
@@ -109,6 +118,10 @@ public class LocalSendingSubscription implements LocalSubscription, SendingSubsc
 	public void setState(final SenderState senderState, final long centralTransmitterId) {
 		boolean wasInvalid = !_senderState.isValidSender();
 		if(_senderState == senderState) return;
+		if(_parked) {
+			_senderState = senderState;
+			return;
+		}
 		// Sendesteuerungstelegramme werden im Normalfall nur verschickt, wenn der Empfänger diese auch haben will.
 		// Im Fehlerfall (keine Rechte, ungültige Anmeldung) werden diese aber immer verschickt (siehe TestClientDavConnectionSendControl)
 		// auch, wenn nach einem Fehler wieder Senden erlaubt/erwünscht ist.
@@ -155,6 +168,47 @@ public class LocalSendingSubscription implements LocalSubscription, SendingSubsc
 		return _applicationConnection;
 	}
 
+	/**
+	 * Hält die Anmeldung nach Abbruch der Verbindung zur Applikation zurück. Bis zur Wiederverbindung werden keine Telegramme mehr versendet.
+	 */
+	public void park() {
+		_parked = true;
+	}
+
+	/**
+	 * Ordnet die zurückgehaltene Anmeldung nach einer Wiederverbindung der neuen Verbindung der gleichen Applikation zu. Die Anmeldung gilt als
+	 * unbestätigt, bis die Applikation sie erneut anmeldet, und bleibt bis dahin stumm.
+	 *
+	 * @param applicationConnection Neue Verbindung
+	 */
+	public void resume(final ApplicationCommunicationInterface applicationConnection) {
+		_applicationConnection = applicationConnection;
+		_applicationId = applicationConnection.getId();
+		_resumed = true;
+	}
+
+	/**
+	 * Gibt zurück, ob die Anmeldung nach einer Wiederverbindung übernommen, aber noch nicht von der Applikation bestätigt wurde
+	 *
+	 * @return true, falls die Anmeldung noch unbestätigt ist
+	 */
+	public boolean isResumed() {
+		return _resumed;
+	}
+
+	/**
+	 * Markiert eine nach einer Wiederverbindung übernommene Anmeldung als bestätigt, weil die Applikation sie erneut angemeldet hat.
+	 * Da die Applikation den Zustand der Sendesteuerung nicht kennt, wird dieser wie bei einer neuen Anmeldung erneut übertragen.
+	 */
+	public void confirmResumption() {
+		if(!_resumed) return;
+		_resumed = false;
+		_parked = false;
+		final SenderState senderState = _senderState;
+		_senderState = SenderState.UNKNOWN;
+		setState(senderState, -1);
+	}
+
 	@Override
 	public UserLogin getAuthenticationState() {
 		return _applicationConnection.getUserLogin();
@@ -28,6 +28,7 @@ package de.bsvrz.dav.dav.subscriptions;
 
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.ApplicationDataTelegram;
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.TransmitterDataTelegram;
 import de.bsvrz.dav.daf.communication.protocol.UserLogin;
 import de.bsvrz.dav.daf.main.ReceiveOptions;
 import de.bsvrz.dav.dav.main.ConnectionState;
@@ -116,6 +117,11 @@ public class RemoteDrainSubscription implements RemoteReceivingSubscription, Rem
 		_transmitterCommunication.sendData(applicationDataTelegram, true);
 	}
 
+	@Override
+	public void relayDataTelegram(final TransmitterDataTelegram transmitterDataTelegram) {
+		_transmitterCommunication.relayData(transmitterDataTelegram);
+	}
+
 	@Override
 	public ReceiverState getState() {
 		return _receiverState;
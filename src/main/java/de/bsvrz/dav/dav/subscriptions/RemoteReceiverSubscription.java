@@ -28,6 +28,7 @@ package de.bsvrz.dav.dav.subscriptions;
 
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.ApplicationDataTelegram;
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.TransmitterDataTelegram;
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.TransmitterSubscriptionType;
 import de.bsvrz.dav.daf.communication.protocol.UserLogin;
 import de.bsvrz.dav.daf.main.DataState;
@@ -51,7 +52,7 @@ public class RemoteReceiverSubscription implements RemoteReceivingSubscription {
 
 	private final SubscriptionsManager _subscriptionsManager;
 
-	private final TransmitterCommunicationInterface _transmitterCommunication;
+	private volatile TransmitterCommunicationInterface _transmitterCommunication;
 
 	private final BaseSubscriptionInfo _baseSubscriptionInfo;
 
@@ -63,6 +64,12 @@ public class RemoteReceiverSubscription implements RemoteReceivingSubscription {
 
 	private DataState _lastSendDataState = null;
 
+	/** Die Verbindung wurde unterbrochen und die Anmeldung wird bis zur Wiederverbindung zurückgehalten, es werden keine Telegramme versendet */
+	private boolean _parked = false;
+
+	/** Die Anmeldung wurde einer neuen Verbindung zugeordnet, aber vom anderen Datenverteiler noch nicht erneut angemeldet */
+	private boolean _resumed = false;
+
 	public RemoteReceiverSubscription(
 			final SubscriptionsManager subscriptionsManager,
 			final TransmitterCommunicationInterface transmitterCommunication,
@@ -85,9 +92,16 @@ public class RemoteReceiverSubscription implements RemoteReceivingSubscription {
 
 	@Override
 	public void sendDataTelegram(final ApplicationDataTelegram applicationDataTelegram) {
+		if(_parked) return;
 		_transmitterCommunication.sendData(applicationDataTelegram, false);
 	}
 
+	@Override
+	public void relayDataTelegram(final TransmitterDataTelegram transmitterDataTelegram) {
+		if(_parked) return;
+		_transmitterCommunication.relayData(transmitterDataTelegram);
+	}
+
 	@Override
 	public ReceiverState getState() {
 		return _receiverState;
@@ -118,7 +132,7 @@ public class RemoteReceiverSubscription implements RemoteReceivingSubscription {
 			// Hier ein "nicht verantwortlich" zurückmelden, damit keine "Schleifen" entstehen
 			receip = ConnectionState.TO_REMOTE_NOT_RESPONSIBLE;
 		}
-		if(_lastSendState == receip) return;
+		if(_parked || _lastSendState == receip) return;
 		_lastSendState = receip;
 		_transmitterCommunication.sendReceipt(centralTransmitterId, receip, TransmitterSubscriptionType.Receiver, this);
 	}
@@ -144,7 +158,7 @@ public class RemoteReceiverSubscription implements RemoteReceivingSubscription {
 			default:
 				throw new IllegalArgumentException(receiverState.toString());
 		}
-		if(_lastSendDataState == newState) return; // Keine mehrfachen Statusnachrichten senden
+		if(_parked || _lastSendDataState == newState) return; // Keine mehrfachen Statusnachrichten senden
 		_lastSendDataState = newState;
 
 		byte errorFlag = (byte)(newState.getCode() - 1);
@@ -198,6 +212,47 @@ public class RemoteReceiverSubscription implements RemoteReceivingSubscription {
 		return _transmitterCommunication;
 	}
 
+	/**
+	 * Hält die Anmeldung nach Abbruch der Verbindung zurück. Bis zur Wiederverbindung werden keine Telegramme mehr versendet.
+	 */
+	public void park() {
+		_parked = true;
+	}
+
+	/**
+	 * Ordnet die zurückgehaltene Anmeldung nach einer Wiederverbindung der neuen Verbindung zu. Die Anmeldung gilt als unbestätigt, bis der
+	 * andere Datenverteiler sie erneut anmeldet.
+	 *
+	 * @param transmitterCommunication Neue Verbindung zum gleichen Datenverteiler
+	 */
+	public void resume(final TransmitterCommunicationInterface transmitterCommunication) {
+		_transmitterCommunication = transmitterCommunication;
+		_lastSendState = null;
+		_lastSendDataState = null;
+		_parked = false;
+		_resumed = true;
+	}
+
+	/**
+	 * Gibt zurück, ob die Anmeldung nach einer Wiederverbindung übernommen, aber noch nicht vom anderen Datenverteiler bestätigt wurde
+	 *
+	 * @return true, falls die Anmeldung noch unbestätigt ist
+	 */
+	public boolean isResumed() {
+		return _resumed;
+	}
+
+	/**
+	 * Markiert eine nach einer Wiederverbindung übernommene Anmeldung als bestätigt, weil der andere Datenverteiler sie erneut angemeldet hat
+	 *
+	 * @return true, falls die Anmeldung bis jetzt unbestätigt war
+	 */
+	public boolean confirmResumption() {
+		final boolean resumed = _resumed;
+		_resumed = false;
+		return resumed;
+	}
+
 	@Override
 	public String toString() {
 		return "Eingehende Anmeldung (" +_receiverState + ") als " +  "Empfänger" +
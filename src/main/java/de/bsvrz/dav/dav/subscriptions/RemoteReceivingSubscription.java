@@ -26,6 +26,14 @@
 
 package de.bsvrz.dav.dav.subscriptions;
 
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.TransmitterDataTelegram;
+
 public interface RemoteReceivingSubscription extends RemoteSubscription, ReceivingSubscription {
 
+	/**
+	 * Leitet ein von einem anderen Datenverteiler empfangenes Telegramm unverändert an den über diese Anmeldung verbundenen Datenverteiler
+	 * weiter, ohne es auszupacken und neu zu erzeugen.
+	 * @param transmitterDataTelegram Empfangenes Telegramm
+	 */
+	void relayDataTelegram(TransmitterDataTelegram transmitterDataTelegram);
 }
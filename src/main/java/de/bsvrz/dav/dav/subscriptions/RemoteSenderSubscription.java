@@ -48,7 +48,7 @@ public class RemoteSenderSubscription implements RemoteSendingSubscription {
 
 	private final SubscriptionsManager _subscriptionsManager;
 
-	private final TransmitterCommunicationInterface _transmitterCommunication;
+	private volatile TransmitterCommunicationInterface _transmitterCommunication;
 
 	private final BaseSubscriptionInfo _baseSubscriptionInfo;
 
@@ -58,6 +58,12 @@ public class RemoteSenderSubscription implements RemoteSendingSubscription {
 
 	private ConnectionState _lastSendState = null;
 
+	/** Die Verbindung wurde unterbrochen und die Anmeldung wird bis zur Wiederverbindung zurückgehalten, es werden keine Telegramme versendet */
+	private boolean _parked = false;
+
+	/** Die Anmeldung wurde einer neuen Verbindung zugeordnet, aber vom anderen Datenverteiler noch nicht erneut angemeldet */
+	private boolean _resumed = false;
+
 	public RemoteSenderSubscription(
 			final SubscriptionsManager subscriptionsManager,
 			final TransmitterCommunicationInterface transmitterCommunication,
@@ -108,7 +114,7 @@ public class RemoteSenderSubscription implements RemoteSendingSubscription {
 			// Hier ein "nicht verantwortlich" zurückmelden, damit keine "Schleifen" entstehen
 			receip = ConnectionState.TO_REMOTE_NOT_RESPONSIBLE;
 		}
-		if(receip == _lastSendState) return;
+		if(_parked || receip == _lastSendState) return;
 		_lastSendState = receip;
 		_transmitterCommunication.sendReceipt(centralTransmitterId, receip, TransmitterSubscriptionType.Sender, this);
 	}
@@ -138,6 +144,46 @@ public class RemoteSenderSubscription implements RemoteSendingSubscription {
 		return _transmitterCommunication;
 	}
 
+	/**
+	 * Hält die Anmeldung nach Abbruch der Verbindung zurück. Bis zur Wiederverbindung werden keine Telegramme mehr versendet.
+	 */
+	public void park() {
+		_parked = true;
+	}
+
+	/**
+	 * Ordnet die zurückgehaltene Anmeldung nach einer Wiederverbindung der neuen Verbindung zu. Die Anmeldung gilt als unbestätigt, bis der
+	 * andere Datenverteiler sie erneut anmeldet.
+	 *
+	 * @param transmitterCommunication Neue Verbindung zum gleichen Datenverteiler
+	 */
+	public void resume(final TransmitterCommunicationInterface transmitterCommunication) {
+		_transmitterCommunication = transmitterCommunication;
+		_lastSendState = null;
+		_parked = false;
+		_resumed = true;
+	}
+
+	/**
+	 * Gibt zurück, ob die Anmeldung nach einer Wiederverbindung übernommen, aber noch nicht vom anderen Datenverteiler bestätigt wurde
+	 *
+	 * @return true, falls die Anmeldung noch unbestätigt ist
+	 */
+	public boolean isResumed() {
+		return _resumed;
+	}
+
+	/**
+	 * Markiert eine nach einer Wiederverbindung übernommene Anmeldung als bestätigt, weil der andere Datenverteiler sie erneut angemeldet hat
+	 *
+	 * @return true, falls die Anmeldung bis jetzt unbestätigt war
+	 */
+	public boolean confirmResumption() {
+		final boolean resumed = _resumed;
+		_resumed = false;
+		return resumed;
+	}
+
 
 	@Override
 	public void unsubscribe() {
@@ -28,8 +28,11 @@ package de.bsvrz.dav.dav.subscriptions;
 
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.ApplicationDataTelegram;
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.TransmitterDataTelegram;
+import de.bsvrz.dav.daf.main.ReceiveOptions;
 import de.bsvrz.dav.dav.main.ConnectionState;
 import de.bsvrz.dav.dav.main.SubscriptionsManager;
+import de.bsvrz.dav.dav.main.TransmitterDataSpool;
 import de.bsvrz.sys.funclib.debug.Debug;
 import de.bsvrz.sys.funclib.operatingMessage.MessageGrade;
 import de.bsvrz.sys.funclib.operatingMessage.MessageSender;
@@ -86,6 +89,56 @@ public class SubscriptionInfo implements Closeable {
 	 * Datenindexgenerierung im Zentraldatenverteiler findet in der {@link SubscriptionList}-Klasse statt.
 	 */
 	private long _lastSendDataIndex = 1;
+	/**
+	 * true, wenn die Telegramme eines Datensatzes gerade mit {@link #relayTelegram(TransmitterDataTelegram, CommunicationInterface)}
+	 * weitergeleitet werden. Der Datenindex kann dafür nicht verwendet werden, da Telegramme in Richtung Zentraldatenverteiler den Datenindex 0
+	 * haben.
+	 */
+	private boolean _relaying = false;
+	/**
+	 * Datenindex des Datensatzes, dessen Telegramme gerade weitergeleitet werden
+	 */
+	private long _relayDataIndex = 0;
+	/**
+	 * Nummer des als nächstes erwarteten Telegramms des Datensatzes {@link #_relayDataIndex}
+	 */
+	private int _relayTelegramNumber = 0;
+	/**
+	 * Bisher weitergeleitete Telegramme des Datensatzes {@link #_relayDataIndex}, die nach dem letzten Telegramm als
+	 * {@link #_lastSendTelegrams} übernommen werden. Null, wenn keine Quelle vorhanden ist und der Datensatz nicht gespeichert werden muss.
+	 */
+	private List<ApplicationDataTelegram> _relayTelegrams = null;
+	/**
+	 * Empfänger, die beim ersten Telegramm des Datensatzes {@link #_relayDataIndex} gültig waren und daher auch alle weiteren Telegramme dieses
+	 * Datensatzes erhalten
+	 */
+	private List<ReceivingSubscription> _relayReceivers = null;
+	/**
+	 * Datenindex des zerstückelten Datensatzes, der im Zentraldatenverteiler gerade telegrammweise verteilt wird (0 = keiner), siehe
+	 * {@link #startStream(long, CommunicationInterface)}
+	 */
+	private long _streamDataIndex = 0;
+	/**
+	 * Empfänger, die beim ersten Telegramm des aktuell verteilten Datensatzes gültig waren und daher auch alle weiteren Telegramme erhalten
+	 */
+	private List<ReceivingSubscription> _streamReceivers = null;
+	/**
+	 * Verbindung, über die der aktuell verteilte Datensatz {@link #_streamDataIndex} empfangen wird
+	 */
+	private CommunicationInterface _streamCommunication = null;
+	/**
+	 * Nummer des als nächstes erwarteten Telegramms des Datensatzes {@link #_streamDataIndex}
+	 */
+	private int _streamTelegramNumber = 0;
+	/**
+	 * Bisher verteilte Telegramme des Datensatzes {@link #_streamDataIndex}. Null, wenn keine Quelle vorhanden ist und der Datensatz nicht
+	 * gespeichert werden muss.
+	 */
+	private List<ApplicationDataTelegram> _streamTelegrams = null;
+	/**
+	 * Zwischenspeicher für unterbrochene Datenverteilerverbindungen, in die die verteilten Datensätze zusätzlich geschrieben werden, oder null
+	 */
+	private List<TransmitterDataSpool> _dataSpools = null;
 	/**
 	 * Sind Anmeldungen gesperrt, weil es mehrere Remote-Datenverteiler mit positiven Rückmeldungen gibt?
 	 */
@@ -95,6 +148,12 @@ public class SubscriptionInfo implements Closeable {
 	 * rekursiv aufgerufen wird, wodurch störende Effekte entstehen können.
 	 */
 	private boolean _remoteUpdateLockActive = false;
+	/**
+	 * Zeitpunkt, seit dem die Anmeldungen bei entfernten Zentraldatenverteilern ohne lokalen Bedarf nachlaufen (0 = kein Nachlauf). Solange
+	 * der Nachlauf andauert, bleibt {@link #_connectToRemoteCentralDistributor} gesetzt, damit neue Sender und Empfänger die bestehenden
+	 * Anmeldungen sofort nutzen können.
+	 */
+	private long _lingerStart = 0;
 	private int _referenceCounter = 0;
 
 	/**
@@ -275,6 +334,7 @@ public class SubscriptionInfo implements Closeable {
 				for(ReceivingSubscription subscription : receivingSubscriptions) {
 					if(subscription.getState() != ReceiverState.SENDERS_AVAILABLE) {
 						subscription.setState(ReceiverState.SENDERS_AVAILABLE, centralDistributorId);
+						replaySpooledDatasets(subscription);
 						if(_lastSendTelegrams != null) {
 							for(final ApplicationDataTelegram telegram : _lastSendTelegrams) {
 								subscription.sendDataTelegram(telegram);
@@ -502,12 +562,26 @@ public class SubscriptionInfo implements Closeable {
 		if(_remoteUpdateLockActive) return;
 		_remoteUpdateLockActive = true;
 		try {
+			if(_lingerStart != 0) {
+				if(!newValue && !isCentralDistributor()) return; // Nachlauf dauert an
+				_lingerStart = 0;
+				_subscriptionsManager.stopLingering(this, newValue);
+				if(newValue) {
+					// Bestehende Anmeldungen weiterverwenden und nur fehlende Anmeldungen (z.B. auf Senken für neue Sender) ergänzen
+					if(isRemoteCentralSubscriptionMissing()) createRemoteCentralDistributorSubscriptions();
+					return;
+				}
+			}
 			if(_connectToRemoteCentralDistributor == newValue) return;
 			_connectToRemoteCentralDistributor = newValue;
 			if(newValue) {
 				// Sich bei entfernten Zentraldatenverteilern anmelden (falls vorhanden)
 				createRemoteCentralDistributorSubscriptions();
 			}
+			else if(!isCentralDistributor() && startLingering()) {
+				// Anmeldungen bei entfernten Zentraldatenverteilern laufen nach, falls sie kurz darauf wieder benötigt werden
+				_connectToRemoteCentralDistributor = true;
+			}
 			else {
 				// Sich bei entfernten Zentraldatenverteilern abmelden (falls vorhanden)
 				removeRemoteSubscriptions();
@@ -518,6 +592,93 @@ public class SubscriptionInfo implements Closeable {
 		}
 	}
 
+	/**
+	 * Beginnt den Nachlauf der Anmeldungen bei entfernten Zentraldatenverteilern, falls solche Anmeldungen bestehen und der Nachlauf
+	 * aktiviert ist
+	 *
+	 * @return true, falls die Anmeldungen nachlaufen, false, falls sie sofort abgemeldet werden müssen
+	 */
+	private boolean startLingering() {
+		if(!hasRemoteCentralSubscriptions()) return false;
+		long dataSize = 0;
+		if(_lastSendTelegrams != null) {
+			for(final ApplicationDataTelegram telegram : _lastSendTelegrams) {
+				final byte[] data = telegram.getData();
+				if(data != null) dataSize += data.length;
+			}
+		}
+		final long lingerStart = System.currentTimeMillis();
+		if(!_subscriptionsManager.startLingering(this, lingerStart, dataSize)) return false;
+		_lingerStart = lingerStart;
+		return true;
+	}
+
+	/**
+	 * Beendet den Nachlauf der Anmeldungen bei entfernten Zentraldatenverteilern nach Ablauf der Nachlaufzeit oder zur Begrenzung der Anzahl
+	 * nachlaufender Anmeldungen und meldet die Anmeldungen ab, sofern sie weiterhin nicht benötigt werden.
+	 *
+	 * @param lingerStart Beginn des Nachlaufs, der beendet werden soll. Falls inzwischen ein neuer Nachlauf begonnen hat, passiert nichts.
+	 */
+	public synchronized void endLingering(final long lingerStart) {
+		if(_lingerStart != lingerStart || _remoteUpdateLockActive) return;
+		_lingerStart = 0;
+		_remoteUpdateLockActive = true;
+		try {
+			if(_connectToRemoteCentralDistributor && !needsToConnectToRemoteCentralDav()) {
+				_connectToRemoteCentralDistributor = false;
+				removeRemoteSubscriptions();
+			}
+		}
+		finally {
+			_remoteUpdateLockActive = false;
+		}
+	}
+
+	/**
+	 * Prüft, ob Anmeldungen bei entfernten Zentraldatenverteilern bestehen
+	 *
+	 * @return true, falls mindestens eine Anmeldung besteht
+	 */
+	private boolean hasRemoteCentralSubscriptions() {
+		for(final SendingSubscription sendingSubscription : _subscriptionList.getSendingSubscriptions()) {
+			if(sendingSubscription instanceof RemoteCentralSubscription) return true;
+		}
+		for(final ReceivingSubscription receivingSubscription : _subscriptionList.getReceivingSubscriptions()) {
+			if(receivingSubscription instanceof RemoteCentralSubscription) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Prüft, ob für gültige Empfänger keine Anmeldung auf eine entfernte Quelle oder für gültige Sender keine Anmeldung auf eine entfernte
+	 * Senke besteht
+	 *
+	 * @return true, falls Anmeldungen bei entfernten Zentraldatenverteilern fehlen
+	 */
+	private boolean isRemoteCentralSubscriptionMissing() {
+		boolean hasRemoteSource = false;
+		boolean hasValidSender = false;
+		for(final SendingSubscription sendingSubscription : _subscriptionList.getSendingSubscriptions()) {
+			if(sendingSubscription instanceof RemoteSourceSubscription) {
+				hasRemoteSource = true;
+			}
+			else if(!sendingSubscription.isSource() && sendingSubscription.getState().isValidSender()) {
+				hasValidSender = true;
+			}
+		}
+		boolean hasRemoteDrain = false;
+		boolean hasValidReceiver = false;
+		for(final ReceivingSubscription receivingSubscription : _subscriptionList.getReceivingSubscriptions()) {
+			if(receivingSubscription instanceof RemoteDrainSubscription) {
+				hasRemoteDrain = true;
+			}
+			else if(!receivingSubscription.isDrain() && receivingSubscription.getState().isValidReceiver()) {
+				hasValidReceiver = true;
+			}
+		}
+		return (hasValidReceiver && !hasRemoteSource) || (hasValidSender && !hasRemoteDrain);
+	}
+
 	/**
 	 * Führt Anmeldungen bei anderen Datenverteilern durch
 	 */
@@ -765,6 +926,22 @@ public class SubscriptionInfo implements Closeable {
 		return _subscriptionList.getDataIndex(runningNumber);
 	}
 
+	/**
+	 * Berechnet mehrere aufeinanderfolgende Datenindizes
+	 *
+	 * @param firstRunningNumber Erste laufende Nummer, siehe {@link #getNextDataIndex(long)}
+	 * @param count              Anzahl Datenindizes
+	 * @return Datenindizes zu den laufenden Nummern <code>firstRunningNumber</code> bis <code>firstRunningNumber + count - 1</code>, jeweils
+	 * "0" falls dieser Datenverteiler nicht der Zentraldatenverteiler ist.
+	 */
+	public synchronized long[] getNextDataIndexes(final long firstRunningNumber, final int count) {
+		final long[] result = new long[count];
+		for(int i = 0; i < count; i++) {
+			result[i] = _subscriptionList.getDataIndex(firstRunningNumber + i);
+		}
+		return result;
+	}
+
 	/**
 	 * Gibt den zuletzt berechneten Datenindex zurück
 	 *
@@ -797,8 +974,27 @@ public class SubscriptionInfo implements Closeable {
 	 * @param communication            Verbindung über die der Emfang erfolgt ist (zur Rechteprüfung), bei null findet keine Prüfung statt
 	 */
 	public synchronized void distributeTelegrams(final List<ApplicationDataTelegram> applicationDataTelegrams, final boolean toCentralDistributor, final CommunicationInterface communication) {
+		distributeTelegrams(applicationDataTelegrams, toCentralDistributor, communication, getValidReceiverSubscriptions());
+	}
+
+	/**
+	 * Verschickt mehrere Datensätze, deren Datenindex bereits gesetzt wurde (innere Datensätze einer Transaktion), in der angegebenen Reihenfolge
+	 * an alle interessierten und korrekt angemeldeten Empfänger. Die Empfänger werden dabei nur einmal ermittelt.
+	 *
+	 * @param datasets Datensätze, jeweils als Liste zusammengehöriger Telegramme
+	 */
+	public synchronized void distributeDatasets(final List<List<ApplicationDataTelegram>> datasets) {
 		final List<ReceivingSubscription> receivingSubscriptions = getValidReceiverSubscriptions();
+		for(final List<ApplicationDataTelegram> dataset : datasets) {
+			distributeTelegrams(dataset, false, null, receivingSubscriptions);
+		}
+	}
 
+	private void distributeTelegrams(
+			final List<ApplicationDataTelegram> applicationDataTelegrams,
+			final boolean toCentralDistributor,
+			final CommunicationInterface communication,
+			final List<ReceivingSubscription> receivingSubscriptions) {
 		long dataIndex = applicationDataTelegrams.get(0).getDataNumber();
 
 		if(!toCentralDistributor && _lastSendDataIndex > 1 && dataIndex <= _lastSendDataIndex) {
@@ -852,11 +1048,257 @@ public class SubscriptionInfo implements Closeable {
 		}
 
 		if(hasSource() && !applicationDataTelegrams.get(0).getDelayedDataFlag()) {
-			if(dataIndex != 1) _lastSendDataIndex = dataIndex;
-			_lastSendTelegrams = new ArrayList<ApplicationDataTelegram>(applicationDataTelegrams);
+			setLastSendTelegrams(new ArrayList<ApplicationDataTelegram>(applicationDataTelegrams), dataIndex);
+		}
+	}
+
+	/**
+	 * Speichert den zuletzt von der Quelle verteilten Datensatz für neue Empfänger und schreibt ihn ggf. in die Zwischenspeicher
+	 * unterbrochener Datenverteilerverbindungen
+	 *
+	 * @param telegrams Telegramme des Datensatzes
+	 * @param dataIndex Datenindex des Datensatzes
+	 */
+	private void setLastSendTelegrams(final List<ApplicationDataTelegram> telegrams, final long dataIndex) {
+		if(dataIndex != 1) _lastSendDataIndex = dataIndex;
+		_lastSendTelegrams = telegrams;
+		if(_dataSpools != null) {
+			for(final TransmitterDataSpool dataSpool : _dataSpools) {
+				dataSpool.append(telegrams);
+			}
+		}
+	}
+
+	/**
+	 * Beginnt die Zwischenspeicherung der verteilten Datensätze für einen anderen Datenverteiler, dessen Verbindung unterbrochen wurde. Meldet
+	 * sich der Datenverteiler später wieder als Empfänger an, erhält er die gespeicherten Datensätze als nachgelieferte Daten vor dem aktuellen
+	 * Datensatz. Solange die Zwischenspeicherung aktiv ist, wird dieses Objekt nicht aus der Anmeldungsverwaltung entfernt.
+	 *
+	 * @param dataSpool Zwischenspeicher
+	 */
+	public synchronized void startSpooling(final TransmitterDataSpool dataSpool) {
+		if(_dataSpools == null) _dataSpools = new ArrayList<TransmitterDataSpool>(1);
+		if(!_dataSpools.contains(dataSpool)) _dataSpools.add(dataSpool);
+	}
+
+	/**
+	 * Beendet die Zwischenspeicherung für einen anderen Datenverteiler
+	 *
+	 * @param dataSpool Zwischenspeicher
+	 */
+	public synchronized void stopSpooling(final TransmitterDataSpool dataSpool) {
+		if(_dataSpools == null) return;
+		_dataSpools.remove(dataSpool);
+		if(_dataSpools.isEmpty()) _dataSpools = null;
+	}
+
+	/**
+	 * Gibt zurück, ob Datensätze für unterbrochene Datenverteilerverbindungen zwischengespeichert werden
+	 *
+	 * @return true, falls mindestens ein Zwischenspeicher aktiv ist
+	 */
+	public synchronized boolean isSpooling() {
+		return _dataSpools != null;
+	}
+
+	/**
+	 * Versendet zwischengespeicherte Datensätze an eine wieder angemeldete Empfänger-Anmeldung eines anderen Datenverteilers und beendet die
+	 * Zwischenspeicherung für diesen Datenverteiler. Datensätze, deren Datenindex nicht kleiner als der des aktuellen Datensatzes ist, werden
+	 * nicht versendet, da der aktuelle Datensatz anschließend ohnehin übertragen wird.
+	 *
+	 * @param receivingSubscription Empfänger-Anmeldung
+	 */
+	private void replaySpooledDatasets(final ReceivingSubscription receivingSubscription) {
+		if(_dataSpools == null || !(receivingSubscription instanceof RemoteReceiverSubscription)) return;
+		final long transmitterId = ((RemoteReceiverSubscription) receivingSubscription).getCommunication().getId();
+		final long maximumDataIndex = _lastSendTelegrams != null ? _lastSendDataIndex : Long.MAX_VALUE;
+		for(final Iterator<TransmitterDataSpool> iterator = _dataSpools.iterator(); iterator.hasNext(); ) {
+			final TransmitterDataSpool dataSpool = iterator.next();
+			if(dataSpool.getTransmitterId() != transmitterId) continue;
+			for(final ApplicationDataTelegram[] dataset : dataSpool.takeDatasets(_baseSubscriptionInfo, maximumDataIndex)) {
+				for(final ApplicationDataTelegram telegram : dataset) {
+					receivingSubscription.sendDataTelegram(telegram);
+				}
+			}
+			iterator.remove();
+		}
+		if(_dataSpools.isEmpty()) _dataSpools = null;
+	}
+
+	/**
+	 * Leitet ein Datentelegramm eines anderen Datenverteilers direkt an die über Datenverteilerverbindungen angemeldeten Empfänger und Senken
+	 * weiter, ohne vorher alle Telegramme des Datensatzes zu sammeln und ohne neue Telegramme zu erzeugen. Das ist nur möglich, wenn dieser
+	 * Datenverteiler nicht der Zentraldatenverteiler ist und alle gültigen empfangenden Anmeldungen {@link RemoteReceivingSubscription}s sind.
+	 * Die Entscheidung wird beim ersten Telegramm eines Datensatzes getroffen und gilt für alle weiteren Telegramme dieses Datensatzes.
+	 * <p>
+	 * Die Gültigkeit des Absenders muss vorher mit {@link #isValidSender(CommunicationInterface)} geprüft worden sein.
+	 *
+	 * @param transmitterDataTelegram Empfangenes Telegramm
+	 * @param communication           Verbindung über die der Emfang erfolgt ist
+	 * @return true, wenn das Telegramm weitergeleitet wurde, false wenn es normal mit
+	 *         {@link #distributeTelegrams(List, boolean, CommunicationInterface)} verarbeitet werden muss
+	 */
+	public synchronized boolean relayTelegram(final TransmitterDataTelegram transmitterDataTelegram, final CommunicationInterface communication) {
+		final ApplicationDataTelegram telegram = transmitterDataTelegram.getApplicationDataTelegram();
+		final long dataIndex = telegram.getDataNumber();
+		final boolean toCentralDistributor = transmitterDataTelegram.getDirection() == 0;
+		final List<ReceivingSubscription> receivingSubscriptions;
+
+		if(telegram.getTelegramNumber() == 0) {
+			stopRelay();
+			if(_subscriptionList.isCentralDistributor()) return false;
+			receivingSubscriptions = getValidReceiverSubscriptions();
+			if(!toCentralDistributor && _lastSendDataIndex > 1 && dataIndex <= _lastSendDataIndex) {
+				// Kein monoton steigender Datenindex, wird von distributeTelegrams() verworfen
+				return false;
+			}
+			for(final ReceivingSubscription receivingSubscription : receivingSubscriptions) {
+				if(!(receivingSubscription instanceof RemoteReceivingSubscription)) return false;
+			}
+			_relaying = true;
+			_relayDataIndex = dataIndex;
+			// Später angemeldete Empfänger erhalten die restlichen Telegramme dieses Datensatzes nicht, da ihnen der Anfang fehlt
+			_relayReceivers = receivingSubscriptions;
+			if(hasSource() && !telegram.getDelayedDataFlag()) {
+				_relayTelegrams = new ArrayList<ApplicationDataTelegram>(telegram.getTotalTelegramsCount());
+			}
+		}
+		else if(!_relaying) {
+			// Erstes Telegramm des Datensatzes wurde nicht weitergeleitet
+			return false;
+		}
+		else if(dataIndex != _relayDataIndex || telegram.getTelegramNumber() != _relayTelegramNumber) {
+			_debug.warning("Die Telegramme sind nicht in der richtigen Reihenfolge eingetroffen", telegram.getBaseSubscriptionInfo());
+			stopRelay();
+			return false;
+		}
+		else {
+			receivingSubscriptions = _relayReceivers;
+		}
+		_relayTelegramNumber++;
+
+		for(final ReceivingSubscription receivingSubscription : receivingSubscriptions) {
+			if(toCentralDistributor && !(receivingSubscription instanceof RemoteDrainSubscription)) continue;
+			// Zwischenzeitlich ungültig gewordene Empfänger erhalten keine weiteren Telegramme
+			if(!receivingSubscription.getState().isValidReceiver()) continue;
+			if(receivingSubscription instanceof RemoteReceivingSubscription) {
+				((RemoteReceivingSubscription) receivingSubscription).relayDataTelegram(transmitterDataTelegram);
+			}
+		}
+
+		if(telegram.getTelegramNumber() + 1 == telegram.getTotalTelegramsCount()) {
+			final List<ApplicationDataTelegram> relayTelegrams = _relayTelegrams;
+			stopRelay();
+			if(relayTelegrams != null) {
+				relayTelegrams.add(telegram);
+				// Zwischenzeitlich angemeldete lokale Empfänger erhalten den vollständigen Datensatz
+				for(final ReceivingSubscription receivingSubscription : getValidReceiverSubscriptions()) {
+					if(toCentralDistributor || receivingSubscription instanceof RemoteReceivingSubscription) continue;
+					if(receivingSubscription.getReceiveOptions().withDelta() && telegramsAreEqual(relayTelegrams, _lastSendTelegrams)) continue;
+					for(final ApplicationDataTelegram relayedTelegram : relayTelegrams) {
+						receivingSubscription.sendDataTelegram(relayedTelegram);
+					}
+				}
+				setLastSendTelegrams(relayTelegrams, dataIndex);
+			}
+		}
+		else if(_relayTelegrams != null) {
+			_relayTelegrams.add(telegram);
+		}
+		return true;
+	}
+
+	private void stopRelay() {
+		_relaying = false;
+		_relayDataIndex = 0;
+		_relayTelegramNumber = 0;
+		_relayTelegrams = null;
+		_relayReceivers = null;
+	}
+
+	/**
+	 * Prüft, ob ein zerstückelter Datensatz im Zentraldatenverteiler telegrammweise verteilt werden kann, ohne vorher den ganzen Datensatz zu
+	 * sammeln. Das ist nicht möglich, wenn dieser Datenverteiler nicht der Zentraldatenverteiler ist oder es Empfänger gibt, die nur
+	 * geänderte Datensätze erhalten wollen, da hierfür der vollständige Datensatz verglichen werden muss.
+	 *
+	 * @return true, wenn {@link #startStream(long, CommunicationInterface)} verwendet werden kann
+	 */
+	public synchronized boolean canStream() {
+		if(!_subscriptionList.isCentralDistributor()) return false;
+		for(final ReceivingSubscription receivingSubscription : getValidReceiverSubscriptions()) {
+			if(receivingSubscription.getReceiveOptions().withDelta()) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Beginnt im Zentraldatenverteiler die telegrammweise Verteilung eines zerstückelten Datensatzes. Die Telegramme werden mit
+	 * {@link #streamTelegram(ApplicationDataTelegram)} an die zu diesem Zeitpunkt gültigen Empfänger verschickt. Aufrufer müssen
+	 * {@link #canStream()}, die Vergabe des Datenindex und diesen Aufruf auf dieses Objekt synchronisieren.
+	 *
+	 * @param dataIndex     Vergebener Datenindex des Datensatzes
+	 * @param communication Verbindung über die der Datensatz empfangen wird
+	 */
+	public synchronized void startStream(final long dataIndex, final CommunicationInterface communication) {
+		_streamDataIndex = dataIndex;
+		_streamReceivers = getValidReceiverSubscriptions();
+		_streamCommunication = communication;
+		_streamTelegramNumber = 0;
+		_streamTelegrams = hasSource() ? new ArrayList<ApplicationDataTelegram>() : null;
+	}
+
+	/**
+	 * Prüft, ob die Verteilung eines über die angegebene Verbindung empfangenen zerstückelten Datensatzes mit
+	 * {@link #startStream(long, CommunicationInterface)} begonnen wurde und noch nicht abgeschlossen ist
+	 *
+	 * @param communication Verbindung
+	 * @return true, falls weitere Telegramme mit {@link #streamTelegram(ApplicationDataTelegram)} verteilt werden
+	 */
+	public synchronized boolean isStreaming(final CommunicationInterface communication) {
+		return _streamDataIndex != 0 && _streamCommunication == communication;
+	}
+
+	/**
+	 * Versendet ein Telegramm eines mit {@link #startStream(long, CommunicationInterface)} begonnenen Datensatzes an die Empfänger. Der Datenindex des Telegramms wird
+	 * dabei gesetzt. Nach dem letzten Telegramm wird der Datensatz wie bei {@link #distributeTelegrams(List, boolean, CommunicationInterface)}
+	 * für neue Empfänger gespeichert. Telegramme in falscher Reihenfolge beenden die Verteilung, die restlichen Telegramme des Datensatzes
+	 * werden verworfen.
+	 *
+	 * @param telegram Telegramm
+	 */
+	public synchronized void streamTelegram(final ApplicationDataTelegram telegram) {
+		if(_streamDataIndex == 0) return;
+		final int telegramNumber = telegram.getTelegramNumber();
+		if(telegramNumber != _streamTelegramNumber) {
+			_debug.warning("Die Telegramme sind nicht in der richtigen Reihenfolge eingetroffen", telegram.getBaseSubscriptionInfo());
+			stopStream();
+			return;
+		}
+		_streamTelegramNumber++;
+		telegram.setDataIndex(_streamDataIndex);
+		for(final ReceivingSubscription receivingSubscription : _streamReceivers) {
+			// Zwischenzeitlich ungültig gewordene Empfänger erhalten keine weiteren Telegramme
+			if(!receivingSubscription.getState().isValidReceiver()) continue;
+			if(!receivingSubscription.getReceiveOptions().withDelayed() && telegram.getDelayedDataFlag()) continue;
+			receivingSubscription.sendDataTelegram(telegram);
+		}
+		if(_streamTelegrams != null) _streamTelegrams.add(telegram);
+		if(telegramNumber + 1 == telegram.getTotalTelegramsCount()) {
+			if(_streamTelegrams != null && !telegram.getDelayedDataFlag()) {
+				setLastSendTelegrams(_streamTelegrams, _streamDataIndex);
+			}
+			stopStream();
 		}
 	}
 
+	private void stopStream() {
+		_streamDataIndex = 0;
+		_streamReceivers = null;
+		_streamCommunication = null;
+		_streamTelegramNumber = 0;
+		_streamTelegrams = null;
+	}
+
 	public synchronized void updatePendingSubscriptionDataIndex(final CommunicationInterface communication, final long dataIndex) {
 		for(Map.Entry<Long, PendingSubscription> entry : _pendingSubscriptions.entrySet()) {
 			PendingSubscription pendingSubscription = entry.getValue();
@@ -1584,11 +2026,23 @@ public class SubscriptionInfo implements Closeable {
 			final TransmitterCommunicationInterface communication, final Collection<Long> ids) {
 		for(ReceivingSubscription receivingSubscription : _subscriptionList.getReceivingSubscriptions()) {
 			if(receivingSubscription.getCommunication() == communication && receivingSubscription instanceof RemoteReceiverSubscription) {
-				((RemoteReceiverSubscription) receivingSubscription).setPotentialDistributors(ids);
+				final RemoteReceiverSubscription remoteReceiverSubscription = (RemoteReceiverSubscription) receivingSubscription;
+				final boolean resumed = remoteReceiverSubscription.confirmResumption();
+				remoteReceiverSubscription.setPotentialDistributors(ids);
 
 				// Status neu setzen, damit eine eventuelle Anmeldung beim anderen Datenverteiler aktualisiert wird
 				receivingSubscription.setState(receivingSubscription.getState(), getCentralDistributorId());
 
+				if(resumed && hasSource() && receivingSubscription.getState() == ReceiverState.SENDERS_AVAILABLE) {
+					// Nach einer Wiederverbindung fehlt dem anderen Datenverteiler der aktuelle Datensatz, daher wie bei einer neuen Anmeldung versenden
+					replaySpooledDatasets(receivingSubscription);
+					if(_lastSendTelegrams != null) {
+						for(final ApplicationDataTelegram telegram : _lastSendTelegrams) {
+							receivingSubscription.sendDataTelegram(telegram);
+						}
+					}
+				}
+
 				updateRemoteConnections();
 				return;
 			}
@@ -1611,6 +2065,7 @@ public class SubscriptionInfo implements Closeable {
 			final TransmitterCommunicationInterface communication, final Collection<Long> ids) {
 		for(SendingSubscription sendingSubscription : _subscriptionList.getSendingSubscriptions()) {
 			if(sendingSubscription.getCommunication() == communication && sendingSubscription instanceof RemoteSenderSubscription) {
+				((RemoteSenderSubscription) sendingSubscription).confirmResumption();
 				((RemoteSenderSubscription) sendingSubscription).setPotentialDistributors(ids);
 
 				// Status neu setzen, damit eine eventuelle Anmeldung beim anderen Datenverteiler aktualisiert wird
@@ -1625,6 +2080,242 @@ public class SubscriptionInfo implements Closeable {
 		addSendingSubscription((SendingSubscription) remoteSubscription);
 	}
 
+	/**
+	 * Hält die eingehenden Anmeldungen eines anderen Datenverteilers nach Abbruch der Verbindung zurück, damit sie bei einer baldigen
+	 * Wiederverbindung übernommen werden können.
+	 *
+	 * @param communication Unterbrochene Verbindung
+	 * @return Anzahl der zurückgehaltenen Anmeldungen
+	 */
+	public synchronized int parkRemoteSubscriptions(final TransmitterCommunicationInterface communication) {
+		int result = 0;
+		for(final ReceivingSubscription receivingSubscription : _subscriptionList.getReceivingSubscriptions()) {
+			if(receivingSubscription.getCommunication() == communication && receivingSubscription instanceof RemoteReceiverSubscription) {
+				((RemoteReceiverSubscription) receivingSubscription).park();
+				result++;
+			}
+		}
+		for(final SendingSubscription sendingSubscription : _subscriptionList.getSendingSubscriptions()) {
+			if(sendingSubscription.getCommunication() == communication && sendingSubscription instanceof RemoteSenderSubscription) {
+				((RemoteSenderSubscription) sendingSubscription).park();
+				result++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Ordnet zurückgehaltene Anmeldungen eines anderen Datenverteilers nach der Wiederverbindung der neuen Verbindung zu. Die Anmeldungen
+	 * bleiben unbestätigt, bis der andere Datenverteiler sie erneut anmeldet.
+	 *
+	 * @param oldCommunication Unterbrochene Verbindung
+	 * @param newCommunication Neue Verbindung zum gleichen Datenverteiler
+	 * @return Anzahl der übernommenen Anmeldungen
+	 */
+	public synchronized int resumeRemoteSubscriptions(
+			final TransmitterCommunicationInterface oldCommunication, final TransmitterCommunicationInterface newCommunication) {
+		int result = 0;
+		for(final ReceivingSubscription receivingSubscription : _subscriptionList.getReceivingSubscriptions()) {
+			if(receivingSubscription.getCommunication() == oldCommunication && receivingSubscription instanceof RemoteReceiverSubscription) {
+				((RemoteReceiverSubscription) receivingSubscription).resume(newCommunication);
+				result++;
+			}
+		}
+		for(final SendingSubscription sendingSubscription : _subscriptionList.getSendingSubscriptions()) {
+			if(sendingSubscription.getCommunication() == oldCommunication && sendingSubscription instanceof RemoteSenderSubscription) {
+				((RemoteSenderSubscription) sendingSubscription).resume(newCommunication);
+				result++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Entfernt nach einer Wiederverbindung übernommene Anmeldungen, die der andere Datenverteiler nicht erneut angemeldet hat
+	 *
+	 * @param communication Neue Verbindung
+	 * @return Anzahl der entfernten Anmeldungen
+	 */
+	public synchronized int removeUnconfirmedRemoteSubscriptions(final TransmitterCommunicationInterface communication) {
+		int result = 0;
+		for(final ReceivingSubscription receivingSubscription : _subscriptionList.getReceivingSubscriptions()) {
+			if(receivingSubscription.getCommunication() == communication && receivingSubscription instanceof RemoteReceiverSubscription
+					&& ((RemoteReceiverSubscription) receivingSubscription).confirmResumption()) {
+				removeReceivingSubscription(receivingSubscription);
+				result++;
+			}
+		}
+		for(final SendingSubscription sendingSubscription : _subscriptionList.getSendingSubscriptions()) {
+			if(sendingSubscription.getCommunication() == communication && sendingSubscription instanceof RemoteSenderSubscription
+					&& ((RemoteSenderSubscription) sendingSubscription).confirmResumption()) {
+				removeSendingSubscription(sendingSubscription);
+				result++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Hält die Anmeldungen einer Applikation nach Abbruch der Verbindung zurück, damit sie bei einer baldigen Wiederverbindung der gleichen
+	 * Applikation übernommen werden können.
+	 *
+	 * @param application Unterbrochene Verbindung
+	 * @return Anzahl der zurückgehaltenen Anmeldungen
+	 */
+	public synchronized int parkLocalSubscriptions(final ApplicationCommunicationInterface application) {
+		int result = 0;
+		for(final ReceivingSubscription receivingSubscription : _subscriptionList.getReceivingSubscriptions()) {
+			if(receivingSubscription.getCommunication() == application && receivingSubscription instanceof LocalReceivingSubscription) {
+				((LocalReceivingSubscription) receivingSubscription).park();
+				result++;
+			}
+		}
+		for(final SendingSubscription sendingSubscription : _subscriptionList.getSendingSubscriptions()) {
+			if(sendingSubscription.getCommunication() == application && sendingSubscription instanceof LocalSendingSubscription) {
+				((LocalSendingSubscription) sendingSubscription).park();
+				result++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Ordnet zurückgehaltene Anmeldungen einer Applikation nach der Wiederverbindung der neuen Verbindung zu. Die Anmeldungen bleiben
+	 * unbestätigt, bis die Applikation sie erneut anmeldet.
+	 *
+	 * @param oldApplication Unterbrochene Verbindung
+	 * @param newApplication Neue Verbindung der gleichen Applikation
+	 * @return Anzahl der übernommenen Anmeldungen
+	 */
+	public synchronized int resumeLocalSubscriptions(
+			final ApplicationCommunicationInterface oldApplication, final ApplicationCommunicationInterface newApplication) {
+		int result = 0;
+		for(final ReceivingSubscription receivingSubscription : _subscriptionList.getReceivingSubscriptions()) {
+			if(receivingSubscription.getCommunication() == oldApplication && receivingSubscription instanceof LocalReceivingSubscription) {
+				((LocalReceivingSubscription) receivingSubscription).resume(newApplication);
+				result++;
+			}
+		}
+		for(final SendingSubscription sendingSubscription : _subscriptionList.getSendingSubscriptions()) {
+			if(sendingSubscription.getCommunication() == oldApplication && sendingSubscription instanceof LocalSendingSubscription) {
+				((LocalSendingSubscription) sendingSubscription).resume(newApplication);
+				result++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Bestätigt eine nach einer Wiederverbindung übernommene Sende-Anmeldung, falls die Applikation sie mit gleichen Parametern erneut anmeldet.
+	 * Die Applikation erhält dann die aktuelle Sendesteuerung, ohne dass sich für die übrigen Anmeldungen etwas ändert.
+	 *
+	 * @param application      Verbindung
+	 * @param source           Anmeldung als Quelle
+	 * @param requestSupported Sendesteuerung erwünscht
+	 * @return true, falls eine übernommene Anmeldung bestätigt wurde, false, falls die Anmeldung normal durchgeführt werden muss
+	 */
+	public synchronized boolean confirmResumedLocalSendingSubscription(
+			final ApplicationCommunicationInterface application, final boolean source, final boolean requestSupported) {
+		for(final SendingSubscription sendingSubscription : _subscriptionList.getSendingSubscriptions()) {
+			if(sendingSubscription.getCommunication() == application && sendingSubscription instanceof LocalSendingSubscription) {
+				final LocalSendingSubscription subscription = (LocalSendingSubscription) sendingSubscription;
+				if(subscription.isResumed() && subscription.isSource() == source && subscription.isRequestSupported() == requestSupported) {
+					subscription.confirmResumption();
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Bestätigt eine nach einer Wiederverbindung übernommene Empfangs-Anmeldung, falls die Applikation sie mit gleichen Parametern erneut
+	 * anmeldet. Die Applikation erhält dann wie bei einer neuen Anmeldung den aktuellen Datensatz bzw. Status, ohne dass sich für die übrigen
+	 * Anmeldungen etwas ändert.
+	 *
+	 * @param application    Verbindung
+	 * @param drain          Anmeldung als Senke
+	 * @param receiveOptions Empfangsoptionen
+	 * @return true, falls eine übernommene Anmeldung bestätigt wurde, false, falls die Anmeldung normal durchgeführt werden muss
+	 */
+	public synchronized boolean confirmResumedLocalReceivingSubscription(
+			final ApplicationCommunicationInterface application, final boolean drain, final ReceiveOptions receiveOptions) {
+		for(final ReceivingSubscription receivingSubscription : _subscriptionList.getReceivingSubscriptions()) {
+			if(receivingSubscription.getCommunication() == application && receivingSubscription instanceof LocalReceivingSubscription) {
+				final LocalReceivingSubscription subscription = (LocalReceivingSubscription) receivingSubscription;
+				if(subscription.isResumed() && subscription.isDrain() == drain
+						&& subscription.getReceiveOptions().withDelayed() == receiveOptions.withDelayed()
+						&& subscription.getReceiveOptions().withDelta() == receiveOptions.withDelta()) {
+					subscription.confirmResumption();
+					final ReceiverState state = subscription.getState();
+					if(state == ReceiverState.SENDERS_AVAILABLE) {
+						if(hasSource() && _lastSendTelegrams != null) {
+							for(final ApplicationDataTelegram telegram : _lastSendTelegrams) {
+								subscription.sendDataTelegram(telegram);
+							}
+						}
+					}
+					else if(state == ReceiverState.NO_SENDERS || state == ReceiverState.NOT_ALLOWED || state == ReceiverState.INVALID_SUBSCRIPTION) {
+						subscription.sendStateTelegram(state);
+					}
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Prüft, ob eine Applikation eine nach einer Wiederverbindung übernommene Sende-Anmeldung nicht bestätigt hat
+	 *
+	 * @param application Verbindung
+	 * @return true, falls eine unbestätigte Anmeldung besteht
+	 */
+	public synchronized boolean hasUnconfirmedLocalSendingSubscription(final ApplicationCommunicationInterface application) {
+		for(final SendingSubscription sendingSubscription : _subscriptionList.getSendingSubscriptions()) {
+			if(sendingSubscription.getCommunication() == application && sendingSubscription instanceof LocalSendingSubscription
+					&& ((LocalSendingSubscription) sendingSubscription).isResumed()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Prüft, ob eine Applikation eine nach einer Wiederverbindung übernommene Empfangs-Anmeldung nicht bestätigt hat
+	 *
+	 * @param application Verbindung
+	 * @return true, falls eine unbestätigte Anmeldung besteht
+	 */
+	public synchronized boolean hasUnconfirmedLocalReceivingSubscription(final ApplicationCommunicationInterface application) {
+		for(final ReceivingSubscription receivingSubscription : _subscriptionList.getReceivingSubscriptions()) {
+			if(receivingSubscription.getCommunication() == application && receivingSubscription instanceof LocalReceivingSubscription
+					&& ((LocalReceivingSubscription) receivingSubscription).isResumed()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Entfernt alle Anmeldungen dieses Datenverteilers bei einem anderen Datenverteiler, die über die angegebene Verbindung laufen. Eingehende
+	 * Anmeldungen des anderen Datenverteilers bleiben erhalten.
+	 *
+	 * @param communication Verbindung
+	 */
+	public synchronized void removeRemoteCentralSubscriptions(final TransmitterCommunicationInterface communication) {
+		for(final ReceivingSubscription receivingSubscription : _subscriptionList.getReceivingSubscriptions()) {
+			if(receivingSubscription.getCommunication() == communication && receivingSubscription instanceof RemoteCentralSubscription) {
+				removeReceivingSubscription(receivingSubscription);
+			}
+		}
+		for(final SendingSubscription sendingSubscription : _subscriptionList.getSendingSubscriptions()) {
+			if(sendingSubscription.getCommunication() == communication && sendingSubscription instanceof RemoteCentralSubscription) {
+				removeSendingSubscription(sendingSubscription);
+			}
+		}
+	}
+
 	/**
 	 * Markiert das SubscriptionInfo als offen, sodass Änderungen an den Anmeldungen durchgeführt werden dürfen.
 	 * <p>
@@ -1645,7 +2336,7 @@ public class SubscriptionInfo implements Closeable {
 	public void close() {
 		synchronized(_subscriptionsManager) {
 			_referenceCounter--;
-			if(_referenceCounter == 0 && isEmpty()) {
+			if(_referenceCounter == 0 && isEmpty() && !isSpooling()) {
 				_subscriptionsManager.removeSubscriptionInfo(this);
 			}
 		}
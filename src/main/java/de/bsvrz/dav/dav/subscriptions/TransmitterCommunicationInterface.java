@@ -26,6 +26,7 @@
 
 package de.bsvrz.dav.dav.subscriptions;
 
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.TransmitterDataTelegram;
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.TransmitterSubscriptionType;
 import de.bsvrz.dav.dav.main.ConnectionState;
 
@@ -66,6 +67,13 @@ public interface TransmitterCommunicationInterface extends CommunicationInterfac
 			final TransmitterSubscriptionType receiver,
 			RemoteSubscription remoteReceiverSubscription);
 
+	/**
+	 * Leitet ein von einem anderen Datenverteiler empfangenes Datentelegramm unverändert über diese Verbindung weiter. Die Richtung des
+	 * Telegramms bleibt dabei erhalten, das Telegramm wird nach Möglichkeit nicht neu erzeugt.
+	 * @param telegram Empfangenes Telegramm
+	 */
+	void relayData(TransmitterDataTelegram telegram);
+
 	/**
 	 * Gibt den Widerstand/die Gewichtung dieser Verbindung zurück. Wird bei der Bestimmung der besten Wege verwendet.
 	 * @return Positive-Integer-Zahl. Je größer die Zahl, desto eher werden andere Routen mit kleiner Zahl bevorzugt.
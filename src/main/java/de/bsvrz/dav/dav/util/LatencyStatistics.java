@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.dav.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Threadsicheres Histogramm für Laufzeiten, aus dem Perzentile bestimmt werden können. Die Werte werden in Mikrosekunden in logarithmisch
+ * verteilte Klassen einsortiert (vier Klassen je Zweierpotenz), sodass die ermittelten Perzentile höchstens um 25% zu groß sind. Das Erfassen
+ * eines Wertes ist ohne Sperren möglich und daher auch für häufig durchlaufene Programmteile geeignet.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class LatencyStatistics {
+
+	/** Anzahl Klassen je Zweierpotenz als Zweierlogarithmus */
+	private static final int SUB_BUCKET_BITS = 2;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final String _name;
+
+	private final AtomicLongArray _buckets = new AtomicLongArray(BUCKET_COUNT);
+
+	private final AtomicLong _count = new AtomicLong();
+
+	private final AtomicLong _max = new AtomicLong();
+
+	/**
+	 * Erstellt ein neues leeres Histogramm
+	 *
+	 * @param name Bezeichnung für Debug-Ausgaben
+	 */
+	public LatencyStatistics(final String name) {
+		_name = name;
+	}
+
+	/**
+	 * Erfasst eine Laufzeit
+	 *
+	 * @param nanos Laufzeit in Nanosekunden
+	 */
+	public void record(final long nanos) {
+		final long micros = Math.max(0, nanos / 1000);
+		_buckets.incrementAndGet(getBucket(micros));
+		_count.incrementAndGet();
+		long max;
+		while(micros > (max = _max.get())) {
+			if(_max.compareAndSet(max, micros)) break;
+		}
+	}
+
+	/**
+	 * Erfasst die Laufzeit seit dem angegebenen Zeitpunkt
+	 *
+	 * @param startNanos Startzeitpunkt wie von {@link System#nanoTime()} geliefert
+	 */
+	public void recordSince(final long startNanos) {
+		record(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Gibt die Anzahl der erfassten Werte zurück
+	 *
+	 * @return Anzahl
+	 */
+	public long getCount() {
+		return _count.get();
+	}
+
+	/**
+	 * Gibt die größte erfasste Laufzeit zurück
+	 *
+	 * @return Laufzeit in Mikrosekunden
+	 */
+	public long getMaxMicros() {
+		return _max.get();
+	}
+
+	/**
+	 * Bestimmt ein Perzentil der erfassten Laufzeiten
+	 *
+	 * @param percentile Perzentil zwischen 0 und 100, z.B. 99 für das 99%-Perzentil
+	 * @return Obergrenze der Klasse, in der das Perzentil liegt, in Mikrosekunden oder 0, falls noch keine Werte erfasst wurden
+	 */
+	public long getPercentileMicros(final double percentile) {
+		final long[] counts = new long[BUCKET_COUNT];
+		addBucketCounts(counts);
+		return getPercentileMicros(counts, _max.get(), percentile);
+	}
+
+	/**
+	 * Addiert die Häufigkeiten der Klassen dieses Histogramms, um mehrere Histogramme zusammen auszuwerten
+	 *
+	 * @param counts Häufigkeiten je Klasse, Länge muss {@link #createBucketCounts()} entsprechen
+	 */
+	void addBucketCounts(final long[] counts) {
+		for(int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] += _buckets.get(i);
+		}
+	}
+
+	/**
+	 * Erzeugt ein leeres Array für {@link #addBucketCounts(long[])}
+	 *
+	 * @return Häufigkeiten je Klasse
+	 */
+	static long[] createBucketCounts() {
+		return new long[BUCKET_COUNT];
+	}
+
+	/**
+	 * Bestimmt ein Perzentil aus den Häufigkeiten der Klassen
+	 *
+	 * @param counts     Häufigkeiten je Klasse
+	 * @param max        Größte erfasste Laufzeit in Mikrosekunden
+	 * @param percentile Perzentil zwischen 0 und 100
+	 * @return Obergrenze der Klasse, in der das Perzentil liegt, in Mikrosekunden oder 0, falls keine Werte erfasst wurden
+	 */
+	static long getPercentileMicros(final long[] counts, final long max, final double percentile) {
+		long total = 0;
+		for(final long count : counts) {
+			total += count;
+		}
+		if(total == 0) return 0;
+		final long threshold = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+		long sum = 0;
+		for(int i = 0; i < BUCKET_COUNT; i++) {
+			sum += counts[i];
+			if(sum >= threshold) return Math.min(getUpperBound(i), max);
+		}
+		return max;
+	}
+
+	/** Verwirft alle bisher erfassten Werte */
+	public void reset() {
+		for(int i = 0; i < BUCKET_COUNT; i++) {
+			_buckets.set(i, 0);
+		}
+		_count.set(0);
+		_max.set(0);
+	}
+
+	private static int getBucket(final long micros) {
+		if(micros < SUB_BUCKETS) return (int) micros;
+		final int msb = 63 - Long.numberOfLeadingZeros(micros);
+		final int subBucket = (int) (micros >>> (msb - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (msb - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long getUpperBound(final int bucket) {
+		if(bucket < SUB_BUCKETS) return bucket;
+		final int shift = bucket / SUB_BUCKETS - 1;
+		final long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowerBound + (1L << shift) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return _name + ": Anzahl=" + getCount()
+				+ ", 50%=" + formatMicros(getPercentileMicros(50))
+				+ ", 90%=" + formatMicros(getPercentileMicros(90))
+				+ ", 99%=" + formatMicros(getPercentileMicros(99))
+				+ ", 99,9%=" + formatMicros(getPercentileMicros(99.9))
+				+ ", max=" + formatMicros(getMaxMicros());
+	}
+
+	static String formatMicros(final long micros) {
+		if(micros < 1000) return micros + "µs";
+		return String.format("%.1fms", micros / 1000.0);
+	}
+}
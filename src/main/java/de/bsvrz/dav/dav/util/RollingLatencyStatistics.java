@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.util;
+
+/**
+ * Histogramm für Laufzeiten wie {@link LatencyStatistics}, das nur die Werte der letzten ein bis zwei Zeitfenster berücksichtigt. Dazu werden
+ * zwei Histogramme abwechselnd verwendet: Nach Ablauf eines Zeitfensters wird das ältere geleert und für neue Werte verwendet, während das
+ * bisher aktuelle weiter in die Auswertung eingeht. Ältere Werte fallen dadurch nach höchstens zwei Zeitfenstern heraus.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class RollingLatencyStatistics {
+
+	private final String _name;
+
+	/** Länge eines Zeitfensters in Millisekunden */
+	private final long _window;
+
+	private volatile LatencyStatistics _current;
+
+	private volatile LatencyStatistics _previous;
+
+	/** Beginn des aktuellen Zeitfensters ({@link System#currentTimeMillis()}) */
+	private volatile long _windowStart;
+
+	/**
+	 * Erstellt ein neues leeres Histogramm
+	 *
+	 * @param name   Bezeichnung für Debug-Ausgaben
+	 * @param window Länge eines Zeitfensters in Millisekunden
+	 */
+	public RollingLatencyStatistics(final String name, final long window) {
+		_name = name;
+		_window = window;
+		_current = new LatencyStatistics(name);
+		_previous = new LatencyStatistics(name);
+		_windowStart = System.currentTimeMillis();
+	}
+
+	/**
+	 * Erfasst eine Laufzeit
+	 *
+	 * @param nanos Laufzeit in Nanosekunden
+	 */
+	public void record(final long nanos) {
+		rotate();
+		_current.record(nanos);
+	}
+
+	/**
+	 * Gibt die Anzahl der berücksichtigten Werte zurück
+	 *
+	 * @return Anzahl
+	 */
+	public long getCount() {
+		rotate();
+		return _current.getCount() + _previous.getCount();
+	}
+
+	/**
+	 * Gibt die größte berücksichtigte Laufzeit zurück
+	 *
+	 * @return Laufzeit in Mikrosekunden
+	 */
+	public long getMaxMicros() {
+		rotate();
+		return Math.max(_current.getMaxMicros(), _previous.getMaxMicros());
+	}
+
+	/**
+	 * Bestimmt ein Perzentil der berücksichtigten Laufzeiten
+	 *
+	 * @param percentile Perzentil zwischen 0 und 100
+	 * @return Obergrenze der Klasse, in der das Perzentil liegt, in Mikrosekunden oder 0, falls keine Werte vorliegen
+	 */
+	public long getPercentileMicros(final double percentile) {
+		rotate();
+		final long[] counts = LatencyStatistics.createBucketCounts();
+		_current.addBucketCounts(counts);
+		_previous.addBucketCounts(counts);
+		return LatencyStatistics.getPercentileMicros(counts, getMaxMicros(), percentile);
+	}
+
+	private void rotate() {
+		final long now = System.currentTimeMillis();
+		if(now - _windowStart < _window) return;
+		synchronized(this) {
+			final long elapsed = now - _windowStart;
+			if(elapsed < _window) return;
+			final LatencyStatistics next = _previous;
+			next.reset();
+			if(elapsed >= 2 * _window) {
+				// Auch das bisher aktuelle Zeitfenster ist abgelaufen
+				_current.reset();
+			}
+			_previous = _current;
+			_current = next;
+			_windowStart = now;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return _name + ": Anzahl=" + getCount()
+				+ ", 50%=" + LatencyStatistics.formatMicros(getPercentileMicros(50))
+				+ ", 90%=" + LatencyStatistics.formatMicros(getPercentileMicros(90))
+				+ ", 99%=" + LatencyStatistics.formatMicros(getPercentileMicros(99))
+				+ ", max=" + LatencyStatistics.formatMicros(getMaxMicros());
+	}
+}
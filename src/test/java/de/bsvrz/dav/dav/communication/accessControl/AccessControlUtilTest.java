@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.dav.communication.accessControl;
+
+import de.bsvrz.dav.daf.communication.dataRepresentation.datavalue.SendDataObject;
+import de.bsvrz.dav.daf.communication.lowLevel.TelegramUtility;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.ApplicationDataTelegram;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
+import de.bsvrz.dav.daf.main.ClientDavInterface;
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.AttributeGroupUsage;
+import de.bsvrz.dav.daf.main.config.DataModel;
+import de.bsvrz.dav.dav.util.accessControl.AccessControlManager;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests für {@link AccessControlUtil} mit Datensätzen, für die kein Data-Objekt erzeugt werden kann
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class AccessControlUtilTest {
+
+	private static final BaseSubscriptionInfo BASE_SUBSCRIPTION_INFO = new BaseSubscriptionInfo(4711, 42, (short)0);
+
+	/** Datenmodell, das keine Attributgruppenverwendung kennt */
+	private static final DataModel EMPTY_DATA_MODEL = (DataModel)Proxy.newProxyInstance(
+			DataModel.class.getClassLoader(), new Class<?>[]{DataModel.class}, new InvocationHandler() {
+				@Override
+				public Object invoke(final Object proxy, final Method method, final Object[] args) {
+					return null;
+				}
+			}
+	);
+
+	@Test
+	public void testClassicPluginPassesDatasetWithoutPayload() {
+		final List<ApplicationDataTelegram> telegrams = createTelegrams(null);
+		final ClassicPlugin plugin = new ClassicPlugin();
+		final List<ApplicationDataTelegram> result = handle(telegrams, plugin);
+		assertSame(telegrams, result);
+		assertEquals(0, plugin._calls);
+	}
+
+	@Test
+	public void testClassicPluginPassesDatasetOfUnknownUsage() {
+		final List<ApplicationDataTelegram> telegrams = createTelegrams(new byte[]{1, 2, 3, 4});
+		final ClassicPlugin plugin = new ClassicPlugin();
+		final List<ApplicationDataTelegram> result = handle(telegrams, plugin);
+		assertSame(telegrams, result);
+		assertEquals(0, plugin._calls);
+	}
+
+	@Test
+	public void testRawPluginAcceptsDatasetWithoutPayload() {
+		final List<ApplicationDataTelegram> telegrams = createTelegrams(null);
+		final RawPlugin plugin = new RawPlugin(RawDataVerdict.accept());
+		final List<ApplicationDataTelegram> result = handle(telegrams, plugin);
+		assertSame(telegrams, result);
+		assertEquals(1, plugin._calls);
+		assertFalse(plugin._lastDataset.hasData());
+		assertNull(plugin._lastDataset.getData());
+		assertNull(plugin._lastDataset.getAttributeGroup());
+	}
+
+	@Test
+	public void testRawPluginDropsDatasetWithoutPayload() {
+		final RawPlugin plugin = new RawPlugin(RawDataVerdict.drop());
+		final List<ApplicationDataTelegram> result = handle(createTelegrams(null), plugin);
+		assertTrue(result.isEmpty());
+		assertEquals(1, plugin._calls);
+	}
+
+	@Test
+	public void testMixedPluginsPassDatasetWithoutPayload() {
+		final List<ApplicationDataTelegram> telegrams = createTelegrams(null);
+		final RawPlugin rawPlugin = new RawPlugin(RawDataVerdict.accept());
+		final ClassicPlugin classicPlugin = new ClassicPlugin();
+		final List<ApplicationDataTelegram> result = handle(telegrams, rawPlugin, classicPlugin);
+		assertSame(telegrams, result);
+		assertEquals(1, rawPlugin._calls);
+		assertEquals(0, classicPlugin._calls);
+	}
+
+	private static List<ApplicationDataTelegram> handle(final List<ApplicationDataTelegram> telegrams, final AccessControlPlugin... plugins) {
+		return AccessControlUtil.handleApplicationDataTelegram(telegrams, Arrays.asList(plugins), 1, EMPTY_DATA_MODEL);
+	}
+
+	private static List<ApplicationDataTelegram> createTelegrams(final byte[] bytes) {
+		final SendDataObject sendDataObject = new SendDataObject(
+				BASE_SUBSCRIPTION_INFO, false, 1L << 32, 1000, bytes == null ? (byte)1 : (byte)0, null, bytes
+		);
+		return Arrays.asList(TelegramUtility.splitToApplicationTelegrams(sendDataObject));
+	}
+
+	private static class ClassicPlugin implements AccessControlPlugin {
+
+		int _calls = 0;
+
+		@Override
+		public void initialize(final AccessControlManager accessControlManager, final ClientDavInterface clientDavInterface) {
+		}
+
+		@Override
+		public Collection<AttributeGroupUsage> getAttributeGroupUsagesToFilter() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public Data handleData(final long userID, final BaseSubscriptionInfo baseSubscriptionInfo, final Data data) {
+			_calls++;
+			return data;
+		}
+	}
+
+	private static class RawPlugin extends ClassicPlugin implements RawAccessControlPlugin {
+
+		private final RawDataVerdict _verdict;
+
+		RawDataset _lastDataset = null;
+
+		RawPlugin(final RawDataVerdict verdict) {
+			_verdict = verdict;
+		}
+
+		@Override
+		public RawDataVerdict handleRawData(final long userID, final BaseSubscriptionInfo baseSubscriptionInfo, final RawDataset dataset) {
+			_calls++;
+			_lastDataset = dataset;
+			return _verdict;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.dav.communication.davProtocol;
+
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.ApplicationDataTelegram;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.TransmitterDataTelegram;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests für {@link TransmitterDataDeltaCoding}
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class TransmitterDataDeltaCodingTest {
+
+	private static final BaseSubscriptionInfo INFO = new BaseSubscriptionInfo(4711, 42, (short) 0);
+
+	private static ApplicationDataTelegram telegram(final long dataNumber, final byte[] data) {
+		return new ApplicationDataTelegram(INFO, dataNumber, false, (byte) 0, null, data, 1, 0, 1000 * dataNumber);
+	}
+
+	private static byte[] data(final int size, final int changedIndex) {
+		final byte[] data = new byte[size];
+		for(int i = 0; i < size; i++) {
+			data[i] = (byte) i;
+		}
+		if(changedIndex >= 0) data[changedIndex] = (byte) 0xff;
+		return data;
+	}
+
+	@Test
+	public void testEncodeDecode() {
+		final TransmitterDataDeltaCoding sender = new TransmitterDataDeltaCoding();
+		final TransmitterDataDeltaCoding receiver = new TransmitterDataDeltaCoding();
+
+		final TransmitterDataDeltaCoding.EncodedTelegram first = sender.encode(telegram(1, data(200, -1)), (byte) 1);
+		assertEquals(0, first._sequence);
+		assertEquals(1, first._telegram.getDirection());
+
+		final TransmitterDataDeltaCoding.EncodedTelegram second = sender.encode(telegram(2, data(200, 17)), (byte) 1);
+		assertEquals(1, second._sequence);
+		assertEquals(1 + TransmitterDataDeltaCoding.DIRECTION_DELTA_OFFSET, second._telegram.getDirection());
+		assertTrue(second._telegram.getApplicationDataTelegram().getData().length < 200);
+
+		assertArrayEquals(data(200, -1), receiver.decode(first._telegram).getApplicationDataTelegram().getData());
+		final TransmitterDataTelegram decoded = receiver.decode(second._telegram);
+		assertEquals(1, decoded.getDirection());
+		assertEquals(2, decoded.getApplicationDataTelegram().getDataNumber());
+		assertArrayEquals(data(200, 17), decoded.getApplicationDataTelegram().getData());
+	}
+
+	@Test
+	public void testDifferentLengthIsSentCompletely() {
+		final TransmitterDataDeltaCoding sender = new TransmitterDataDeltaCoding();
+		sender.encode(telegram(1, data(200, -1)), (byte) 0);
+		final TransmitterDataDeltaCoding.EncodedTelegram second = sender.encode(telegram(2, data(201, -1)), (byte) 0);
+		assertEquals(0, second._telegram.getDirection());
+		assertArrayEquals(data(201, -1), second._telegram.getApplicationDataTelegram().getData());
+	}
+
+	@Test
+	public void testResynchronization() {
+		final TransmitterDataDeltaCoding sender = new TransmitterDataDeltaCoding();
+		final TransmitterDataDeltaCoding receiver = new TransmitterDataDeltaCoding();
+
+		sender.encode(telegram(1, data(200, -1)), (byte) 1);
+		final TransmitterDataDeltaCoding.EncodedTelegram delta = sender.encode(telegram(2, data(200, 3)), (byte) 1);
+
+		// Der Empfänger hat den ersten Datensatz nicht erhalten und kann die Differenz nicht auflösen
+		assertNull(receiver.decode(delta._telegram));
+		final TransmitterDataTelegram request = receiver.createResynchronizationRequest(INFO);
+		assertNotNull(request);
+		assertEquals(TransmitterDataDeltaCoding.DIRECTION_RESYNCHRONIZATION_REQUEST, request.getDirection());
+		assertNull("Anforderung darf nur einmal verschickt werden", receiver.createResynchronizationRequest(INFO));
+
+		assertFalse(sender.handleResynchronizationRequest(delta._telegram));
+		assertTrue(sender.handleResynchronizationRequest(request));
+
+		final TransmitterDataDeltaCoding.EncodedTelegram full = sender.encode(telegram(3, data(200, 4)), (byte) 1);
+		assertEquals(1, full._telegram.getDirection());
+		assertArrayEquals(data(200, 4), receiver.decode(full._telegram).getApplicationDataTelegram().getData());
+
+		// Nach Empfang des vollständigen Datensatzes kann bei Bedarf erneut angefordert werden
+		assertNotNull(receiver.createResynchronizationRequest(INFO));
+	}
+
+	@Test
+	public void testSendOrder() throws Exception {
+		final TransmitterDataDeltaCoding coding = new TransmitterDataDeltaCoding();
+		final StringBuffer order = new StringBuffer();
+		final Thread late = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				coding.awaitSendTurn(1);
+				order.append('b');
+				coding.finishSendTurn();
+			}
+		});
+		late.start();
+		Thread.sleep(50);
+		coding.awaitSendTurn(0);
+		order.append('a');
+		coding.finishSendTurn();
+		late.join(5000);
+		assertEquals("ab", order.toString());
+	}
+}
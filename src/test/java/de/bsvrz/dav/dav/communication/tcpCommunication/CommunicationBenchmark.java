@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.bsvrz.dav.dav.communication.tcpCommunication;
+
+import de.bsvrz.dav.daf.communication.lowLevel.ConnectionInterface;
+import de.bsvrz.dav.daf.communication.lowLevel.ServerConnectionInterface;
+import de.bsvrz.dav.dav.util.LatencyStatistics;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Einfacher Vergleich der Kommunikationsmodule für lokale Verbindungen. Für {@link TCP_IP_ServerCommunication},
+ * {@link UnixDomainServerCommunication} und {@link SharedMemoryServerCommunication} wird jeweils eine lokale Verbindung aufgebaut und die
+ * Umlaufzeit kleiner Nachrichten (Ping-Pong) sowie der Durchsatz beim Übertragen großer Datenmengen gemessen. Die Ergebnisse werden auf
+ * der Standardausgabe ausgegeben.
+ * <p>
+ * Der Vergleich wird wegen seiner Laufzeit nicht mit den normalen Tests ausgeführt, sondern gezielt aufgerufen, z.B. mit
+ * {@code mvn test -Dtest=CommunicationBenchmark -Dbenchmark.anzahl=100000}. Die Parameter {@code benchmark.port} (Standard 8099),
+ * {@code benchmark.nachrichtengroesse} (Standard 64 Bytes) und {@code benchmark.anzahl} (Standard 100000) werden als System-Properties
+ * übergeben, alternativ kann die Klasse mit {@code [Port] [Nachrichtengröße] [Anzahl]} als Argumente direkt gestartet werden.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class CommunicationBenchmark {
+
+	/** Größe der Blöcke bei der Durchsatzmessung */
+	private static final int BLOCK_SIZE = 64 * 1024;
+
+	/** Übertragene Datenmenge bei der Durchsatzmessung */
+	private static final long THROUGHPUT_BYTES = 256L * 1024 * 1024;
+
+	/**
+	 * Startet den Vergleich
+	 *
+	 * @param args Port (Standard 8099), Größe der Ping-Pong-Nachrichten in Bytes (Standard 64) und Anzahl der Ping-Pong-Nachrichten (Standard
+	 *             100000)
+	 * @throws Exception Fehler beim Messen
+	 */
+	public static void main(String[] args) throws Exception {
+		final int port = args.length > 0 ? Integer.parseInt(args[0]) : 8099;
+		final int messageSize = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		final int count = args.length > 2 ? Integer.parseInt(args[2]) : 100000;
+		compare(port, messageSize, count);
+	}
+
+	/**
+	 * Führt den Vergleich mit den als System-Properties übergebenen Parametern aus
+	 *
+	 * @throws Exception Fehler beim Messen
+	 */
+	@Test
+	public void compareLocalTransports() throws Exception {
+		compare(
+				Integer.getInteger("benchmark.port", 8099),
+				Integer.getInteger("benchmark.nachrichtengroesse", 64),
+				Integer.getInteger("benchmark.anzahl", 100000)
+		);
+	}
+
+	private static void compare(final int port, final int messageSize, final int count) throws Exception {
+		run("TCP", new TCP_IP_ServerCommunication(), port, messageSize, count);
+		if(UnixDomainSockets.isSupported()) {
+			run("Unix-Domain-Socket", new UnixDomainServerCommunication(), port, messageSize, count);
+		}
+		else {
+			System.out.println("Unix-Domain-Sockets werden von dieser Java-Version nicht unterstützt");
+		}
+		run("Gemeinsamer Speicher", new SharedMemoryServerCommunication(), port, messageSize, count);
+	}
+
+	private static void run(final String name, final ServerConnectionInterface server, final int port, final int messageSize, final int count)
+			throws Exception {
+		server.connect(port);
+		try {
+			// Die Verbindung wird parallel entgegengenommen, weil der Verbindungsaufbau beim gemeinsamen Speicher auf den Server wartet
+			final FutureTask<ConnectionInterface> accept = new FutureTask<ConnectionInterface>(
+					new Callable<ConnectionInterface>() {
+						public ConnectionInterface call() {
+							return server.accept();
+						}
+					}
+			);
+			new Thread(accept, "Accept").start();
+			final ConnectionInterface client = server.getPlainConnection();
+			client.connect("localhost", port);
+			final ConnectionInterface serverSide = accept.get();
+			try {
+				final Thread echo = startEcho(serverSide, messageSize, count);
+				final LatencyStatistics statistics = new LatencyStatistics(name + " Umlaufzeit");
+				final byte[] message = new byte[messageSize];
+				final OutputStream out = client.getOutputStream();
+				final DataInputStream in = new DataInputStream(client.getInputStream());
+				for(int i = 0; i < count; i++) {
+					final long start = System.nanoTime();
+					out.write(message);
+					out.flush();
+					in.readFully(message);
+					statistics.recordSince(start);
+				}
+				echo.join();
+				System.out.println(statistics);
+
+				final byte[] block = new byte[BLOCK_SIZE];
+				final long start = System.nanoTime();
+				final Thread sink = startSink(serverSide);
+				for(long sent = 0; sent < THROUGHPUT_BYTES; sent += block.length) {
+					out.write(block);
+				}
+				out.flush();
+				client.disconnect();
+				sink.join();
+				final double seconds = (System.nanoTime() - start) / 1e9;
+				System.out.printf("%s Durchsatz: %.1f MB/s%n", name, THROUGHPUT_BYTES / (1024.0 * 1024.0) / seconds);
+			}
+			finally {
+				serverSide.disconnect();
+			}
+		}
+		finally {
+			server.disconnect();
+		}
+	}
+
+	private static Thread startEcho(final ConnectionInterface connection, final int messageSize, final int count) {
+		final Thread thread = new Thread(new Runnable() {
+			public void run() {
+				try {
+					final byte[] message = new byte[messageSize];
+					final DataInputStream in = new DataInputStream(connection.getInputStream());
+					final OutputStream out = connection.getOutputStream();
+					for(int i = 0; i < count; i++) {
+						in.readFully(message);
+						out.write(message);
+						out.flush();
+					}
+				}
+				catch(Exception e) {
+					e.printStackTrace();
+				}
+			}
+		}, "Echo");
+		thread.start();
+		return thread;
+	}
+
+	private static Thread startSink(final ConnectionInterface connection) {
+		final Thread thread = new Thread(new Runnable() {
+			public void run() {
+				try {
+					final InputStream in = connection.getInputStream();
+					final byte[] buffer = new byte[BLOCK_SIZE];
+					while(in.read(buffer) >= 0) {
+					}
+				}
+				catch(Exception e) {
+					e.printStackTrace();
+				}
+			}
+		}, "Senke");
+		thread.start();
+		return thread;
+	}
+}
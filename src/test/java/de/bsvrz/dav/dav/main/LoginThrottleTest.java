@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.dav.main;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests für die Token-Buckets der {@link LoginThrottle}
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class LoginThrottleTest {
+
+	private final LoginThrottle _throttle = new LoginThrottle("Test");
+
+	@Test
+	public void testManySuccessfulLoginsFromOneAddress() {
+		// z.B. Neustart eines Rechners mit vielen Applikationen verschiedener Benutzer
+		final List<LoginThrottle.Attempt> attempts = new ArrayList<LoginThrottle.Attempt>();
+		for(int i = 0; i < 1000; i++) {
+			final LoginThrottle.Attempt attempt = _throttle.startAttempt("benutzer" + i, "10.0.0.1");
+			assertEquals(0, attempt.getDelay());
+			attempts.add(attempt);
+		}
+		for(final LoginThrottle.Attempt attempt : attempts) {
+			assertTrue(attempt.checkAllowed());
+			attempt.succeeded();
+		}
+	}
+
+	@Test
+	public void testParallelLoginsOfOneUserAreDelayedButNotRejected() {
+		final List<LoginThrottle.Attempt> attempts = new ArrayList<LoginThrottle.Attempt>();
+		for(int i = 0; i < 200; i++) {
+			attempts.add(_throttle.startAttempt("benutzer", "10.0.0.1"));
+		}
+		for(int i = 0; i < attempts.size(); i++) {
+			final LoginThrottle.Attempt attempt = attempts.get(i);
+			assertFalse(attempt.isRejected());
+			if(i < LoginThrottle.BURST) {
+				assertEquals(0, attempt.getDelay());
+			}
+			else {
+				assertTrue(attempt.getDelay() > 0);
+				assertTrue(attempt.getDelay() <= LoginThrottle.MAX_DELAY);
+			}
+			// Ohne Fehlversuche wird nach der Verzögerung immer geprüft
+			assertTrue(attempt.checkAllowed());
+		}
+		for(final LoginThrottle.Attempt attempt : attempts) {
+			attempt.succeeded();
+		}
+		assertEquals(0, _throttle.startAttempt("benutzer", "10.0.0.1").getDelay());
+	}
+
+	@Test
+	public void testFailuresDelayFurtherAttempts() {
+		for(int i = 0; i < LoginThrottle.BURST; i++) {
+			final LoginThrottle.Attempt attempt = _throttle.startAttempt("benutzer", "10.0.0.1");
+			assertEquals(0, attempt.getDelay());
+			assertTrue(attempt.checkAllowed());
+			attempt.failed();
+		}
+		final LoginThrottle.Attempt attempt = _throttle.startAttempt("benutzer", "10.0.0.1");
+		assertTrue(attempt.getDelay() > 0);
+		assertTrue(attempt.getDelay() <= LoginThrottle.REFILL_INTERVAL);
+		assertFalse(attempt.isDue());
+
+		// Andere Benutzer und Adressen sind nicht betroffen
+		assertEquals(0, _throttle.startAttempt("benutzer", "10.0.0.2").getDelay());
+		assertEquals(0, _throttle.startAttempt("anderer", "10.0.0.1").getDelay());
+	}
+
+	@Test
+	public void testSuccessResetsUserBucket() {
+		for(int i = 0; i < LoginThrottle.BURST; i++) {
+			final LoginThrottle.Attempt attempt = _throttle.startAttempt("benutzer", "10.0.0.1");
+			attempt.checkAllowed();
+			attempt.failed();
+		}
+		final LoginThrottle.Attempt attempt = _throttle.startAttempt("benutzer", "10.0.0.1");
+		assertTrue(attempt.getDelay() > 0);
+		attempt.succeeded();
+		assertEquals(0, _throttle.startAttempt("benutzer", "10.0.0.1").getDelay());
+	}
+
+	@Test
+	public void testParallelGuessingIsStoppedAfterFailures() {
+		final List<LoginThrottle.Attempt> attempts = new ArrayList<LoginThrottle.Attempt>();
+		for(int i = 0; i < 20; i++) {
+			attempts.add(_throttle.startAttempt("benutzer", "10.0.0.1"));
+		}
+		for(int i = 0; i < LoginThrottle.BURST; i++) {
+			assertTrue(attempts.get(i).checkAllowed());
+			attempts.get(i).failed();
+		}
+		// Die übrigen Versuche dürfen nach Verbrauch der Tokens nicht mehr prüfen, bis nachgefüllt wurde
+		assertFalse(attempts.get(LoginThrottle.BURST).checkAllowed());
+	}
+
+	@Test
+	public void testManyFailuresAreRejected() {
+		// So viele Fehlversuche, dass die Wartezeit die maximale Verzögerung übersteigt
+		final int failures = LoginThrottle.BURST + (int) (LoginThrottle.MAX_DELAY / LoginThrottle.REFILL_INTERVAL) + 2;
+		for(int i = 0; i < failures; i++) {
+			final LoginThrottle.Attempt attempt = _throttle.startAttempt("benutzer", "10.0.0.1");
+			if(attempt.isRejected()) continue;
+			attempt.failed();
+		}
+		final LoginThrottle.Attempt attempt = _throttle.startAttempt("benutzer", "10.0.0.1");
+		assertTrue(attempt.isRejected());
+		assertFalse(attempt.checkAllowed());
+	}
+
+	@Test
+	public void testAddressBucketCountsOnlyFailures() {
+		for(int i = 0; i < LoginThrottle.ADDRESS_BURST; i++) {
+			final LoginThrottle.Attempt attempt = _throttle.startAttempt("benutzer" + i, "10.0.0.1");
+			assertEquals(0, attempt.getDelay());
+			attempt.failed();
+		}
+		// Ein Passwort wurde bei vielen Benutzern ausprobiert, auch weitere Benutzer werden gebremst
+		assertTrue(_throttle.startAttempt("neu", "10.0.0.1").getDelay() > 0);
+		assertEquals(0, _throttle.startAttempt("neu", "10.0.0.2").getDelay());
+	}
+
+	@Test
+	public void testCancelReleasesPendingAttempt() {
+		for(int i = 0; i < LoginThrottle.BURST; i++) {
+			_throttle.startAttempt("benutzer", "10.0.0.1").cancel();
+		}
+		assertEquals(0, _throttle.startAttempt("benutzer", "10.0.0.1").getDelay());
+	}
+}
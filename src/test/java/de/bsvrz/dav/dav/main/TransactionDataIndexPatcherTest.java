@@ -0,0 +1,303 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.dav.
+ * 
+ * de.bsvrz.dav.dav is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.dav is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.bsvrz.dav.dav.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.dav.main;
+
+import de.bsvrz.dav.daf.main.config.*;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests für {@link TransactionDataIndexPatcher} mit verschachtelten Listen und Arrays vor, in und nach den inneren Datensätzen
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ */
+public class TransactionDataIndexPatcherTest {
+
+	@Test
+	public void testReadAndPatchNestedListsAndArrays() throws Exception {
+		final TransactionDataIndexPatcher patcher = new TransactionDataIndexPatcher(createTransactionAttributeGroup(createHeader()));
+
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(buffer);
+		// Kopf: Werte (2-Byte-Längenangabe, 2-Byte-Ganzzahlen)
+		out.writeShort(3);
+		out.writeShort(1);
+		out.writeShort(2);
+		out.writeShort(3);
+		// Kopf: Einträge (4-Byte-Längenangabe, Liste aus relativer Zeit in Sekunden und Array fester Länge mit drei Float-Werten)
+		out.writeInt(2);
+		for(int i = 0; i < 2; i++) {
+			out.writeInt(60 * i);
+			out.writeFloat(1.0f);
+			out.writeFloat(2.0f);
+			out.writeFloat(3.0f);
+		}
+		// Transaktion: Datensatz (1-Byte-Längenangabe)
+		out.writeByte(2);
+		writeDataset(out, 100, 200, 300, 1000, new byte[]{1, 2, 3}, 2);
+		writeDataset(out, 101, 201, 301, 2000, new byte[0], 0);
+		// Ende
+		out.writeByte(42);
+		out.flush();
+		final byte[] bytes = buffer.toByteArray();
+
+		final List<TransactionDataIndexPatcher.InnerDataset> datasets = patcher.read(bytes);
+		assertEquals(2, datasets.size());
+
+		final TransactionDataIndexPatcher.InnerDataset first = datasets.get(0);
+		assertEquals(100, first.getObjectId());
+		assertEquals(200, first.getAttributeGroupId());
+		assertEquals(300, first.getAspectId());
+		assertEquals(1000, first.getDataTime());
+		assertEquals(3, first.getDataLength());
+		assertArrayEquals(new byte[]{1, 2, 3}, Arrays.copyOfRange(bytes, first.getDataOffset(), first.getDataOffset() + first.getDataLength()));
+
+		final TransactionDataIndexPatcher.InnerDataset second = datasets.get(1);
+		assertEquals(101, second.getObjectId());
+		assertEquals(201, second.getAttributeGroupId());
+		assertEquals(301, second.getAspectId());
+		assertEquals(2000, second.getDataTime());
+		assertEquals(0, second.getDataLength());
+
+		final byte[] expected = bytes.clone();
+		TransactionDataIndexPatcher.patchDataIndex(bytes, first, 0x0102030405060708L);
+		TransactionDataIndexPatcher.patchDataIndex(bytes, second, -1L);
+		assertEquals(0x0102030405060708L, readLong(bytes, first.getDataIndexOffset()));
+		assertEquals(-1L, readLong(bytes, second.getDataIndexOffset()));
+
+		// Außer den Datenindizes darf nichts verändert worden sein
+		for(int i = 0; i < 8; i++) {
+			expected[first.getDataIndexOffset() + i] = bytes[first.getDataIndexOffset() + i];
+			expected[second.getDataIndexOffset() + i] = bytes[second.getDataIndexOffset() + i];
+		}
+		assertArrayEquals(expected, bytes);
+		assertEquals(2, patcher.read(bytes).size());
+	}
+
+	@Test
+	public void testTruncatedDatasetIsRejected() throws Exception {
+		final TransactionDataIndexPatcher patcher = new TransactionDataIndexPatcher(createTransactionAttributeGroup(createHeader()));
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(buffer);
+		out.writeShort(0);
+		out.writeInt(0);
+		out.writeByte(1);
+		writeDataset(out, 100, 200, 300, 1000, new byte[]{1, 2, 3}, 1);
+		out.writeByte(42);
+		out.flush();
+		final byte[] bytes = buffer.toByteArray();
+		assertEquals(1, patcher.read(bytes).size());
+		assertRejected(patcher, Arrays.copyOf(bytes, bytes.length - 1));
+		assertRejected(patcher, Arrays.copyOf(bytes, bytes.length + 1));
+	}
+
+	@Test
+	public void testArraySizeDoesNotOverflow() throws Exception {
+		// Array mit unbegrenzter Länge und 8-Byte-Elementen, die Gesamtgröße passt nicht in einen int
+		final Attribute values = attribute("Werte", integerType(8), true, true, false, 0);
+		final TransactionDataIndexPatcher patcher = new TransactionDataIndexPatcher(createTransactionAttributeGroup(values));
+
+		// 0x7FFFFFFF * 8 ergibt als int -8, 0x20000001 * 8 ergibt als int 8. Beides darf nicht zu einer falschen Position führen.
+		for(final int count : new int[]{0x7FFFFFFF, 0x20000001}) {
+			final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			final DataOutputStream out = new DataOutputStream(buffer);
+			out.writeInt(count);
+			out.writeLong(0);
+			out.writeByte(1);
+			writeDataset(out, 100, 200, 300, 1000, new byte[]{1, 2, 3}, 0);
+			out.writeByte(42);
+			out.flush();
+			assertRejected(patcher, buffer.toByteArray());
+		}
+	}
+
+	private static void assertRejected(final TransactionDataIndexPatcher patcher, final byte[] bytes) {
+		try {
+			patcher.read(bytes);
+			fail("Fehlerhafter Datensatz wurde akzeptiert");
+		}
+		catch(IllegalArgumentException expected) {
+		}
+	}
+
+	private static void writeDataset(
+			final DataOutputStream out,
+			final long objectId,
+			final long attributeGroupId,
+			final long aspectId,
+			final long dataTime,
+			final byte[] data,
+			final int appendixCount) throws IOException {
+		out.writeLong(objectId);
+		out.writeLong(attributeGroupId);
+		out.writeLong(aspectId);
+		out.writeShort(0); // Simulationsvariante
+		out.writeLong(0); // Datenindex
+		out.writeLong(dataTime);
+		out.writeInt(data.length);
+		out.write(data);
+		out.writeByte(appendixCount);
+		for(int i = 0; i < appendixCount; i++) {
+			out.writeInt(i);
+		}
+	}
+
+	private static long readLong(final byte[] bytes, final int offset) {
+		long result = 0;
+		for(int i = 0; i < 8; i++) {
+			result = (result << 8) | (bytes[offset + i] & 0xFF);
+		}
+		return result;
+	}
+
+	/** Kopf vor der Transaktion mit Arrays variabler und fester Länge sowie einem Array von Listen */
+	private static Attribute createHeader() {
+		return attribute(
+				"Kopf",
+				listType(
+						attribute("Werte", integerType(2), true, true, true, 300),
+						attribute(
+								"Einträge",
+								listType(
+										attribute("Zeit", timeType(true, TimeAttributeType.SECONDS), false, false, false, 0),
+										attribute("Faktor", doubleType(DoubleAttributeType.FLOAT), true, false, true, 3)
+								),
+								true, true, false, 0
+						)
+				),
+				false, false, false, 0
+		);
+	}
+
+	private static AttributeGroup createTransactionAttributeGroup(final Attribute header) {
+		final Attribute dataIdentification = attribute(
+				"Datenidentifikation",
+				listType(
+						attribute("Objekt", referenceType(), false, false, false, 0),
+						attribute("Attributgruppe", referenceType(), false, false, false, 0),
+						attribute("Aspekt", referenceType(), false, false, false, 0),
+						attribute("Simulationsvariante", integerType(2), false, false, false, 0)
+				),
+				false, false, false, 0
+		);
+		final Attribute dataset = attribute(
+				"Datensatz",
+				listType(
+						dataIdentification,
+						attribute("Datenindex", integerType(8), false, false, false, 0),
+						attribute("Datenzeit", timeType(false, TimeAttributeType.MILLISECONDS), false, false, false, 0),
+						attribute("Daten", integerType(1), true, true, false, 0),
+						attribute("Anhang", listType(attribute("Wert", integerType(4), false, false, false, 0)), true, true, true, 100)
+				),
+				true, true, true, 100
+		);
+		final Attribute transaction = attribute("Transaktion", listType(dataset), false, false, false, 0);
+		final Attribute end = attribute("Ende", integerType(1), false, false, false, 0);
+		return proxy(AttributeGroup.class, "getAttributes", Arrays.asList(header, transaction, end));
+	}
+
+	private static Attribute attribute(
+			final String name,
+			final AttributeType type,
+			final boolean array,
+			final boolean countVariable,
+			final boolean countLimited,
+			final int maxCount) {
+		return proxy(
+				Attribute.class,
+				"getName", name,
+				"getAttributeType", type,
+				"isArray", array,
+				"isCountVariable", countVariable,
+				"isCountLimited", countLimited,
+				"getMaxCount", maxCount
+		);
+	}
+
+	private static AttributeListDefinition listType(final Attribute... attributes) {
+		return proxy(AttributeListDefinition.class, "getAttributes", Arrays.asList(attributes));
+	}
+
+	private static ReferenceAttributeType referenceType() {
+		return proxy(ReferenceAttributeType.class);
+	}
+
+	private static IntegerAttributeType integerType(final int byteCount) {
+		return proxy(IntegerAttributeType.class, "getByteCount", byteCount);
+	}
+
+	private static TimeAttributeType timeType(final boolean relative, final byte accuracy) {
+		return proxy(TimeAttributeType.class, "isRelative", relative, "getAccuracy", accuracy);
+	}
+
+	private static DoubleAttributeType doubleType(final byte accuracy) {
+		return proxy(DoubleAttributeType.class, "getAccuracy", accuracy);
+	}
+
+	/**
+	 * Erzeugt ein Konfigurationsobjekt, das für die angegebenen Methodennamen feste Werte liefert
+	 *
+	 * @param type           Interface
+	 * @param nameValuePairs Abwechselnd Methodenname und Rückgabewert
+	 * @param <T>            Typ des Interfaces
+	 *
+	 * @return Objekt
+	 */
+	private static <T> T proxy(final Class<T> type, final Object... nameValuePairs) {
+		final Map<String, Object> values = new HashMap<String, Object>();
+		for(int i = 0; i < nameValuePairs.length; i += 2) {
+			values.put((String) nameValuePairs[i], nameValuePairs[i + 1]);
+		}
+		return type.cast(
+				Proxy.newProxyInstance(
+						type.getClassLoader(), new Class<?>[]{type}, new InvocationHandler() {
+							@Override
+							public Object invoke(final Object proxy, final Method method, final Object[] args) {
+								if(values.containsKey(method.getName())) return values.get(method.getName());
+								if(method.getName().equals("toString")) return type.getSimpleName() + values;
+								if(method.getName().equals("hashCode")) return System.identityHashCode(proxy);
+								if(method.getName().equals("equals")) return proxy == args[0];
+								throw new UnsupportedOperationException(method.getName());
+							}
+						}
+				)
+		);
+	}
+}